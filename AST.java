@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public abstract class AST {
 
-  public AST (SourcePosition posn) {
+  public AST (int posn) {
     this.posn = posn;
   }
   
@@ -17,11 +15,11 @@ public abstract class AST {
       String fullClassName = this.getClass().getName();
       String cn = fullClassName.substring(1 + fullClassName.lastIndexOf('.'));
       if (ASTDisplay.showPosition)
-    	  cn = cn + " " + posn.toString();
+    	  cn = cn + " " + ASTDisplay.position(posn);
       return cn;
   }
 
   public abstract <A,R> R visit(Visitor<A,R> v, A o);
 
-  public SourcePosition posn;
+  public int posn;
 }
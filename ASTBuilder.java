@@ -0,0 +1,194 @@
+package miniJava.SyntacticAnalyzer;
+
+import miniJava.AbstractSyntaxTrees.*;
+import miniJava.AbstractSyntaxTrees.Package;
+
+/*
+ * Builds the AST, for Parser: each node is the AST object for it, a name
+ * or operator the Token, and the members of a class a FieldDeclList and a
+ * MethodDeclList filled side by side.  It keeps nothing of its own, so
+ * every Parser shares INSTANCE.
+ */
+final class ASTBuilder implements NodeBuilder<Package, ClassDeclList, ClassDecl, ASTBuilder.Members, ParameterDeclList,
+		Type, StatementList, Statement, ExprList, Expression, Reference, Token> {
+
+	static final ASTBuilder INSTANCE = new ASTBuilder();
+
+	static final class Members {
+		final FieldDeclList fields = new FieldDeclList();
+		final MethodDeclList methods = new MethodDeclList();
+	}
+
+	private ASTBuilder() {
+	}
+
+	public Token token(Parser parser) {
+		return parser.currentToken();
+	}
+
+	public Package program(ClassDeclList classes, int posn) {
+		return new Package(classes, posn);
+	}
+
+	public ClassDeclList classList() {
+		return new ClassDeclList();
+	}
+
+	public void addClass(ClassDeclList classes, ClassDecl cd) {
+		classes.add(cd);
+	}
+
+	public ClassDecl classDecl(Token name, Members members, int posn) {
+		ClassDecl cd = new ClassDecl(name.spelling, members.fields, members.methods, posn);
+		cd.symbol = name.symbol;
+		return cd;
+	}
+
+	public Members memberList() {
+		return new Members();
+	}
+
+	private static FieldDecl member(boolean isPrivate, boolean isStatic, Type type, Token name, int posn) {
+		FieldDecl fd = new FieldDecl(isPrivate, isStatic, type, name.spelling, posn);
+		fd.symbol = name.symbol;
+		return fd;
+	}
+
+	public void field(Members members, boolean isPrivate, boolean isStatic, Type type, Token name, int posn) {
+		members.fields.add(member(isPrivate, isStatic, type, name, posn));
+	}
+
+	public void method(Members members, boolean isPrivate, boolean isStatic, Type type, Token name,
+			ParameterDeclList parameters, StatementList body, int posn) {
+		FieldDecl member = member(isPrivate, isStatic, type, name, posn);
+		members.methods.add(new MethodDecl(member, parameters, body, posn));
+	}
+
+	public ParameterDeclList parameterList() {
+		return new ParameterDeclList();
+	}
+
+	public void parameter(ParameterDeclList parameters, Type type, Token name, int posn) {
+		ParameterDecl pd = new ParameterDecl(type, name.spelling, posn);
+		pd.symbol = name.symbol;
+		parameters.add(pd);
+	}
+
+	public StatementList statementList() {
+		return new StatementList();
+	}
+
+	public void addStatement(StatementList statements, Statement s) {
+		statements.add(s);
+	}
+
+	public StatementList lazyBody(Parser parser, int start) {
+		return new LazyStatementList(parser, start);
+	}
+
+	public Type baseType(TypeKind kind, int posn) {
+		return new BaseType(kind, posn);
+	}
+
+	public Type classType(Token name, int posn) {
+		return new ClassType(new Identifier(name, posn), posn);
+	}
+
+	public Type arrayType(Type eltType, int posn) {
+		return new ArrayType(eltType, posn);
+	}
+
+	public Statement block(StatementList statements, int posn) {
+		return new BlockStmt(statements, posn);
+	}
+
+	public Statement varDecl(Type type, Token name, Expression init, int posn) {
+		VarDecl vd = new VarDecl(type, name.spelling, posn);
+		vd.symbol = name.symbol;
+		return new VarDeclStmt(vd, init, posn);
+	}
+
+	public Statement assign(Reference ref, Expression val, int posn) {
+		return new AssignStmt(ref, val, posn);
+	}
+
+	public Statement ixAssign(Token array, Expression index, Expression val, int posn) {
+		return new IxAssignStmt(indexed(array, index, posn), val, posn);
+	}
+
+	public Statement callStmt(Reference ref, ExprList arguments, int posn) {
+		return new CallStmt(ref, arguments, posn);
+	}
+
+	public Statement returnStmt(Expression expr, int posn) {
+		return new ReturnStmt(expr, posn);
+	}
+
+	public Statement ifStmt(Expression cond, Statement thenStmt, Statement elseStmt, int posn) {
+		if (elseStmt == null)
+			return new IfStmt(cond, thenStmt, posn);
+		return new IfStmt(cond, thenStmt, elseStmt, posn);
+	}
+
+	public Statement whileStmt(Expression cond, Statement body, int posn) {
+		return new WhileStmt(cond, body, posn);
+	}
+
+	public ExprList argumentList() {
+		return new ExprList();
+	}
+
+	public void addArgument(ExprList arguments, Expression e) {
+		arguments.add(e);
+	}
+
+	public Expression unary(Token operator, Expression operand, int posn) {
+		return new UnaryExpr(new Operator(operator, posn), operand, posn);
+	}
+
+	public Expression binary(Token operator, Expression left, Expression right, int posn) {
+		return new BinaryExpr(new Operator(operator, posn), left, right, posn);
+	}
+
+	public Expression refExpr(Reference ref, int posn) {
+		return new RefExpr(ref, posn);
+	}
+
+	public Expression callExpr(Reference ref, ExprList arguments, int posn) {
+		return new CallExpr(ref, arguments, posn);
+	}
+
+	public Expression literal(Token token, int posn) {
+		if (token.kind == TokenKind.NUM)
+			return new LiteralExpr(new IntLiteral(token, posn), posn);
+		return new LiteralExpr(new BooleanLiteral(token, posn), posn);
+	}
+
+	public Expression newObject(Token className, int typePosn, int posn) {
+		return new NewObjectExpr(new ClassType(new Identifier(className, typePosn), typePosn), posn);
+	}
+
+	public Expression newArray(Type eltType, Expression size, int posn) {
+		return new NewArrayExpr(eltType, size, posn);
+	}
+
+	public Reference thisRef(int posn) {
+		return new ThisRef(posn);
+	}
+
+	public Reference idRef(Token name, int posn) {
+		return new IdRef(new Identifier(name, posn), posn);
+	}
+
+	private static IndexedRef indexed(Token array, Expression index, int posn) {
+		return new IndexedRef(new IdRef(new Identifier(array, posn), posn), index, posn);
+	}
+
+	public Reference indexedRef(Token array, Expression index, int posn) {
+		return indexed(array, index, posn);
+	}
+
+	public Reference qualifiedRef(Reference ref, Token name, int namePosn, int posn) {
+		return new QualifiedRef(ref, new Identifier(name, namePosn), posn);
+	}
+}
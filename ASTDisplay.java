@@ -5,6 +5,7 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
+import miniJava.SyntacticAnalyzer.SourcePosition;
 
 
 /*
@@ -22,8 +23,9 @@ public class ASTDisplay implements Visitor<String,Object> {
 	
 	public static boolean showPosition = false;
 	
-	public ContextChecker cc = new ContextChecker();
-    
+	// line table of the file displayed, used when showPosition is set
+	public static SourcePosition positions = null;
+	
     /**
      * print text representation of AST to stdout
      * @param ast root node of AST 
@@ -38,6 +40,35 @@ public class ASTDisplay implements Visitor<String,Object> {
         System.out.println("=============================================");
     }   
     
+    /**
+     * show a program one class at a time, as showTree shows it whole:
+     * beginTree with the skeleton of the program, showClass for each class
+     * in order, then endTree
+     */
+    public void beginTree(Package prog){
+        System.out.println("======= AST Display =========================");
+        show("", prog);
+        show("", "  ClassDeclList [" + prog.classDeclList.size() + "]");
+    }
+    
+    public void showClass(ClassDecl clas){
+        clas.visit(this, "  . ");
+    }
+    
+    public void endTree(){
+        System.out.println("=============================================");
+    }
+    
+    /**
+     * format a node position as line:column when the line table is known
+     * @param posn  source offset of the node
+     */
+    public static String position(int posn) {
+    	if (positions != null)
+    		return positions.toString(posn);
+    	return posn == SourcePosition.NONE ? "?" : "@" + posn;
+    }
+    
     // methods to format output
     
     /**
@@ -74,11 +105,6 @@ public class ASTDisplay implements Visitor<String,Object> {
     private String indent(String prefix) {
         return prefix + "  ";
     }
-    
-    //Returns the ContextChecker after contextual Analysis
-    public ContextChecker getCC(){
-    	return cc;
-    }
 	///////////////////////////////////////////////////////////////////////////////
 	//
 	// PACKAGE
@@ -90,7 +116,6 @@ public class ASTDisplay implements Visitor<String,Object> {
         ClassDeclList cl = prog.classDeclList;
         show(arg,"  ClassDeclList [" + cl.size() + "]");
         String pfx = arg + "  . "; 
-        cc.idTable.openScope();
         for (ClassDecl c: prog.classDeclList){
             c.visit(this, pfx);
         }
@@ -105,24 +130,20 @@ public class ASTDisplay implements Visitor<String,Object> {
 	///////////////////////////////////////////////////////////////////////////////
     
     public Object visitClassDecl(ClassDecl clas, String arg){
-    	cc.idTable.enter(clas.name, new Attribute(clas.name, clas));
         show(arg, clas);
         show(indent(arg), quote(clas.name) + " classname");
         show(arg,"  FieldDeclList [" + clas.fieldDeclList.size() + "]");
         String pfx = arg + "  . "; 
-        cc.idTable.openScope();
         for (FieldDecl f: clas.fieldDeclList){
         	f.visit(this, pfx);
         }
         show(arg,"  MethodDeclList [" + clas.methodDeclList.size() + "]");
         for (MethodDecl m: clas.methodDeclList)
         	m.visit(this, pfx);
-        cc.idTable.closeScope();
         return null;
     }
     
     public Object visitFieldDecl(FieldDecl f, String arg){
-       	cc.idTable.enter(f.name, new Attribute(f.name, f));
     	show(arg, "(" + (f.isPrivate ? "private": "public") 
     			+ (f.isStatic ? " static) " :") ") + f.toString());
     	f.type.visit(this, indent(arg));
@@ -131,8 +152,6 @@ public class ASTDisplay implements Visitor<String,Object> {
     }
     
     public Object visitMethodDecl(MethodDecl m, String arg){
-    	cc.idTable.enter(m.name, new Attribute(m.name, m));
-    	
        	show(arg, "(" + (m.isPrivate ? "private": "public") 
     			+ (m.isStatic ? " static) " :") ") + m.toString());
     	m.type.visit(this, indent(arg));
@@ -141,29 +160,19 @@ public class ASTDisplay implements Visitor<String,Object> {
         show(arg, "  ParameterDeclList [" + pdl.size() + "]");
         String pfx = ((String) arg) + "  . ";
         
-        //Open scope on param decls
-        cc.idTable.openScope();
         for (ParameterDecl pd: pdl) {
         	pd.visit(this, pfx);
         }
         StatementList sl = m.statementList;
         show(arg, "  StmtList [" + sl.size() + "]");
         
-        cc.idTable.openScope();
         for (Statement s: sl) {
            s.visit(this, pfx);
         }
-        //Close scope on the declarations in the statements
-        cc.idTable.closeScope();
-        
-        //Close scope on the parameter decls
-        cc.idTable.closeScope();
-        
         return null;
     }
     
     public Object visitParameterDecl(ParameterDecl pd, String arg){
-    	cc.idTable.enter(pd.name, new Attribute(pd.name,pd));
         show(arg, pd);
         pd.type.visit(this, indent(arg));
         show(indent(arg), quote(pd.name) + "parametername ");
@@ -171,7 +180,6 @@ public class ASTDisplay implements Visitor<String,Object> {
     } 
     
     public Object visitVarDecl(VarDecl vd, String arg){
-    	cc.idTable.enter(vd.name, new Attribute(vd.name,vd));
         show(arg, vd);
         vd.type.visit(this, indent(arg));
         show(indent(arg), quote(vd.name) + " varname");
@@ -210,7 +218,6 @@ public class ASTDisplay implements Visitor<String,Object> {
 	///////////////////////////////////////////////////////////////////////////////
 
     public Object visitBlockStmt(BlockStmt stmt, String arg){
-        cc.idTable.openScope();
     	show(arg, stmt);
         StatementList sl = stmt.sl;
         show(arg,"  StatementList [" + sl.size() + "]");
@@ -218,7 +225,6 @@ public class ASTDisplay implements Visitor<String,Object> {
         for (Statement s: sl) {
         	s.visit(this, pfx);
         }
-        cc.idTable.closeScope();
         return null;
     }
     
@@ -378,17 +384,6 @@ public class ASTDisplay implements Visitor<String,Object> {
     
     public Object visitIdentifier(Identifier id, String arg){
         show(arg, quote(id.spelling) + " " + id.toString());
-        int i = cc.idTable.currentScope;
-        while(i>=0){
-        	ScopeLevel refs = cc.idTable.idTable.get(i);
-        	for(Attribute ref : refs.entry){
-        		if(ref.id.equals(id)){
-        			id.decl = ref.decl;
-        			return null;
-        		}
-        	i--;
-        	}
-        }
         return null;
     }
     
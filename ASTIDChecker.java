@@ -5,269 +5,311 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
+import miniJava.ErrorReporter;
 import miniJava.AbstractSyntaxTrees.IdentificationTable.IDError;
 
 /*
- * Display AST in text form
- *   In-order traversal of AST, visiting each node with a method of the form  
- *   
- *       public Object visitXXX( XXX astnode, String arg)
- *       
- *   where arg is a prefix string (indentation) to precede display of ast node
- *   and a null Object is returned as the result.
- *   
- *   implements Visitor<argtype,resulttype>
+ * Identification
+ *   Links every use of a name to its declaration, decorating the AST in
+ *   place: Identifier.decl and ClassType.decl are set and nothing else is
+ *   changed or allocated, so the tree returned is the tree passed in.
+ *
+ *   Class names are all entered before any class is visited, and the members
+ *   of a class before any member, so classes and members may be used before
+ *   they are declared.  Class types are found through the class index of the
+ *   Package, and the id of a QualifiedRef through the member index of the
+ *   class its reference denotes, when that is a class; otherwise it is left
+ *   for the type checker.
+ *
+ *   To check in parallel (see ParallelChecker) enterClasses and enterMembers
+ *   are called first, on one thread, and then each method is identified on
+ *   its own with identifyMethod, which keeps only the method's own names in
+ *   its table and finds class and member names in the indexes of the
+ *   Package and ClassDecl, with the same result.
+ *
+ *   implements Visitor<argtype,resulttype>, neither of which is used
  */
-public class ASTIDChecker implements Visitor<String,Object> {
-	
-	public static boolean showPosition = false;
-	
+public class ASTIDChecker implements Visitor<Object,Object> {
+
 	public ContextChecker cc = new ContextChecker();
-    
+	public ErrorReporter reporter;
+
+	private Package currentPackage;
+	private ClassDecl currentClass;
+	private boolean useIndexes;	// class and member names are not in the table
+
     /**
-     * print text representation of AST to stdout
-     * @param ast root node of AST 
+     * identify the names in an AST
+     * @param ast root node of AST
+     * @return the same AST, decorated
      */
 	public AST visitTree(AST ast){
-		return (AST)ast.visit(this, null);
-		
+		ast.visit(this, null);
+		return ast;
 	}
-	
-    public void showTree(AST ast){
-        System.out.println("======= AST Display =========================");
-        ast.visit(this, "");
-        System.out.println("=============================================");
-    }   
-    
-    // methods to format output
-    
+
+    //Returns the ContextChecker after contextual Analysis
+    public ContextChecker getCC(){
+    	return cc;
+    }
+
+    private void error(IDError e, int posn){
+    	error(e.message, posn);
+    }
+
+    private void error(String message, int posn){
+    	if (reporter != null)
+    		reporter.reportError("Identification error: " + message, posn);
+    	else
+    		System.out.println(message);
+    }
+
     /**
-     * display arbitrary text for a node
-     * @param prefix  spaced indent to indicate depth in AST
-     * @param text    preformatted node display
+     * @return the class whose members ref names, or null if ref is not
+     * (yet known to be) of class type
      */
-    private void show(String prefix, String text) {
-        System.out.println(prefix + text);
+    private ClassDecl classOf(Reference ref){
+    	if (ref instanceof ThisRef)
+    		return currentClass;
+    	Declaration decl = null;
+    	if (ref instanceof IdRef)
+    		decl = ((IdRef) ref).id.decl;
+    	else if (ref instanceof QualifiedRef)
+    		decl = ((QualifiedRef) ref).id.decl;
+    	if (decl instanceof ClassDecl)
+    		return (ClassDecl) decl;
+    	if (decl != null && !(decl instanceof MethodDecl) && decl.type instanceof ClassType
+    			&& ((ClassType) decl.type).decl instanceof ClassDecl)
+    		return (ClassDecl) ((ClassType) decl.type).decl;
+    	return null;
     }
-    
+
+    void enter(Declaration decl){
+    	try{
+    		cc.idTable.enter(decl, new Attribute(decl.name, decl));
+    	}
+    	catch(IDError e){
+    		error(e, decl.posn);
+    	}
+    }
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// PACKAGE
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
     /**
-     * display AST node by name
-     * @param prefix  spaced indent to indicate depth in AST
-     * @param node    AST node, will be shown by name
+     * enter the classes of prog in a new scope
      */
-    private void show(String prefix, AST node) {
-    	System.out.println(prefix + node.toString());
+    public void enterClasses(Package prog){
+        currentPackage = prog;
+        cc.idTable.openScope();
+        for (ClassDecl c: prog.classDeclList){
+            enter(c);
+        }
     }
-    
+
     /**
-     * quote a string
-     * @param text    string to quote
+     * enter the members of clas and identify the types of its fields,
+     * leaving its methods to identifyMethod
      */
-    private String quote(String text) {
-    	return ("\"" + text + "\"");
+    public void enterMembers(ClassDecl clas){
+        openMembers(clas);
+        for (FieldDecl f: clas.fieldDeclList)
+        	f.visit(this, null);
+        cc.idTable.closeScope();
     }
-    
+
     /**
-     * increase depth in AST
-     * @param prefix  current spacing to indicate depth in AST
-     * @return  new spacing 
+     * open the member scope of clas and enter its member names
      */
-    private String indent(String prefix) {
-        return prefix + "  ";
-    }
-    
-    //Returns the ContextChecker after contextual Analysis
-    public ContextChecker getCC(){
-    	return cc;
+    void openMembers(ClassDecl clas){
+        currentClass = clas;
+        cc.idTable.openScope();
+        for (FieldDecl f: clas.fieldDeclList)
+        	enter(f);
+        for (MethodDecl m: clas.methodDeclList)
+        	enter(m);
     }
-	///////////////////////////////////////////////////////////////////////////////
-	//
-	// PACKAGE
-	//
-	/////////////////////////////////////////////////////////////////////////////// 
 
-    public Object visitPackage(Package prog, String arg){
-        ClassDeclList cl = prog.classDeclList;
+    /**
+     * identify method m of clas, finding class and member names through the
+     * indexes of prog and clas, which must not change meanwhile
+     */
+    public void identifyMethod(Package prog, ClassDecl clas, MethodDecl m){
+        currentPackage = prog;
+        currentClass = clas;
+        useIndexes = true;
+        // the method's own scopes get the levels they have in a whole pass
+        cc.idTable.openScope();
         cc.idTable.openScope();
-        ClassDeclList newCl = new ClassDeclList();
+        m.visit(this, null);
+        cc.idTable.closeScope();
+        cc.idTable.closeScope();
+    }
+
+    public Object visitPackage(Package prog, Object arg){
+        enterClasses(prog);
         for (ClassDecl c: prog.classDeclList){
-            newCl.add((ClassDecl)c.visit(this, null));
+            c.visit(this, null);
         }
-        prog.classDeclList = newCl;
-        return prog;
+        cc.idTable.closeScope();
+        return null;
     }
-    
-    
+
+
 	///////////////////////////////////////////////////////////////////////////////
 	//
 	// DECLARATIONS
 	//
 	///////////////////////////////////////////////////////////////////////////////
-    
-    public Object visitClassDecl(ClassDecl clas, String arg){
-    	cc.idTable.enter(clas.name, new Attribute(clas.name, clas));
-        cc.idTable.openScope();
-        FieldDeclList newFl = new FieldDeclList();
-        for (FieldDecl f: clas.fieldDeclList){
-        	newFl.add((FieldDecl)f.visit(this, null));
-        }
-        MethodDeclList newMl = new MethodDeclList();
+
+    public Object visitClassDecl(ClassDecl clas, Object arg){
+        openMembers(clas);
+        for (FieldDecl f: clas.fieldDeclList)
+        	f.visit(this, null);
         for (MethodDecl m: clas.methodDeclList)
-        	newMl.add((MethodDecl)m.visit(this, null));
+        	m.visit(this, null);
         cc.idTable.closeScope();
-        
-        return new ClassDecl(clas.name, newFl, newMl, null);
-    }
-    
-    public Object visitFieldDecl(FieldDecl f, String arg){
-       	cc.idTable.enter(f.name, new Attribute(f.name, f));
-    	f.type = (Type)f.type.visit(this, null);
-        return f;
-    }
-    
-    public Object visitMethodDecl(MethodDecl m, String arg){
-    	cc.idTable.enter(m.name, new Attribute(m.name, m));
+        return null;
+    }
+
+    public Object visitFieldDecl(FieldDecl f, Object arg){
+    	f.type.visit(this, null);
+        return null;
+    }
+
+    public Object visitMethodDecl(MethodDecl m, Object arg){
     	m.type.visit(this, null);
-        ParameterDeclList pdl = m.parameterDeclList;
-        
+
         //Open scope on param decls
         cc.idTable.openScope();
-	ParameterDeclList newPDL = new ParameterDeclList();
-        for (ParameterDecl pd: pdl) {
-        	newPDL.add((ParameterDecl)pd.visit(this, null));
+        for (ParameterDecl pd: m.parameterDeclList) {
+        	pd.visit(this, null);
         }
-	
-        StatementList sl = m.statementList;
-	StatementList newSL = new StatementList();
-        
+
         cc.idTable.openScope();
-        for (Statement s: sl) {
-           newSL.add((Statement)s.visit(this, null));
+        for (Statement s: m.statementList) {
+        	s.visit(this, null);
         }
         //Close scope on the declarations in the statements
         cc.idTable.closeScope();
-        
+
         //Close scope on the parameter decls
         cc.idTable.closeScope();
-        
-        return new MethodDecl(new FieldDecl(m.isPrivate, m.isStatic, m.type, m.name, null), newPDL, newSL, null) ;
-    }
-    
-    public Object visitParameterDecl(ParameterDecl pd, String arg){
-    	cc.idTable.enter(pd.name, new Attribute(pd.name,pd));
-        return new ParameterDecl((Type)pd.type.visit(this, null), pd.name, null);
-    } 
-    
-    public Object visitVarDecl(VarDecl vd, String arg){
-    	cc.idTable.enter(vd.name, new Attribute(vd.name,vd));
-        return new VarDecl((Type)vd.type.visit(this, null), vd.name, null);
-    }
- 
-	
+        return null;
+    }
+
+    public Object visitParameterDecl(ParameterDecl pd, Object arg){
+    	pd.type.visit(this, null);
+    	enter(pd);
+        return null;
+    }
+
+    public Object visitVarDecl(VarDecl vd, Object arg){
+    	vd.type.visit(this, null);
+    	enter(vd);
+        return null;
+    }
+
+
 	///////////////////////////////////////////////////////////////////////////////
 	//
 	// TYPES
 	//
 	///////////////////////////////////////////////////////////////////////////////
-    
-    public Object visitBaseType(BaseType type, String arg){
-        switch(type.typeKind){
-        case INT:
-        	 return new BaseType(TypeKind.INT, null);
-        case BOOLEAN:
-        	return new BaseType(TypeKind.BOOLEAN,null);
-        case VOID:
-        	return new BaseType(TypeKind.VOID, null);
-        case NULL:
-        	return new BaseType(TypeKind.NULL, null);
-        default:
-        	return null;
-        	
-        }
+
+    public Object visitBaseType(BaseType type, Object arg){
+        return null;
     }
-    
-    public Object visitClassType(ClassType type, String arg){
-        try{
-        	type.decl = cc.idTable.retrieve(type.className.spelling).decl;
+
+    public Object visitClassType(ClassType type, Object arg){
+        if (currentPackage != null){
+        	// class names are not hidden by variables of the same name
+        	type.decl = currentPackage.classDecl(type.className.spelling);
+        	if (type.decl == null)
+        		error("Could not find class " + type.className.spelling, type.posn);
         }
-        catch(IDError e){
-        	System.out.println(e.message);
-        	return new BaseType(TypeKind.UNSUPPORTED, null);
+        else{
+        	try{
+        		type.decl = cc.idTable.retrieve(type.className).decl;
+        	}
+        	catch(IDError e){
+        		error(e, type.posn);
+        	}
         }
-        return type;
+        type.className.decl = type.decl;
+        return null;
     }
-    
-    public Object visitArrayType(ArrayType type, String arg){
-        return new ArrayType((Type)type.eltType.visit(this, indent(arg)),null);
-      
+
+    public Object visitArrayType(ArrayType type, Object arg){
+        type.eltType.visit(this, null);
+        return null;
     }
-    
-	
+
+
 	///////////////////////////////////////////////////////////////////////////////
 	//
 	// STATEMENTS
 	//
 	///////////////////////////////////////////////////////////////////////////////
 
-    public Object visitBlockStmt(BlockStmt stmt, String arg){
+    public Object visitBlockStmt(BlockStmt stmt, Object arg){
         cc.idTable.openScope();
-        StatementList sl = stmt.sl;
-        StatementList newSL = new StatementList();
-        for (Statement s: sl) {
-        	newSL.add((Statement)s.visit(this,null));
+        for (Statement s: stmt.sl) {
+        	s.visit(this, null);
         }
         cc.idTable.closeScope();
-        return new BlockStmt(newSL,null);
-    }
-    
-    public Object visitVardeclStmt(VarDeclStmt stmt, String arg){
-        stmt.varDecl = (VarDecl)stmt.varDecl.visit(this, indent(arg));	
-        stmt.initExp = (Expression) stmt.initExp.visit(this, indent(arg));
-        return stmt;
-    }
-    
-    public Object visitAssignStmt(AssignStmt stmt, String arg){
-        stmt.ref = (Reference)stmt.ref.visit(this, indent(arg));
-        stmt.val = (Expression)stmt.val.visit(this, indent(arg));
-        return stmt;
-    }
-    
-    public Object visitIxAssignStmt(IxAssignStmt stmt, String arg){
-        stmt.ixRef = (IndexedRef)stmt.ixRef.visit(this, indent(arg));
-        stmt.val = (Expression)stmt.val.visit(this, indent(arg));
-        return stmt;
-    }
-    
-    public Object visitCallStmt(CallStmt stmt, String arg){
-    	Reference r = (Reference)stmt.methodRef.visit(this, indent(arg));
-        ExprList al = stmt.argList;
-        ExprList newAl = new ExprList();
-        for (Expression e: al) {
-            newAl.add((Expression)e.visit(this, null));
+        return null;
+    }
+
+    public Object visitVardeclStmt(VarDeclStmt stmt, Object arg){
+        stmt.varDecl.visit(this, null);
+        stmt.initExp.visit(this, null);
+        return null;
+    }
+
+    public Object visitAssignStmt(AssignStmt stmt, Object arg){
+        stmt.ref.visit(this, null);
+        stmt.val.visit(this, null);
+        return null;
+    }
+
+    public Object visitIxAssignStmt(IxAssignStmt stmt, Object arg){
+        stmt.ixRef.visit(this, null);
+        stmt.val.visit(this, null);
+        return null;
+    }
+
+    public Object visitCallStmt(CallStmt stmt, Object arg){
+        stmt.methodRef.visit(this, null);
+        for (Expression e: stmt.argList) {
+            e.visit(this, null);
         }
-        return new CallStmt(r, newAl, null);
-    }
-    
-    public Object visitReturnStmt(ReturnStmt stmt, String arg){
-         if (stmt.returnExpr != null)
-            stmt.returnExpr = (Expression)stmt.returnExpr.visit(this, indent(arg));
-        return stmt;
-    }
-    
-    public Object visitIfStmt(IfStmt stmt, String arg){
-        stmt.cond = (Expression)stmt.cond.visit(this, indent(arg));
-        stmt.thenStmt = (Statement)stmt.thenStmt.visit(this, indent(arg));
+        return null;
+    }
+
+    public Object visitReturnStmt(ReturnStmt stmt, Object arg){
+        if (stmt.returnExpr != null)
+            stmt.returnExpr.visit(this, null);
+        return null;
+    }
+
+    public Object visitIfStmt(IfStmt stmt, Object arg){
+        stmt.cond.visit(this, null);
+        stmt.thenStmt.visit(this, null);
         if (stmt.elseStmt != null)
-            stmt.elseStmt = (Statement)stmt.elseStmt.visit(this, indent(arg));
-        return stmt;
+            stmt.elseStmt.visit(this, null);
+        return null;
     }
-    
-    public Object visitWhileStmt(WhileStmt stmt, String arg){
-        stmt.cond = (Expression)stmt.cond.visit(this, indent(arg));
-        stmt.body = (Statement)stmt.body.visit(this, indent(arg));
-        return stmt;
+
+    public Object visitWhileStmt(WhileStmt stmt, Object arg){
+        stmt.cond.visit(this, null);
+        stmt.body.visit(this, null);
+        return null;
     }
-    
+
 
 	///////////////////////////////////////////////////////////////////////////////
 	//
@@ -275,119 +317,115 @@ public class ASTIDChecker implements Visitor<String,Object> {
 	//
 	///////////////////////////////////////////////////////////////////////////////
 
-    public Object visitUnaryExpr(UnaryExpr expr, String arg){
-        expr.operator = (Operator)expr.operator.visit(this, indent(arg));
-        expr.expr = (Expression)expr.expr.visit(this, indent(indent(arg)));
-        return expr;
-    }
-    
-    public Object visitBinaryExpr(BinaryExpr expr, String arg){
-        expr.operator = (Operator)expr.operator.visit(this, indent(arg));
-        expr.left = (Expression)expr.left.visit(this, indent(indent(arg)));
-        expr.right = (Expression)expr.right.visit(this, indent(indent(arg)));
-        return expr;
-    }
-    
-    public Object visitRefExpr(RefExpr expr, String arg){
-        expr.ref = (Reference)expr.ref.visit(this, indent(arg));
-        return expr;
-    }
-    
-    public Object visitCallExpr(CallExpr expr, String arg){
-    
-        Reference newR = (Reference)expr.functionRef.visit(this, indent(arg));
-        ExprList al = expr.argList;
-        ExprList newAl= new ExprList();
-        for (Expression e: al) {
-            newAl.add((Expression)e.visit(this, null));
+    public Object visitUnaryExpr(UnaryExpr expr, Object arg){
+        expr.expr.visit(this, null);
+        return null;
+    }
+
+    public Object visitBinaryExpr(BinaryExpr expr, Object arg){
+        expr.left.visit(this, null);
+        expr.right.visit(this, null);
+        return null;
+    }
+
+    public Object visitRefExpr(RefExpr expr, Object arg){
+        expr.ref.visit(this, null);
+        return null;
+    }
+
+    public Object visitCallExpr(CallExpr expr, Object arg){
+        expr.functionRef.visit(this, null);
+        for (Expression e: expr.argList) {
+            e.visit(this, null);
         }
-        return new CallExpr(newR, al,null);
+        return null;
     }
-    
-    public Object visitLiteralExpr(LiteralExpr expr, String arg){
-        expr.lit = (Terminal)expr.lit.visit(this, indent(arg));
-        return expr;
+
+    public Object visitLiteralExpr(LiteralExpr expr, Object arg){
+        return null;
     }
- 
-    public Object visitNewArrayExpr(NewArrayExpr expr, String arg){
-        expr.eltType = (Type)expr.eltType.visit(this, indent(arg));
-        expr.sizeExpr = (Expression)expr.sizeExpr.visit(this, indent(arg));
-        return expr;
+
+    public Object visitNewArrayExpr(NewArrayExpr expr, Object arg){
+        expr.eltType.visit(this, null);
+        expr.sizeExpr.visit(this, null);
+        return null;
     }
-    
-    public Object visitNewObjectExpr(NewObjectExpr expr, String arg){
-        expr.classtype	= (ClassType)expr.classtype.visit(this, indent(arg));
-        return expr;
+
+    public Object visitNewObjectExpr(NewObjectExpr expr, Object arg){
+        expr.classtype.visit(this, null);
+        return null;
     }
-    
+
 
 	///////////////////////////////////////////////////////////////////////////////
 	//
 	// REFERENCES
 	//
 	///////////////////////////////////////////////////////////////////////////////
-	
-    public Object visitQualifiedRef(QualifiedRef qr, String arg) {
-    	qr.id = (Identifier)qr.id.visit(this, indent(arg));
-    	qr.ref = (Reference)qr.ref.visit(this, indent(arg));
-	    return qr;
-    }
-    
-    public Object visitIndexedRef(IndexedRef ir, String arg) {
-    	ir.indexExpr = (Expression)ir.indexExpr.visit(this, indent(arg));
-    	ir.idRef = (IdRef) ir.idRef.visit(this, indent(arg));
-    	return ir;
-    }
-    
-    public Object visitIdRef(IdRef ref, String arg) {
-    	ref.id = (Identifier) ref.id.visit(this, indent(arg));
-    	return ref;
-    }
-   
-    public Object visitThisRef(ThisRef ref, String arg) {
-    	return ref;
-    }
-    
-    
+
+    public Object visitQualifiedRef(QualifiedRef qr, Object arg) {
+    	qr.ref.visit(this, null);
+    	ClassDecl cd = classOf(qr.ref);
+    	if (cd != null){
+    		qr.id.decl = cd.member(qr.id.spelling);
+    		if (qr.id.decl == null)
+    			error("No member " + qr.id.spelling + " in class " + cd.name, qr.id.posn);
+    	}
+	    return null;
+    }
+
+    public Object visitIndexedRef(IndexedRef ir, Object arg) {
+    	ir.idRef.visit(this, null);
+    	ir.indexExpr.visit(this, null);
+    	return null;
+    }
+
+    public Object visitIdRef(IdRef ref, Object arg) {
+    	ref.id.visit(this, null);
+    	return null;
+    }
+
+    public Object visitThisRef(ThisRef ref, Object arg) {
+    	return null;
+    }
+
+
 	///////////////////////////////////////////////////////////////////////////////
 	//
 	// TERMINALS
 	//
 	///////////////////////////////////////////////////////////////////////////////
-    
-    public Object visitIdentifier(Identifier id, String arg){
-        int i = cc.idTable.currentScope;
-        while(i>=0){
-        	ScopeLevel refs = cc.idTable.idTable.get(i);
-        	for(Attribute ref : refs.entry){
-        		if(ref.id.equals(id)){
-        			try{
-        				cc.idTable.retrieve(id.spelling);
-        				id.decl = ref.decl;
-        				return id;
-        			}
-        			catch(IDError e){
-        				if(i>0) break;
-        				else{
-        					e.printMes();
-        				}
-        			}
-        		}
-        	i--;
-        	}
-        }
+
+    public Object visitIdentifier(Identifier id, Object arg){
+        Attribute attr = cc.idTable.find(id);
+        if (attr != null)
+        	id.decl = attr.decl;
+        else
+        	id.decl = useIndexes ? indexed(id.spelling) : null;
+        if (id.decl == null)
+        	error("Could not find Declaration for id: " + id.spelling, id.posn);
         return null;
     }
-    
-    public Object visitOperator(Operator op, String arg){
-        return op;
+
+    /**
+     * @return member of the current class or else class named name, or null
+     */
+    private Declaration indexed(String name){
+    	MemberDecl md = currentClass.member(name);
+    	if (md != null)
+    		return md;
+    	return currentPackage.classDecl(name);
+    }
+
+    public Object visitOperator(Operator op, Object arg){
+        return null;
     }
-    
-    public Object visitIntLiteral(IntLiteral num, String arg){
-        return num;
+
+    public Object visitIntLiteral(IntLiteral num, Object arg){
+        return null;
     }
-    
-    public Object visitBooleanLiteral(BooleanLiteral bool, String arg){
-        return bool;
+
+    public Object visitBooleanLiteral(BooleanLiteral bool, Object arg){
+        return null;
     }
 }
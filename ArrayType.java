@@ -6,11 +6,9 @@
 
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class ArrayType extends Type {
 
-	    public ArrayType(Type eltType, SourcePosition posn){
+	    public ArrayType(Type eltType, int posn){
 	        super(TypeKind.ARRAY, posn);
 	        this.eltType = eltType;
 	    }
@@ -5,6 +5,8 @@ import miniJava.AbstractSyntaxTrees.Declaration;
 public class Attribute {
 	public String id;
 	public Declaration decl;
+	public int level;	// scope level it was entered at
+	public Attribute shadowed;	// declaration of the same name in an enclosing scope
 	
 	public Attribute(String id, Declaration decl){
 		this.id = id;
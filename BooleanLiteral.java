@@ -12,6 +12,10 @@ public class BooleanLiteral extends Terminal {
   public BooleanLiteral(Token t) {
     super (t);
   }
+
+  public BooleanLiteral(Token t, int posn) {
+    super (t, posn);
+  }
  
   public <A,R> R visit(Visitor<A,R> v, A o) {
       return v.visitBooleanLiteral(this, o);
@@ -0,0 +1,122 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Character source over an InputStream that pulls the input in large
+ * blocks, so the Scanner pays for one read() call per block instead of
+ * one per character.
+ */
+public class BufferedCharSource extends Utf8CharSource {
+
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	
+	private InputStream inputStream;
+	private byte[] buffer;
+	private int pos;
+	private int limit;
+	private long consumed;	// bytes before the start of buffer
+	
+	public BufferedCharSource(InputStream inputStream) {
+		this(inputStream, DEFAULT_BUFFER_SIZE);
+	}
+	
+	public BufferedCharSource(InputStream inputStream, int bufferSize) {
+		this.inputStream = inputStream;
+		this.buffer = new byte[bufferSize];
+		this.pos = 0;
+		this.limit = 0;
+		this.consumed = 0;
+	}
+	
+	public int read() throws IOException {
+		// ASCII fast path
+		if (pos < limit) {
+			byte b = buffer[pos];
+			if (b >= 0) {
+				pos++;
+				return b;
+			}
+		}
+		return decode();
+	}
+	
+	protected int nextByte() throws IOException {
+		if (pos >= limit && !fill())
+			return -1;
+		return buffer[pos++] & 0xFF;
+	}
+	
+	// the byte just read is always still in the buffer
+	protected void unreadByte() {
+		pos--;
+	}
+	
+	/**
+	 * refill the buffer from the input stream
+	 * @return false at end of input
+	 */
+	private boolean fill() throws IOException {
+		consumed += limit;
+		int n;
+		do {
+			n = inputStream.read(buffer, 0, buffer.length);
+		} while (n == 0);
+		if (n < 0) {
+			limit = pos = 0;
+			return false;
+		}
+		pos = 0;
+		limit = n;
+		return true;
+	}
+	
+	public int skipWhitespace() throws IOException {
+		while (true) {
+			pos = BulkSkip.skipWhitespace(buffer, pos, limit);
+			if (pos < limit)
+				return read();
+			if (!fill())
+				return -1;
+		}
+	}
+	
+	public int skipLineComment() throws IOException {
+		while (true) {
+			pos = BulkSkip.skipToEndOfLine(buffer, pos, limit);
+			if (pos < limit)
+				return buffer[pos++];
+			if (!fill())
+				return -1;
+		}
+	}
+	
+	public boolean skipBlockComment() throws IOException {
+		while (true) {
+			pos = BulkSkip.indexOf(buffer, pos, limit, (byte) '*');
+			if (pos >= limit) {
+				if (!fill())
+					return false;
+				continue;
+			}
+			pos++;
+			int b;
+			do {
+				b = nextByte();
+			} while (b == '*');
+			if (b == '/')
+				return true;
+			if (b < 0)
+				return false;
+		}
+	}
+	
+	public long offset() {
+		return consumed + pos;
+	}
+	
+	public void close() throws IOException {
+		inputStream.close();
+	}
+}
@@ -0,0 +1,177 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * Bulk skipping of whitespace and comment text over a byte buffer.
+ *
+ * The source is examined eight bytes at a time as a little endian long
+ * (SIMD within a register): each byte is compared against the characters of
+ * interest in parallel, and only the word containing a hit is looked at
+ * byte by byte.  A scalar loop finishes the last few bytes of a buffer.
+ *
+ * Bytes of multi-byte UTF-8 characters are all >= 0x80, so they never match
+ * the ASCII characters searched for and are skipped like any other byte.
+ */
+final class BulkSkip {
+
+	private BulkSkip() {}
+
+	private static final VarHandle LONGS =
+			MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private static final long ONES = 0x0101010101010101L;
+	private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+	private static final long HIGH = 0x8080808080808080L;
+
+	private static final long SPACES = ONES * ' ';
+	private static final long TABS = ONES * '\t';
+	private static final long NEWLINES = ONES * '\n';
+	private static final long RETURNS = ONES * '\r';
+
+	/**
+	 * @return word with the high bit set in exactly those bytes of v that are zero
+	 */
+	private static long zeroBytes(long v) {
+		long t = (v & LOW7) + LOW7;
+		return ~(t | v | LOW7);
+	}
+
+	/**
+	 * @return word with the high bit set in those bytes of v equal to the byte in pattern
+	 */
+	private static long matches(long v, long pattern) {
+		return zeroBytes(v ^ pattern);
+	}
+
+	private static long whitespace(long v) {
+		return matches(v, SPACES) | matches(v, TABS) | matches(v, NEWLINES) | matches(v, RETURNS);
+	}
+
+	private static long endOfLine(long v) {
+		return matches(v, NEWLINES) | matches(v, RETURNS);
+	}
+
+	/**
+	 * offset within a word of the lowest byte flagged in mask
+	 */
+	private static int firstByte(long mask) {
+		return Long.numberOfTrailingZeros(mask) >>> 3;
+	}
+
+	static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	static boolean isEndOfLine(int c) {
+		return c == '\n' || c == '\r';
+	}
+
+
+	// byte array buffers
+
+	/**
+	 * @return index of the first byte in [pos, end) that is not whitespace, or end
+	 */
+	static int skipWhitespace(byte[] source, int pos, int end) {
+		while (pos + 8 <= end) {
+			long rest = ~whitespace((long) LONGS.get(source, pos)) & HIGH;
+			if (rest != 0)
+				return pos + firstByte(rest);
+			pos += 8;
+		}
+		while (pos < end && isWhitespace(source[pos]))
+			pos++;
+		return pos;
+	}
+
+	/**
+	 * @return index of the first end of line byte in [pos, end), or end
+	 */
+	static int skipToEndOfLine(byte[] source, int pos, int end) {
+		while (pos + 8 <= end) {
+			long hit = endOfLine((long) LONGS.get(source, pos));
+			if (hit != 0)
+				return pos + firstByte(hit);
+			pos += 8;
+		}
+		while (pos < end && !isEndOfLine(source[pos]))
+			pos++;
+		return pos;
+	}
+
+	/**
+	 * @return index of the first occurrence of b in [pos, end), or end
+	 */
+	static int indexOf(byte[] source, int pos, int end, byte b) {
+		long pattern = ONES * (b & 0xFF);
+		while (pos + 8 <= end) {
+			long hit = matches((long) LONGS.get(source, pos), pattern);
+			if (hit != 0)
+				return pos + firstByte(hit);
+			pos += 8;
+		}
+		while (pos < end && source[pos] != b)
+			pos++;
+		return pos;
+	}
+
+	/**
+	 * skip the body of a block comment
+	 * @param pos  index just past the opening slash star
+	 * @return index just past the closing star slash, or -1 if the comment is unterminated
+	 */
+	static int skipBlockComment(byte[] source, int pos, int end) {
+		while (true) {
+			pos = indexOf(source, pos, end, (byte) '*');
+			if (pos >= end)
+				return -1;
+			pos++;
+			if (pos < end && source[pos] == '/')
+				return pos + 1;
+		}
+	}
+
+
+	// memory-mapped and other ByteBuffers, with little endian byte order
+
+	static int skipWhitespace(ByteBuffer source, int pos, int end) {
+		while (pos + 8 <= end) {
+			long rest = ~whitespace(source.getLong(pos)) & HIGH;
+			if (rest != 0)
+				return pos + firstByte(rest);
+			pos += 8;
+		}
+		while (pos < end && isWhitespace(source.get(pos)))
+			pos++;
+		return pos;
+	}
+
+	static int skipToEndOfLine(ByteBuffer source, int pos, int end) {
+		while (pos + 8 <= end) {
+			long hit = endOfLine(source.getLong(pos));
+			if (hit != 0)
+				return pos + firstByte(hit);
+			pos += 8;
+		}
+		while (pos < end && !isEndOfLine(source.get(pos)))
+			pos++;
+		return pos;
+	}
+
+	static int indexOf(ByteBuffer source, int pos, int end, byte b) {
+		long pattern = ONES * (b & 0xFF);
+		while (pos + 8 <= end) {
+			long hit = matches(source.getLong(pos), pattern);
+			if (hit != 0)
+				return pos + firstByte(hit);
+			pos += 8;
+		}
+		while (pos < end && source.get(pos) != b)
+			pos++;
+		return pos;
+	}
+}
@@ -0,0 +1,133 @@
+package miniJava.CodeGenerator;
+
+/*
+ * The instructions of the VM.
+ *
+ * An instruction is its opcode followed by at most one operand, all in
+ * the int[] code of a Method, and works on the operand stack at the top of
+ * the VM's memory.  Every word of memory is an int and a reference side by
+ * side, and each instruction uses the one its operands are: those ending
+ * in A are for references, the rest for ints.  Addresses d are relative to
+ * the frame base LB, those below it being the arguments; a are absolute
+ * addresses of static fields; t are indexes into the code of the method.
+ * Booleans are 0 and 1, and a reference is a Java object: an object of a
+ * class, an int[] or an Object[], or null.
+ *
+ *   LOADL n       push n
+ *   LOAD d        push the int at LB + d
+ *   STORE d       pop into the int at LB + d
+ *   LOADS a       push the int at a
+ *   STORES a      pop into the int at a
+ *   LOADA d ... STORESA a, the same for references
+ *   GETFIELD i    pop ref, push int field i of ref
+ *   PUTFIELD i    pop value and ref, store value in int field i of ref
+ *   GETFIELDA i, PUTFIELDA i, the same for reference fields
+ *   ALOAD         pop index and ref, push the element of an int[]
+ *   ASTORE        pop value, index and ref, store the element of an int[]
+ *   AALOAD, AASTORE, the same for an array of references
+ *   LENGTH        pop ref, push the length of an int[]
+ *   ALENGTH       the same for an array of references
+ *   NEWOBJ c      push a new object of class c
+ *   NEWARR        pop n, push a new int[] of n elements
+ *   ANEWARR       pop n, push a new array of n references
+ *   ADD ... NE    pop two ints, push the result
+ *   AEQ, ANE      pop two references, push whether they are the same
+ *   NEG, NOT      replace the top of the stack
+ *   JUMP t        go to t
+ *   JUMPZ t       pop, and go to t if it was 0
+ *   JUMPNZ t      pop, and go to t if it was not 0
+ *   ANDJ t        go to t if the top is 0, keeping it, otherwise pop it
+ *   ORJ t         go to t if the top is not 0, keeping it, otherwise pop it
+ *   CALL m        call method m with its arguments, and this first for an
+ *                 instance method, on the stack
+ *   RETURN n      return from the method, popping its n words of arguments
+ *   RETURNV n     the same, returning the int on top of the stack
+ *   RETURNA n     the same, returning the reference on top of the stack
+ *   PRINT         pop and print
+ *   POP           pop an int
+ *   POPA          pop a reference
+ *   NULL          push null
+ */
+final class Bytecode {
+
+	static final int LOADL = 0;
+	static final int LOAD = 1;
+	static final int STORE = 2;
+	static final int LOADS = 3;
+	static final int STORES = 4;
+	static final int LOADA = 5;
+	static final int STOREA = 6;
+	static final int LOADSA = 7;
+	static final int STORESA = 8;
+	static final int GETFIELD = 9;
+	static final int PUTFIELD = 10;
+	static final int GETFIELDA = 11;
+	static final int PUTFIELDA = 12;
+	static final int ALOAD = 13;
+	static final int ASTORE = 14;
+	static final int AALOAD = 15;
+	static final int AASTORE = 16;
+	static final int LENGTH = 17;
+	static final int ALENGTH = 18;
+	static final int NEWOBJ = 19;
+	static final int NEWARR = 20;
+	static final int ANEWARR = 21;
+	static final int ADD = 22;
+	static final int SUB = 23;
+	static final int MUL = 24;
+	static final int DIV = 25;
+	static final int LT = 26;
+	static final int GT = 27;
+	static final int LE = 28;
+	static final int GE = 29;
+	static final int EQ = 30;
+	static final int NE = 31;
+	static final int AEQ = 32;
+	static final int ANE = 33;
+	static final int NEG = 34;
+	static final int NOT = 35;
+	static final int JUMP = 36;
+	static final int JUMPZ = 37;
+	static final int JUMPNZ = 38;
+	static final int ANDJ = 39;
+	static final int ORJ = 40;
+	static final int CALL = 41;
+	static final int RETURN = 42;
+	static final int RETURNV = 43;
+	static final int RETURNA = 44;
+	static final int PRINT = 45;
+	static final int POP = 46;
+	static final int POPA = 47;
+	static final int NULL = 48;
+
+	static final String[] NAMES = {
+		"LOADL", "LOAD", "STORE", "LOADS", "STORES", "LOADA", "STOREA", "LOADSA", "STORESA",
+		"GETFIELD", "PUTFIELD", "GETFIELDA", "PUTFIELDA",
+		"ALOAD", "ASTORE", "AALOAD", "AASTORE", "LENGTH", "ALENGTH", "NEWOBJ", "NEWARR", "ANEWARR",
+		"ADD", "SUB", "MUL", "DIV", "LT", "GT", "LE", "GE", "EQ", "NE", "AEQ", "ANE", "NEG", "NOT",
+		"JUMP", "JUMPZ", "JUMPNZ", "ANDJ", "ORJ", "CALL", "RETURN", "RETURNV", "RETURNA",
+		"PRINT", "POP", "POPA", "NULL"
+	};
+
+	// how many words the stack grows by, for all but CALL; ANDJ and ORJ
+	// when they fall through
+	private static final int[] EFFECT = {
+		1, 1, -1, 1, -1, 1, -1, 1, -1,
+		0, -2, 0, -2,
+		-1, -3, -1, -3, 0, 0, 1, 0, 0,
+		-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0, 0,
+		0, -1, -1, -1, -1, 0, 0, 0, 0,
+		-1, -1, -1, 1
+	};
+
+	private Bytecode() {
+	}
+
+	static boolean hasOperand(int op) {
+		return op <= PUTFIELDA || op == NEWOBJ || (op >= JUMP && op <= RETURNA);
+	}
+
+	static int effect(int op) {
+		return EFFECT[op];
+	}
+}
@@ -0,0 +1,702 @@
+package miniJava.CodeGenerator;
+
+import java.util.IdentityHashMap;
+
+import miniJava.AbstractSyntaxTrees.*;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.Interpreter.ExecutionError;
+import miniJava.Interpreter.Interpreter;
+import miniJava.SyntacticAnalyzer.TokenKind;
+
+/*
+ * Translates a checked program into a C99 program of the same behaviour.
+ *
+ * An object is a struct of its class's fields, and a method a static
+ * function, of this first if it is an instance method; an int or boolean
+ * is an int32_t and every reference a void *, cast to its struct where a
+ * field is selected.  An array is its length followed by its elements.
+ * The runtime at the start of the program checks each access, and prints
+ * and exits on a failure with the same message as the Interpreter.
+ *
+ * C does not order the evaluation of operands as Java does, so each call,
+ * read of memory and operation that may fail is evaluated into a
+ * temporary of its own, statement by statement, in Java's order; the C
+ * compiler keeps them in registers.  The rest, arithmetic and comparisons
+ * of values already evaluated, stay in the expression that uses them.
+ * Arithmetic is done unsigned, so it wraps around as in Java rather than
+ * overflowing.
+ *
+ * implements Visitor<argtype,resulttype>: an expression results in the C
+ * expression of its value, a statement in null
+ */
+final class CGenerator implements Visitor<Object, String> {
+
+	private static final String RUNTIME = String.join("\n",
+			"#define _POSIX_C_SOURCE 200112L",
+			"",
+			"#include <inttypes.h>",
+			"#include <pthread.h>",
+			"#include <stdint.h>",
+			"#include <stdio.h>",
+			"#include <stdlib.h>",
+			"",
+			"#ifndef MJ_STACK_SIZE",
+			"#define MJ_STACK_SIZE ((size_t) 1 << 28)",
+			"#endif",
+			"",
+			"/* calls stop this far short of the end of the stack, left for the C library */",
+			"#define MJ_STACK_MARGIN ((uintptr_t) 1 << 16)",
+			"",
+			"typedef struct { int32_t length; int32_t data[]; } mj_ints;",
+			"typedef struct { int32_t length; void *data[]; } mj_refs;",
+			"",
+			"static uintptr_t mj_stack_limit;",
+			"static volatile uintptr_t mj_stack_top;",
+			"",
+			"static inline void mj_fail(const char *message) {",
+			"	printf(\"Run-time error: %s\\n\", message);",
+			"	exit(1);",
+			"}",
+			"",
+			"/*",
+			" * the stack grows down from where the program starts to mj_stack_limit;",
+			" * keeping the top where it can be seen also keeps the C compiler from",
+			" * turning a recursion into a loop, which would never overflow",
+			" */",
+			"#define MJ_ENTER char mj_frame; mj_stack_top = (uintptr_t) &mj_frame; if (mj_stack_top < mj_stack_limit) mj_fail(\"stack overflow\")",
+			"",
+			"static inline void *mj_nn(void *p) {",
+			"	if (p == NULL)",
+			"		mj_fail(\"null reference\");",
+			"	return p;",
+			"}",
+			"",
+			"static inline void *mj_alloc(size_t size) {",
+			"	void *p = calloc(1, size);",
+			"	if (p == NULL)",
+			"		mj_fail(\"out of memory\");",
+			"	return p;",
+			"}",
+			"",
+			"static inline void mj_size(int32_t n) {",
+			"	char message[64];",
+			"	if (n < 0) {",
+			"		sprintf(message, \"negative array size %\" PRId32, n);",
+			"		mj_fail(message);",
+			"	}",
+			"}",
+			"",
+			"static inline void *mj_new_ints(int32_t n) {",
+			"	mj_ints *a;",
+			"	mj_size(n);",
+			"	a = mj_alloc(sizeof(mj_ints) + (size_t) n * sizeof(int32_t));",
+			"	a->length = n;",
+			"	return a;",
+			"}",
+			"",
+			"static inline void *mj_new_refs(int32_t n) {",
+			"	mj_refs *a;",
+			"	mj_size(n);",
+			"	a = mj_alloc(sizeof(mj_refs) + (size_t) n * sizeof(void *));",
+			"	a->length = n;",
+			"	return a;",
+			"}",
+			"",
+			"static inline void mj_index(int32_t i, int32_t length) {",
+			"	char message[96];",
+			"	if (i < 0 || i >= length) {",
+			"		sprintf(message, \"array index out of bounds: Index %\" PRId32 \" out of bounds for length %\" PRId32, i, length);",
+			"		mj_fail(message);",
+			"	}",
+			"}",
+			"",
+			"static inline int32_t *mj_int_at(void *p, int32_t i) {",
+			"	mj_ints *a = mj_nn(p);",
+			"	mj_index(i, a->length);",
+			"	return &a->data[i];",
+			"}",
+			"",
+			"static inline void **mj_ref_at(void *p, int32_t i) {",
+			"	mj_refs *a = mj_nn(p);",
+			"	mj_index(i, a->length);",
+			"	return &a->data[i];",
+			"}",
+			"",
+			"static inline int32_t mj_int_length(void *p) {",
+			"	return ((mj_ints *) mj_nn(p))->length;",
+			"}",
+			"",
+			"static inline int32_t mj_ref_length(void *p) {",
+			"	return ((mj_refs *) mj_nn(p))->length;",
+			"}",
+			"",
+			"/* converting back to int32_t wraps around on every C compiler in use */",
+			"static inline int32_t mj_add(int32_t a, int32_t b) {",
+			"	return (int32_t) ((uint32_t) a + (uint32_t) b);",
+			"}",
+			"",
+			"static inline int32_t mj_sub(int32_t a, int32_t b) {",
+			"	return (int32_t) ((uint32_t) a - (uint32_t) b);",
+			"}",
+			"",
+			"static inline int32_t mj_mul(int32_t a, int32_t b) {",
+			"	return (int32_t) ((uint32_t) a * (uint32_t) b);",
+			"}",
+			"",
+			"static inline int32_t mj_neg(int32_t a) {",
+			"	return (int32_t) (0u - (uint32_t) a);",
+			"}",
+			"",
+			"static inline int32_t mj_div(int32_t a, int32_t b) {",
+			"	if (b == 0)",
+			"		mj_fail(\"division by zero\");",
+			"	/* INT32_MIN / -1 traps in C */",
+			"	if (b == -1)",
+			"		return mj_neg(a);",
+			"	return a / b;",
+			"}",
+			"",
+			"static inline void mj_print(int32_t n) {",
+			"	printf(\"%\" PRId32 \"\\n\", n);",
+			"}",
+			"");
+
+	private IdentityHashMap<MemberDecl, ClassDecl> owners = new IdentityHashMap<MemberDecl, ClassDecl>();
+	private StringBuilder c = new StringBuilder(RUNTIME);
+
+	// the method being generated
+	private IdentityHashMap<LocalDecl, String> locals;
+	private int temps;
+	private String indent;
+
+	/**
+	 * @param prog  a checked program, with the predefined classes
+	 * @return the C program
+	 * @throws ExecutionError  if prog has no main method
+	 */
+	static String generate(Package prog) {
+		return new CGenerator().program(prog);
+	}
+
+	private CGenerator() {
+	}
+
+	private String program(Package prog) {
+		MethodDecl main = Interpreter.main(prog);
+		if (main == null)
+			throw new ExecutionError("no method public static void main(String[] args)");
+		for (ClassDecl cd : prog.classDeclList) {
+			for (FieldDecl fd : cd.fieldDeclList)
+				owners.put(fd, cd);
+			for (MethodDecl md : cd.methodDeclList)
+				owners.put(md, cd);
+		}
+
+		// every struct, static field and function is declared first, so
+		// the methods can use each other in any order
+		c.append('\n');
+		for (ClassDecl cd : prog.classDeclList) {
+			c.append("struct ").append(struct(cd)).append(" {\n");
+			int fields = 0;
+			for (FieldDecl fd : cd.fieldDeclList) {
+				if (!fd.isStatic) {
+					c.append('\t').append(declaration(fd.type, "f_" + fd.name)).append(";\n");
+					fields++;
+				}
+			}
+			// C has no empty struct
+			if (fields == 0)
+				c.append("\tchar unused;\n");
+			c.append("};\n\n");
+		}
+		for (ClassDecl cd : prog.classDeclList) {
+			for (FieldDecl fd : cd.fieldDeclList) {
+				if (fd.isStatic)
+					c.append("static ").append(declaration(fd.type, name(fd))).append(";\n");
+			}
+		}
+		c.append('\n');
+		for (ClassDecl cd : prog.classDeclList) {
+			if (generated(cd)) {
+				for (MethodDecl md : cd.methodDeclList)
+					c.append(signature(md)).append(";\n");
+			}
+		}
+		for (ClassDecl cd : prog.classDeclList) {
+			if (generated(cd))
+				cd.visit(this, null);
+		}
+
+		// main runs on a thread with a stack of MJ_STACK_SIZE, as LargeStack
+		// runs a program in the JVM; the stack is only committed as it is used
+		c.append("\nstatic void *mj_run(void *unused) {\n");
+		c.append("\tchar base;\n");
+		c.append("\tmj_stack_limit = (uintptr_t) &base - MJ_STACK_SIZE + MJ_STACK_MARGIN;\n");
+		c.append('\t').append(name(main)).append("(mj_new_refs(0));\n");
+		c.append("\treturn unused;\n}\n");
+		c.append("\nint main(void) {\n");
+		c.append("\tpthread_attr_t attr;\n");
+		c.append("\tpthread_t thread;\n");
+		c.append("\tsetvbuf(stdout, NULL, _IOFBF, 1 << 16);\n");
+		c.append("\tif (pthread_attr_init(&attr) != 0 || pthread_attr_setstacksize(&attr, MJ_STACK_SIZE) != 0\n");
+		c.append("\t\t\t|| pthread_create(&thread, &attr, mj_run, NULL) != 0)\n");
+		c.append("\t\tmj_fail(\"out of memory\");\n");
+		c.append("\tpthread_join(thread, NULL);\n");
+		c.append("\treturn 0;\n}\n");
+		return c.toString();
+	}
+
+	// println is mj_print, the other methods of _PrintStream unused
+	private static boolean generated(ClassDecl cd) {
+		return !cd.name.equals("_PrintStream");
+	}
+
+	private static boolean isPrintln(MethodDecl md, ClassDecl owner) {
+		return owner.name.equals("_PrintStream") && md.name.equals("println");
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// NAMES AND TYPES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	// each name prefixed with the length of its class's, so none is the
+	// same as another's
+	private static String struct(ClassDecl cd) {
+		return "o" + cd.name.length() + "_" + cd.name;
+	}
+
+	private String name(MemberDecl md) {
+		String cls = owners.get(md).name;
+		return (md instanceof MethodDecl ? "m" : "s") + cls.length() + "_" + cls + "_" + md.name;
+	}
+
+	private static String type(Type t) {
+		switch (t.typeKind) {
+		case INT:
+		case BOOLEAN:
+			return "int32_t";
+		case VOID:
+			return "void";
+		default:
+			return "void *";
+		}
+	}
+
+	private static String declaration(Type t, String name) {
+		String type = type(t);
+		return type.endsWith("*") ? type + name : type + " " + name;
+	}
+
+	private String signature(MethodDecl md) {
+		StringBuilder sb = new StringBuilder("static ").append(declaration(md.type, name(md))).append('(');
+		String sep = "";
+		if (!md.isStatic) {
+			sb.append("void *self");
+			sep = ", ";
+		}
+		for (ParameterDecl pd : md.parameterDeclList) {
+			sb.append(sep).append(declaration(pd.type, "p_" + pd.name));
+			sep = ", ";
+		}
+		if (sep.isEmpty())
+			sb.append("void");
+		return sb.append(')').toString();
+	}
+
+	// the field of an object, the object already checked
+	private String field(String object, FieldDecl fd) {
+		return "((struct " + struct(owners.get(fd)) + " *) " + object + ")->f_" + fd.name;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// OUTPUT
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	private void line(String s) {
+		c.append(indent).append(s).append('\n');
+	}
+
+	private void open(String s) {
+		line(s + " {");
+		indent += "\t";
+	}
+
+	private void close() {
+		indent = indent.substring(1);
+		line("}");
+	}
+
+	/**
+	 * @return a new temporary holding value
+	 */
+	private String temp(boolean ref, String value) {
+		String t = "t" + temps++;
+		line((ref ? "void *" : "int32_t ") + t + " = " + value + ";");
+		return t;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// DECLARATIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public String visitPackage(Package prog, Object arg) {
+		return null;
+	}
+
+	public String visitClassDecl(ClassDecl cd, Object arg) {
+		for (MethodDecl md : cd.methodDeclList)
+			md.visit(this, null);
+		return null;
+	}
+
+	public String visitFieldDecl(FieldDecl fd, Object arg) {
+		return null;
+	}
+
+	public String visitMethodDecl(MethodDecl md, Object arg) {
+		locals = new IdentityHashMap<LocalDecl, String>();
+		temps = 0;
+		for (ParameterDecl pd : md.parameterDeclList)
+			locals.put(pd, "p_" + pd.name);
+		indent = "";
+		c.append('\n');
+		open(signature(md));
+		line("MJ_ENTER;");
+		for (Statement s : md.statementList)
+			s.visit(this, null);
+		// falling off the end, which only a void method should do; any
+		// other returns 0 or null, as in the Interpreter
+		if (md.type.typeKind != TypeKind.VOID)
+			line(ClassGenerator.isRef(md.type) ? "return NULL;" : "return 0;");
+		close();
+		return null;
+	}
+
+	public String visitParameterDecl(ParameterDecl pd, Object arg) {
+		return null;
+	}
+
+	public String visitVarDecl(VarDecl decl, Object arg) {
+		return null;
+	}
+
+	public String visitBaseType(BaseType type, Object arg) {
+		return null;
+	}
+
+	public String visitClassType(ClassType type, Object arg) {
+		return null;
+	}
+
+	public String visitArrayType(ArrayType type, Object arg) {
+		return null;
+	}
+
+	public String visitIdentifier(Identifier id, Object arg) {
+		return null;
+	}
+
+	public String visitOperator(Operator op, Object arg) {
+		return null;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// STATEMENTS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	// every local has a name of its own in its method, so a block needs no
+	// scope of its own
+	public String visitBlockStmt(BlockStmt stmt, Object arg) {
+		for (Statement s : stmt.sl)
+			s.visit(this, null);
+		return null;
+	}
+
+	public String visitVardeclStmt(VarDeclStmt stmt, Object arg) {
+		String value = stmt.initExp.visit(this, null);
+		String name = "v" + locals.size() + "_" + stmt.varDecl.name;
+		locals.put(stmt.varDecl, name);
+		line(declaration(stmt.varDecl.type, name) + " = " + value + ";");
+		return null;
+	}
+
+	public String visitAssignStmt(AssignStmt stmt, Object arg) {
+		Declaration decl = ClassGenerator.declOf(stmt.ref);
+		if (decl instanceof LocalDecl) {
+			line(locals.get(decl) + " = " + stmt.val.visit(this, null) + ";");
+			return null;
+		}
+		FieldDecl fd = (FieldDecl) decl;
+		if (fd.isStatic) {
+			line(name(fd) + " = " + stmt.val.visit(this, null) + ";");
+			return null;
+		}
+		String object = object(stmt.ref);
+		String value = stmt.val.visit(this, null);
+		line(field(checked(stmt.ref, object), fd) + " = " + value + ";");
+		return null;
+	}
+
+	public String visitIxAssignStmt(IxAssignStmt stmt, Object arg) {
+		String array = stmt.ixRef.idRef.visit(this, null);
+		String index = stmt.ixRef.indexExpr.visit(this, null);
+		String value = stmt.val.visit(this, null);
+		boolean ref = ClassGenerator.isRef(ClassGenerator.elementType(stmt.ixRef));
+		line("*" + (ref ? "mj_ref_at(" : "mj_int_at(") + array + ", " + index + ") = " + value + ";");
+		return null;
+	}
+
+	public String visitCallStmt(CallStmt stmt, Object arg) {
+		line(call(stmt.methodRef, stmt.argList) + ";");
+		return null;
+	}
+
+	public String visitReturnStmt(ReturnStmt stmt, Object arg) {
+		if (stmt.returnExpr == null) {
+			line("return;");
+			return null;
+		}
+		String value = stmt.returnExpr.visit(this, null);
+		line("return " + value + ";");
+		return null;
+	}
+
+	public String visitIfStmt(IfStmt stmt, Object arg) {
+		open("if (" + bare(stmt.cond.visit(this, null)) + ")");
+		stmt.thenStmt.visit(this, null);
+		if (stmt.elseStmt != null) {
+			indent = indent.substring(1);
+			open("} else");
+			stmt.elseStmt.visit(this, null);
+		}
+		close();
+		return null;
+	}
+
+	// a condition that takes statements to evaluate is evaluated at the
+	// top of the loop, each iteration
+	public String visitWhileStmt(WhileStmt stmt, Object arg) {
+		int start = c.length();
+		String cond = stmt.cond.visit(this, null);
+		if (c.length() == start)
+			open("while (" + bare(cond) + ")");
+		else {
+			String evaluation = c.substring(start).replace("\n" + indent, "\n\t" + indent);
+			c.setLength(start);
+			open("for (;;)");
+			c.append('\t').append(evaluation);
+			line("if (!" + cond + ")");
+			line("\tbreak;");
+		}
+		stmt.body.visit(this, null);
+		close();
+		return null;
+	}
+
+
+	// without the parentheses of a comparison, for if and while
+	private static String bare(String cond) {
+		if (!cond.startsWith("("))
+			return cond;
+		int depth = 0;
+		for (int i = 0; i < cond.length() - 1; i++) {
+			if (cond.charAt(i) == '(')
+				depth++;
+			else if (cond.charAt(i) == ')')
+				depth--;
+			if (depth == 0)
+				return cond;
+		}
+		return cond.substring(1, cond.length() - 1);
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// EXPRESSIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public String visitUnaryExpr(UnaryExpr expr, Object arg) {
+		String value = expr.expr.visit(this, null);
+		if (expr.operator.kind == TokenKind.NOT)
+			return "!" + value;
+		return "mj_neg(" + value + ")";
+	}
+
+	public String visitBinaryExpr(BinaryExpr expr, Object arg) {
+		TokenKind kind = expr.operator.kind;
+		String left = expr.left.visit(this, null);
+		if (kind == TokenKind.AND || kind == TokenKind.OR) {
+			// the right evaluated only when the left does not decide
+			String t = temp(false, left);
+			open(kind == TokenKind.AND ? "if (" + t + ")" : "if (!" + t + ")");
+			line(t + " = " + expr.right.visit(this, null) + ";");
+			close();
+			return t;
+		}
+		String right = expr.right.visit(this, null);
+		switch (kind) {
+		case PLUS:
+			return "mj_add(" + left + ", " + right + ")";
+		case MINUS:
+			return "mj_sub(" + left + ", " + right + ")";
+		case TIMES:
+			return "mj_mul(" + left + ", " + right + ")";
+		case DIVIDE:
+			// may fail, so before anything after it
+			return temp(false, "mj_div(" + left + ", " + right + ")");
+		case LT:
+			return "(" + left + " < " + right + ")";
+		case GT:
+			return "(" + left + " > " + right + ")";
+		case LE:
+			return "(" + left + " <= " + right + ")";
+		case GE:
+			return "(" + left + " >= " + right + ")";
+		case EQ:
+			return "(" + left + " == " + right + ")";
+		default:
+			return "(" + left + " != " + right + ")";
+		}
+	}
+
+	public String visitRefExpr(RefExpr expr, Object arg) {
+		return expr.ref.visit(this, null);
+	}
+
+	public String visitCallExpr(CallExpr expr, Object arg) {
+		MethodDecl md = (MethodDecl) ClassGenerator.declOf(expr.functionRef);
+		return temp(ClassGenerator.isRef(md.type), call(expr.functionRef, expr.argList));
+	}
+
+	public String visitLiteralExpr(LiteralExpr expr, Object arg) {
+		return expr.lit.visit(this, null);
+	}
+
+	public String visitNewObjectExpr(NewObjectExpr expr, Object arg) {
+		ClassDecl cd = (ClassDecl) expr.classtype.className.decl;
+		return temp(true, "mj_alloc(sizeof(struct " + struct(cd) + "))");
+	}
+
+	public String visitNewArrayExpr(NewArrayExpr expr, Object arg) {
+		String size = expr.sizeExpr.visit(this, null);
+		boolean ref = ClassGenerator.isRef(expr.eltType);
+		return temp(true, (ref ? "mj_new_refs(" : "mj_new_ints(") + size + ")");
+	}
+
+	/**
+	 * evaluates this and the arguments; the qualifier of a static method
+	 * is not evaluated
+	 * @return the call
+	 */
+	private String call(Reference ref, ExprList args) {
+		MethodDecl md = (MethodDecl) ClassGenerator.declOf(ref);
+		ClassDecl owner = owners.get(md);
+		String object = md.isStatic || isPrintln(md, owner) ? null : object(ref);
+		StringBuilder sb = new StringBuilder();
+		String sep = "";
+		if (object != null) {
+			sb.append(checked(ref, object));
+			sep = ", ";
+		}
+		for (Expression e : args) {
+			sb.append(sep).append(e.visit(this, null));
+			sep = ", ";
+		}
+		if (isPrintln(md, owner))
+			return "mj_print(" + sb + ")";
+		return name(md) + "(" + sb + ")";
+	}
+
+	// the object a member is selected from
+	private String object(Reference ref) {
+		if (ref instanceof QualifiedRef)
+			return ((QualifiedRef) ref).ref.visit(this, null);
+		return "self";
+	}
+
+	// this is never null
+	private static String checked(Reference ref, String object) {
+		if (ref instanceof QualifiedRef && !(((QualifiedRef) ref).ref instanceof ThisRef))
+			return "mj_nn(" + object + ")";
+		return object;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// REFERENCES, AS VALUES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public String visitQualifiedRef(QualifiedRef qr, Object arg) {
+		if (qr.id.decl == null) {
+			String array = qr.ref.visit(this, null);
+			boolean ref = ClassGenerator.isRef(((ArrayType) ClassGenerator.typeOf(qr.ref)).eltType);
+			return temp(false, (ref ? "mj_ref_length(" : "mj_int_length(") + array + ")");
+		}
+		FieldDecl fd = (FieldDecl) qr.id.decl;
+		if (fd.isStatic)
+			return temp(ClassGenerator.isRef(fd.type), name(fd));
+		String object = qr.ref.visit(this, null);
+		return temp(ClassGenerator.isRef(fd.type), field(checked(qr, object), fd));
+	}
+
+	public String visitIndexedRef(IndexedRef ir, Object arg) {
+		String array = ir.idRef.visit(this, null);
+		String index = ir.indexExpr.visit(this, null);
+		boolean ref = ClassGenerator.isRef(ClassGenerator.elementType(ir));
+		return temp(ref, "*" + (ref ? "mj_ref_at(" : "mj_int_at(") + array + ", " + index + ")");
+	}
+
+	// a local is only assigned by a statement, so it is read as it is
+	// used; a field may be assigned by a call later in the expression
+	public String visitIdRef(IdRef ref, Object arg) {
+		Declaration decl = ref.id.decl;
+		if (decl instanceof LocalDecl)
+			return locals.get(decl);
+		FieldDecl fd = (FieldDecl) decl;
+		if (fd.isStatic)
+			return temp(ClassGenerator.isRef(fd.type), name(fd));
+		return temp(ClassGenerator.isRef(fd.type), field("self", fd));
+	}
+
+	public String visitThisRef(ThisRef ref, Object arg) {
+		return "self";
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// TERMINALS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	// a literal too large fails when it is evaluated, as in the Interpreter
+	public String visitIntLiteral(IntLiteral num, Object arg) {
+		try {
+			return Integer.toString(Integer.parseInt(num.spelling));
+		}
+		catch (NumberFormatException e) {
+			line("mj_fail(\"integer literal " + num.spelling + " is too large\");");
+			return "0";
+		}
+	}
+
+	public String visitBooleanLiteral(BooleanLiteral bool, Object arg) {
+		return bool.kind == TokenKind.TRUE ? "1" : "0";
+	}
+}
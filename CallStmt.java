@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class CallStmt extends Statement
 {
-    public CallStmt(Reference m, ExprList el, SourcePosition posn){
+    public CallStmt(Reference m, ExprList el, int posn){
         super(posn);
         methodRef = m;
         argList = el;
@@ -0,0 +1,75 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.IOException;
+
+/**
+ * A source of characters for the Scanner.
+ * 
+ * read() returns the next character of the input, or -1 once the
+ * input is exhausted.  Implementations decode UTF-8 and are expected
+ * to make the ASCII case cheap, since that is all miniJava tokens use.
+ * 
+ * The skip methods pass over whitespace and comment text without
+ * returning it character by character.  Byte buffered sources override
+ * them to skip in bulk.
+ */
+public interface CharSource {
+
+	public int read() throws IOException;
+	
+	public void close() throws IOException;
+	
+	/**
+	 * @return number of bytes of input consumed so far
+	 */
+	public long offset();
+	
+	/**
+	 * @param c  the character last returned, or -1
+	 * @return offset of the first byte of c in the input, offset() at its end
+	 */
+	public long start(int c);
+	
+	/**
+	 * skip whitespace (space, tab, CR, LF)
+	 * @return the first character that is not whitespace, or -1
+	 */
+	public default int skipWhitespace() throws IOException {
+		int c;
+		do {
+			c = read();
+		} while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+		return c;
+	}
+	
+	/**
+	 * skip the rest of a line comment
+	 * @return the end of line character ending it, or -1
+	 */
+	public default int skipLineComment() throws IOException {
+		int c;
+		do {
+			c = read();
+		} while (c >= 0 && c != '\n' && c != '\r');
+		return c;
+	}
+	
+	/**
+	 * skip the rest of a block comment, up to and including the closing star slash
+	 * @return false if the input ends first
+	 */
+	public default boolean skipBlockComment() throws IOException {
+		int c = read();
+		while (c >= 0) {
+			if (c == '*') {
+				do {
+					c = read();
+				} while (c == '*');
+				if (c == '/')
+					return true;
+			}
+			else c = read();
+		}
+		return false;
+	}
+}
@@ -5,20 +5,49 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import  miniJava.SyntacticAnalyzer.SourcePosition;
+import java.util.HashMap;
+
+import miniJava.SyntacticAnalyzer.Token;
+import miniJava.SyntacticAnalyzer.TokenKind;
 
 public class ClassDecl extends Declaration {
 
-  public ClassDecl(String cn, FieldDeclList fdl, MethodDeclList mdl, SourcePosition posn) {
+  public ClassDecl(String cn, FieldDeclList fdl, MethodDeclList mdl, int posn) {
 	  super(cn, null, posn);
 	  fieldDeclList = fdl;
 	  methodDeclList = mdl;
+	  // the canonical type of instances of this class
+	  ClassType ct = new ClassType(new Identifier(new Token(TokenKind.ID, cn), posn), posn);
+	  ct.decl = this;
+	  ct.className.decl = this;
+	  type = ct;
   }
   
   public <A,R> R visit(Visitor<A, R> v, A o) {
       return v.visitClassDecl(this, o);
   }
    
+  /**
+   * member declared as name, found through an index built on first use,
+   * after which the field and method lists must not change
+   * @return the member, a field before a method of the same name, or null
+   */
+  public MemberDecl member(String name) {
+	  HashMap<String, MemberDecl> index = members;
+	  if (index == null) {
+		  index = new HashMap<String, MemberDecl>((fieldDeclList.size() + methodDeclList.size()) * 2);
+		  for (FieldDecl f: fieldDeclList)
+			  index.putIfAbsent(f.name, f);
+		  for (MethodDecl m: methodDeclList)
+			  index.putIfAbsent(m.name, m);
+		  members = index;
+	  }
+	  return index.get(name);
+  }
+   
   public FieldDeclList fieldDeclList;
   public MethodDeclList methodDeclList;
+
+  // never changed once published, so threads that race to build it agree
+  private volatile HashMap<String, MemberDecl> members;
 }
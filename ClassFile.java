@@ -0,0 +1,214 @@
+package miniJava.CodeGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import miniJava.Interpreter.ExecutionError;
+
+/*
+ * A JVM class file being written: the constant pool, filled as the fields
+ * and methods are added, and their bytes.
+ *
+ * The class files are version 49, whose code is verified without stack
+ * map frames, so the code needs only its max stack and locals worked out.
+ */
+final class ClassFile {
+
+	static final int ACC_PUBLIC = 0x0001;
+	static final int ACC_PRIVATE = 0x0002;
+	static final int ACC_STATIC = 0x0008;
+	static final int ACC_SUPER = 0x0020;
+
+	private static final int VERSION = 49;
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_NAMEANDTYPE = 12;
+
+	private ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+	private DataOutputStream pool = new DataOutputStream(poolBytes);
+	private HashMap<String, Integer> constants = new HashMap<String, Integer>();
+	private int poolCount = 1;
+
+	private ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream();
+	private DataOutputStream fields = new DataOutputStream(fieldBytes);
+	private int fieldCount;
+
+	private ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+	private DataOutputStream methods = new DataOutputStream(methodBytes);
+	private int methodCount;
+
+	private final int access;
+	private final int thisClass;
+	private final int superClass;
+
+	/**
+	 * @param name  internal name of the class, with / for .
+	 */
+	ClassFile(int access, String name, String superName) {
+		this.access = access | ACC_SUPER;
+		this.thisClass = classRef(name);
+		this.superClass = classRef(superName);
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// CONSTANT POOL
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	int utf8(String s) {
+		Integer index = constants.get("U" + s);
+		if (index != null)
+			return index;
+		try {
+			pool.writeByte(CONSTANT_UTF8);
+			pool.writeUTF(s);
+		}
+		catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		return add("U" + s);
+	}
+
+	int integer(int n) {
+		Integer index = constants.get("I" + n);
+		if (index != null)
+			return index;
+		write(CONSTANT_INTEGER, n >>> 16, n & 0xffff);
+		return add("I" + n);
+	}
+
+	int classRef(String name) {
+		Integer index = constants.get("C" + name);
+		if (index != null)
+			return index;
+		int utf8 = utf8(name);
+		write(CONSTANT_CLASS, utf8);
+		return add("C" + name);
+	}
+
+	int fieldRef(String owner, String name, String descriptor) {
+		return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+	}
+
+	int methodRef(String owner, String name, String descriptor) {
+		return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+	}
+
+	private int memberRef(int tag, String owner, String name, String descriptor) {
+		String key = tag + owner + "." + name + ":" + descriptor;
+		Integer index = constants.get(key);
+		if (index != null)
+			return index;
+		int cls = classRef(owner);
+		int nameAndType = nameAndType(name, descriptor);
+		write(tag, cls, nameAndType);
+		return add(key);
+	}
+
+	private int nameAndType(String name, String descriptor) {
+		String key = "N" + name + ":" + descriptor;
+		Integer index = constants.get(key);
+		if (index != null)
+			return index;
+		int n = utf8(name);
+		int d = utf8(descriptor);
+		write(CONSTANT_NAMEANDTYPE, n, d);
+		return add(key);
+	}
+
+	private void write(int tag, int... shorts) {
+		try {
+			pool.writeByte(tag);
+			for (int s : shorts)
+				pool.writeShort(s);
+		}
+		catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private int add(String key) {
+		if (poolCount == 0xffff)
+			throw new ExecutionError("constant pool too large");
+		constants.put(key, poolCount);
+		return poolCount++;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// MEMBERS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	void field(int access, String name, String descriptor) {
+		try {
+			fields.writeShort(access);
+			fields.writeShort(utf8(name));
+			fields.writeShort(utf8(descriptor));
+			fields.writeShort(0);
+		}
+		catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		fieldCount++;
+	}
+
+	void method(int access, String name, String descriptor, JVMCode code) {
+		byte[] bytes = code.bytes();
+		try {
+			methods.writeShort(access);
+			methods.writeShort(utf8(name));
+			methods.writeShort(utf8(descriptor));
+			methods.writeShort(1);
+			methods.writeShort(utf8("Code"));
+			methods.writeInt(12 + bytes.length);
+			methods.writeShort(code.maxStack());
+			methods.writeShort(code.maxLocals());
+			methods.writeInt(bytes.length);
+			methods.write(bytes);
+			methods.writeShort(0);	// exception table
+			methods.writeShort(0);	// attributes
+		}
+		catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		methodCount++;
+	}
+
+	/**
+	 * @return the class file
+	 */
+	byte[] bytes() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeInt(0xcafebabe);
+			out.writeShort(0);
+			out.writeShort(VERSION);
+			out.writeShort(poolCount);
+			poolBytes.writeTo(out);
+			out.writeShort(access);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(0);	// interfaces
+			out.writeShort(fieldCount);
+			fieldBytes.writeTo(out);
+			out.writeShort(methodCount);
+			methodBytes.writeTo(out);
+			out.writeShort(0);	// attributes
+		}
+		catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		return bytes.toByteArray();
+	}
+}
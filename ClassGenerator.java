@@ -0,0 +1,617 @@
+package miniJava.CodeGenerator;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import miniJava.AbstractSyntaxTrees.*;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.CodeGenerator.JVMCode.Label;
+import miniJava.Interpreter.ExecutionError;
+import miniJava.SyntacticAnalyzer.TokenKind;
+
+/*
+ * Generates a JVM class file for each class of a checked program.
+ *
+ * A miniJava class is a JVM class of the same name, its fields JVM fields
+ * of the same names and types: int, boolean, arrays and classes, and its
+ * methods JVM methods of those types, named apart from Object's.  Of the
+ * predefined classes, String is java.lang.String and _PrintStream is
+ * java.io.PrintStream, so System.out.println is a call of
+ * PrintStream.println(int) on the static field out of the class System,
+ * generated as _System since it must not be java.lang.System.
+ *
+ * Every parameter and local variable has a JVM local of its own.  A
+ * condition is generated as jumps, so && and || short-circuit and if and
+ * while branch on a comparison directly; a boolean value is made from its
+ * jumps only where one is needed.
+ *
+ * implements Visitor<argtype,resulttype>, neither used
+ */
+final class ClassGenerator implements Visitor<Object, Object> {
+
+	static final String SYSTEM = "_System";
+
+	private IdentityHashMap<MemberDecl, ClassDecl> owners = new IdentityHashMap<MemberDecl, ClassDecl>();
+
+	// the method being generated
+	private ClassFile cf;
+	private MethodDecl method;
+	private JVMCode code;
+	private IdentityHashMap<LocalDecl, Integer> locals;
+
+	/**
+	 * @param prog  a checked program, with the predefined classes
+	 * @return the class files of prog, by class name
+	 */
+	static HashMap<String, byte[]> generate(Package prog) {
+		return new ClassGenerator().classes(prog);
+	}
+
+	private ClassGenerator() {
+	}
+
+	private HashMap<String, byte[]> classes(Package prog) {
+		for (ClassDecl cd : prog.classDeclList) {
+			for (FieldDecl fd : cd.fieldDeclList)
+				owners.put(fd, cd);
+			for (MethodDecl md : cd.methodDeclList)
+				owners.put(md, cd);
+		}
+		HashMap<String, byte[]> classes = new HashMap<String, byte[]>();
+		for (ClassDecl cd : prog.classDeclList) {
+			String name = internalName(cd.name);
+			if (name.startsWith("java/"))
+				continue;
+			cf = new ClassFile(ClassFile.ACC_PUBLIC, name, "java/lang/Object");
+			cd.visit(this, null);
+			classes.put(name, cf.bytes());
+		}
+		return classes;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// TYPES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	static String internalName(String className) {
+		switch (className) {
+		case "String":
+			return "java/lang/String";
+		case "_PrintStream":
+			return "java/io/PrintStream";
+		case "System":
+			return SYSTEM;
+		default:
+			return className;
+		}
+	}
+
+	private static String descriptor(Type t) {
+		switch (t.typeKind) {
+		case INT:
+			return "I";
+		case BOOLEAN:
+			return "Z";
+		case VOID:
+			return "V";
+		case CLASS:
+			return "L" + internalName(((ClassType) t).className.spelling) + ";";
+		default:
+			return "[" + descriptor(((ArrayType) t).eltType);
+		}
+	}
+
+	private static String descriptor(MethodDecl md) {
+		StringBuilder sb = new StringBuilder("(");
+		for (ParameterDecl pd : md.parameterDeclList)
+			sb.append(descriptor(pd.type));
+		return sb.append(')').append(descriptor(md.type)).toString();
+	}
+
+	/**
+	 * @return the JVM name of a method, which must not be that of a
+	 *         method of java.lang.Object, such as wait or finalize; so it
+	 *         is prefixed with its class as in CGenerator, but for main,
+	 *         which JVMProgram calls, and the methods of the predefined
+	 *         classes, which are Java's
+	 */
+	private String methodName(MethodDecl md) {
+		String cls = owners.get(md).name;
+		if (md.name.equals("main") || internalName(cls).startsWith("java/"))
+			return md.name;
+		return "m" + cls.length() + "_" + cls + "_" + md.name;
+	}
+
+	private static int access(MemberDecl md) {
+		return (md.isPrivate ? ClassFile.ACC_PRIVATE : ClassFile.ACC_PUBLIC) | (md.isStatic ? ClassFile.ACC_STATIC : 0);
+	}
+
+	static boolean isRef(Type t) {
+		return t.typeKind == TypeKind.CLASS || t.typeKind == TypeKind.ARRAY;
+	}
+
+	// of any reference but this
+	static Type typeOf(Reference ref) {
+		if (ref instanceof IdRef)
+			return ((IdRef) ref).id.decl.type;
+		if (ref instanceof QualifiedRef) {
+			Declaration decl = ((QualifiedRef) ref).id.decl;
+			// the length of an array
+			return decl == null ? Types.INT : decl.type;
+		}
+		return elementType((IndexedRef) ref);
+	}
+
+	static Type elementType(IndexedRef ir) {
+		return ((ArrayType) typeOf(ir.idRef)).eltType;
+	}
+
+	static boolean isRef(Expression e) {
+		if (e instanceof RefExpr) {
+			Reference ref = ((RefExpr) e).ref;
+			return ref instanceof ThisRef || isRef(typeOf(ref));
+		}
+		if (e instanceof CallExpr)
+			return isRef(declOf(((CallExpr) e).functionRef).type);
+		return e instanceof NewObjectExpr || e instanceof NewArrayExpr;
+	}
+
+	static Declaration declOf(Reference ref) {
+		if (ref instanceof IdRef)
+			return ((IdRef) ref).id.decl;
+		return ((QualifiedRef) ref).id.decl;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// DECLARATIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitPackage(Package prog, Object arg) {
+		return null;
+	}
+
+	public Object visitClassDecl(ClassDecl cd, Object arg) {
+		for (FieldDecl fd : cd.fieldDeclList)
+			cf.field(access(fd), fd.name, descriptor(fd.type));
+		JVMCode init = new JVMCode(1);
+		init.load(0, true);
+		init.op2(JVMCode.INVOKESPECIAL, cf.methodRef("java/lang/Object", "<init>", "()V"), -1);
+		init.op(JVMCode.RETURN, 0);
+		cf.method(ClassFile.ACC_PUBLIC, "<init>", "()V", init);
+		for (MethodDecl md : cd.methodDeclList)
+			md.visit(this, null);
+		return null;
+	}
+
+	public Object visitFieldDecl(FieldDecl fd, Object arg) {
+		return null;
+	}
+
+	public Object visitMethodDecl(MethodDecl md, Object arg) {
+		method = md;
+		locals = new IdentityHashMap<LocalDecl, Integer>();
+		int first = md.isStatic ? 0 : 1;
+		for (ParameterDecl pd : md.parameterDeclList)
+			locals.put(pd, first++);
+		code = new JVMCode(first);
+		for (Statement s : md.statementList)
+			s.visit(this, null);
+		// falling off the end, which only a void method should do; any
+		// other returns 0 or null, as in the Interpreter
+		if (md.type.typeKind == TypeKind.VOID)
+			code.op(JVMCode.RETURN, 0);
+		else if (isRef(md.type)) {
+			code.op(JVMCode.ACONST_NULL, 1);
+			code.op(JVMCode.ARETURN, -1);
+		}
+		else {
+			code.iconst(0, cf);
+			code.op(JVMCode.IRETURN, -1);
+		}
+		cf.method(access(md), methodName(md), descriptor(md), code);
+		return null;
+	}
+
+	public Object visitParameterDecl(ParameterDecl pd, Object arg) {
+		return null;
+	}
+
+	public Object visitVarDecl(VarDecl decl, Object arg) {
+		return null;
+	}
+
+	public Object visitBaseType(BaseType type, Object arg) {
+		return null;
+	}
+
+	public Object visitClassType(ClassType type, Object arg) {
+		return null;
+	}
+
+	public Object visitArrayType(ArrayType type, Object arg) {
+		return null;
+	}
+
+	public Object visitIdentifier(Identifier id, Object arg) {
+		return null;
+	}
+
+	public Object visitOperator(Operator op, Object arg) {
+		return null;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// STATEMENTS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitBlockStmt(BlockStmt stmt, Object arg) {
+		for (Statement s : stmt.sl)
+			s.visit(this, null);
+		return null;
+	}
+
+	public Object visitVardeclStmt(VarDeclStmt stmt, Object arg) {
+		int local = code.local();
+		locals.put(stmt.varDecl, local);
+		stmt.initExp.visit(this, null);
+		code.store(local, isRef(stmt.varDecl.type));
+		return null;
+	}
+
+	public Object visitAssignStmt(AssignStmt stmt, Object arg) {
+		Declaration decl = declOf(stmt.ref);
+		if (decl instanceof LocalDecl) {
+			stmt.val.visit(this, null);
+			code.store(locals.get(decl), isRef(decl.type));
+			return null;
+		}
+		FieldDecl fd = (FieldDecl) decl;
+		if (fd.isStatic) {
+			stmt.val.visit(this, null);
+			code.op2(JVMCode.PUTSTATIC, fieldRef(fd), -1);
+			return null;
+		}
+		object(stmt.ref);
+		stmt.val.visit(this, null);
+		code.op2(JVMCode.PUTFIELD, fieldRef(fd), -2);
+		return null;
+	}
+
+	public Object visitIxAssignStmt(IxAssignStmt stmt, Object arg) {
+		stmt.ixRef.idRef.visit(this, null);
+		stmt.ixRef.indexExpr.visit(this, null);
+		stmt.val.visit(this, null);
+		code.op(isRef(elementType(stmt.ixRef)) ? JVMCode.AASTORE : JVMCode.IASTORE, -3);
+		return null;
+	}
+
+	public Object visitCallStmt(CallStmt stmt, Object arg) {
+		MethodDecl md = call(stmt.methodRef, stmt.argList);
+		if (md.type.typeKind != TypeKind.VOID)
+			code.op(JVMCode.POP, -1);
+		return null;
+	}
+
+	public Object visitReturnStmt(ReturnStmt stmt, Object arg) {
+		if (stmt.returnExpr == null) {
+			code.op(JVMCode.RETURN, 0);
+			return null;
+		}
+		stmt.returnExpr.visit(this, null);
+		code.op(isRef(method.type) ? JVMCode.ARETURN : JVMCode.IRETURN, -1);
+		return null;
+	}
+
+	public Object visitIfStmt(IfStmt stmt, Object arg) {
+		Label otherwise = new Label();
+		condition(stmt.cond, otherwise, false);
+		stmt.thenStmt.visit(this, null);
+		if (stmt.elseStmt == null) {
+			code.place(otherwise);
+			return null;
+		}
+		Label end = new Label();
+		code.jump(JVMCode.GOTO, end, 0);
+		code.place(otherwise);
+		stmt.elseStmt.visit(this, null);
+		code.place(end);
+		return null;
+	}
+
+	// the condition after the body, one jump an iteration
+	public Object visitWhileStmt(WhileStmt stmt, Object arg) {
+		Label test = new Label();
+		Label body = new Label();
+		code.jump(JVMCode.GOTO, test, 0);
+		code.place(body);
+		stmt.body.visit(this, null);
+		code.place(test);
+		condition(stmt.cond, body, true);
+		return null;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// CONDITIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * jumps to target if cond is when, otherwise falls through
+	 */
+	private void condition(Expression cond, Label target, boolean when) {
+		if (cond instanceof UnaryExpr && ((UnaryExpr) cond).operator.kind == TokenKind.NOT) {
+			condition(((UnaryExpr) cond).expr, target, !when);
+			return;
+		}
+		if (cond instanceof LiteralExpr && ((LiteralExpr) cond).lit instanceof BooleanLiteral) {
+			if ((((LiteralExpr) cond).lit.kind == TokenKind.TRUE) == when)
+				code.jump(JVMCode.GOTO, target, 0);
+			return;
+		}
+		if (!(cond instanceof BinaryExpr)) {
+			cond.visit(this, null);
+			code.jump(when ? JVMCode.IFNE : JVMCode.IFEQ, target, -1);
+			return;
+		}
+		BinaryExpr expr = (BinaryExpr) cond;
+		TokenKind kind = expr.operator.kind;
+		if (kind == TokenKind.AND || kind == TokenKind.OR) {
+			// jump out on the left when it decides the whole
+			if ((kind == TokenKind.AND) != when) {
+				condition(expr.left, target, when);
+				condition(expr.right, target, when);
+			}
+			else {
+				Label skip = new Label();
+				condition(expr.left, skip, !when);
+				condition(expr.right, target, when);
+				code.place(skip);
+			}
+			return;
+		}
+		int jump;
+		switch (kind) {
+		case LT:
+			jump = when ? JVMCode.IF_ICMPLT : JVMCode.IF_ICMPGE;
+			break;
+		case GT:
+			jump = when ? JVMCode.IF_ICMPGT : JVMCode.IF_ICMPLE;
+			break;
+		case LE:
+			jump = when ? JVMCode.IF_ICMPLE : JVMCode.IF_ICMPGT;
+			break;
+		case GE:
+			jump = when ? JVMCode.IF_ICMPGE : JVMCode.IF_ICMPLT;
+			break;
+		case EQ:
+			if (isRef(expr.left))
+				jump = when ? JVMCode.IF_ACMPEQ : JVMCode.IF_ACMPNE;
+			else
+				jump = when ? JVMCode.IF_ICMPEQ : JVMCode.IF_ICMPNE;
+			break;
+		case NEQ:
+			if (isRef(expr.left))
+				jump = when ? JVMCode.IF_ACMPNE : JVMCode.IF_ACMPEQ;
+			else
+				jump = when ? JVMCode.IF_ICMPNE : JVMCode.IF_ICMPEQ;
+			break;
+		default:
+			// arithmetic, not a condition
+			cond.visit(this, null);
+			code.jump(when ? JVMCode.IFNE : JVMCode.IFEQ, target, -1);
+			return;
+		}
+		expr.left.visit(this, null);
+		expr.right.visit(this, null);
+		code.jump(jump, target, -2);
+	}
+
+	// pushes 1 or 0 for a condition
+	private void booleanValue(Expression cond) {
+		Label no = new Label();
+		Label end = new Label();
+		condition(cond, no, false);
+		code.iconst(1, cf);
+		code.jump(JVMCode.GOTO, end, 0);
+		code.place(no);
+		code.iconst(0, cf);
+		code.place(end);
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// EXPRESSIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitUnaryExpr(UnaryExpr expr, Object arg) {
+		expr.expr.visit(this, null);
+		if (expr.operator.kind == TokenKind.NOT) {
+			code.iconst(1, cf);
+			code.op(JVMCode.IXOR, -1);
+		}
+		else
+			code.op(JVMCode.INEG, 0);
+		return null;
+	}
+
+	public Object visitBinaryExpr(BinaryExpr expr, Object arg) {
+		int op;
+		switch (expr.operator.kind) {
+		case PLUS:
+			op = JVMCode.IADD;
+			break;
+		case MINUS:
+			op = JVMCode.ISUB;
+			break;
+		case TIMES:
+			op = JVMCode.IMUL;
+			break;
+		case DIVIDE:
+			op = JVMCode.IDIV;
+			break;
+		default:
+			booleanValue(expr);
+			return null;
+		}
+		expr.left.visit(this, null);
+		expr.right.visit(this, null);
+		code.op(op, -1);
+		return null;
+	}
+
+	public Object visitRefExpr(RefExpr expr, Object arg) {
+		return expr.ref.visit(this, null);
+	}
+
+	public Object visitCallExpr(CallExpr expr, Object arg) {
+		call(expr.functionRef, expr.argList);
+		return null;
+	}
+
+	public Object visitLiteralExpr(LiteralExpr expr, Object arg) {
+		return expr.lit.visit(this, null);
+	}
+
+	public Object visitNewObjectExpr(NewObjectExpr expr, Object arg) {
+		String name = internalName(expr.classtype.className.spelling);
+		code.op2(JVMCode.NEW, cf.classRef(name), 1);
+		code.op(JVMCode.DUP, 1);
+		code.op2(JVMCode.INVOKESPECIAL, cf.methodRef(name, "<init>", "()V"), -1);
+		return null;
+	}
+
+	public Object visitNewArrayExpr(NewArrayExpr expr, Object arg) {
+		expr.sizeExpr.visit(this, null);
+		if (isRef(expr.eltType)) {
+			String elt = descriptor(expr.eltType);
+			// a class is named by its internal name, an array by its descriptor
+			if (expr.eltType.typeKind == TypeKind.CLASS)
+				elt = elt.substring(1, elt.length() - 1);
+			code.op2(JVMCode.ANEWARRAY, cf.classRef(elt), 0);
+		}
+		else
+			code.op1(JVMCode.NEWARRAY, JVMCode.T_INT, 0);
+		return null;
+	}
+
+	/**
+	 * pushes this and the arguments, then calls; the qualifier of a static
+	 * method is not evaluated
+	 * @return the method called
+	 */
+	private MethodDecl call(Reference ref, ExprList args) {
+		MethodDecl md = (MethodDecl) declOf(ref);
+		if (!md.isStatic)
+			object(ref);
+		for (Expression e : args)
+			e.visit(this, null);
+		String owner = internalName(owners.get(md).name);
+		int m = cf.methodRef(owner, methodName(md), descriptor(md));
+		int effect = -args.size() + (md.type.typeKind == TypeKind.VOID ? 0 : 1);
+		if (md.isStatic)
+			code.op2(JVMCode.INVOKESTATIC, m, effect);
+		else if (md.isPrivate)
+			code.op2(JVMCode.INVOKESPECIAL, m, effect - 1);
+		else
+			code.op2(JVMCode.INVOKEVIRTUAL, m, effect - 1);
+		return md;
+	}
+
+	// pushes the object a member is selected from
+	private void object(Reference ref) {
+		if (ref instanceof QualifiedRef)
+			((QualifiedRef) ref).ref.visit(this, null);
+		else
+			code.load(0, true);
+	}
+
+	private int fieldRef(FieldDecl fd) {
+		return cf.fieldRef(internalName(owners.get(fd).name), fd.name, descriptor(fd.type));
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// REFERENCES, AS VALUES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitQualifiedRef(QualifiedRef qr, Object arg) {
+		if (qr.id.decl == null) {
+			qr.ref.visit(this, null);
+			code.op(JVMCode.ARRAYLENGTH, 0);
+			return null;
+		}
+		FieldDecl fd = (FieldDecl) qr.id.decl;
+		if (fd.isStatic) {
+			code.op2(JVMCode.GETSTATIC, fieldRef(fd), 1);
+			return null;
+		}
+		qr.ref.visit(this, null);
+		code.op2(JVMCode.GETFIELD, fieldRef(fd), 0);
+		return null;
+	}
+
+	public Object visitIndexedRef(IndexedRef ir, Object arg) {
+		ir.idRef.visit(this, null);
+		ir.indexExpr.visit(this, null);
+		code.op(isRef(elementType(ir)) ? JVMCode.AALOAD : JVMCode.IALOAD, -1);
+		return null;
+	}
+
+	public Object visitIdRef(IdRef ref, Object arg) {
+		Declaration decl = ref.id.decl;
+		if (decl instanceof LocalDecl) {
+			code.load(locals.get(decl), isRef(decl.type));
+			return null;
+		}
+		FieldDecl fd = (FieldDecl) decl;
+		if (fd.isStatic) {
+			code.op2(JVMCode.GETSTATIC, fieldRef(fd), 1);
+			return null;
+		}
+		code.load(0, true);
+		code.op2(JVMCode.GETFIELD, fieldRef(fd), 0);
+		return null;
+	}
+
+	public Object visitThisRef(ThisRef ref, Object arg) {
+		code.load(0, true);
+		return null;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// TERMINALS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitIntLiteral(IntLiteral num, Object arg) {
+		try {
+			code.iconst(Integer.parseInt(num.spelling), cf);
+		}
+		catch (NumberFormatException e) {
+			throw new ExecutionError("integer literal " + num.spelling + " is too large");
+		}
+		return null;
+	}
+
+	public Object visitBooleanLiteral(BooleanLiteral bool, Object arg) {
+		code.iconst(bool.kind == TokenKind.TRUE ? 1 : 0, cf);
+		return null;
+	}
+}
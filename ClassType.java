@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class ClassType extends Type
 {
-    public ClassType(Identifier cn, SourcePosition posn){
+    public ClassType(Identifier cn, int posn){
         super(TypeKind.CLASS, posn);
         className = cn;
     }
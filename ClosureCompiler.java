@@ -0,0 +1,660 @@
+package miniJava.Interpreter;
+
+import java.io.PrintStream;
+import java.util.IdentityHashMap;
+
+import miniJava.AbstractSyntaxTrees.*;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.Interpreter.Closures.Arg;
+import miniJava.Interpreter.Closures.BoolExpr;
+import miniJava.Interpreter.Closures.IntExpr;
+import miniJava.Interpreter.Closures.Invoke;
+import miniJava.Interpreter.Closures.ObjExpr;
+import miniJava.Interpreter.Closures.Routine;
+import miniJava.Interpreter.Closures.Stmt;
+import miniJava.SyntacticAnalyzer.TokenKind;
+
+/*
+ * Runs a checked program compiled, all of it up front, into closures.
+ *
+ * The visit of a statement returns a Stmt and of an expression an IntExpr,
+ * BoolExpr or ObjExpr, by its type, each a lambda bound to the closures of
+ * its operands and to the frame slots, field slots and Routine it uses, so
+ * running it has no visitor dispatch, decisions on types or boxing left.
+ * Unlike the Interpreter, nothing has to run before it is compiled; unlike
+ * the JVM back end, no classes are generated, so a program starts at once.
+ *
+ * Objects and frames are those of the Interpreter, and so are the failures
+ * of a running program: the JVM's exceptions, turned into an ExecutionError
+ * when they reach run.
+ *
+ * implements Visitor<argtype,resulttype>, the argument the method being
+ * compiled, for the slots of its variables
+ */
+public class ClosureCompiler implements Visitor<Routine, Object> {
+
+	private PrintStream out;
+	private MethodDecl println;
+	private MethodDecl main;
+	private IdentityHashMap<ClassDecl, Layout> layouts = new IdentityHashMap<ClassDecl, Layout>();
+	private IdentityHashMap<FieldDecl, Layout> owners = new IdentityHashMap<FieldDecl, Layout>();
+	private IdentityHashMap<FieldDecl, Integer> fieldSlots = new IdentityHashMap<FieldDecl, Integer>();
+	private IdentityHashMap<MethodDecl, Routine> routines = new IdentityHashMap<MethodDecl, Routine>();
+
+	/**
+	 * @param prog  a program that has been identified and type checked
+	 * @param out   where System.out.println prints
+	 */
+	public ClosureCompiler(Package prog, PrintStream out) {
+		this.out = out;
+		main = Interpreter.main(prog);
+		for (ClassDecl cd : prog.classDeclList) {
+			Layout layout = new Layout(cd, fieldSlots);
+			layouts.put(cd, layout);
+			for (FieldDecl f : cd.fieldDeclList)
+				owners.put(f, layout);
+			if (cd.name.equals("_PrintStream"))
+				println = (MethodDecl) cd.member("println");
+			for (MethodDecl m : cd.methodDeclList)
+				routines.put(m, new Routine(m));
+		}
+		for (ClassDecl cd : prog.classDeclList) {
+			for (MethodDecl m : cd.methodDeclList) {
+				Routine r = routines.get(m);
+				r.body = block(m.statementList, r);
+			}
+		}
+	}
+
+	/**
+	 * run main, again each time this is called; static fields keep their
+	 * values from one run to the next
+	 * @throws ExecutionError  if the program fails
+	 */
+	public void run() {
+		if (main == null)
+			throw new ExecutionError("no method public static void main(String[] args)");
+		Routine r = routines.get(main);
+		Frame frame = r.slots.frame(null);
+		frame.refs[r.slots.params[0]] = new Object[0];
+		try {
+			r.body.exec(frame);
+		}
+		catch (RuntimeException | StackOverflowError | OutOfMemoryError e) {
+			throw Interpreter.failure(e);
+		}
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// KINDS OF CLOSURES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	private IntExpr intExpr(Expression e, Routine r) {
+		Object c = e.visit(this, r);
+		if (c instanceof BoolExpr) {
+			BoolExpr b = (BoolExpr) c;
+			return f -> b.eval(f) ? 1 : 0;
+		}
+		return (IntExpr) c;
+	}
+
+	private BoolExpr boolExpr(Expression e, Routine r) {
+		return (BoolExpr) e.visit(this, r);
+	}
+
+	/**
+	 * @param ast  an expression, or a reference for its value
+	 */
+	private ObjExpr objExpr(AST ast, Routine r) {
+		return (ObjExpr) ast.visit(this, r);
+	}
+
+	private Stmt block(StatementList sl, Routine r) {
+		Stmt[] statements = new Stmt[sl.size()];
+		for (int i = 0; i < statements.length; i++)
+			statements[i] = (Stmt) sl.get(i).visit(this, r);
+		if (statements.length == 0)
+			return f -> false;
+		if (statements.length == 1)
+			return statements[0];
+		return f -> {
+			for (Stmt s : statements) {
+				if (s.exec(f))
+					return true;
+			}
+			return false;
+		};
+	}
+
+	// of any reference but this
+	private static Type typeOf(Reference ref) {
+		if (ref instanceof IdRef)
+			return ((IdRef) ref).id.decl.type;
+		if (ref instanceof QualifiedRef) {
+			Declaration decl = ((QualifiedRef) ref).id.decl;
+			// the length of an array
+			return decl == null ? Types.INT : decl.type;
+		}
+		return elementType((IndexedRef) ref);
+	}
+
+	private static Type elementType(IndexedRef ir) {
+		return ((ArrayType) typeOf(ir.idRef)).eltType;
+	}
+
+	private static Declaration declOf(Reference ref) {
+		if (ref instanceof IdRef)
+			return ((IdRef) ref).id.decl;
+		return ((QualifiedRef) ref).id.decl;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// NOT EXECUTED
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitPackage(Package prog, Routine r) {
+		return null;
+	}
+
+	public Object visitClassDecl(ClassDecl cd, Routine r) {
+		return null;
+	}
+
+	public Object visitFieldDecl(FieldDecl fd, Routine r) {
+		return null;
+	}
+
+	public Object visitMethodDecl(MethodDecl md, Routine r) {
+		return null;
+	}
+
+	public Object visitParameterDecl(ParameterDecl pd, Routine r) {
+		return null;
+	}
+
+	public Object visitVarDecl(VarDecl decl, Routine r) {
+		return null;
+	}
+
+	public Object visitBaseType(BaseType type, Routine r) {
+		return null;
+	}
+
+	public Object visitClassType(ClassType type, Routine r) {
+		return null;
+	}
+
+	public Object visitArrayType(ArrayType type, Routine r) {
+		return null;
+	}
+
+	public Object visitIdentifier(Identifier id, Routine r) {
+		return null;
+	}
+
+	public Object visitOperator(Operator op, Routine r) {
+		return null;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// STATEMENTS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitBlockStmt(BlockStmt stmt, Routine r) {
+		return block(stmt.sl, r);
+	}
+
+	public Object visitVardeclStmt(VarDeclStmt stmt, Routine r) {
+		int slot = r.slots.slot(stmt.varDecl);
+		if (Layout.isRef(stmt.varDecl.type)) {
+			ObjExpr value = objExpr(stmt.initExp, r);
+			return (Stmt) f -> {
+				f.refs[slot] = value.eval(f);
+				return false;
+			};
+		}
+		IntExpr value = intExpr(stmt.initExp, r);
+		return (Stmt) f -> {
+			f.ints[slot] = value.eval(f);
+			return false;
+		};
+	}
+
+	public Object visitAssignStmt(AssignStmt stmt, Routine r) {
+		Declaration decl = declOf(stmt.ref);
+		boolean ref = Layout.isRef(decl.type);
+		if (decl instanceof LocalDecl) {
+			int slot = r.slots.slot((LocalDecl) decl);
+			if (ref) {
+				ObjExpr value = objExpr(stmt.val, r);
+				return (Stmt) f -> {
+					f.refs[slot] = value.eval(f);
+					return false;
+				};
+			}
+			IntExpr value = intExpr(stmt.val, r);
+			return (Stmt) f -> {
+				f.ints[slot] = value.eval(f);
+				return false;
+			};
+		}
+		FieldDecl fd = (FieldDecl) decl;
+		int slot = fieldSlots.get(fd);
+		if (fd.isStatic) {
+			Layout owner = owners.get(fd);
+			if (ref) {
+				Object[] statics = owner.staticRefs;
+				ObjExpr value = objExpr(stmt.val, r);
+				return (Stmt) f -> {
+					statics[slot] = value.eval(f);
+					return false;
+				};
+			}
+			int[] statics = owner.staticInts;
+			IntExpr value = intExpr(stmt.val, r);
+			return (Stmt) f -> {
+				statics[slot] = value.eval(f);
+				return false;
+			};
+		}
+		ObjExpr object = object(stmt.ref, r);
+		// the object, then the value, then the check for null
+		if (ref) {
+			ObjExpr value = objExpr(stmt.val, r);
+			return (Stmt) f -> {
+				Instance o = (Instance) object.eval(f);
+				Object v = value.eval(f);
+				o.refs[slot] = v;
+				return false;
+			};
+		}
+		IntExpr value = intExpr(stmt.val, r);
+		return (Stmt) f -> {
+			Instance o = (Instance) object.eval(f);
+			int v = value.eval(f);
+			o.ints[slot] = v;
+			return false;
+		};
+	}
+
+	public Object visitIxAssignStmt(IxAssignStmt stmt, Routine r) {
+		ObjExpr array = objExpr(stmt.ixRef.idRef, r);
+		IntExpr index = intExpr(stmt.ixRef.indexExpr, r);
+		if (Layout.isRef(elementType(stmt.ixRef))) {
+			ObjExpr value = objExpr(stmt.val, r);
+			return (Stmt) f -> {
+				Object[] a = (Object[]) array.eval(f);
+				int i = index.eval(f);
+				Object v = value.eval(f);
+				a[i] = v;
+				return false;
+			};
+		}
+		IntExpr value = intExpr(stmt.val, r);
+		return (Stmt) f -> {
+			int[] a = (int[]) array.eval(f);
+			int i = index.eval(f);
+			int v = value.eval(f);
+			a[i] = v;
+			return false;
+		};
+	}
+
+	public Object visitCallStmt(CallStmt stmt, Routine r) {
+		if (declOf(stmt.methodRef) == println) {
+			IntExpr value = intExpr(stmt.argList.get(0), r);
+			PrintStream out = this.out;
+			return (Stmt) f -> {
+				out.println(value.eval(f));
+				return false;
+			};
+		}
+		Invoke call = call(stmt.methodRef, stmt.argList, r);
+		return (Stmt) f -> {
+			call.call(f);
+			return false;
+		};
+	}
+
+	public Object visitReturnStmt(ReturnStmt stmt, Routine r) {
+		if (stmt.returnExpr == null)
+			return (Stmt) f -> true;
+		if (Layout.isRef(r.decl.type)) {
+			ObjExpr value = objExpr(stmt.returnExpr, r);
+			return (Stmt) f -> {
+				f.refResult = value.eval(f);
+				return true;
+			};
+		}
+		IntExpr value = intExpr(stmt.returnExpr, r);
+		return (Stmt) f -> {
+			f.intResult = value.eval(f);
+			return true;
+		};
+	}
+
+	public Object visitIfStmt(IfStmt stmt, Routine r) {
+		BoolExpr cond = boolExpr(stmt.cond, r);
+		Stmt then = (Stmt) stmt.thenStmt.visit(this, r);
+		if (stmt.elseStmt == null)
+			return (Stmt) f -> cond.eval(f) && then.exec(f);
+		Stmt otherwise = (Stmt) stmt.elseStmt.visit(this, r);
+		return (Stmt) f -> cond.eval(f) ? then.exec(f) : otherwise.exec(f);
+	}
+
+	public Object visitWhileStmt(WhileStmt stmt, Routine r) {
+		BoolExpr cond = boolExpr(stmt.cond, r);
+		Stmt body = (Stmt) stmt.body.visit(this, r);
+		return (Stmt) f -> {
+			while (cond.eval(f)) {
+				if (body.exec(f))
+					return true;
+			}
+			return false;
+		};
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// EXPRESSIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitUnaryExpr(UnaryExpr expr, Routine r) {
+		if (expr.operator.kind == TokenKind.NOT) {
+			BoolExpr operand = boolExpr(expr.expr, r);
+			return (BoolExpr) f -> !operand.eval(f);
+		}
+		IntExpr operand = intExpr(expr.expr, r);
+		return (IntExpr) f -> -operand.eval(f);
+	}
+
+	public Object visitBinaryExpr(BinaryExpr expr, Routine r) {
+		switch (expr.operator.kind) {
+		case AND: {
+			BoolExpr left = boolExpr(expr.left, r);
+			BoolExpr right = boolExpr(expr.right, r);
+			return (BoolExpr) f -> left.eval(f) && right.eval(f);
+		}
+		case OR: {
+			BoolExpr left = boolExpr(expr.left, r);
+			BoolExpr right = boolExpr(expr.right, r);
+			return (BoolExpr) f -> left.eval(f) || right.eval(f);
+		}
+		case EQ:
+		case NEQ:
+			return equality(expr, r);
+		default:
+			break;
+		}
+		IntExpr left = intExpr(expr.left, r);
+		Integer constant = constant(expr.right);
+		if (constant != null) {
+			// i + 1, n < 2 and the like, without a closure for the constant
+			int n = constant;
+			switch (expr.operator.kind) {
+			case PLUS:
+				return (IntExpr) f -> left.eval(f) + n;
+			case MINUS:
+				return (IntExpr) f -> left.eval(f) - n;
+			case LT:
+				return (BoolExpr) f -> left.eval(f) < n;
+			case GT:
+				return (BoolExpr) f -> left.eval(f) > n;
+			case LE:
+				return (BoolExpr) f -> left.eval(f) <= n;
+			case GE:
+				return (BoolExpr) f -> left.eval(f) >= n;
+			default:
+				break;
+			}
+		}
+		IntExpr right = intExpr(expr.right, r);
+		switch (expr.operator.kind) {
+		case PLUS:
+			return (IntExpr) f -> left.eval(f) + right.eval(f);
+		case MINUS:
+			return (IntExpr) f -> left.eval(f) - right.eval(f);
+		case TIMES:
+			return (IntExpr) f -> left.eval(f) * right.eval(f);
+		case DIVIDE:
+			return (IntExpr) f -> left.eval(f) / right.eval(f);
+		case LT:
+			return (BoolExpr) f -> left.eval(f) < right.eval(f);
+		case GT:
+			return (BoolExpr) f -> left.eval(f) > right.eval(f);
+		case LE:
+			return (BoolExpr) f -> left.eval(f) <= right.eval(f);
+		default:
+			return (BoolExpr) f -> left.eval(f) >= right.eval(f);
+		}
+	}
+
+	/**
+	 * @return the value of an int literal that fits in an int, or null
+	 */
+	private static Integer constant(Expression e) {
+		if (!(e instanceof LiteralExpr) || !(((LiteralExpr) e).lit instanceof IntLiteral))
+			return null;
+		try {
+			return Integer.parseInt(((LiteralExpr) e).lit.spelling);
+		}
+		catch (NumberFormatException x) {
+			return null;
+		}
+	}
+
+	// by the kind of the left operand, which the right has too
+	private BoolExpr equality(BinaryExpr expr, Routine r) {
+		boolean eq = expr.operator.kind == TokenKind.EQ;
+		Object left = expr.left.visit(this, r);
+		if (left instanceof ObjExpr) {
+			ObjExpr l = (ObjExpr) left;
+			ObjExpr right = objExpr(expr.right, r);
+			if (eq)
+				return f -> l.eval(f) == right.eval(f);
+			return f -> l.eval(f) != right.eval(f);
+		}
+		if (left instanceof BoolExpr) {
+			BoolExpr l = (BoolExpr) left;
+			BoolExpr right = boolExpr(expr.right, r);
+			if (eq)
+				return f -> l.eval(f) == right.eval(f);
+			return f -> l.eval(f) != right.eval(f);
+		}
+		IntExpr l = (IntExpr) left;
+		IntExpr right = intExpr(expr.right, r);
+		if (eq)
+			return f -> l.eval(f) == right.eval(f);
+		return f -> l.eval(f) != right.eval(f);
+	}
+
+	public Object visitRefExpr(RefExpr expr, Routine r) {
+		return expr.ref.visit(this, r);
+	}
+
+	public Object visitCallExpr(CallExpr expr, Routine r) {
+		MethodDecl md = (MethodDecl) declOf(expr.functionRef);
+		Invoke call = call(expr.functionRef, expr.argList, r);
+		if (Layout.isRef(md.type))
+			return (ObjExpr) f -> call.call(f).refResult;
+		if (md.type.typeKind == TypeKind.BOOLEAN)
+			return (BoolExpr) f -> call.call(f).intResult != 0;
+		return (IntExpr) f -> call.call(f).intResult;
+	}
+
+	public Object visitLiteralExpr(LiteralExpr expr, Routine r) {
+		return expr.lit.visit(this, r);
+	}
+
+	public Object visitNewObjectExpr(NewObjectExpr expr, Routine r) {
+		Layout layout = layouts.get(expr.classtype.decl);
+		int ints = layout.ints;
+		int refs = layout.refs;
+		return (ObjExpr) f -> new Instance(ints, refs);
+	}
+
+	public Object visitNewArrayExpr(NewArrayExpr expr, Routine r) {
+		IntExpr size = intExpr(expr.sizeExpr, r);
+		if (Layout.isRef(expr.eltType))
+			return (ObjExpr) f -> new Object[size.eval(f)];
+		return (ObjExpr) f -> new int[size.eval(f)];
+	}
+
+	/**
+	 * evaluates the object, for an instance method, and the arguments, then
+	 * checks the object for null and calls; the qualifier of a static method
+	 * is not evaluated
+	 */
+	private Invoke call(Reference ref, ExprList args, Routine r) {
+		MethodDecl md = (MethodDecl) declOf(ref);
+		Routine target = routines.get(md);
+		int[] params = target.slots.params;
+		Arg[] passes = new Arg[args.size()];
+		for (int i = 0; i < passes.length; i++) {
+			int slot = params[i];
+			if (Layout.isRef(md.parameterDeclList.get(i).type)) {
+				ObjExpr value = objExpr(args.get(i), r);
+				passes[i] = (caller, callee) -> callee.refs[slot] = value.eval(caller);
+			}
+			else {
+				IntExpr value = intExpr(args.get(i), r);
+				passes[i] = (caller, callee) -> callee.ints[slot] = value.eval(caller);
+			}
+		}
+		if (md.isStatic) {
+			return f -> {
+				Frame callee = target.slots.frame(null);
+				for (Arg a : passes)
+					a.pass(f, callee);
+				target.body.exec(callee);
+				return callee;
+			};
+		}
+		ObjExpr object = object(ref, r);
+		return f -> {
+			Object self = object.eval(f);
+			Frame callee = target.slots.frame(self);
+			for (Arg a : passes)
+				a.pass(f, callee);
+			if (self == null)
+				throw new NullPointerException();
+			target.body.exec(callee);
+			return callee;
+		};
+	}
+
+	// the object a member is selected from
+	private ObjExpr object(Reference ref, Routine r) {
+		if (ref instanceof QualifiedRef)
+			return objExpr(((QualifiedRef) ref).ref, r);
+		return f -> f.self;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// REFERENCES, AS VALUES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitQualifiedRef(QualifiedRef qr, Routine r) {
+		if (qr.id.decl == null) {
+			ObjExpr array = objExpr(qr.ref, r);
+			if (Layout.isRef(((ArrayType) typeOf(qr.ref)).eltType))
+				return (IntExpr) f -> ((Object[]) array.eval(f)).length;
+			return (IntExpr) f -> ((int[]) array.eval(f)).length;
+		}
+		FieldDecl fd = (FieldDecl) qr.id.decl;
+		return field(fd, fd.isStatic ? null : objExpr(qr.ref, r));
+	}
+
+	public Object visitIndexedRef(IndexedRef ir, Routine r) {
+		ObjExpr array = objExpr(ir.idRef, r);
+		IntExpr index = intExpr(ir.indexExpr, r);
+		Type elt = elementType(ir);
+		if (Layout.isRef(elt))
+			return (ObjExpr) f -> ((Object[]) array.eval(f))[index.eval(f)];
+		if (elt.typeKind == TypeKind.BOOLEAN)
+			return (BoolExpr) f -> ((int[]) array.eval(f))[index.eval(f)] != 0;
+		return (IntExpr) f -> ((int[]) array.eval(f))[index.eval(f)];
+	}
+
+	public Object visitIdRef(IdRef ref, Routine r) {
+		Declaration decl = ref.id.decl;
+		if (decl instanceof LocalDecl) {
+			int slot = r.slots.slot((LocalDecl) decl);
+			if (Layout.isRef(decl.type))
+				return (ObjExpr) f -> f.refs[slot];
+			if (decl.type.typeKind == TypeKind.BOOLEAN)
+				return (BoolExpr) f -> f.ints[slot] != 0;
+			return (IntExpr) f -> f.ints[slot];
+		}
+		FieldDecl fd = (FieldDecl) decl;
+		return field(fd, fd.isStatic ? null : f -> f.self);
+	}
+
+	public Object visitThisRef(ThisRef ref, Routine r) {
+		return (ObjExpr) f -> f.self;
+	}
+
+	/**
+	 * @param object  the object of an instance field
+	 */
+	private Object field(FieldDecl fd, ObjExpr object) {
+		int slot = fieldSlots.get(fd);
+		boolean bool = fd.type.typeKind == TypeKind.BOOLEAN;
+		if (fd.isStatic) {
+			Layout owner = owners.get(fd);
+			if (Layout.isRef(fd.type)) {
+				Object[] statics = owner.staticRefs;
+				return (ObjExpr) f -> statics[slot];
+			}
+			int[] statics = owner.staticInts;
+			if (bool)
+				return (BoolExpr) f -> statics[slot] != 0;
+			return (IntExpr) f -> statics[slot];
+		}
+		if (Layout.isRef(fd.type))
+			return (ObjExpr) f -> ((Instance) object.eval(f)).refs[slot];
+		if (bool)
+			return (BoolExpr) f -> ((Instance) object.eval(f)).ints[slot] != 0;
+		return (IntExpr) f -> ((Instance) object.eval(f)).ints[slot];
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// TERMINALS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	// a literal too large fails only if it is run, as in the Interpreter
+	public Object visitIntLiteral(IntLiteral num, Routine r) {
+		try {
+			int n = Integer.parseInt(num.spelling);
+			return (IntExpr) f -> n;
+		}
+		catch (NumberFormatException e) {
+			String message = "integer literal " + num.spelling + " is too large";
+			return (IntExpr) f -> {
+				throw new ExecutionError(message);
+			};
+		}
+	}
+
+	public Object visitBooleanLiteral(BooleanLiteral bool, Routine r) {
+		boolean b = bool.kind == TokenKind.TRUE;
+		return (BoolExpr) f -> b;
+	}
+}
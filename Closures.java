@@ -0,0 +1,56 @@
+package miniJava.Interpreter;
+
+import miniJava.AbstractSyntaxTrees.MethodDecl;
+
+/*
+ * The closures a program is compiled into by ClosureCompiler, one kind for
+ * each kind of value so none is boxed, and the methods they call.
+ */
+final class Closures {
+
+	private Closures() {
+	}
+
+	interface IntExpr {
+		int eval(Frame f);
+	}
+
+	interface BoolExpr {
+		boolean eval(Frame f);
+	}
+
+	// an array or object
+	interface ObjExpr {
+		Object eval(Frame f);
+	}
+
+	// true when a return statement was executed
+	interface Stmt {
+		boolean exec(Frame f);
+	}
+
+	// evaluates an argument in the caller into its slot in the callee
+	interface Arg {
+		void pass(Frame caller, Frame callee);
+	}
+
+	// calls a method, returning its frame, which holds the result
+	interface Invoke {
+		Frame call(Frame caller);
+	}
+
+	/*
+	 * A method: the slots of its frame, and its body, compiled once every
+	 * method has a Routine to call.
+	 */
+	static final class Routine {
+		final MethodDecl decl;
+		final Slots slots;
+		Stmt body;
+
+		Routine(MethodDecl m) {
+			decl = m;
+			slots = new Slots(m);
+		}
+	}
+}
@@ -6,16 +6,40 @@
 
 package miniJava;
 
-import java.io.FileInputStream;
 import miniJava.AbstractSyntaxTrees.*;
 import miniJava.AbstractSyntaxTrees.Package;
 
-import java.io.FileNotFoundException;
-import java.io.InputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
 
-import contextualAnalyzer.ContextChecker;
+import miniJava.CodeGenerator.Generator;
+import miniJava.CodeGenerator.JVMProgram;
+import miniJava.CodeGenerator.NativeCompiler;
+import miniJava.CodeGenerator.VM;
+import miniJava.Interpreter.ClosureCompiler;
+import miniJava.Interpreter.ExecutionError;
+import miniJava.Interpreter.Interpreter;
+import miniJava.Interpreter.LargeStack;
+import miniJava.SyntacticAnalyzer.BufferedCharSource;
+import miniJava.SyntacticAnalyzer.CharSource;
+import miniJava.SyntacticAnalyzer.DFAScanner;
+import miniJava.SyntacticAnalyzer.Lexer;
+import miniJava.SyntacticAnalyzer.MappedCharSource;
+import miniJava.SyntacticAnalyzer.ParallelParser;
+import miniJava.SyntacticAnalyzer.ParseRecorder;
 import miniJava.SyntacticAnalyzer.Parser;
 import miniJava.SyntacticAnalyzer.Scanner;
+import miniJava.SyntacticAnalyzer.SourcePosition;
+import miniJava.SyntacticAnalyzer.SymbolTable;
+import miniJava.SyntacticAnalyzer.TokenBuffer;
 
 /**
  * Recognize whether input is an arithmetic expression as defined by
@@ -26,36 +50,198 @@ public class Compiler {
 
 
 	/**
-	 * @param args  if no args provided parse from keyboard input
-	 *              else args[0] is name of file containing input to be parsed  
+	 * @param args  if no file name provided parse from keyboard input
+	 *              else the file name names the file containing input to be parsed
+	 *              options:  -dfa     scan with the table driven DFAScanner
+	 *                        -packed  lex the whole file into a TokenBuffer first
+	 *                        -parallel  as -packed, then parse the classes and check the methods in parallel
+	 *                        -flat    as -packed, then parse into a FlatAST, and display and check it one
+	 *                                 class at a time, see Pipeline
+	 *                        -trace   record parse events and show the last ones on a parse error
+	 *                        -fused   identify and type check in a single traversal
+	 *                        -stream  parse, display and check one class at a time, see Pipeline
+	 *                        -lazy    as -packed, then parse each method body when it is first used
+	 *                        -run     run a valid program with the Interpreter, but not with -stream or -flat
+	 *                        -vm      as -run, but compile the program to bytecode and run it on the VM
+	 *                        -jvm     as -run, but compile the program to JVM classes and run them in this JVM
+	 *                        -closures  as -run, but compile the program into closures and run them
+	 *                        -native  compile a valid program to C and with the C compiler to an
+	 *                                 executable named after the file, but not with -stream or -flat
 	 */
 	public static void main(String[] args) {
 
-		InputStream inputStream = null;
-		if (args.length == 0) {
-			System.out.println("Enter Expression");
-			inputStream = System.in;
+		String fileName = null;
+		boolean dfa = false;
+		boolean packed = false;
+		boolean parallel = false;
+		boolean flat = false;
+		boolean fused = false;
+		boolean stream = false;
+		boolean lazy = false;
+		boolean trace = false;
+		boolean run = false;
+		boolean vm = false;
+		boolean jvm = false;
+		boolean closures = false;
+		boolean nativeCode = false;
+		for (String arg : args) {
+			if (arg.equals("-dfa"))
+				dfa = true;
+			else if (arg.equals("-packed"))
+				packed = true;
+			else if (arg.equals("-parallel"))
+				packed = parallel = true;
+			else if (arg.equals("-flat"))
+				packed = flat = true;
+			else if (arg.equals("-trace"))
+				trace = true;
+			else if (arg.equals("-fused"))
+				fused = true;
+			else if (arg.equals("-stream"))
+				stream = true;
+			else if (arg.equals("-lazy"))
+				packed = lazy = true;
+			else if (arg.equals("-run"))
+				run = true;
+			else if (arg.equals("-vm"))
+				run = vm = true;
+			else if (arg.equals("-jvm"))
+				run = jvm = true;
+			else if (arg.equals("-closures"))
+				run = closures = true;
+			else if (arg.equals("-native"))
+				nativeCode = true;
+			else
+				fileName = arg;
 		}
-		else {
-			try {
-				inputStream = new FileInputStream(args[0]);
-			} catch (FileNotFoundException e) {
-				System.out.println("Input file " + args[0] + " not found");
-				System.exit(1);
-			}		
+
+		String executable = null;
+		if (nativeCode) {
+			if (fileName == null)
+				executable = "a.out";
+			else
+				executable = fileName.endsWith(".java") ? fileName.substring(0, fileName.length() - 5) : fileName + ".out";
 		}
 
+		// keyboard input cannot be read twice, so it is kept in a TokenBuffer
+		if (stream && fileName == null)
+			packed = true;
+
 		ErrorReporter reporter = new ErrorReporter();
-		Scanner scanner = new Scanner(inputStream, reporter);
-		Parser parser = new Parser(scanner, reporter);
-		ContextChecker cc = new ContextChecker();
+		Parser parser = null;
+		Parser declarations = null;	// the first parse of -stream, whose errors are reported again
+		TokenBuffer tokens = null;
+		// one table of identifiers shared by the scanner, parser threads and checker
+		SymbolTable symbols = new SymbolTable();
+		SourcePosition positions = null;
+		try {
+			// the line table is set up before lexing, which reports the scan errors
+			if (packed) {
+				byte[] text;
+				if (fileName == null) {
+					System.out.println("Enter Expression");
+					text = System.in.readAllBytes();
+				}
+				else text = Files.readAllBytes(Paths.get(fileName));
+				positions = new SourcePosition(text);
+				reporter.setSource(positions);
+				tokens = TokenBuffer.lex(text, reporter, symbols);
+				parser = new Parser(tokens, reporter);
+				if (stream)
+					declarations = new Parser(tokens, reporter.fork());
+			}
+			else {
+				CharSource source;
+				if (fileName == null) {
+					// read to its end first, since it cannot be read again for the line table
+					System.out.println("Enter Expression");
+					byte[] text = System.in.readAllBytes();
+					source = new BufferedCharSource(new ByteArrayInputStream(text));
+					positions = new SourcePosition(text);
+				}
+				else {
+					source = new MappedCharSource(Paths.get(fileName));
+					positions = new SourcePosition(Paths.get(fileName));
+				}
+				reporter.setSource(positions);
+				Lexer scanner = dfa ? new DFAScanner(source, reporter, symbols) : new Scanner(source, reporter, symbols);
+				parser = new Parser(scanner, reporter);
+				if (stream) {
+					ErrorReporter discarded = reporter.fork();
+					source = new MappedCharSource(Paths.get(fileName));
+					scanner = dfa ? new DFAScanner(source, discarded, symbols) : new Scanner(source, discarded, symbols);
+					declarations = new Parser(scanner, discarded);
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Input file " + fileName + " not found");
+			System.exit(1);
+		}
+		// line numbers are only worked out if an error or the display needs them
+		ASTDisplay.positions = positions;
+		ParseRecorder recorder = null;
+		ParallelParser parallelParser = parallel ? new ParallelParser(tokens, reporter) : null;
+		if (trace) {
+			recorder = new ParseRecorder();
+			parser.setListener(recorder);
+			if (parallel)
+				parallelParser.setListener(recorder);
+		}
+		ContextChecker cc = parallel ? new ContextChecker(symbols, ForkJoinPool.commonPool()) : new ContextChecker(symbols);
+
+		if (stream) {
+			System.out.println("Streaming analysis ... ");
+			Pipeline pipeline = new Pipeline();
+			pipeline.add(new Pipeline.Display());
+			Pipeline.Check check = new Pipeline.Check(new StreamingChecker(cc, reporter));
+			pipeline.add(check);
+			if (!pipeline.run(declarations, parser)) {
+				System.out.println("INVALID miniJava file");
+				if (recorder != null)
+					recorder.dump(System.out, positions);
+				System.exit(4);
+			}
+			if (reporter.hasErrors()) {
+				System.out.println(check.identified() ? "INVALID miniJava file... Type Error" : "INVALID miniJava file... ID Error");
+				System.exit(4);
+			}
+			System.out.println("Finished Syntactic and Contextual Analysis...Valid MiniJava Program");
+			System.exit(0);
+		}
 
 		System.out.println("Syntactic analysis ... ");
-		Package ast = parser.parse();
+		if (flat) {
+			FlatAST tree = parser.parseFlat();
+			System.out.print("Syntactic analysis complete:  ");
+			if (reporter.hasErrors()) {
+				System.out.println("INVALID miniJava file");
+				if (recorder != null)
+					recorder.dump(System.out, positions);
+				System.exit(4);
+			}
+			System.out.println("Syntactically valid miniJava file");
+			Pipeline pipeline = new Pipeline();
+			pipeline.add(new Pipeline.Display());
+			Pipeline.Check check = new Pipeline.Check(new StreamingChecker(cc, reporter));
+			pipeline.add(check);
+			pipeline.run(tree);
+			if (reporter.hasErrors()) {
+				System.out.println(check.identified() ? "INVALID miniJava file... Type Error" : "INVALID miniJava file... ID Error");
+				System.exit(4);
+			}
+			System.out.println("Finished Syntactic and Contextual Analysis...Valid MiniJava Program");
+			System.exit(0);
+		}
+		Package ast;
+		if (lazy)
+			ast = parser.parseLazily();
+		else ast = parallel ? parallelParser.parse() : parser.parse();
 		System.out.print("Syntactic analysis complete:  ");
 		
 		if (reporter.hasErrors()) {
 			System.out.println("INVALID miniJava file");
+			if (recorder != null)
+				recorder.dump(System.out, positions);
 			System.exit(4);
 		}
 		else {
@@ -64,6 +250,21 @@ public class Compiler {
 			 ASTDisplay display = new ASTDisplay();
 		     display.showTree(ast);
 		}
+		// with -lazy the display parses the method bodies, reporting their syntax errors
+		if (reporter.hasErrors()) {
+			System.out.println("INVALID miniJava file");
+			System.exit(4);
+		}
+		
+		if (fused) {
+			System.out.println("Contextual analysis ... ");
+			cc.check(ast, reporter);
+			if (reporter.hasErrors()) {
+				System.out.println("INVALID miniJava file... Contextual Error");
+				System.exit(4);
+			}
+			valid(ast, run, vm, jvm, closures, executable);
+		}
 		
 		System.out.println("Contextual analysis ... ID Checking... ");
 		Package idCheckedAST = (Package)cc.idCheck(ast, reporter);
@@ -80,7 +281,50 @@ public class Compiler {
 			System.exit(4);
 		}
 		
+		valid(typeCheckedAST, run, vm, jvm, closures, executable);
+	}
+	
+	/**
+	 * report a valid program and, if asked to, run it, its output
+	 * buffered until it ends, or compile it to a native executable
+	 */
+	private static void valid(final Package ast, boolean run, final boolean vm, final boolean jvm, final boolean closures, String executable) {
 		System.out.println("Finished Syntactic and Contextual Analysis...Valid MiniJava Program");
+		if (executable != null) {
+			try {
+				NativeCompiler.compile(ast, new File(executable));
+			}
+			catch (IOException | ExecutionError e) {
+				System.out.println("Native compilation failed: " + e.getMessage());
+				System.exit(1);
+			}
+			System.out.println("Compiled to " + executable);
+		}
+		if (run) {
+			System.out.flush();
+			final PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+			try {
+				// a program recurses as deep as it likes, not as deep as the main thread's stack
+				LargeStack.run(new Runnable() {
+					public void run() {
+						if (jvm)
+							JVMProgram.load(ast).run(out);
+						else if (vm)
+							new VM(out).run(Generator.generate(ast));
+						else if (closures)
+							new ClosureCompiler(ast, out).run();
+						else
+							new Interpreter(ast, out).run();
+					}
+				});
+			}
+			catch (ExecutionError e) {
+				out.flush();
+				System.out.println("Run-time error: " + e.getMessage());
+				System.exit(1);
+			}
+			out.flush();
+		}
 		System.exit(0);
 	}
 }
@@ -1,17 +1,100 @@
 package miniJava.AbstractSyntaxTrees;
 
+import java.util.concurrent.ForkJoinPool;
+
 import miniJava.ErrorReporter;
+import miniJava.SyntacticAnalyzer.SourcePosition;
+import miniJava.SyntacticAnalyzer.SymbolTable;
+import miniJava.SyntacticAnalyzer.Token;
+import miniJava.SyntacticAnalyzer.TokenKind;
 
 public class ContextChecker {
+
 	public IdentificationTable idTable;
+	private ForkJoinPool pool;	// checks method bodies in parallel when set
 	
 	public ContextChecker(){
 		idTable = new IdentificationTable();
 	}
 	
+	/**
+	 * checker for an AST whose names were interned in symbols
+	 */
+	public ContextChecker(SymbolTable symbols){
+		idTable = new IdentificationTable(symbols);
+	}
+	
+	/**
+	 * checker that checks method bodies in parallel on pool, with the same
+	 * diagnostics as checking them in order
+	 */
+	public ContextChecker(SymbolTable symbols, ForkJoinPool pool){
+		this(symbols);
+		this.pool = pool;
+	}
+	
 	
 	public AST idCheck(AST a, ErrorReporter e){
+		if(a instanceof Package){
+			addPredefined((Package) a);
+			if(pool != null){
+				new ParallelChecker(idTable.symbols(), pool).idCheck((Package) a, e);
+				return a;
+			}
+		}
 		ASTIDChecker idC = new ASTIDChecker();
-		return idC.idCheck(AST a, ErrorReporter e);
+		idC.cc = this;
+		idC.reporter = e;
+		return idC.visitTree(a);
+	}
+	
+	/**
+	 * identify and type check in a single traversal, see FusedChecker;
+	 * always on one thread
+	 */
+	public Package check(Package a, ErrorReporter e){
+		addPredefined(a);
+		new FusedChecker(this, e).check(a);
+		return a;
+	}
+	
+	public Package typeCheck(Package a, ErrorReporter e){
+		if(pool != null){
+			new ParallelChecker(idTable.symbols(), pool).typeCheck(a, e);
+			return a;
+		}
+		new TypeChecker(e).check(a);
+		return a;
+	}
+	
+	/**
+	 * put the classes every program may use in front of the classes of a program:
+	 *   class System { public static _PrintStream out; }
+	 *   class _PrintStream { public void println(int n) { } }
+	 *   class String { }
+	 * _PrintStream cannot be scanned, so it cannot be named in a program
+	 */
+	void addPredefined(Package p){
+		int none = SourcePosition.NONE;
+		ClassDeclList all = new ClassDeclList();
+		
+		FieldDeclList systemFields = new FieldDeclList();
+		Identifier printStream = new Identifier(new Token(TokenKind.ID, "_PrintStream"), none);
+		systemFields.add(new FieldDecl(false, true, new ClassType(printStream, none), "out", none));
+		all.add(new ClassDecl("System", systemFields, new MethodDeclList(), none));
+		
+		ParameterDeclList params = new ParameterDeclList();
+		params.add(new ParameterDecl(new BaseType(TypeKind.INT, none), "n", none));
+		FieldDecl println = new FieldDecl(false, false, new BaseType(TypeKind.VOID, none), "println", none);
+		MethodDeclList printMethods = new MethodDeclList();
+		printMethods.add(new MethodDecl(println, params, new StatementList(), none));
+		all.add(new ClassDecl("_PrintStream", new FieldDeclList(), printMethods, none));
+		
+		all.add(new ClassDecl("String", new FieldDeclList(), new MethodDeclList(), none));
+		
+		for(ClassDecl c : p.classDeclList){
+			all.add(c);
+		}
+		p.classDeclList = all;
 	}
 }
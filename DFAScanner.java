@@ -0,0 +1,313 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.IOException;
+
+import miniJava.ErrorReporter;
+
+/*
+ * Table driven version of the miniJava Scanner.
+ *
+ * Every input character is mapped to a character class through a 128 entry
+ * table (anything outside ASCII is OTHER), and a precomputed transition table
+ * indexed by (state, class) drives the scan.  A token ends when the table has
+ * no transition for the next character; the state reached determines its kind.
+ *
+ * Whitespace and comments are states of the same automaton that keep no
+ * spelling, so the token kinds produced are the same as those of Scanner.
+ */
+public class DFAScanner implements Lexer {
+
+	private CharSource source;
+	private ErrorReporter reporter;
+	private SymbolTable symbols;
+
+	private int currentChar;
+	private StringBuilder currentSpelling = new StringBuilder();
+	private int tokenStart = SourcePosition.NONE;
+
+	public DFAScanner(CharSource source, ErrorReporter reporter) {
+		this(source, reporter, new SymbolTable());
+	}
+
+	/**
+	 * scanner interning identifiers in symbols, which may be shared with other scanners
+	 */
+	public DFAScanner(CharSource source, ErrorReporter reporter, SymbolTable symbols) {
+		this.source = source;
+		this.reporter = reporter;
+		this.symbols = symbols;
+
+		// initialize scanner state
+		readChar();
+	}
+
+	/**
+	 * skip whitespace and comments and scan next token
+	 * @return token
+	 */
+	public Token scan() {
+		currentSpelling.setLength(0);
+		int state = S_START;
+		int next;
+		while ((next = NEXT[state * N_CLASSES + classOf(currentChar)]) >= 0) {
+			if (KEEP[next]) {
+				if (currentSpelling.length() == 0)
+					tokenStart = charStart();
+				currentSpelling.append((char) currentChar);
+			}
+			else
+				currentSpelling.setLength(0);
+			state = next;
+			readChar();
+		}
+
+		if (state == S_UNTERMINATED)
+			// the error is the "/*" left open, tokenStart still where the comment starts
+			currentSpelling.append("/*");
+		else if (currentSpelling.length() == 0)
+			tokenStart = charStart();
+
+		TokenKind kind;
+		if (next == REJECT) {
+			kind = TokenKind.ERROR;
+		}
+		else {
+			kind = ACCEPT[state];
+			if (kind == TokenKind.ID) {
+				TokenKind keyword = Token.keyword(currentSpelling);
+				if (keyword != null)
+					kind = keyword;
+				else
+					return Token.identifier(currentSpelling, symbols);
+			}
+			else if (kind == TokenKind.ERROR) {
+				scanError(state);
+			}
+		}
+		return Token.make(kind, currentSpelling);
+	}
+
+	public int position() {
+		return tokenStart;
+	}
+
+	public SymbolTable symbols() {
+		return symbols;
+	}
+
+	// offset of currentChar in the source
+	private int charStart() {
+		long offset = source.start(currentChar);
+		return offset > Integer.MAX_VALUE ? SourcePosition.NONE : (int) offset;
+	}
+
+	private void scanError(int state) {
+		switch (state) {
+		case S_AMP:
+			reporter.reportError("Scan Error:  Expected a & but got a: " + (char) currentChar, charStart());
+			break;
+		case S_BAR:
+			reporter.reportError("Scan Error:  Expected a | but got a: " + (char) currentChar, charStart());
+			break;
+		case S_BAD_CHAR:
+			reporter.reportError("Scan Error:  Unrecognized character '"
+					+ currentSpelling + "' in input", tokenStart);
+			break;
+		case S_UNTERMINATED:
+			reporter.reportError("Scan Error:  Unterminated comment", tokenStart);
+			break;
+		default:
+		}
+	}
+
+	private void readChar() {
+		try {
+			currentChar = source.read();
+		} catch (IOException e) {
+			reporter.reportError("Scan Error:  I/O Exception!");
+			currentChar = -1;
+		}
+	}
+
+	private static int classOf(int c) {
+		if (c < 0)
+			return C_EOT;
+		if (c < 128)
+			return CHAR_CLASS[c];
+		return C_OTHER;
+	}
+
+
+	/*
+	 * character classes
+	 */
+	static final int C_OTHER = 0, C_SPACE = 1, C_EOL = 2, C_LETTER = 3, C_DIGIT = 4,
+			C_UNDERSCORE = 5, C_PLUS = 6, C_MINUS = 7, C_STAR = 8, C_SLASH = 9,
+			C_AMP = 10, C_BAR = 11, C_EQ = 12, C_LT = 13, C_BANG = 14, C_LPAREN = 15,
+			C_RPAREN = 16, C_LBRACK = 17, C_RBRACK = 18, C_LBOX = 19, C_RBOX = 20,
+			C_PERIOD = 21, C_COMMA = 22, C_SEMI = 23, C_EOT = 24, C_GT = 25;
+	static final int N_CLASSES = 26;
+
+	static final byte[] CHAR_CLASS = new byte[128];
+
+	/*
+	 * states, S_START and the comment states keep no spelling
+	 */
+	static final int S_START = 0, S_ID = 1, S_NUM = 2, S_PLUS = 3, S_MINUS = 4, S_STAR = 5,
+			S_CLOSE_COMMENT = 6, S_SLASH = 7, S_LINE_COMMENT = 8, S_BLOCK_COMMENT = 9,
+			S_BLOCK_STAR = 10, S_AMP = 11, S_AND = 12, S_BAR = 13, S_OR = 14, S_EQUALS = 15,
+			S_EQEQ = 16, S_LT = 17, S_LE = 18, S_BANG = 19, S_NOT_EQ = 20, S_LPAREN = 21,
+			S_RPAREN = 22, S_LBRACK = 23, S_RBRACK = 24, S_LBOX = 25, S_RBOX = 26,
+			S_PERIOD = 27, S_COMMA = 28, S_SEMI = 29, S_EOT = 30, S_BAD_CHAR = 31,
+			S_UNTERMINATED = 32, S_GT = 33, S_GE = 34;
+	static final int N_STATES = 35;
+
+	/*
+	 * NEXT[state * N_CLASSES + class] is the next state, or
+	 * STOP to end the token in the current state, or
+	 * REJECT to end it as an ERROR without taking the character
+	 */
+	static final int STOP = -1;
+	static final int REJECT = -2;
+
+	static final byte[] NEXT = new byte[N_STATES * N_CLASSES];
+	static final TokenKind[] ACCEPT = new TokenKind[N_STATES];
+	static final boolean[] KEEP = new boolean[N_STATES];
+
+	static {
+		for (char c = 'a'; c <= 'z'; c++) CHAR_CLASS[c] = C_LETTER;
+		for (char c = 'A'; c <= 'Z'; c++) CHAR_CLASS[c] = C_LETTER;
+		for (char c = '0'; c <= '9'; c++) CHAR_CLASS[c] = C_DIGIT;
+		CHAR_CLASS['_'] = C_UNDERSCORE;
+		CHAR_CLASS[' '] = C_SPACE;
+		CHAR_CLASS['\t'] = C_SPACE;
+		CHAR_CLASS['\n'] = C_EOL;
+		CHAR_CLASS['\r'] = C_EOL;
+		CHAR_CLASS['+'] = C_PLUS;
+		CHAR_CLASS['-'] = C_MINUS;
+		CHAR_CLASS['*'] = C_STAR;
+		CHAR_CLASS['/'] = C_SLASH;
+		CHAR_CLASS['&'] = C_AMP;
+		CHAR_CLASS['|'] = C_BAR;
+		CHAR_CLASS['='] = C_EQ;
+		CHAR_CLASS['<'] = C_LT;
+		CHAR_CLASS['>'] = C_GT;
+		CHAR_CLASS['!'] = C_BANG;
+		CHAR_CLASS['('] = C_LPAREN;
+		CHAR_CLASS[')'] = C_RPAREN;
+		CHAR_CLASS['{'] = C_LBRACK;
+		CHAR_CLASS['}'] = C_RBRACK;
+		CHAR_CLASS['['] = C_LBOX;
+		CHAR_CLASS[']'] = C_RBOX;
+		CHAR_CLASS['.'] = C_PERIOD;
+		CHAR_CLASS[','] = C_COMMA;
+		CHAR_CLASS[';'] = C_SEMI;
+
+		java.util.Arrays.fill(NEXT, (byte) STOP);
+		java.util.Arrays.fill(KEEP, true);
+		KEEP[S_START] = false;
+		KEEP[S_LINE_COMMENT] = false;
+		KEEP[S_BLOCK_COMMENT] = false;
+		KEEP[S_BLOCK_STAR] = false;
+		KEEP[S_EOT] = false;
+		KEEP[S_UNTERMINATED] = false;
+
+		// whitespace and start of tokens
+		edge(S_START, C_SPACE, S_START);
+		edge(S_START, C_EOL, S_START);
+		edge(S_START, C_EOT, S_EOT);
+		edge(S_START, C_OTHER, S_BAD_CHAR);
+		edge(S_START, C_UNDERSCORE, S_BAD_CHAR);
+		edge(S_START, C_LETTER, S_ID);
+		edge(S_START, C_DIGIT, S_NUM);
+		edge(S_START, C_PLUS, S_PLUS);
+		edge(S_START, C_MINUS, S_MINUS);
+		edge(S_START, C_STAR, S_STAR);
+		edge(S_START, C_SLASH, S_SLASH);
+		edge(S_START, C_AMP, S_AMP);
+		edge(S_START, C_BAR, S_BAR);
+		edge(S_START, C_EQ, S_EQUALS);
+		edge(S_START, C_LT, S_LT);
+		edge(S_START, C_GT, S_GT);
+		edge(S_START, C_BANG, S_BANG);
+		edge(S_START, C_LPAREN, S_LPAREN);
+		edge(S_START, C_RPAREN, S_RPAREN);
+		edge(S_START, C_LBRACK, S_LBRACK);
+		edge(S_START, C_RBRACK, S_RBRACK);
+		edge(S_START, C_LBOX, S_LBOX);
+		edge(S_START, C_RBOX, S_RBOX);
+		edge(S_START, C_PERIOD, S_PERIOD);
+		edge(S_START, C_COMMA, S_COMMA);
+		edge(S_START, C_SEMI, S_SEMI);
+
+		// ID ::= letter (letter | digit | _)*
+		edge(S_ID, C_LETTER, S_ID);
+		edge(S_ID, C_DIGIT, S_ID);
+		edge(S_ID, C_UNDERSCORE, S_ID);
+
+		// NUM ::= digit digit*
+		edge(S_NUM, C_DIGIT, S_NUM);
+
+		// operators
+		NEXT[S_MINUS * N_CLASSES + C_MINUS] = REJECT;
+		edge(S_STAR, C_SLASH, S_CLOSE_COMMENT);
+		edge(S_AMP, C_AMP, S_AND);
+		edge(S_BAR, C_BAR, S_OR);
+		edge(S_EQUALS, C_EQ, S_EQEQ);
+		edge(S_LT, C_EQ, S_LE);
+		edge(S_GT, C_EQ, S_GE);
+		edge(S_BANG, C_EQ, S_NOT_EQ);
+
+		// comments
+		edge(S_SLASH, C_SLASH, S_LINE_COMMENT);
+		edge(S_SLASH, C_STAR, S_BLOCK_COMMENT);
+		for (int c = 0; c < N_CLASSES; c++) {
+			edge(S_LINE_COMMENT, c, S_LINE_COMMENT);
+			edge(S_BLOCK_COMMENT, c, S_BLOCK_COMMENT);
+			edge(S_BLOCK_STAR, c, S_BLOCK_COMMENT);
+		}
+		edge(S_LINE_COMMENT, C_EOL, S_START);
+		edge(S_LINE_COMMENT, C_EOT, S_EOT);
+		edge(S_BLOCK_COMMENT, C_STAR, S_BLOCK_STAR);
+		edge(S_BLOCK_COMMENT, C_EOT, S_UNTERMINATED);
+		edge(S_BLOCK_STAR, C_STAR, S_BLOCK_STAR);
+		edge(S_BLOCK_STAR, C_SLASH, S_START);
+		edge(S_BLOCK_STAR, C_EOT, S_UNTERMINATED);
+
+		ACCEPT[S_ID] = TokenKind.ID;
+		ACCEPT[S_NUM] = TokenKind.NUM;
+		ACCEPT[S_PLUS] = TokenKind.PLUS;
+		ACCEPT[S_MINUS] = TokenKind.MINUS;
+		ACCEPT[S_STAR] = TokenKind.TIMES;
+		ACCEPT[S_CLOSE_COMMENT] = TokenKind.CLOSECOMMENT;
+		ACCEPT[S_SLASH] = TokenKind.DIVIDE;
+		ACCEPT[S_AMP] = TokenKind.ERROR;
+		ACCEPT[S_AND] = TokenKind.AND;
+		ACCEPT[S_BAR] = TokenKind.ERROR;
+		ACCEPT[S_OR] = TokenKind.OR;
+		ACCEPT[S_EQUALS] = TokenKind.EQUALS;
+		ACCEPT[S_EQEQ] = TokenKind.EQ;
+		ACCEPT[S_LT] = TokenKind.LT;
+		ACCEPT[S_LE] = TokenKind.LE;
+		ACCEPT[S_GT] = TokenKind.GT;
+		ACCEPT[S_GE] = TokenKind.GE;
+		ACCEPT[S_BANG] = TokenKind.NOT;
+		ACCEPT[S_NOT_EQ] = TokenKind.NEQ;
+		ACCEPT[S_LPAREN] = TokenKind.LPAREN;
+		ACCEPT[S_RPAREN] = TokenKind.RPAREN;
+		ACCEPT[S_LBRACK] = TokenKind.LBRACK;
+		ACCEPT[S_RBRACK] = TokenKind.RBRACK;
+		ACCEPT[S_LBOX] = TokenKind.LBOX;
+		ACCEPT[S_RBOX] = TokenKind.RBOX;
+		ACCEPT[S_PERIOD] = TokenKind.PERIOD;
+		ACCEPT[S_COMMA] = TokenKind.COMMA;
+		ACCEPT[S_SEMI] = TokenKind.SEMI;
+		ACCEPT[S_EOT] = TokenKind.EOT;
+		ACCEPT[S_BAD_CHAR] = TokenKind.ERROR;
+		ACCEPT[S_UNTERMINATED] = TokenKind.ERROR;
+	}
+
+	private static void edge(int from, int charClass, int to) {
+		NEXT[from * N_CLASSES + charClass] = (byte) to;
+	}
+}
@@ -5,16 +5,17 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
+import miniJava.SyntacticAnalyzer.SymbolTable;
 
 public abstract class Declaration extends AST {
 	
-	public Declaration(String name, Type type, SourcePosition posn) {
+	public Declaration(String name, Type type, int posn) {
 		super(posn);
 		this.name = name;
 		this.type = type;
 	}
 	
 	public String name;
+	public int symbol = SymbolTable.NO_SYMBOL;	// SymbolTable id of name, if the parser interned it
 	public Type type;
 }
@@ -1,5 +1,10 @@
 package miniJava;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import miniJava.SyntacticAnalyzer.SourcePosition;
+
 /**
  * reports errors from different phases of compilation
  * and maintains a count of total errors for use in 
@@ -9,17 +14,63 @@ package miniJava;
 public class ErrorReporter {
 
 		private int numErrors;
+		private SourcePosition positions;
+		private List<String> held;	// messages of a fork, printed when merged
 
 		ErrorReporter() {
 			numErrors = 0;
 		}
 
+		/**
+		 * line table used to locate errors reported with a position
+		 */
+		public void setSource(SourcePosition positions) {
+			this.positions = positions;
+		}
+
 		public boolean hasErrors() {
 			return numErrors > 0;
 		}
 
 		public void reportError(String message) {
-			System.out.println(message);
+			if (held != null)
+				held.add(message);
+			else
+				System.out.println(message);
 			numErrors++;
 		}	
+
+		/**
+		 * reporter for one piece of work done on another thread, which holds
+		 * on to its errors until merged back, so they come out in order
+		 */
+		public ErrorReporter fork() {
+			ErrorReporter child = new ErrorReporter();
+			child.positions = positions;
+			child.held = new ArrayList<String>();
+			return child;
+		}
+
+		/**
+		 * report the errors of a fork as if they had been reported here
+		 */
+		public void merge(ErrorReporter child) {
+			for (String message : child.held)
+				reportError(message);
+			child.held.clear();
+			child.numErrors = 0;
+		}
+
+		/**
+		 * report an error at source offset posn, located by line and column
+		 * only now that it is needed; an offset that cannot be located is
+		 * left out rather than printed
+		 */
+		public void reportError(String message, int posn) {
+			int line = positions == null || posn == SourcePosition.NONE ? 0 : positions.line(posn);
+			if (line == 0)
+				reportError(message);
+			else
+				reportError(message + " at line " + line + ", column " + positions.column(posn));
+		}
 }
@@ -0,0 +1,238 @@
+package miniJava;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import miniJava.AbstractSyntaxTrees.ContextChecker;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.CodeGenerator.Generator;
+import miniJava.CodeGenerator.JVMProgram;
+import miniJava.CodeGenerator.NativeCompiler;
+import miniJava.CodeGenerator.Program;
+import miniJava.CodeGenerator.VM;
+import miniJava.Interpreter.ClosureCompiler;
+import miniJava.Interpreter.Interpreter;
+import miniJava.Interpreter.LargeStack;
+import miniJava.SyntacticAnalyzer.Parser;
+import miniJava.SyntacticAnalyzer.SymbolTable;
+import miniJava.SyntacticAnalyzer.TokenBuffer;
+
+/* Benchmark for running programs
+ * Checks a compute heavy program (recursion, loops over arrays, objects)
+ * once and runs it REPS times with the Interpreter, timing the first run,
+ * which specializes the trees as it goes, and the best run after it, once
+ * the JIT has compiled them; then the same for its closures, its bytecode
+ * on the VM, its JVM classes and its native executable, the first run
+ * timed with their compilation; each run of the executable is a process
+ * of its own, started in the time.  A program may be given instead; it
+ * should print the same each run.
+ * Usage: ExecutionBench [file]
+ */
+public class ExecutionBench {
+
+	private static final int REPS = 15;
+
+	static final String PROGRAM =
+		"class Main {\n" +
+		"  public static void main(String[] args) {\n" +
+		"    System.out.println(fib(27));\n" +
+		"    int[] primes = new int[200000];\n" +
+		"    int count = 0;\n" +
+		"    int i = 2;\n" +
+		"    while (i < primes.length) {\n" +
+		"      if (primes[i] == 0) {\n" +
+		"        count = count + 1;\n" +
+		"        int j = i + i;\n" +
+		"        while (j < primes.length) { primes[j] = 1; j = j + i; }\n" +
+		"      }\n" +
+		"      i = i + 1;\n" +
+		"    }\n" +
+		"    System.out.println(count);\n" +
+		"    Sorter s = new Sorter();\n" +
+		"    s.fill(1500, 12345);\n" +
+		"    s.sort();\n" +
+		"    if (s.check()) System.out.println(1); else System.out.println(0);\n" +
+		"    Body[] bodies = new Body[100];\n" +
+		"    i = 0;\n" +
+		"    while (i < bodies.length) { Body b = new Body(); b.x = i; b.v = 100 - i; bodies[i] = b; i = i + 1; }\n" +
+		"    int step = 0;\n" +
+		"    while (step < 2000) {\n" +
+		"      i = 0;\n" +
+		"      while (i < bodies.length) { Body b = bodies[i]; b.move(); i = i + 1; }\n" +
+		"      step = step + 1;\n" +
+		"    }\n" +
+		"    int sum = 0;\n" +
+		"    i = 0;\n" +
+		"    while (i < bodies.length) { Body b = bodies[i]; sum = sum + b.x; i = i + 1; }\n" +
+		"    System.out.println(sum);\n" +
+		"  }\n" +
+		"  static int fib(int n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }\n" +
+		"}\n" +
+		"class Sorter {\n" +
+		"  int[] a;\n" +
+		"  void fill(int n, int seed) {\n" +
+		"    a = new int[n];\n" +
+		"    int i = 0;\n" +
+		"    while (i < n) { seed = seed * 1103515245 + 12345; a[i] = seed / 65536; i = i + 1; }\n" +
+		"  }\n" +
+		"  void sort() {\n" +
+		"    int i = 0;\n" +
+		"    while (i < a.length) {\n" +
+		"      int j = a.length - 1;\n" +
+		"      while (j > i) {\n" +
+		"        if (a[j] < a[j - 1]) { int t = a[j]; a[j] = a[j - 1]; a[j - 1] = t; }\n" +
+		"        j = j - 1;\n" +
+		"      }\n" +
+		"      i = i + 1;\n" +
+		"    }\n" +
+		"  }\n" +
+		"  boolean check() {\n" +
+		"    int i = 1;\n" +
+		"    boolean sorted = true;\n" +
+		"    while (i < a.length) { sorted = sorted && !(a[i] < a[i - 1]); i = i + 1; }\n" +
+		"    return sorted;\n" +
+		"  }\n" +
+		"}\n" +
+		"class Body {\n" +
+		"  int x; int v;\n" +
+		"  void move() { x = x + v; if (x > 100000 || x < 0 - 100000) v = 0 - v; }\n" +
+		"}\n";
+
+	public static void main(String[] args) throws IOException {
+		byte[] source = args.length > 0 ? Files.readAllBytes(Paths.get(args[0])) : PROGRAM.getBytes(StandardCharsets.US_ASCII);
+		Package ast = check(source);
+		if (ast == null) {
+			System.out.println("program is not valid");
+			return;
+		}
+
+		final Package prog = ast;
+		// run as the Compiler runs a program, on a thread with a large stack
+		LargeStack.run(new Runnable() {
+			public void run() {
+				times(prog);
+			}
+		});
+	}
+
+	private static void times(final Package prog) {
+		String output = time("interpreter", new Engine() {
+			Interpreter interpreter;
+
+			void run(PrintStream out) {
+				if (interpreter == null)
+					interpreter = new Interpreter(prog, out);
+				interpreter.run();
+			}
+		}, null);
+		time("closures", new Engine() {
+			ClosureCompiler closures;
+
+			void run(PrintStream out) {
+				if (closures == null)
+					closures = new ClosureCompiler(prog, out);
+				closures.run();
+			}
+		}, output);
+		time("vm", new Engine() {
+			VM vm;
+			Program program;
+
+			void run(PrintStream out) {
+				if (vm == null) {
+					vm = new VM(out);
+					program = Generator.generate(prog);
+				}
+				vm.run(program);
+			}
+		}, output);
+		time("jvm", new Engine() {
+			JVMProgram program;
+
+			void run(PrintStream out) {
+				if (program == null)
+					program = JVMProgram.load(prog);
+				program.run(out);
+			}
+		}, output);
+		time("native", new Engine() {
+			File executable;
+
+			void run(PrintStream out) {
+				try {
+					if (executable == null) {
+						File dir = Files.createTempDirectory("minijava").toFile();
+						dir.deleteOnExit();
+						executable = new File(dir, "bench");
+						executable.deleteOnExit();
+						new File(dir, "bench.c").deleteOnExit();
+						NativeCompiler.compile(prog, executable);
+					}
+					Process p = new ProcessBuilder(executable.getPath()).redirectErrorStream(true).start();
+					try (InputStream in = p.getInputStream()) {
+						in.transferTo(out);
+					}
+					p.waitFor();
+				}
+				catch (IOException | InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}, output);
+	}
+
+	private static abstract class Engine {
+		// the first run sets up the engine, into out, which is the same each run
+		abstract void run(PrintStream out);
+	}
+
+	/**
+	 * times REPS runs of an engine, printing its output if expected is null
+	 * or different
+	 * @return the output
+	 */
+	private static String time(String name, Engine engine, String expected) {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(output);
+		long first = 0;
+		long best = Long.MAX_VALUE;
+		for (int r = 0; r < REPS; r++) {
+			output.reset();
+			long start = System.nanoTime();
+			engine.run(out);
+			long time = System.nanoTime() - start;
+			if (r == 0)
+				first = time;
+			else
+				best = Math.min(best, time);
+		}
+		if (expected == null)
+			System.out.print(output);
+		else if (!output.toString().equals(expected))
+			System.out.print(name + " output differs:\n" + output);
+		System.out.printf("%-12s first run %8.2f ms, best %8.2f ms%n", name, first / 1e6, best / 1e6);
+		return output.toString();
+	}
+
+	/**
+	 * @return the checked program, or null if it has errors
+	 */
+	static Package check(byte[] source) {
+		ErrorReporter reporter = new ErrorReporter();
+		SymbolTable symbols = new SymbolTable();
+		Package ast = new Parser(TokenBuffer.lex(source, reporter, symbols), reporter).parse();
+		if (ast == null)
+			return null;
+		ContextChecker cc = new ContextChecker(symbols);
+		cc.idCheck(ast, reporter);
+		if (!reporter.hasErrors())
+			cc.typeCheck(ast, reporter);
+		return reporter.hasErrors() ? null : ast;
+	}
+}
@@ -0,0 +1,195 @@
+package miniJava;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.CodeGenerator.Generator;
+import miniJava.CodeGenerator.JVMProgram;
+import miniJava.CodeGenerator.VM;
+import miniJava.Interpreter.ClosureCompiler;
+import miniJava.Interpreter.ExecutionError;
+import miniJava.Interpreter.Interpreter;
+import miniJava.Interpreter.LargeStack;
+
+/* Differential tester for the execution engines
+ * Runs each sample program below with the Interpreter, the ClosureCompiler,
+ * the VM and the JVM back end, as the Compiler runs them, and checks that
+ * each prints what the sample expects, a failure as its "Run-time error"
+ * line.  Any files named on the command line are run too, every engine
+ * checked against the Interpreter.
+ * Usage: ExecutionCheck [file ...]
+ */
+public class ExecutionCheck {
+
+	private static final String[] ENGINES = { "interpreter", "closures", "vm", "jvm" };
+
+	// name, program, expected output
+	private static final String[][] SAMPLES = {
+		{ "Object method names",
+			"class Main {\n" +
+			"  public static void main(String[] args) {\n" +
+			"    H h = new H();\n" +
+			"    h.wait();\n" +
+			"    h.notify();\n" +
+			"    h.notifyAll();\n" +
+			"  }\n" +
+			"}\n" +
+			"class H {\n" +
+			"  int n;\n" +
+			"  void wait() { n = n + 4; }\n" +
+			"  void notify() { System.out.println(n); }\n" +
+			"  void notifyAll() { n = n + hashCode(); System.out.println(n); }\n" +
+			"  int hashCode() { return 3; }\n" +
+			"}\n",
+			"4\n7\n" },
+		{ "finalize",
+			"class Main {\n" +
+			"  public static void main(String[] args) {\n" +
+			"    int i = 0;\n" +
+			"    while (i < 1000000) { F f = new F(); f.x = i; i = i + 1; }\n" +
+			"    System.out.println(1);\n" +
+			"  }\n" +
+			"}\n" +
+			"class F {\n" +
+			"  int x;\n" +
+			"  void finalize() { System.out.println(99); }\n" +
+			"}\n",
+			"1\n" },
+		{ "evaluation order",
+			"class Main {\n" +
+			"  static int g;\n" +
+			"  int f;\n" +
+			"  public static void main(String[] args) {\n" +
+			"    Main m = new Main();\n" +
+			"    m.f = 5;\n" +
+			"    System.out.println(m.f + m.bump());\n" +
+			"    System.out.println(g + side(3) * g);\n" +
+			"    boolean b = side(1) > 0 || side(2) > 0;\n" +
+			"    if (b && side(4) == 4) System.out.println(1);\n" +
+			"    int min = 0 - 2147483647 - 1;\n" +
+			"    System.out.println(min / (0 - 1));\n" +
+			"    System.out.println(min * (0 - 1));\n" +
+			"    int[] a = new int[3];\n" +
+			"    int i = 0;\n" +
+			"    while (i < 3 && m.next(i) < 200) { a[i] = side(i); i = i + 1; }\n" +
+			"    System.out.println(a[side(7) - 7] + a[side(2)]);\n" +
+			"    System.out.println(m.f / side(0));\n" +
+			"  }\n" +
+			"  int bump() { f = f + 100; return f; }\n" +
+			"  int next(int i) { f = f + i; return f; }\n" +
+			"  static int side(int x) { g = g + 1; System.out.println(x); return x; }\n" +
+			"}\n",
+			"110\n3\n3\n1\n4\n1\n-2147483648\n-2147483648\n0\n1\n2\n7\n2\n2\n0\n" +
+			"Run-time error: division by zero\n" },
+		{ "deep recursion",
+			"class Main {\n" +
+			"  public static void main(String[] args) { System.out.println(s(100000)); }\n" +
+			"  static int s(int n) { if (n == 0) return 0; return s(n - 1) + 1; }\n" +
+			"}\n",
+			"100000\n" },
+		{ "array too large",
+			"class Main {\n" +
+			"  public static void main(String[] args) {\n" +
+			"    System.out.println(1);\n" +
+			"    int[] a = new int[2147483647];\n" +
+			"    System.out.println(a.length);\n" +
+			"  }\n" +
+			"}\n",
+			"1\nRun-time error: out of memory\n" },
+		{ "garbage",
+			"class Main {\n" +
+			"  public static void main(String[] args) {\n" +
+			"    N last = new N();\n" +
+			"    int i = 0;\n" +
+			"    while (i < 3000000) { N n = new N(); n.next = last; n.v = i; last = n; if (i / 100 * 100 == i) last = new N(); i = i + 1; }\n" +
+			"    int[] a = new int[4194300];\n" +
+			"    a[4194299] = last.v;\n" +
+			"    System.out.println(a.length);\n" +
+			"    System.out.println(a[4194299]);\n" +
+			"  }\n" +
+			"}\n" +
+			"class N {\n" +
+			"  int v;\n" +
+			"  N next;\n" +
+			"}\n",
+			"4194300\n2999999\n" },
+	};
+
+	public static void main(String[] args) throws IOException {
+		int failures = 0;
+		int checked = 0;
+		for (String[] sample : SAMPLES) {
+			checked++;
+			if (!check(sample[0], sample[1].getBytes(StandardCharsets.US_ASCII), sample[2]))
+				failures++;
+		}
+		for (String arg : args) {
+			checked++;
+			if (!check(arg, Files.readAllBytes(new File(arg).toPath()), null))
+				failures++;
+		}
+
+		System.out.println(checked + " programs checked, " + failures + " failures in all.");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * run one program with every engine
+	 * @param expected  its output, or null for whatever the Interpreter prints
+	 * @return true if every engine printed expected
+	 */
+	private static boolean check(String name, byte[] source, String expected) {
+		Package prog = ExecutionBench.check(source);
+		if (prog == null) {
+			System.err.println(name + ": not a valid program");
+			return false;
+		}
+		boolean same = true;
+		for (String engine : ENGINES) {
+			String output = run(engine, prog);
+			if (expected == null)
+				expected = output;
+			else if (!output.equals(expected)) {
+				System.err.println(name + ": " + engine + " printed\n" + output + "but should print\n" + expected);
+				same = false;
+			}
+		}
+		return same;
+	}
+
+	/**
+	 * @return what prog prints run with engine
+	 */
+	private static String run(final String engine, final Package prog) {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final PrintStream out = new PrintStream(output);
+		try {
+			LargeStack.run(new Runnable() {
+				public void run() {
+					if (engine.equals("jvm"))
+						JVMProgram.load(prog).run(out);
+					else if (engine.equals("vm"))
+						new VM(out).run(Generator.generate(prog));
+					else if (engine.equals("closures"))
+						new ClosureCompiler(prog, out).run();
+					else
+						new Interpreter(prog, out).run();
+				}
+			});
+		}
+		catch (ExecutionError e) {
+			out.print("Run-time error: " + e.getMessage() + "\n");
+		}
+		// an engine that breaks is a failure, not the end of the check
+		catch (RuntimeException | Error e) {
+			out.print(e + "\n");
+		}
+		out.flush();
+		return output.toString();
+	}
+}
@@ -0,0 +1,14 @@
+package miniJava.Interpreter;
+
+/*
+ * A miniJava program failed as it ran: a null reference, an array index out
+ * of bounds, a division by zero, ...
+ */
+public class ExecutionError extends Error {
+
+	private static final long serialVersionUID = 1L;
+
+	public ExecutionError(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,22 @@
+package miniJava.Interpreter;
+
+/*
+ * An expression of an executable tree.  An int or boolean expression is
+ * executed with executeInt, a boolean one as 0 or 1, or with executeBoolean;
+ * an array or object expression with executeObject.  The checker has made
+ * sure each is only executed the ways its type allows.
+ */
+abstract class ExprNode extends Node {
+
+	int executeInt(Frame f) {
+		throw new IllegalStateException(getClass().getSimpleName() + " has no int value");
+	}
+
+	boolean executeBoolean(Frame f) {
+		return executeInt(f) != 0;
+	}
+
+	Object executeObject(Frame f) {
+		throw new IllegalStateException(getClass().getSimpleName() + " has no object value");
+	}
+}
@@ -0,0 +1,561 @@
+package miniJava.Interpreter;
+
+/*
+ * The specialized expression nodes, each for one case of an expression:
+ * one operator on operands of one type, one kind of variable at one slot.
+ */
+final class ExprNodes {
+
+	private ExprNodes() {
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// VALUES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	// an int literal, or a boolean one as 0 or 1
+	static final class Const extends ExprNode {
+		private final int value;
+
+		Const(int value) {
+			this.value = value;
+		}
+
+		int executeInt(Frame f) {
+			return value;
+		}
+	}
+
+	static final class This extends ExprNode {
+		Object executeObject(Frame f) {
+			return f.self;
+		}
+	}
+
+	static final class NewInstance extends ExprNode {
+		private final int ints;
+		private final int refs;
+
+		NewInstance(Layout layout) {
+			this.ints = layout.ints;
+			this.refs = layout.refs;
+		}
+
+		Object executeObject(Frame f) {
+			return new Instance(ints, refs);
+		}
+	}
+
+	static final class NewIntArray extends ExprNode {
+		private ExprNode size;
+
+		NewIntArray(ExprNode size) {
+			this.size = adopt(size);
+		}
+
+		Object executeObject(Frame f) {
+			return new int[size.executeInt(f)];
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			size = (ExprNode) replacement;
+		}
+	}
+
+	static final class NewRefArray extends ExprNode {
+		private ExprNode size;
+
+		NewRefArray(ExprNode size) {
+			this.size = adopt(size);
+		}
+
+		Object executeObject(Frame f) {
+			return new Object[size.executeInt(f)];
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			size = (ExprNode) replacement;
+		}
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// VARIABLES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	static final class LocalInt extends ExprNode {
+		private final int slot;
+
+		LocalInt(int slot) {
+			this.slot = slot;
+		}
+
+		int executeInt(Frame f) {
+			return f.ints[slot];
+		}
+	}
+
+	static final class LocalRef extends ExprNode {
+		private final int slot;
+
+		LocalRef(int slot) {
+			this.slot = slot;
+		}
+
+		Object executeObject(Frame f) {
+			return f.refs[slot];
+		}
+	}
+
+	static final class FieldInt extends ExprNode {
+		private ExprNode object;
+		private final int slot;
+
+		FieldInt(ExprNode object, int slot) {
+			this.object = adopt(object);
+			this.slot = slot;
+		}
+
+		int executeInt(Frame f) {
+			return ((Instance) object.executeObject(f)).ints[slot];
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			object = (ExprNode) replacement;
+		}
+	}
+
+	static final class FieldRef extends ExprNode {
+		private ExprNode object;
+		private final int slot;
+
+		FieldRef(ExprNode object, int slot) {
+			this.object = adopt(object);
+			this.slot = slot;
+		}
+
+		Object executeObject(Frame f) {
+			return ((Instance) object.executeObject(f)).refs[slot];
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			object = (ExprNode) replacement;
+		}
+	}
+
+	static final class StaticInt extends ExprNode {
+		private final int[] values;
+		private final int slot;
+
+		StaticInt(int[] values, int slot) {
+			this.values = values;
+			this.slot = slot;
+		}
+
+		int executeInt(Frame f) {
+			return values[slot];
+		}
+	}
+
+	static final class StaticRef extends ExprNode {
+		private final Object[] values;
+		private final int slot;
+
+		StaticRef(Object[] values, int slot) {
+			this.values = values;
+			this.slot = slot;
+		}
+
+		Object executeObject(Frame f) {
+			return values[slot];
+		}
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// ARRAYS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	static final class IntLength extends ExprNode {
+		private ExprNode array;
+
+		IntLength(ExprNode array) {
+			this.array = adopt(array);
+		}
+
+		int executeInt(Frame f) {
+			return ((int[]) array.executeObject(f)).length;
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			array = (ExprNode) replacement;
+		}
+	}
+
+	static final class RefLength extends ExprNode {
+		private ExprNode array;
+
+		RefLength(ExprNode array) {
+			this.array = adopt(array);
+		}
+
+		int executeInt(Frame f) {
+			return ((Object[]) array.executeObject(f)).length;
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			array = (ExprNode) replacement;
+		}
+	}
+
+	abstract static class Element extends ExprNode {
+		ExprNode array;
+		ExprNode index;
+
+		Element(ExprNode array, ExprNode index) {
+			this.array = adopt(array);
+			this.index = adopt(index);
+		}
+
+		final void replaceChild(Node old, Node replacement) {
+			if (array == old)
+				array = (ExprNode) replacement;
+			else
+				index = (ExprNode) replacement;
+		}
+	}
+
+	static final class IntElement extends Element {
+		IntElement(ExprNode array, ExprNode index) {
+			super(array, index);
+		}
+
+		int executeInt(Frame f) {
+			int[] a = (int[]) array.executeObject(f);
+			return a[index.executeInt(f)];
+		}
+	}
+
+	static final class RefElement extends Element {
+		RefElement(ExprNode array, ExprNode index) {
+			super(array, index);
+		}
+
+		Object executeObject(Frame f) {
+			Object[] a = (Object[]) array.executeObject(f);
+			return a[index.executeInt(f)];
+		}
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// OPERATORS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	static final class Neg extends ExprNode {
+		private ExprNode operand;
+
+		Neg(ExprNode operand) {
+			this.operand = adopt(operand);
+		}
+
+		int executeInt(Frame f) {
+			return -operand.executeInt(f);
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			operand = (ExprNode) replacement;
+		}
+	}
+
+	static final class Not extends ExprNode {
+		private ExprNode operand;
+
+		Not(ExprNode operand) {
+			this.operand = adopt(operand);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return !operand.executeBoolean(f);
+		}
+
+		int executeInt(Frame f) {
+			return executeBoolean(f) ? 1 : 0;
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			operand = (ExprNode) replacement;
+		}
+	}
+
+	abstract static class Binary extends ExprNode {
+		ExprNode left;
+		ExprNode right;
+
+		Binary(ExprNode left, ExprNode right) {
+			this.left = adopt(left);
+			this.right = adopt(right);
+		}
+
+		final void replaceChild(Node old, Node replacement) {
+			if (left == old)
+				left = (ExprNode) replacement;
+			else
+				right = (ExprNode) replacement;
+		}
+	}
+
+	// a binary operator with a boolean result
+	abstract static class Test extends Binary {
+		Test(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		abstract boolean executeBoolean(Frame f);
+
+		final int executeInt(Frame f) {
+			return executeBoolean(f) ? 1 : 0;
+		}
+	}
+
+	static final class Add extends Binary {
+		Add(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		int executeInt(Frame f) {
+			return left.executeInt(f) + right.executeInt(f);
+		}
+	}
+
+	static final class Sub extends Binary {
+		Sub(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		int executeInt(Frame f) {
+			return left.executeInt(f) - right.executeInt(f);
+		}
+	}
+
+	static final class Mul extends Binary {
+		Mul(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		int executeInt(Frame f) {
+			return left.executeInt(f) * right.executeInt(f);
+		}
+	}
+
+	static final class Div extends Binary {
+		Div(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		int executeInt(Frame f) {
+			return left.executeInt(f) / right.executeInt(f);
+		}
+	}
+
+	static final class Lt extends Test {
+		Lt(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return left.executeInt(f) < right.executeInt(f);
+		}
+	}
+
+	static final class Gt extends Test {
+		Gt(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return left.executeInt(f) > right.executeInt(f);
+		}
+	}
+
+	static final class Le extends Test {
+		Le(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return left.executeInt(f) <= right.executeInt(f);
+		}
+	}
+
+	static final class Ge extends Test {
+		Ge(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return left.executeInt(f) >= right.executeInt(f);
+		}
+	}
+
+	// == and != of ints or of booleans
+	static final class Eq extends Test {
+		Eq(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return left.executeInt(f) == right.executeInt(f);
+		}
+	}
+
+	static final class Ne extends Test {
+		Ne(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return left.executeInt(f) != right.executeInt(f);
+		}
+	}
+
+	static final class RefEq extends Test {
+		RefEq(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return left.executeObject(f) == right.executeObject(f);
+		}
+	}
+
+	static final class RefNe extends Test {
+		RefNe(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return left.executeObject(f) != right.executeObject(f);
+		}
+	}
+
+	static final class And extends Test {
+		And(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return left.executeBoolean(f) && right.executeBoolean(f);
+		}
+	}
+
+	static final class Or extends Test {
+		Or(ExprNode left, ExprNode right) {
+			super(left, right);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return left.executeBoolean(f) || right.executeBoolean(f);
+		}
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// CALLS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * a call of one method, which miniJava, without subclasses, always knows
+	 */
+	abstract static class Call extends ExprNode {
+		ExprNode[] args;
+		final Function target;
+
+		Call(ExprNode[] args, Function target) {
+			this.args = adopt(args);
+			this.target = target;
+		}
+
+		/**
+		 * @return the frame of the finished call, with its result
+		 */
+		abstract Frame call(Frame f);
+
+		/**
+		 * @return a frame for target with the arguments evaluated in f
+		 */
+		final Frame enter(Object self, Frame f) {
+			Function target = this.target;
+			Frame callee = target.frame(self);
+			ExprNode[] args = this.args;
+			for (int i = 0; i < args.length; i++) {
+				if (target.paramRefs[i])
+					callee.refs[target.paramSlots[i]] = args[i].executeObject(f);
+				else
+					callee.ints[target.paramSlots[i]] = args[i].executeInt(f);
+			}
+			return callee;
+		}
+
+		final int executeInt(Frame f) {
+			return call(f).intResult;
+		}
+
+		final Object executeObject(Frame f) {
+			return call(f).refResult;
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			replaceIn(args, old, replacement);
+		}
+	}
+
+	static final class StaticCall extends Call {
+		StaticCall(ExprNode[] args, Function target) {
+			super(args, target);
+		}
+
+		Frame call(Frame f) {
+			Frame callee = enter(null, f);
+			target.body.execute(callee);
+			return callee;
+		}
+	}
+
+	static final class InstanceCall extends Call {
+		private ExprNode receiver;
+
+		InstanceCall(ExprNode receiver, ExprNode[] args, Function target) {
+			super(args, target);
+			this.receiver = adopt(receiver);
+		}
+
+		Frame call(Frame f) {
+			Object self = receiver.executeObject(f);
+			Frame callee = enter(self, f);
+			// as in Java, after the arguments
+			if (self == null)
+				throw new NullPointerException();
+			target.body.execute(callee);
+			return callee;
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			if (receiver == old)
+				receiver = (ExprNode) replacement;
+			else
+				super.replaceChild(old, replacement);
+		}
+	}
+}
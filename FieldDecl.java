@@ -5,15 +5,13 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class FieldDecl extends MemberDecl {
 	
-	public FieldDecl(boolean isPrivate, boolean isStatic, Type t, String name, SourcePosition posn){
+	public FieldDecl(boolean isPrivate, boolean isStatic, Type t, String name, int posn){
     super(isPrivate, isStatic, t, name, posn);
 	}
 	
-	public FieldDecl(MemberDecl md, SourcePosition posn, boolean cc) {
+	public FieldDecl(MemberDecl md, int posn, boolean cc) {
 		super(md,posn);
 	}
 	
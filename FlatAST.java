@@ -0,0 +1,383 @@
+package miniJava.AbstractSyntaxTrees;
+
+import java.util.Arrays;
+
+import miniJava.SyntacticAnalyzer.Token;
+import miniJava.SyntacticAnalyzer.TokenBuffer;
+import miniJava.SyntacticAnalyzer.TokenKind;
+
+/*
+ * A whole program's AST packed into parallel arrays.
+ *
+ * Node n has a kind and, for members, PRIVATE and STATIC flags, packed in
+ * kinds[n], the source offset posn[n], its first child first[n] and its
+ * next sibling next[n], NIL if there is none, and a payload: the index in
+ * the TokenBuffer of the token it names, for declarations, identifiers, literals and operators.  Spellings,
+ * symbol ids and literal values are read from the TokenBuffer when asked
+ * for, so the tree holds no objects besides its arrays, 17 bytes a node
+ * against several objects a node for the pointer AST.  Nodes are numbered in
+ * the order they are finished, so the children of a node come before it and
+ * the PACKAGE is the last node.
+ *
+ * The children of each kind, in order:
+ *   PACKAGE        CLASS*
+ *   CLASS          (FIELD | METHOD)*, in source order          payload name
+ *   FIELD          type                                          payload name, flags
+ *   METHOD         type PARAMETER* statement*                   payload name, flags
+ *   PARAMETER      type                                          payload name
+ *   INT_TYPE, BOOLEAN_TYPE, VOID_TYPE   none
+ *   CLASS_TYPE     none                                          payload class name
+ *   ARRAY_TYPE     element type
+ *   BLOCK          statement*
+ *   VAR_DECL       type, initializer                             payload variable name
+ *   ASSIGN         reference, expression
+ *   IX_ASSIGN      INDEXED_REF, expression
+ *   CALL_STMT      reference, argument*
+ *   RETURN         expression?
+ *   IF             condition, then statement, else statement?
+ *   WHILE          condition, body
+ *   UNARY          operand                                       payload operator
+ *   BINARY         left, right                                   payload operator
+ *   REF_EXPR       reference
+ *   CALL_EXPR      reference, argument*
+ *   LITERAL        none                                          payload NUM, TRUE or FALSE
+ *   NEW_OBJECT     CLASS_TYPE
+ *   NEW_ARRAY      element type, size
+ *   THIS_REF       none
+ *   ID_REF         none                                          payload name
+ *   INDEXED_REF    ID_REF, index
+ *   QUALIFIED_REF  reference                                     payload member name
+ *
+ * Parser.parseFlat builds one straight from a TokenBuffer.  Passes that
+ * only need the structure walk the arrays.  The Visitors, such as ASTDisplay
+ * and the checkers, are run a class at a time, as Pipeline runs them: over
+ * skeleton(), the declarations as pointer AST, with the bodies of one class
+ * at a time made by body(), so the pointer AST of the whole program is
+ * never built.
+ */
+public final class FlatAST {
+
+	public static final int NIL = -1;
+
+	// node kinds
+	public static final int PACKAGE = 0;
+	public static final int CLASS = 1;
+	public static final int FIELD = 2;
+	public static final int METHOD = 3;
+	public static final int PARAMETER = 4;
+	public static final int INT_TYPE = 5;
+	public static final int BOOLEAN_TYPE = 6;
+	public static final int VOID_TYPE = 7;
+	public static final int CLASS_TYPE = 8;
+	public static final int ARRAY_TYPE = 9;
+	public static final int BLOCK = 10;
+	public static final int VAR_DECL = 11;
+	public static final int ASSIGN = 12;
+	public static final int IX_ASSIGN = 13;
+	public static final int CALL_STMT = 14;
+	public static final int RETURN = 15;
+	public static final int IF = 16;
+	public static final int WHILE = 17;
+	public static final int UNARY = 18;
+	public static final int BINARY = 19;
+	public static final int REF_EXPR = 20;
+	public static final int CALL_EXPR = 21;
+	public static final int LITERAL = 22;
+	public static final int NEW_OBJECT = 23;
+	public static final int NEW_ARRAY = 24;
+	public static final int THIS_REF = 25;
+	public static final int ID_REF = 26;
+	public static final int INDEXED_REF = 27;
+	public static final int QUALIFIED_REF = 28;
+
+	// flags of FIELD and METHOD nodes, above the kind
+	public static final int PRIVATE = 0x20;
+	public static final int STATIC = 0x40;
+	private static final int KIND_MASK = 0x1f;
+
+	private TokenBuffer tokens;
+	private byte[] kinds;
+	private int[] posn;
+	private int[] first;
+	private int[] next;
+	private int[] payload;
+	private int count;
+
+	public FlatAST(TokenBuffer tokens) {
+		this.tokens = tokens;
+		// at most about one node a token, so the arrays rarely grow before trim
+		int capacity = Math.max(16, tokens.size());
+		kinds = new byte[capacity];
+		posn = new int[capacity];
+		first = new int[capacity];
+		next = new int[capacity];
+		payload = new int[capacity];
+	}
+
+
+	// building, bottom up
+
+	/**
+	 * add a node whose children, already added and linked as siblings,
+	 * start at firstChild
+	 * @return the new node
+	 */
+	public int add(int kind, int position, int token, int firstChild) {
+		if (count == kinds.length) {
+			int capacity = count * 2;
+			kinds = Arrays.copyOf(kinds, capacity);
+			posn = Arrays.copyOf(posn, capacity);
+			first = Arrays.copyOf(first, capacity);
+			next = Arrays.copyOf(next, capacity);
+			payload = Arrays.copyOf(payload, capacity);
+		}
+		kinds[count] = (byte) kind;
+		posn[count] = position;
+		first[count] = firstChild;
+		next[count] = NIL;
+		payload[count] = token;
+		return count++;
+	}
+
+	public int add(int kind, int position, int token) {
+		return add(kind, position, token, NIL);
+	}
+
+	/**
+	 * shrink the arrays to the nodes added, once the tree is finished
+	 */
+	public void trim() {
+		kinds = Arrays.copyOf(kinds, count);
+		posn = Arrays.copyOf(posn, count);
+		first = Arrays.copyOf(first, count);
+		next = Arrays.copyOf(next, count);
+		payload = Arrays.copyOf(payload, count);
+	}
+
+	/**
+	 * make sibling the next sibling of node
+	 * @return sibling
+	 */
+	public int link(int node, int sibling) {
+		next[node] = sibling;
+		return sibling;
+	}
+
+
+	// access by node
+
+	/**
+	 * @return the PACKAGE, or NIL if nothing has been parsed
+	 */
+	public int root() {
+		return count - 1;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public int kind(int n) {
+		return kinds[n] & KIND_MASK;
+	}
+
+	public boolean hasFlag(int n, int flag) {
+		return (kinds[n] & flag) != 0;
+	}
+
+	public int position(int n) {
+		return posn[n];
+	}
+
+	public int firstChild(int n) {
+		return first[n];
+	}
+
+	public int nextSibling(int n) {
+		return next[n];
+	}
+
+	/**
+	 * @return index in the TokenBuffer of the token node n names
+	 */
+	public int token(int n) {
+		return payload[n];
+	}
+
+	public String spelling(int n) {
+		return tokens.spelling(payload[n]);
+	}
+
+	/**
+	 * @return SymbolTable id of the name of node n
+	 */
+	public int symbol(int n) {
+		return tokens.symbol(payload[n]);
+	}
+
+	public TokenBuffer tokens() {
+		return tokens;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// POINTER AST, A CLASS AT A TIME
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * @return the declarations of the whole program, every method with an
+	 * empty body, as Parser.parseDeclarations builds them
+	 */
+	public Package skeleton() {
+		int p = root();
+		ClassDeclList cdl = new ClassDeclList();
+		for (int c = first[p]; c != NIL; c = next[c])
+			cdl.add(classDecl(c));
+		return new Package(cdl, posn[p]);
+	}
+
+	/**
+	 * @param method  a METHOD node
+	 * @return the statements of its body, as Parser builds them
+	 */
+	public StatementList body(int method) {
+		StatementList sl = new StatementList();
+		int c = next[first[method]];
+		while (c != NIL && kind(c) == PARAMETER)
+			c = next[c];
+		for (; c != NIL; c = next[c])
+			sl.add(statement(c));
+		return sl;
+	}
+
+	private ClassDecl classDecl(int n) {
+		FieldDeclList fields = new FieldDeclList();
+		MethodDeclList methods = new MethodDeclList();
+		for (int m = first[n]; m != NIL; m = next[m]) {
+			if (kind(m) == FIELD)
+				fields.add((FieldDecl) member(m));
+			else
+				methods.add(methodDecl(m));
+		}
+		ClassDecl cd = new ClassDecl(spelling(n), fields, methods, posn[n]);
+		cd.symbol = symbol(n);
+		return cd;
+	}
+
+	private MemberDecl member(int n) {
+		FieldDecl fd = new FieldDecl(hasFlag(n, PRIVATE), hasFlag(n, STATIC), type(first[n]), spelling(n), posn[n]);
+		fd.symbol = symbol(n);
+		return fd;
+	}
+
+	private MethodDecl methodDecl(int n) {
+		MemberDecl md = member(n);
+		ParameterDeclList pdl = new ParameterDeclList();
+		for (int c = next[first[n]]; c != NIL && kind(c) == PARAMETER; c = next[c]) {
+			ParameterDecl pd = new ParameterDecl(type(first[c]), spelling(c), posn[c]);
+			pd.symbol = symbol(c);
+			pdl.add(pd);
+		}
+		return new MethodDecl(md, pdl, new StatementList(), md.posn);
+	}
+
+	private Type type(int n) {
+		switch (kind(n)) {
+		case INT_TYPE:
+			return new BaseType(TypeKind.INT, posn[n]);
+		case BOOLEAN_TYPE:
+			return new BaseType(TypeKind.BOOLEAN, posn[n]);
+		case VOID_TYPE:
+			return new BaseType(TypeKind.VOID, posn[n]);
+		case CLASS_TYPE:
+			return new ClassType(identifier(n), posn[n]);
+		default:
+			return new ArrayType(type(first[n]), posn[n]);
+		}
+	}
+
+	private Statement statement(int n) {
+		int c = first[n];
+		switch (kind(n)) {
+		case BLOCK:
+			StatementList sl = new StatementList();
+			for (; c != NIL; c = next[c])
+				sl.add(statement(c));
+			return new BlockStmt(sl, posn[n]);
+		case VAR_DECL:
+			VarDecl vd = new VarDecl(type(c), spelling(n), posn[n]);
+			vd.symbol = symbol(n);
+			return new VarDeclStmt(vd, expression(next[c]), posn[n]);
+		case ASSIGN:
+			return new AssignStmt(reference(c), expression(next[c]), posn[n]);
+		case IX_ASSIGN:
+			return new IxAssignStmt((IndexedRef) reference(c), expression(next[c]), posn[n]);
+		case CALL_STMT:
+			return new CallStmt(reference(c), arguments(next[c]), posn[n]);
+		case RETURN:
+			return new ReturnStmt(c == NIL ? null : expression(c), posn[n]);
+		case IF:
+			int then = next[c];
+			if (next[then] == NIL)
+				return new IfStmt(expression(c), statement(then), posn[n]);
+			return new IfStmt(expression(c), statement(then), statement(next[then]), posn[n]);
+		default:
+			return new WhileStmt(expression(c), statement(next[c]), posn[n]);
+		}
+	}
+
+	private Expression expression(int n) {
+		int c = first[n];
+		switch (kind(n)) {
+		case UNARY:
+			return new UnaryExpr(operator(n), expression(c), posn[n]);
+		case BINARY:
+			return new BinaryExpr(operator(n), expression(c), expression(next[c]), posn[n]);
+		case REF_EXPR:
+			return new RefExpr(reference(c), posn[n]);
+		case CALL_EXPR:
+			return new CallExpr(reference(c), arguments(next[c]), posn[n]);
+		case LITERAL:
+			Token t = tokens.token(payload[n]);
+			if (t.kind == TokenKind.NUM)
+				return new LiteralExpr(new IntLiteral(t, posn[n]), posn[n]);
+			return new LiteralExpr(new BooleanLiteral(t, posn[n]), posn[n]);
+		case NEW_OBJECT:
+			return new NewObjectExpr((ClassType) type(c), posn[n]);
+		default:
+			return new NewArrayExpr(type(c), expression(next[c]), posn[n]);
+		}
+	}
+
+	private Reference reference(int n) {
+		int c = first[n];
+		switch (kind(n)) {
+		case THIS_REF:
+			return new ThisRef(posn[n]);
+		case ID_REF:
+			return new IdRef(identifier(n), posn[n]);
+		case INDEXED_REF:
+			return new IndexedRef((IdRef) reference(c), expression(next[c]), posn[n]);
+		default:
+			return new QualifiedRef(reference(c), identifier(n), posn[n]);
+		}
+	}
+
+	private ExprList arguments(int c) {
+		ExprList el = new ExprList();
+		for (; c != NIL; c = next[c])
+			el.add(expression(c));
+		return el;
+	}
+
+	private Identifier identifier(int n) {
+		int t = payload[n];
+		return new Identifier(tokens.token(t), tokens.start(t));
+	}
+
+	private Operator operator(int n) {
+		return new Operator(Token.fixed(tokens.kind(payload[n])), posn[n]);
+	}
+}
@@ -0,0 +1,81 @@
+package miniJava;
+
+import java.nio.charset.StandardCharsets;
+
+import miniJava.AbstractSyntaxTrees.FlatAST;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.SyntacticAnalyzer.Parser;
+import miniJava.SyntacticAnalyzer.SymbolTable;
+import miniJava.SyntacticAnalyzer.TokenBuffer;
+
+/* Memory benchmark for the flat AST
+ * Generates a program of about N lines, lexes it once, and compares parsing
+ * the same TokenBuffer into the AST and into a FlatAST: the heap the finished
+ * tree keeps alive after a full GC, per source line, and the best time to
+ * parse.
+ * Usage: FlatASTBench [lines]
+ */
+public class FlatASTBench {
+
+	private static final int REPS = 10;
+
+	// the tree being measured, kept reachable while the heap is measured
+	private static Object kept;
+
+	public static void main(String[] args) {
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		byte[] source = IdentificationAllocBench.program(lines).getBytes(StandardCharsets.US_ASCII);
+		int actual = 0;
+		for (byte b : source)
+			if (b == '\n')
+				actual++;
+
+		ErrorReporter reporter = new ErrorReporter();
+		TokenBuffer tokens = TokenBuffer.lex(source, reporter, new SymbolTable());
+
+		long base = used();
+		kept = new Parser(tokens, reporter).parse();
+		long pointer = used() - base;
+		kept = null;
+		base = used();
+		kept = new Parser(tokens, reporter).parseFlat();
+		long packed = used() - base;
+		if (reporter.hasErrors() || kept == null)
+			System.out.println("errors in generated program");
+		kept = null;
+
+		FlatAST flat = null;
+		int classes = 0;
+
+		long parse = Long.MAX_VALUE;
+		long flatParse = Long.MAX_VALUE;
+		for (int r = 0; r < REPS; r++) {
+			// each parse starts on a collected heap, not paying to copy the last tree
+			flat = null;
+			used();
+			long start = System.nanoTime();
+			Package ast = new Parser(tokens, reporter).parse();
+			parse = Math.min(parse, System.nanoTime() - start);
+			classes = ast.classDeclList.size();
+			ast = null;
+			used();
+			start = System.nanoTime();
+			flat = new Parser(tokens, reporter).parseFlat();
+			flatParse = Math.min(flatParse, System.nanoTime() - start);
+		}
+
+		System.out.printf("%d lines, %d tokens, %d flat nodes, %d classes%n", actual, tokens.size(), flat.size(), classes);
+		System.out.printf("AST      %10d bytes kept, %6.1f bytes/line, parse %7.2f ms%n", pointer, (double) pointer / actual, parse / 1e6);
+		System.out.printf("FlatAST  %10d bytes kept, %6.1f bytes/line, parse %7.2f ms%n", packed, (double) packed / actual, flatParse / 1e6);
+	}
+
+	/**
+	 * @return heap in use after collecting garbage
+	 */
+	private static long used() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+}
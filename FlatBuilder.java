@@ -0,0 +1,216 @@
+package miniJava.SyntacticAnalyzer;
+
+import miniJava.AbstractSyntaxTrees.FlatAST;
+import miniJava.AbstractSyntaxTrees.TypeKind;
+
+import static miniJava.AbstractSyntaxTrees.FlatAST.*;
+
+/*
+ * Builds a FlatAST, for Parser: each node is its number in the tree and a
+ * name, operator or literal the index of its token, all boxed as Integers.
+ * A list is Siblings, the first and last of its elements, each linked to
+ * the one before it as it is added; its first element becomes the first
+ * child of the node that owns it, after any children that come before the
+ * list.
+ * The boxes and lists are only alive while the parse is, so the finished
+ * tree is still nothing but its arrays.
+ */
+final class FlatBuilder implements NodeBuilder<Integer, FlatBuilder.Siblings, Integer, FlatBuilder.Siblings,
+		FlatBuilder.Siblings, Integer, FlatBuilder.Siblings, Integer, FlatBuilder.Siblings, Integer, Integer, Integer> {
+
+	private final FlatAST ast;
+
+	static final class Siblings {
+		int first = NIL;
+		int last = NIL;
+	}
+
+	FlatBuilder(FlatAST ast) {
+		this.ast = ast;
+	}
+
+	private void append(Siblings s, int e) {
+		if (s.last == NIL)
+			s.first = e;
+		else
+			ast.link(s.last, e);
+		s.last = e;
+	}
+
+	// links list after node, and returns the last of them
+	private int follow(int node, Siblings s) {
+		if (s.first == NIL)
+			return node;
+		ast.link(node, s.first);
+		return s.last;
+	}
+
+	public Integer token(Parser parser) {
+		return parser.currentIndex();
+	}
+
+	public Integer program(Siblings classes, int posn) {
+		return ast.add(PACKAGE, posn, NIL, classes.first);
+	}
+
+	public Siblings classList() {
+		return new Siblings();
+	}
+
+	public void addClass(Siblings classes, Integer cd) {
+		append(classes, cd);
+	}
+
+	public Integer classDecl(Integer name, Siblings members, int posn) {
+		return ast.add(CLASS, posn, name, members.first);
+	}
+
+	public Siblings memberList() {
+		return new Siblings();
+	}
+
+	private static int flags(boolean isPrivate, boolean isStatic) {
+		return (isPrivate ? PRIVATE : 0) | (isStatic ? STATIC : 0);
+	}
+
+	public void field(Siblings members, boolean isPrivate, boolean isStatic, Integer type, Integer name, int posn) {
+		append(members, ast.add(FIELD | flags(isPrivate, isStatic), posn, name, type));
+	}
+
+	public void method(Siblings members, boolean isPrivate, boolean isStatic, Integer type, Integer name,
+			Siblings parameters, Siblings body, int posn) {
+		follow(follow(type, parameters), body);
+		append(members, ast.add(METHOD | flags(isPrivate, isStatic), posn, name, type));
+	}
+
+	public Siblings parameterList() {
+		return new Siblings();
+	}
+
+	public void parameter(Siblings parameters, Integer type, Integer name, int posn) {
+		append(parameters, ast.add(PARAMETER, posn, name, type));
+	}
+
+	public Siblings statementList() {
+		return new Siblings();
+	}
+
+	public void addStatement(Siblings statements, Integer s) {
+		append(statements, s);
+	}
+
+	public Siblings lazyBody(Parser parser, int start) {
+		throw new UnsupportedOperationException("a FlatAST is parsed whole");
+	}
+
+	public Integer baseType(TypeKind kind, int posn) {
+		int k = kind == TypeKind.INT ? INT_TYPE : kind == TypeKind.BOOLEAN ? BOOLEAN_TYPE : VOID_TYPE;
+		return ast.add(k, posn, NIL, NIL);
+	}
+
+	public Integer classType(Integer name, int posn) {
+		return ast.add(CLASS_TYPE, posn, name, NIL);
+	}
+
+	public Integer arrayType(Integer eltType, int posn) {
+		return ast.add(ARRAY_TYPE, posn, NIL, eltType);
+	}
+
+	public Integer block(Siblings statements, int posn) {
+		return ast.add(BLOCK, posn, NIL, statements.first);
+	}
+
+	public Integer varDecl(Integer type, Integer name, Integer init, int posn) {
+		ast.link(type, init);
+		return ast.add(VAR_DECL, posn, name, type);
+	}
+
+	public Integer assign(Integer ref, Integer val, int posn) {
+		ast.link(ref, val);
+		return ast.add(ASSIGN, posn, NIL, ref);
+	}
+
+	public Integer ixAssign(Integer array, Integer index, Integer val, int posn) {
+		int r = indexedRef(array, index, posn);
+		ast.link(r, val);
+		return ast.add(IX_ASSIGN, posn, NIL, r);
+	}
+
+	public Integer callStmt(Integer ref, Siblings arguments, int posn) {
+		follow(ref, arguments);
+		return ast.add(CALL_STMT, posn, NIL, ref);
+	}
+
+	public Integer returnStmt(Integer expr, int posn) {
+		return ast.add(RETURN, posn, NIL, expr == null ? NIL : expr);
+	}
+
+	public Integer ifStmt(Integer cond, Integer thenStmt, Integer elseStmt, int posn) {
+		int then = ast.link(cond, thenStmt);
+		if (elseStmt != null)
+			ast.link(then, elseStmt);
+		return ast.add(IF, posn, NIL, cond);
+	}
+
+	public Integer whileStmt(Integer cond, Integer body, int posn) {
+		ast.link(cond, body);
+		return ast.add(WHILE, posn, NIL, cond);
+	}
+
+	public Siblings argumentList() {
+		return new Siblings();
+	}
+
+	public void addArgument(Siblings arguments, Integer e) {
+		append(arguments, e);
+	}
+
+	public Integer unary(Integer operator, Integer operand, int posn) {
+		return ast.add(UNARY, posn, operator, operand);
+	}
+
+	public Integer binary(Integer operator, Integer left, Integer right, int posn) {
+		ast.link(left, right);
+		return ast.add(BINARY, posn, operator, left);
+	}
+
+	public Integer refExpr(Integer ref, int posn) {
+		return ast.add(REF_EXPR, posn, NIL, ref);
+	}
+
+	public Integer callExpr(Integer ref, Siblings arguments, int posn) {
+		follow(ref, arguments);
+		return ast.add(CALL_EXPR, posn, NIL, ref);
+	}
+
+	public Integer literal(Integer token, int posn) {
+		return ast.add(LITERAL, posn, token, NIL);
+	}
+
+	public Integer newObject(Integer className, int typePosn, int posn) {
+		return ast.add(NEW_OBJECT, posn, NIL, classType(className, typePosn));
+	}
+
+	public Integer newArray(Integer eltType, Integer size, int posn) {
+		ast.link(eltType, size);
+		return ast.add(NEW_ARRAY, posn, NIL, eltType);
+	}
+
+	public Integer thisRef(int posn) {
+		return ast.add(THIS_REF, posn, NIL, NIL);
+	}
+
+	public Integer idRef(Integer name, int posn) {
+		return ast.add(ID_REF, posn, name, NIL);
+	}
+
+	public Integer indexedRef(Integer array, Integer index, int posn) {
+		int r = idRef(array, posn);
+		ast.link(r, index);
+		return ast.add(INDEXED_REF, posn, NIL, r);
+	}
+
+	public Integer qualifiedRef(Integer ref, Integer name, int namePosn, int posn) {
+		return ast.add(QUALIFIED_REF, posn, name, ref);
+	}
+}
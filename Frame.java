@@ -0,0 +1,25 @@
+package miniJava.Interpreter;
+
+/*
+ * The activation of a method: the object it was called on, null for a
+ * static method, and its parameters and local variables, the ints and
+ * booleans (as 0 and 1) in one array and the arrays and objects in another.
+ * A return statement leaves its value in intResult or refResult.
+ */
+final class Frame {
+
+	private static final int[] NO_INTS = new int[0];
+	private static final Object[] NO_REFS = new Object[0];
+
+	final Object self;
+	final int[] ints;
+	final Object[] refs;
+	int intResult;
+	Object refResult;
+
+	Frame(Object self, int ints, int refs) {
+		this.self = self;
+		this.ints = ints == 0 ? NO_INTS : new int[ints];
+		this.refs = refs == 0 ? NO_REFS : new Object[refs];
+	}
+}
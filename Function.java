@@ -0,0 +1,46 @@
+package miniJava.Interpreter;
+
+import miniJava.AbstractSyntaxTrees.LocalDecl;
+import miniJava.AbstractSyntaxTrees.MethodDecl;
+
+/*
+ * A method, made when a call of it is first executed: a frame slot for
+ * each parameter and local variable, and the tree of its body, which starts
+ * as a placeholder for each statement.
+ */
+final class Function extends Node {
+
+	final MethodDecl decl;
+	final int[] paramSlots;
+	final boolean[] paramRefs;
+	final StmtNodes.Block body;
+
+	private Slots slots;
+
+	Function(Specializer specializer, MethodDecl m) {
+		decl = m;
+		slots = new Slots(m);
+		paramSlots = slots.params;
+		paramRefs = new boolean[paramSlots.length];
+		for (int i = 0; i < paramRefs.length; i++)
+			paramRefs[i] = Layout.isRef(m.parameterDeclList.get(i).type);
+		StmtNode[] statements = new StmtNode[m.statementList.size()];
+		for (int i = 0; i < statements.length; i++)
+			statements[i] = specializer.lazy(m.statementList.get(i), this);
+		body = adopt(new StmtNodes.Block(statements));
+	}
+
+	/**
+	 * @return a frame for a call of this method on self
+	 */
+	Frame frame(Object self) {
+		return slots.frame(self);
+	}
+
+	/**
+	 * @return frame slot of a parameter or local variable
+	 */
+	int slot(LocalDecl decl) {
+		return slots.slot(decl);
+	}
+}
@@ -0,0 +1,135 @@
+package miniJava.AbstractSyntaxTrees;
+
+import miniJava.ErrorReporter;
+
+/*
+ * Identification and type checking in one traversal.
+ *
+ * The type checker's walk over the tree drives, and each node is identified
+ * just before it is typed: a scope is opened on entering a block and closed
+ * on leaving it, a declaration is entered when it is reached, and a name is
+ * looked up when it is typed.  The members of a QualifiedRef are found by
+ * the type checker from the type of their reference.
+ *
+ * Only the declarations of all classes are visited ahead of the bodies, so
+ * that a call to a method declared further on knows its parameter and
+ * return types; the statements and expressions are walked once instead of
+ * twice.  Identification and type errors come out together, in the order
+ * they are met; ASTIDChecker and TypeChecker remain for running the two
+ * passes separately.
+ */
+public class FusedChecker extends TypeChecker {
+
+	private ASTIDChecker ids;
+
+	public FusedChecker(ContextChecker cc, ErrorReporter reporter){
+		super(reporter);
+		ids = new ASTIDChecker();
+		ids.cc = cc;
+		ids.reporter = reporter;
+	}
+
+	private void identify(Type type){
+		type.visit(ids, null);
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// PACKAGE
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitPackage(Package prog, Object arg){
+        ids.enterClasses(prog);
+        for (ClassDecl c: prog.classDeclList){
+        	for (FieldDecl f: c.fieldDeclList)
+        		identify(f.type);
+        	for (MethodDecl m: c.methodDeclList){
+        		identify(m.type);
+        		for (ParameterDecl pd: m.parameterDeclList)
+        			identify(pd.type);
+        	}
+        }
+        super.visitPackage(prog, arg);
+        ids.cc.idTable.closeScope();
+        return null;
+    }
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// DECLARATIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitClassDecl(ClassDecl clas, Object arg){
+        ids.openMembers(clas);
+        super.visitClassDecl(clas, arg);
+        ids.cc.idTable.closeScope();
+        return null;
+    }
+
+    public Type visitMethodDecl(MethodDecl m, Object arg){
+        // parameters and locals share one scope, which rejects the same
+        // redeclarations as the two nested scopes of ASTIDChecker
+        ids.cc.idTable.openScope();
+        super.visitMethodDecl(m, arg);
+        ids.cc.idTable.closeScope();
+        return null;
+    }
+
+    public Type visitParameterDecl(ParameterDecl pd, Object arg){
+        ids.enter(pd);
+        return super.visitParameterDecl(pd, arg);
+    }
+
+    public Type visitVarDecl(VarDecl vd, Object arg){
+        identify(vd.type);
+        ids.enter(vd);
+        return super.visitVarDecl(vd, arg);
+    }
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// STATEMENTS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitBlockStmt(BlockStmt stmt, Object arg){
+        ids.cc.idTable.openScope();
+        super.visitBlockStmt(stmt, arg);
+        ids.cc.idTable.closeScope();
+        return null;
+    }
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// EXPRESSIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitNewArrayExpr(NewArrayExpr expr, Object arg){
+        identify(expr.eltType);
+        return super.visitNewArrayExpr(expr, arg);
+    }
+
+    public Type visitNewObjectExpr(NewObjectExpr expr, Object arg){
+        identify(expr.classtype);
+        return super.visitNewObjectExpr(expr, arg);
+    }
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// REFERENCES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitIdRef(IdRef ref, Object arg) {
+        ref.id.visit(ids, null);
+        return super.visitIdRef(ref, arg);
+    }
+}
@@ -0,0 +1,497 @@
+package miniJava.CodeGenerator;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import miniJava.AbstractSyntaxTrees.*;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.Interpreter.ExecutionError;
+import miniJava.Interpreter.Interpreter;
+import miniJava.SyntacticAnalyzer.TokenKind;
+
+import static miniJava.CodeGenerator.ClassGenerator.declOf;
+import static miniJava.CodeGenerator.ClassGenerator.elementType;
+import static miniJava.CodeGenerator.ClassGenerator.isRef;
+import static miniJava.CodeGenerator.ClassGenerator.typeOf;
+
+/*
+ * Generates the code of a checked program for the VM.
+ *
+ * Classes get their numbers, fields their offsets and static fields their
+ * addresses up front, and every method a Method, so a call can name its
+ * target before the target's code is made.  The int and reference fields
+ * of a class are numbered apart, each from 0, as an object keeps them
+ * apart.  Then the visit of each method body appends its code: a
+ * statement leaves the operand stack as it found it, an expression pushes
+ * its value, a reference visited as a value pushes what it names.  Which
+ * of an instruction's int and reference forms is appended follows from
+ * the types the checker gave.  The depth of the operand stack is followed
+ * as instructions are appended, giving the Method its maxStack.
+ *
+ * Every parameter and local variable has an address in the frame of its
+ * own, relative to LB: the arguments below it, the locals in the order
+ * they are declared above the link words.
+ *
+ * implements Visitor<argtype,resulttype>, neither used
+ */
+public final class Generator implements Visitor<Object, Object> {
+
+	private MethodDecl println;
+	private IdentityHashMap<FieldDecl, Integer> fields = new IdentityHashMap<FieldDecl, Integer>();
+	private IdentityHashMap<ClassDecl, Integer> classes = new IdentityHashMap<ClassDecl, Integer>();
+	private IdentityHashMap<MethodDecl, Integer> indexes = new IdentityHashMap<MethodDecl, Integer>();
+	private Method[] methods;
+	private int statics;
+
+	// the method being generated
+	private Method method;
+	private IdentityHashMap<LocalDecl, Integer> addresses;
+	private int thisAddress;
+	private int[] code;
+	private int length;
+	private int depth;
+
+	/**
+	 * @param prog  a checked program, with the predefined classes
+	 * @return the code of prog
+	 * @throws ExecutionError  if prog has no main method or cannot be run
+	 */
+	public static Program generate(Package prog) {
+		return new Generator().program(prog);
+	}
+
+	private Generator() {
+	}
+
+	private Program program(Package prog) {
+		MethodDecl main = Interpreter.main(prog);
+		if (main == null)
+			throw new ExecutionError("no method public static void main(String[] args)");
+
+		int classCount = prog.classDeclList.size();
+		int[] intFields = new int[classCount];
+		int[] refFields = new int[classCount];
+		int count = 0;
+		for (ClassDecl cd : prog.classDeclList) {
+			int c = classes.size();
+			for (FieldDecl fd : cd.fieldDeclList) {
+				if (fd.isStatic)
+					fields.put(fd, statics++);
+				else if (isRef(fd.type))
+					fields.put(fd, refFields[c]++);
+				else
+					fields.put(fd, intFields[c]++);
+			}
+			classes.put(cd, c);
+			if (cd.name.equals("_PrintStream"))
+				println = (MethodDecl) cd.member("println");
+			count += cd.methodDeclList.size();
+		}
+		methods = new Method[count];
+		count = 0;
+		for (ClassDecl cd : prog.classDeclList) {
+			for (MethodDecl md : cd.methodDeclList) {
+				int args = md.parameterDeclList.size() + (md.isStatic ? 0 : 1);
+				methods[count] = new Method(cd.name + "." + md.name, !md.isStatic, md.type.typeKind != TypeKind.VOID, args);
+				indexes.put(md, count++);
+			}
+		}
+		for (ClassDecl cd : prog.classDeclList) {
+			for (MethodDecl md : cd.methodDeclList)
+				md.visit(this, null);
+		}
+		return new Program(methods, statics, intFields, refFields, indexes.get(main));
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// CODE
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	private void emit(int op) {
+		if (length == code.length)
+			code = Arrays.copyOf(code, 2 * length);
+		code[length++] = op;
+		depth += Bytecode.effect(op);
+		method.maxStack = Math.max(method.maxStack, depth);
+	}
+
+	private void emit(int op, int operand) {
+		emit(op);
+		if (length == code.length)
+			code = Arrays.copyOf(code, 2 * length);
+		code[length++] = operand;
+	}
+
+	/**
+	 * @return where to patch the target of the jump
+	 */
+	private int jump(int op) {
+		emit(op, -1);
+		return length - 1;
+	}
+
+	private void patch(int at) {
+		code[at] = length;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// DECLARATIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitPackage(Package prog, Object arg) {
+		return null;
+	}
+
+	public Object visitClassDecl(ClassDecl cd, Object arg) {
+		return null;
+	}
+
+	public Object visitFieldDecl(FieldDecl fd, Object arg) {
+		return null;
+	}
+
+	public Object visitMethodDecl(MethodDecl md, Object arg) {
+		method = methods[indexes.get(md)];
+		addresses = new IdentityHashMap<LocalDecl, Integer>();
+		int n = md.parameterDeclList.size();
+		for (int i = 0; i < n; i++)
+			addresses.put(md.parameterDeclList.get(i), i - n);
+		thisAddress = -n - 1;
+		code = new int[64];
+		length = 0;
+		depth = 0;
+		for (Statement s : md.statementList)
+			s.visit(this, null);
+		// falling off the end, which only a void method should do; any
+		// other returns 0 or null, as in the Interpreter
+		if (!method.value)
+			emit(Bytecode.RETURN, method.args);
+		else if (isRef(md.type)) {
+			emit(Bytecode.NULL);
+			emit(Bytecode.RETURNA, method.args);
+			depth--;
+		}
+		else {
+			emit(Bytecode.LOADL, 0);
+			emit(Bytecode.RETURNV, method.args);
+			depth--;
+		}
+		method.code = Arrays.copyOf(code, length);
+		return null;
+	}
+
+	public Object visitParameterDecl(ParameterDecl pd, Object arg) {
+		return null;
+	}
+
+	public Object visitVarDecl(VarDecl decl, Object arg) {
+		return null;
+	}
+
+	public Object visitBaseType(BaseType type, Object arg) {
+		return null;
+	}
+
+	public Object visitClassType(ClassType type, Object arg) {
+		return null;
+	}
+
+	public Object visitArrayType(ArrayType type, Object arg) {
+		return null;
+	}
+
+	public Object visitIdentifier(Identifier id, Object arg) {
+		return null;
+	}
+
+	public Object visitOperator(Operator op, Object arg) {
+		return null;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// STATEMENTS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitBlockStmt(BlockStmt stmt, Object arg) {
+		for (Statement s : stmt.sl)
+			s.visit(this, null);
+		return null;
+	}
+
+	public Object visitVardeclStmt(VarDeclStmt stmt, Object arg) {
+		int address = Method.LINK + method.locals++;
+		addresses.put(stmt.varDecl, address);
+		stmt.initExp.visit(this, null);
+		emit(isRef(stmt.varDecl.type) ? Bytecode.STOREA : Bytecode.STORE, address);
+		return null;
+	}
+
+	public Object visitAssignStmt(AssignStmt stmt, Object arg) {
+		Declaration decl = declOf(stmt.ref);
+		boolean reference = isRef(decl.type);
+		if (decl instanceof LocalDecl) {
+			stmt.val.visit(this, null);
+			emit(reference ? Bytecode.STOREA : Bytecode.STORE, addresses.get(decl));
+			return null;
+		}
+		FieldDecl fd = (FieldDecl) decl;
+		if (fd.isStatic) {
+			stmt.val.visit(this, null);
+			emit(reference ? Bytecode.STORESA : Bytecode.STORES, fields.get(fd));
+			return null;
+		}
+		object(stmt.ref);
+		stmt.val.visit(this, null);
+		emit(reference ? Bytecode.PUTFIELDA : Bytecode.PUTFIELD, fields.get(fd));
+		return null;
+	}
+
+	public Object visitIxAssignStmt(IxAssignStmt stmt, Object arg) {
+		stmt.ixRef.idRef.visit(this, null);
+		stmt.ixRef.indexExpr.visit(this, null);
+		stmt.val.visit(this, null);
+		emit(isRef(elementType(stmt.ixRef)) ? Bytecode.AASTORE : Bytecode.ASTORE);
+		return null;
+	}
+
+	public Object visitCallStmt(CallStmt stmt, Object arg) {
+		if (declOf(stmt.methodRef) == println) {
+			stmt.argList.get(0).visit(this, null);
+			emit(Bytecode.PRINT);
+			return null;
+		}
+		if (call(stmt.methodRef, stmt.argList).value)
+			emit(isRef(declOf(stmt.methodRef).type) ? Bytecode.POPA : Bytecode.POP);
+		return null;
+	}
+
+	public Object visitReturnStmt(ReturnStmt stmt, Object arg) {
+		if (stmt.returnExpr == null) {
+			emit(Bytecode.RETURN, method.args);
+			return null;
+		}
+		stmt.returnExpr.visit(this, null);
+		emit(isRef(stmt.returnExpr) ? Bytecode.RETURNA : Bytecode.RETURNV, method.args);
+		depth--;
+		return null;
+	}
+
+	public Object visitIfStmt(IfStmt stmt, Object arg) {
+		stmt.cond.visit(this, null);
+		int toElse = jump(Bytecode.JUMPZ);
+		stmt.thenStmt.visit(this, null);
+		if (stmt.elseStmt == null) {
+			patch(toElse);
+			return null;
+		}
+		int toEnd = jump(Bytecode.JUMP);
+		patch(toElse);
+		stmt.elseStmt.visit(this, null);
+		patch(toEnd);
+		return null;
+	}
+
+	// the condition after the body, one jump an iteration
+	public Object visitWhileStmt(WhileStmt stmt, Object arg) {
+		int toCond = jump(Bytecode.JUMP);
+		int body = length;
+		stmt.body.visit(this, null);
+		patch(toCond);
+		stmt.cond.visit(this, null);
+		emit(Bytecode.JUMPNZ, body);
+		return null;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// EXPRESSIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitUnaryExpr(UnaryExpr expr, Object arg) {
+		expr.expr.visit(this, null);
+		emit(expr.operator.kind == TokenKind.NOT ? Bytecode.NOT : Bytecode.NEG);
+		return null;
+	}
+
+	public Object visitBinaryExpr(BinaryExpr expr, Object arg) {
+		TokenKind kind = expr.operator.kind;
+		if (kind == TokenKind.AND || kind == TokenKind.OR) {
+			expr.left.visit(this, null);
+			int toEnd = jump(kind == TokenKind.AND ? Bytecode.ANDJ : Bytecode.ORJ);
+			expr.right.visit(this, null);
+			patch(toEnd);
+			return null;
+		}
+		expr.left.visit(this, null);
+		expr.right.visit(this, null);
+		switch (kind) {
+		case PLUS:
+			emit(Bytecode.ADD);
+			break;
+		case MINUS:
+			emit(Bytecode.SUB);
+			break;
+		case TIMES:
+			emit(Bytecode.MUL);
+			break;
+		case DIVIDE:
+			emit(Bytecode.DIV);
+			break;
+		case LT:
+			emit(Bytecode.LT);
+			break;
+		case GT:
+			emit(Bytecode.GT);
+			break;
+		case LE:
+			emit(Bytecode.LE);
+			break;
+		case GE:
+			emit(Bytecode.GE);
+			break;
+		case EQ:
+			emit(isRef(expr.left) ? Bytecode.AEQ : Bytecode.EQ);
+			break;
+		default:
+			emit(isRef(expr.left) ? Bytecode.ANE : Bytecode.NE);
+		}
+		return null;
+	}
+
+	public Object visitRefExpr(RefExpr expr, Object arg) {
+		return expr.ref.visit(this, null);
+	}
+
+	public Object visitCallExpr(CallExpr expr, Object arg) {
+		call(expr.functionRef, expr.argList);
+		return null;
+	}
+
+	public Object visitLiteralExpr(LiteralExpr expr, Object arg) {
+		return expr.lit.visit(this, null);
+	}
+
+	public Object visitNewObjectExpr(NewObjectExpr expr, Object arg) {
+		emit(Bytecode.NEWOBJ, classes.get(expr.classtype.decl));
+		return null;
+	}
+
+	public Object visitNewArrayExpr(NewArrayExpr expr, Object arg) {
+		expr.sizeExpr.visit(this, null);
+		emit(isRef(expr.eltType) ? Bytecode.ANEWARR : Bytecode.NEWARR);
+		return null;
+	}
+
+	/**
+	 * pushes this and the arguments, then calls; the qualifier of a static
+	 * method is not evaluated
+	 * @return the method called
+	 */
+	private Method call(Reference ref, ExprList args) {
+		MethodDecl md = (MethodDecl) declOf(ref);
+		int index = indexes.get(md);
+		Method target = methods[index];
+		if (!md.isStatic)
+			object(ref);
+		for (Expression e : args)
+			e.visit(this, null);
+		emit(Bytecode.CALL, index);
+		depth += -target.args + (target.value ? 1 : 0);
+		method.maxStack = Math.max(method.maxStack, depth);
+		return target;
+	}
+
+	// pushes the object a member is selected from
+	private void object(Reference ref) {
+		if (ref instanceof QualifiedRef)
+			((QualifiedRef) ref).ref.visit(this, null);
+		else
+			emit(Bytecode.LOADA, thisAddress);
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// REFERENCES, AS VALUES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitQualifiedRef(QualifiedRef qr, Object arg) {
+		if (qr.id.decl == null) {
+			qr.ref.visit(this, null);
+			emit(isRef(((ArrayType) typeOf(qr.ref)).eltType) ? Bytecode.ALENGTH : Bytecode.LENGTH);
+			return null;
+		}
+		FieldDecl fd = (FieldDecl) qr.id.decl;
+		boolean reference = isRef(fd.type);
+		if (fd.isStatic) {
+			emit(reference ? Bytecode.LOADSA : Bytecode.LOADS, fields.get(fd));
+			return null;
+		}
+		qr.ref.visit(this, null);
+		emit(reference ? Bytecode.GETFIELDA : Bytecode.GETFIELD, fields.get(fd));
+		return null;
+	}
+
+	public Object visitIndexedRef(IndexedRef ir, Object arg) {
+		ir.idRef.visit(this, null);
+		ir.indexExpr.visit(this, null);
+		emit(isRef(elementType(ir)) ? Bytecode.AALOAD : Bytecode.ALOAD);
+		return null;
+	}
+
+	public Object visitIdRef(IdRef ref, Object arg) {
+		Declaration decl = ref.id.decl;
+		boolean reference = isRef(decl.type);
+		if (decl instanceof LocalDecl) {
+			emit(reference ? Bytecode.LOADA : Bytecode.LOAD, addresses.get(decl));
+			return null;
+		}
+		FieldDecl fd = (FieldDecl) decl;
+		if (fd.isStatic) {
+			emit(reference ? Bytecode.LOADSA : Bytecode.LOADS, fields.get(fd));
+			return null;
+		}
+		emit(Bytecode.LOADA, thisAddress);
+		emit(reference ? Bytecode.GETFIELDA : Bytecode.GETFIELD, fields.get(fd));
+		return null;
+	}
+
+	public Object visitThisRef(ThisRef ref, Object arg) {
+		emit(Bytecode.LOADA, thisAddress);
+		return null;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// TERMINALS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Object visitIntLiteral(IntLiteral num, Object arg) {
+		try {
+			emit(Bytecode.LOADL, Integer.parseInt(num.spelling));
+		}
+		catch (NumberFormatException e) {
+			throw new ExecutionError("integer literal " + num.spelling + " is too large");
+		}
+		return null;
+	}
+
+	public Object visitBooleanLiteral(BooleanLiteral bool, Object arg) {
+		emit(Bytecode.LOADL, bool.kind == TokenKind.TRUE ? 1 : 0);
+		return null;
+	}
+}
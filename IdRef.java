@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class IdRef extends Reference {
 	
-	public IdRef(Identifier id, SourcePosition posn){
+	public IdRef(Identifier id, int posn){
 		super(posn);
 		this.id = id;
 	}
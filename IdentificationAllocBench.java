@@ -0,0 +1,102 @@
+package miniJava;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import miniJava.AbstractSyntaxTrees.ASTIDChecker;
+import miniJava.AbstractSyntaxTrees.ContextChecker;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.SyntacticAnalyzer.Parser;
+import miniJava.SyntacticAnalyzer.SymbolTable;
+import miniJava.SyntacticAnalyzer.TokenBuffer;
+
+/* Allocation benchmark for contextual analysis
+ * Generates a program of about N lines, parses it once, and reports the bytes
+ * allocated per source line by the identification pass and by type checking,
+ * as counted by the JVM for the current thread.  Parsing is not counted.
+ * Usage: IdentificationAllocBench [lines]
+ */
+public class IdentificationAllocBench {
+
+	private static final int REPS = 20;
+
+	public static void main(String[] args) {
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported()) {
+			System.out.println("thread allocation counting not supported by this JVM");
+			return;
+		}
+
+		byte[] source = program(lines).getBytes(StandardCharsets.US_ASCII);
+		int actual = 0;
+		for (byte b : source)
+			if (b == '\n')
+				actual++;
+
+		ErrorReporter reporter = new ErrorReporter();
+		SymbolTable symbols = new SymbolTable();
+		Package ast = new Parser(TokenBuffer.lex(source, reporter, symbols), reporter).parse();
+		if (ast == null)
+			return;
+
+		long id = Thread.currentThread().getId();
+		// adds the predefined classes, which later passes need only once
+		ContextChecker checker = new ContextChecker(symbols);
+		checker.idCheck(ast, reporter);
+		long identify = Long.MAX_VALUE;
+		for (int r = 0; r < REPS; r++) {
+			long before = threads.getThreadAllocatedBytes(id);
+			ASTIDChecker idChecker = new ASTIDChecker();
+			idChecker.cc = new ContextChecker(symbols);
+			idChecker.reporter = reporter;
+			idChecker.visitTree(ast);
+			identify = Math.min(identify, threads.getThreadAllocatedBytes(id) - before);
+		}
+		long typeCheck = Long.MAX_VALUE;
+		for (int r = 0; r < REPS; r++) {
+			long before = threads.getThreadAllocatedBytes(id);
+			checker.typeCheck(ast, reporter);
+			typeCheck = Math.min(typeCheck, threads.getThreadAllocatedBytes(id) - before);
+		}
+		if (reporter.hasErrors())
+			System.out.println("errors in generated program");
+		System.out.printf("%d lines%n", actual);
+		System.out.printf("identification %10d bytes allocated, %6.1f bytes/line%n", identify, (double) identify / actual);
+		System.out.printf("type checking  %10d bytes allocated, %6.1f bytes/line%n", typeCheck, (double) typeCheck / actual);
+	}
+
+	/**
+	 * a program of about lines lines, in which every name is declared before it
+	 * is used, so any identification pass accepts it
+	 */
+	static String program(int lines) {
+		StringBuilder sb = new StringBuilder();
+		int n = 0;
+		for (int c = 0; n < lines; c++) {
+			sb.append("class C").append(c).append(" {\n");
+			sb.append("  int count;\n");
+			sb.append("  boolean done;\n");
+			n += 3;
+			for (int m = 0; m < 8 && n < lines; m++) {
+				sb.append("  public int m").append(m).append("(int a, int b) {\n");
+				sb.append("    int x = a + b * 2;\n");
+				sb.append("    int[] xs = new int[x];\n");
+				sb.append("    while (x > 0 && !done) {\n");
+				sb.append("      xs[x - 1] = x;\n");
+				sb.append("      if (x == b) { count = count + 1; } else { x = x - 1; }\n");
+				sb.append("    }\n");
+				if (m > 0)
+					sb.append("    x = this.m").append(m - 1).append("(x, count);\n");
+				else
+					sb.append("    x = this.count;\n");
+				sb.append("    return x;\n");
+				sb.append("  }\n");
+				n += 10;
+			}
+			sb.append("}\n");
+			n++;
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,93 @@
+package miniJava;
+
+import java.util.Random;
+
+import miniJava.AbstractSyntaxTrees.Attribute;
+import miniJava.AbstractSyntaxTrees.IdentificationTable;
+import miniJava.SyntacticAnalyzer.SymbolTable;
+
+/* Scaling benchmark for the IdentificationTable
+ * Fills the table with N declarations laid out like a program (classes, then
+ * members, then locals in nested blocks) and measures the cost of a reference
+ * (retrieve) and of entering and discarding a block of locals, for N from 1000
+ * up to 100000.  Both costs should stay flat as N grows.  Names are interned
+ * up front and looked up by symbol id, as the scanner and checker do.
+ * Usage: IdentificationBench [max declarations]
+ */
+public class IdentificationBench {
+
+	private static final int LOOKUPS = 2000000;
+	private static final int BLOCKS = 20000;
+	private static final int BLOCK_SIZE = 16;
+
+	public static void main(String[] args) {
+		int max = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		System.out.println("declarations    ns/reference    ns/local entered");
+		// first pass warms up the JIT and is not shown
+		for (int pass = 0; pass < 2; pass++) {
+			for (int n = 1000; n <= max; n *= 10) {
+				double[] cost = run(n);
+				if (pass == 1)
+					System.out.printf("%12d %15.1f %19.1f%n", n, cost[0], cost[1]);
+			}
+		}
+	}
+
+	/**
+	 * @return ns per retrieve and ns per enter (including its share of closeScope)
+	 */
+	private static double[] run(int n) {
+		SymbolTable symbols = new SymbolTable();
+		IdentificationTable table = new IdentificationTable(symbols);
+		int[] names = new int[n];
+		int classes = Math.max(1, n / 20);
+		int members = n / 2;
+		int i = 0;
+
+		table.openScope();
+		for (; i < classes; i++)
+			enter(table, names, i, "C" + i);
+		table.openScope();
+		for (; i < classes + members; i++)
+			enter(table, names, i, "m" + i);
+		table.openScope();
+		while (i < n) {
+			// locals in blocks nested ever deeper
+			table.openScope();
+			for (int k = 0; k < 50 && i < n; k++, i++)
+				enter(table, names, i, "v" + i);
+		}
+
+		Random random = new Random(n);
+		int[] refs = new int[4096];
+		for (int k = 0; k < refs.length; k++)
+			refs[k] = random.nextInt(n);
+
+		long found = 0;
+		long start = System.nanoTime();
+		for (int k = 0; k < LOOKUPS; k++)
+			found += table.retrieve(names[refs[k & (refs.length - 1)]]).level;
+		long lookup = System.nanoTime() - start;
+
+		int[] locals = new int[BLOCK_SIZE];
+		for (int k = 0; k < BLOCK_SIZE; k++)
+			locals[k] = symbols.intern("tmp" + k);
+		start = System.nanoTime();
+		for (int b = 0; b < BLOCKS; b++) {
+			table.openScope();
+			for (int local : locals)
+				table.enter(local, new Attribute(null, null));
+			table.closeScope();
+		}
+		long enter = System.nanoTime() - start;
+
+		if (found == 0)
+			System.out.println();
+		return new double[] {(double) lookup / LOOKUPS, (double) enter / (BLOCKS * BLOCK_SIZE)};
+	}
+
+	private static void enter(IdentificationTable table, int[] names, int i, String name) {
+		names[i] = table.symbols().intern(name);
+		table.enter(names[i], new Attribute(name, null));
+	}
+}
@@ -1,71 +1,149 @@
 package miniJava.AbstractSyntaxTrees;
-import java.util.ArrayList;
 
+import miniJava.SyntacticAnalyzer.SymbolTable;
 
+/*
+ * Scoped symbol table for identification.
+ *
+ * Names are looked up by their SymbolTable id.  visible[s] is the innermost
+ * Attribute currently declaring symbol s, and each Attribute links to the
+ * one it shadows, so retrieve() is a single array index however many scopes
+ * and declarations are open.  The symbols entered are also appended to an
+ * undo log, and each scope remembers where in the log it started, so
+ * closeScope() unlinks exactly the declarations made in that scope.
+ *
+ * Scope levels: 1 is the class names, 2 the members of a class, and 3 and
+ * up the parameters and locals of a method, which may not redeclare each
+ * other however deeply nested.
+ */
 public class IdentificationTable {
-	public ArrayList<ScopeLevel> idTable;
+	public static final int CLASS_SCOPE = 1;
+	public static final int MEMBER_SCOPE = 2;
+	public static final int LOCAL_SCOPE = 3;
+	
+	private SymbolTable symbols;
+	private Attribute[] visible;	// innermost declaration of each symbol, by id
+	private int[] undoLog;		// symbols entered, in order
+	private int logSize;
+	private int[] scopeStart;	// undo log size when each open scope was opened
 	public int currentScope;
 	
-	public void IndentificationTable(){
-		this.idTable = new ArrayList<ScopeLevel>();
+	public IdentificationTable(){
+		this(new SymbolTable());
+	}
+	
+	/**
+	 * table for names interned in symbols, the table the scanner used
+	 */
+	public IdentificationTable(SymbolTable symbols){
+		this.symbols = symbols;
+		this.visible = new Attribute[Math.max(64, symbols.size())];
+		this.undoLog = new int[64];
+		this.logSize = 0;
+		this.scopeStart = new int[8];
 		currentScope = 0;
 	}
 	
+	public SymbolTable symbols(){
+		return symbols;
+	}
+	
 	public void openScope(){
 		currentScope++;
-		idTable.add(new ScopeLevel(currentScope));
+		if(currentScope == scopeStart.length){
+			scopeStart = java.util.Arrays.copyOf(scopeStart, currentScope * 2);
+		}
+		scopeStart[currentScope] = logSize;
 	}
+	
 	public void closeScope(){
-		for(ScopeLevel s : idTable){
-			if(s.scope == currentScope){
-				idTable.remove(s);
-			}
+		int start = scopeStart[currentScope];
+		while(logSize > start){
+			int symbol = undoLog[--logSize];
+			visible[symbol] = visible[symbol].shadowed;
 		}
+		currentScope--;
+	}
+	
+	/**
+	 * enter decl by the symbol the parser gave its name, or by name if it has none
+	 */
+	public void enter(Declaration decl, Attribute attr) throws IDError{
+		enter(decl.symbol != SymbolTable.NO_SYMBOL ? decl.symbol : symbols.intern(decl.name), attr);
 	}
 	
 	public void enter(String id, Attribute attr) throws IDError{
-		if(currentScope < 3){
-			for(ScopeLevel s : idTable){
-				if(s.scope == currentScope){
-					if(s.checkInScope(attr)){
-						throw new IDError();
-					}
-					else{
-						s.enterToScope(attr);
-					}
-				}
-			}
+		enter(symbols.intern(id), attr);
+	}
+	
+	public void enter(int symbol, Attribute attr) throws IDError{
+		if(symbol >= visible.length){
+			visible = java.util.Arrays.copyOf(visible, Math.max(symbol + 1, visible.length * 2));
 		}
-		else{
-			for(ScopeLevel s : idTable){
-				if(s.scope > 2){
-					if(s.checkInScope(attr)){
-						throw new IDError();
-					}
-					else{
-						s.enterToScope(attr);
-					}
-				}
+		Attribute prev = visible[symbol];
+		if(prev != null){
+			int level = prev.level;
+			if(level == currentScope || (currentScope >= LOCAL_SCOPE && level >= LOCAL_SCOPE)){
+				throw new IDError("Identifier " + symbols.spelling(symbol) + " is already declared in this scope");
 			}
 		}
+		attr.level = currentScope;
+		attr.shadowed = prev;
+		visible[symbol] = attr;
+		if(logSize == undoLog.length){
+			undoLog = java.util.Arrays.copyOf(undoLog, logSize * 2);
+		}
+		undoLog[logSize++] = symbol;
+	}
+	
+	public Attribute retrieve(Identifier id) throws IDError{
+		if(id.symbol == SymbolTable.NO_SYMBOL){
+			return retrieve(id.spelling);
+		}
+		return retrieve(id.symbol);
 	}
 	
 	public Attribute retrieve(String id) throws IDError{
-		for(ScopeLevel s : idTable){
-			for(Attribute a: s.entry){
-				if(a.id.equals(id)) return a;
-			}
+		int symbol = symbols.lookup(id);
+		if(symbol == SymbolTable.NO_SYMBOL){
+			throw new IDError("Could not find Declaration for id: " + id );
 		}
-		throw new IDError("Could not find Declaration for id: " + id );
+		return retrieve(symbol);
+	}
+	
+	public Attribute retrieve(int symbol) throws IDError{
+		Attribute attr = find(symbol);
+		if(attr == null){
+			throw new IDError("Could not find Declaration for id: " + symbols.spelling(symbol) );
+		}
+		return attr;
+	}
+	
+	/**
+	 * @return innermost declaration of id, or null if it is not declared
+	 */
+	public Attribute find(Identifier id){
+		if(id.symbol == SymbolTable.NO_SYMBOL){
+			int symbol = symbols.lookup(id.spelling);
+			return symbol == SymbolTable.NO_SYMBOL ? null : find(symbol);
+		}
+		return find(id.symbol);
+	}
+	
+	public Attribute find(int symbol){
+		return symbol < visible.length ? visible[symbol] : null;
 	}
 	
-	public class IDError extends Error{
+	// thrown for every undeclared or redeclared name, caught by the checker
+	// that reports it, so it records no stack trace
+	public static class IDError extends Error{
 		/**
 		 * 
 		 */
 		private static final long serialVersionUID = 1L;
 		public String message;
 		public IDError(String mes){
+			super(mes, null, false, false);
 			this.message = mes;
 		}
 		
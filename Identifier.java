@@ -9,8 +9,16 @@ import miniJava.SyntacticAnalyzer.Token;
 
 public class Identifier extends Terminal {
   public Declaration decl;
+  public int symbol;	// SymbolTable id of spelling
+
   public Identifier (Token t) {
     super (t);
+    symbol = t.symbol;
+  }
+
+  public Identifier (Token t, int posn) {
+    super (t, posn);
+    symbol = t.symbol;
   }
 
   public <A,R> R visit(Visitor<A,R> v, A o) {
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class IndexedRef extends Reference {
 	
-	public IndexedRef(IdRef idr, Expression expr, SourcePosition posn){
+	public IndexedRef(IdRef idr, Expression expr, int posn){
 		super(posn);
 		this.idRef = idr;
 		this.indexExpr = expr;
@@ -0,0 +1,17 @@
+package miniJava.Interpreter;
+
+/*
+ * An object of a miniJava class, its int and boolean fields in one array
+ * and its array and object fields in the other, at the slots of its Layout.
+ * An int[] is a Java int[], and an array of objects an Object[].
+ */
+final class Instance {
+
+	final int[] ints;
+	final Object[] refs;
+
+	Instance(int ints, int refs) {
+		this.ints = new int[ints];
+		this.refs = new Object[refs];
+	}
+}
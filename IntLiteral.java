@@ -12,6 +12,10 @@ public class IntLiteral extends Terminal {
   public IntLiteral(Token t) {
     super(t);
   }
+
+  public IntLiteral(Token t, int posn) {
+    super(t, posn);
+  }
  
   public <A,R> R visit(Visitor<A,R> v, A o) {
       return v.visitIntLiteral(this, o);
@@ -0,0 +1,105 @@
+package miniJava.Interpreter;
+
+import java.io.PrintStream;
+
+import miniJava.AbstractSyntaxTrees.ArrayType;
+import miniJava.AbstractSyntaxTrees.ClassDecl;
+import miniJava.AbstractSyntaxTrees.ClassType;
+import miniJava.AbstractSyntaxTrees.MethodDecl;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.AbstractSyntaxTrees.Type;
+import miniJava.AbstractSyntaxTrees.TypeKind;
+
+/*
+ * Runs a checked program, from its public static void main(String[] args).
+ *
+ * Each method runs as a tree of nodes that specializes itself as it goes
+ * (see Node and Specializer): the first time a statement or expression runs
+ * it is replaced by a node for exactly its case, so a warmed up tree has no
+ * AST dispatch left, keeps ints unboxed, and reads locals from fixed frame
+ * slots, which lets the JIT compile it into tight code.
+ *
+ * The failures of a running program come out as an ExecutionError.  The
+ * nodes do not check for them but leave them to the JVM, whose exceptions
+ * for a null reference, an index out of bounds and a division by zero are
+ * turned into an ExecutionError when they reach run.
+ */
+public class Interpreter {
+
+	private Package prog;
+	private Specializer specializer;
+
+	/**
+	 * @param prog  a program that has been identified and type checked
+	 * @param out   where System.out.println prints
+	 */
+	public Interpreter(Package prog, PrintStream out) {
+		this.prog = prog;
+		this.specializer = new Specializer(prog, out);
+	}
+
+	/**
+	 * run main, again each time this is called; static fields keep their
+	 * values from one run to the next
+	 * @throws ExecutionError  if the program fails
+	 */
+	public void run() {
+		MethodDecl main = main(prog);
+		if (main == null)
+			throw new ExecutionError("no method public static void main(String[] args)");
+		Function fn = specializer.function(main);
+		Frame frame = fn.frame(null);
+		frame.refs[fn.paramSlots[0]] = new Object[0];
+		try {
+			fn.body.execute(frame);
+		}
+		catch (RuntimeException | StackOverflowError | OutOfMemoryError e) {
+			throw failure(e);
+		}
+	}
+
+	/**
+	 * @param e  what the JVM threw for a running program
+	 * @return the ExecutionError it means
+	 */
+	static ExecutionError failure(Throwable e) {
+		if (e instanceof NullPointerException)
+			return new ExecutionError("null reference");
+		if (e instanceof ArrayIndexOutOfBoundsException)
+			return new ExecutionError("array index out of bounds: " + e.getMessage());
+		if (e instanceof NegativeArraySizeException)
+			return new ExecutionError("negative array size " + e.getMessage());
+		if (e instanceof ArithmeticException)
+			return new ExecutionError("division by zero");
+		if (e instanceof StackOverflowError)
+			return new ExecutionError("stack overflow");
+		if (e instanceof OutOfMemoryError)
+			return new ExecutionError("out of memory");
+		if (e instanceof RuntimeException)
+			throw (RuntimeException) e;
+		throw (Error) e;
+	}
+
+	/**
+	 * @return the first public static void main(String[] args) of prog, or null
+	 */
+	public static MethodDecl main(Package prog) {
+		for (ClassDecl cd : prog.classDeclList) {
+			for (MethodDecl m : cd.methodDeclList) {
+				if (m.name.equals("main") && m.isStatic && !m.isPrivate
+						&& m.type.typeKind == TypeKind.VOID
+						&& m.parameterDeclList.size() == 1
+						&& isStringArray(m.parameterDeclList.get(0).type))
+					return m;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isStringArray(Type t) {
+		if (t.typeKind != TypeKind.ARRAY)
+			return false;
+		Type elt = ((ArrayType) t).eltType;
+		return elt.typeKind == TypeKind.CLASS && ((ClassType) elt).className.spelling.equals("String");
+	}
+}
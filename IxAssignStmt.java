@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class IxAssignStmt extends Statement
 {
-    public IxAssignStmt(IndexedRef ir, Expression e, SourcePosition posn){
+    public IxAssignStmt(IndexedRef ir, Expression e, int posn){
         super(posn);
         ixRef = ir;
         val = e;
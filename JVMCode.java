@@ -0,0 +1,241 @@
+package miniJava.CodeGenerator;
+
+import java.util.Arrays;
+
+import miniJava.Interpreter.ExecutionError;
+
+/*
+ * The code of a JVM method being written.
+ *
+ * Each instruction is appended with how many words it pushes or pops, so
+ * the depth of the operand stack is followed and maxStack known at the
+ * end.  A jump to a Label not placed yet is patched when it is; the depth
+ * at a Label is the depth of the first jump to it, since the code before
+ * a Label placed after a goto or return is never run into it.
+ */
+final class JVMCode {
+
+	static final int ACONST_NULL = 0x01;
+	static final int ICONST_0 = 0x03;
+	static final int BIPUSH = 0x10;
+	static final int SIPUSH = 0x11;
+	static final int LDC_W = 0x13;
+	static final int ILOAD = 0x15;
+	static final int ALOAD = 0x19;
+	static final int ILOAD_0 = 0x1a;
+	static final int ALOAD_0 = 0x2a;
+	static final int IALOAD = 0x2e;
+	static final int AALOAD = 0x32;
+	static final int ISTORE = 0x36;
+	static final int ASTORE = 0x3a;
+	static final int ISTORE_0 = 0x3b;
+	static final int ASTORE_0 = 0x4b;
+	static final int IASTORE = 0x4f;
+	static final int AASTORE = 0x53;
+	static final int POP = 0x57;
+	static final int DUP = 0x59;
+	static final int IADD = 0x60;
+	static final int ISUB = 0x64;
+	static final int IMUL = 0x68;
+	static final int IDIV = 0x6c;
+	static final int INEG = 0x74;
+	static final int IXOR = 0x82;
+	static final int IFEQ = 0x99;
+	static final int IFNE = 0x9a;
+	static final int IF_ICMPEQ = 0x9f;
+	static final int IF_ICMPNE = 0xa0;
+	static final int IF_ICMPLT = 0xa1;
+	static final int IF_ICMPGE = 0xa2;
+	static final int IF_ICMPGT = 0xa3;
+	static final int IF_ICMPLE = 0xa4;
+	static final int IF_ACMPEQ = 0xa5;
+	static final int IF_ACMPNE = 0xa6;
+	static final int GOTO = 0xa7;
+	static final int IRETURN = 0xac;
+	static final int ARETURN = 0xb0;
+	static final int RETURN = 0xb1;
+	static final int GETSTATIC = 0xb2;
+	static final int PUTSTATIC = 0xb3;
+	static final int GETFIELD = 0xb4;
+	static final int PUTFIELD = 0xb5;
+	static final int INVOKEVIRTUAL = 0xb6;
+	static final int INVOKESPECIAL = 0xb7;
+	static final int INVOKESTATIC = 0xb8;
+	static final int NEW = 0xbb;
+	static final int NEWARRAY = 0xbc;
+	static final int ANEWARRAY = 0xbd;
+	static final int ARRAYLENGTH = 0xbe;
+	static final int WIDE = 0xc4;
+
+	static final int T_INT = 10;
+
+	static final class Label {
+		private int position = -1;
+		private int depth = -1;
+		private int[] sites = new int[2];
+		private int count;
+	}
+
+	private byte[] code = new byte[64];
+	private int length;
+	private int depth;
+	private int maxStack;
+	private int maxLocals;
+
+	/**
+	 * @param locals  words of the parameters, with this
+	 */
+	JVMCode(int locals) {
+		maxLocals = locals;
+	}
+
+	/**
+	 * @return a new local variable
+	 */
+	int local() {
+		return maxLocals++;
+	}
+
+	int maxStack() {
+		return maxStack;
+	}
+
+	int maxLocals() {
+		return maxLocals;
+	}
+
+	byte[] bytes() {
+		if (length > 0xffff)
+			throw new ExecutionError("method too large");
+		return Arrays.copyOf(code, length);
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// INSTRUCTIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * @param effect  words the instruction pushes, less those it pops
+	 */
+	void op(int opcode, int effect) {
+		u1(opcode);
+		stack(effect);
+	}
+
+	void op1(int opcode, int operand, int effect) {
+		u1(opcode);
+		u1(operand);
+		stack(effect);
+	}
+
+	void op2(int opcode, int operand, int effect) {
+		u1(opcode);
+		u2(operand);
+		stack(effect);
+	}
+
+	/**
+	 * @param cf  whose constant pool has n, if it is too large for sipush
+	 */
+	void iconst(int n, ClassFile cf) {
+		if (n >= -1 && n <= 5)
+			op(ICONST_0 + n, 1);
+		else if (n >= Byte.MIN_VALUE && n <= Byte.MAX_VALUE)
+			op1(BIPUSH, n & 0xff, 1);
+		else if (n >= Short.MIN_VALUE && n <= Short.MAX_VALUE)
+			op2(SIPUSH, n & 0xffff, 1);
+		else
+			op2(LDC_W, cf.integer(n), 1);
+	}
+
+	void load(int local, boolean ref) {
+		if (ref)
+			variable(ALOAD, ALOAD_0, local, 1);
+		else
+			variable(ILOAD, ILOAD_0, local, 1);
+	}
+
+	void store(int local, boolean ref) {
+		if (ref)
+			variable(ASTORE, ASTORE_0, local, -1);
+		else
+			variable(ISTORE, ISTORE_0, local, -1);
+	}
+
+	// with the short form for locals 0 to 3
+	private void variable(int opcode, int opcode0, int local, int effect) {
+		if (local <= 3)
+			op(opcode0 + local, effect);
+		else if (local <= 0xff)
+			op1(opcode, local, effect);
+		else {
+			u1(WIDE);
+			op2(opcode, local, effect);
+		}
+	}
+
+	/**
+	 * a jump, its target placed now or later
+	 */
+	void jump(int opcode, Label target, int effect) {
+		int at = length;
+		u1(opcode);
+		stack(effect);
+		if (target.depth < 0)
+			target.depth = depth;
+		if (target.position >= 0) {
+			u2(offset(target.position - at));
+			return;
+		}
+		if (target.count == target.sites.length)
+			target.sites = Arrays.copyOf(target.sites, 2 * target.count);
+		target.sites[target.count++] = at;
+		u2(0);
+	}
+
+	void place(Label label) {
+		label.position = length;
+		if (label.depth >= 0)
+			depth = label.depth;
+		else
+			label.depth = depth;
+		for (int i = 0; i < label.count; i++) {
+			int at = label.sites[i];
+			int offset = offset(length - at);
+			code[at + 1] = (byte) (offset >> 8);
+			code[at + 2] = (byte) offset;
+		}
+	}
+
+	private static int offset(int offset) {
+		if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+			throw new ExecutionError("method too large");
+		return offset & 0xffff;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// BYTES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	private void stack(int effect) {
+		depth += effect;
+		maxStack = Math.max(maxStack, depth);
+	}
+
+	private void u1(int b) {
+		if (length == code.length)
+			code = Arrays.copyOf(code, 2 * length);
+		code[length++] = (byte) b;
+	}
+
+	private void u2(int s) {
+		u1(s >> 8);
+		u1(s);
+	}
+}
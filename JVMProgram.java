@@ -0,0 +1,128 @@
+package miniJava.CodeGenerator;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+
+import miniJava.AbstractSyntaxTrees.ClassDecl;
+import miniJava.AbstractSyntaxTrees.MethodDecl;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.Interpreter.ExecutionError;
+import miniJava.Interpreter.Interpreter;
+
+/*
+ * A program compiled to JVM classes by ClassGenerator and loaded into
+ * this JVM, so its methods are run, and compiled by the JIT, as any Java
+ * method is.
+ *
+ * The classes are defined from memory by a class loader of their own,
+ * which looks for their names in the program before asking its parent;
+ * it and the classes go once the JVMProgram does.  They are ordinary
+ * rather than hidden classes, since hidden classes cannot name each other.
+ *
+ * The failures of a running program are the JVM's exceptions, turned into
+ * an ExecutionError as in the Interpreter.
+ */
+public class JVMProgram {
+
+	private Class<?> system;
+	private MethodHandle main;
+
+	/**
+	 * @param prog  a checked program, with the predefined classes
+	 * @return prog compiled and loaded
+	 * @throws ExecutionError  if prog has no main method or cannot be compiled
+	 */
+	public static JVMProgram load(Package prog) {
+		MethodDecl main = Interpreter.main(prog);
+		if (main == null)
+			throw new ExecutionError("no method public static void main(String[] args)");
+		String mainClass = null;
+		for (ClassDecl cd : prog.classDeclList) {
+			for (MethodDecl md : cd.methodDeclList) {
+				if (md == main)
+					mainClass = ClassGenerator.internalName(cd.name);
+			}
+		}
+		return new JVMProgram(new Loader(ClassGenerator.generate(prog)), mainClass);
+	}
+
+	private JVMProgram(Loader loader, String mainClass) {
+		try {
+			system = loader.loadClass(ClassGenerator.SYSTEM);
+			this.main = MethodHandles.publicLookup().findStatic(loader.loadClass(mainClass), "main",
+					MethodType.methodType(void.class, String[].class));
+		}
+		catch (ReflectiveOperationException e) {
+			throw new ExecutionError("cannot load the program: " + e);
+		}
+	}
+
+	/**
+	 * run main, again each time this is called; static fields keep their
+	 * values from one run to the next
+	 * @param out  where System.out.println prints
+	 * @throws ExecutionError  if the program fails
+	 */
+	public void run(PrintStream out) {
+		try {
+			system.getField("out").set(null, out);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new ExecutionError("cannot load the program: " + e);
+		}
+		try {
+			main.invokeExact(new String[0]);
+		}
+		catch (NullPointerException e) {
+			throw new ExecutionError("null reference");
+		}
+		catch (ArrayIndexOutOfBoundsException e) {
+			throw new ExecutionError("array index out of bounds: " + e.getMessage());
+		}
+		catch (NegativeArraySizeException e) {
+			throw new ExecutionError("negative array size " + e.getMessage());
+		}
+		catch (ArithmeticException e) {
+			throw new ExecutionError("division by zero");
+		}
+		catch (StackOverflowError e) {
+			throw new ExecutionError("stack overflow");
+		}
+		catch (OutOfMemoryError e) {
+			throw new ExecutionError("out of memory");
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable e) {
+			throw new ExecutionError(e.toString());
+		}
+	}
+
+	private static final class Loader extends ClassLoader {
+		private final HashMap<String, byte[]> classes;
+
+		Loader(HashMap<String, byte[]> classes) {
+			super(JVMProgram.class.getClassLoader());
+			this.classes = classes;
+		}
+
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> c = findLoadedClass(name);
+				if (c == null) {
+					byte[] bytes = classes.get(name);
+					if (bytes == null)
+						return super.loadClass(name, resolve);
+					c = defineClass(name, bytes, 0, bytes.length);
+				}
+				if (resolve)
+					resolveClass(c);
+				return c;
+			}
+		}
+	}
+}
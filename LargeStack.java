@@ -0,0 +1,55 @@
+package miniJava.Interpreter;
+
+/*
+ * Runs a program on a thread of its own with a large stack.
+ *
+ * Every engine that runs in this JVM recurses as deeply as the program it
+ * runs does, and more than one JVM frame a call in the tree and closure
+ * engines.  The default stack of the main thread ends a program's
+ * recursion a few thousand calls deep; STACK_SIZE takes each engine to
+ * a few hundred thousand calls.  The stack is
+ * only reserved, and committed as a program goes deeper.
+ */
+public final class LargeStack {
+
+	public static final long STACK_SIZE = 1L << 26;
+
+	private LargeStack() {
+	}
+
+	/**
+	 * runs task on a new thread with a stack of STACK_SIZE bytes, and
+	 * waits for it to end
+	 * @throws RuntimeException, Error  whatever task throws
+	 */
+	public static void run(final Runnable task) {
+		final Throwable[] thrown = new Throwable[1];
+		Thread thread = new Thread(null, new Runnable() {
+			public void run() {
+				try {
+					task.run();
+				}
+				catch (Throwable e) {
+					thrown[0] = e;
+				}
+			}
+		}, "miniJava", STACK_SIZE);
+		thread.start();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				thread.join();
+				break;
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		if (thrown[0] instanceof RuntimeException)
+			throw (RuntimeException) thrown[0];
+		if (thrown[0] != null)
+			throw (Error) thrown[0];
+	}
+}
@@ -0,0 +1,44 @@
+package miniJava.Interpreter;
+
+import java.util.IdentityHashMap;
+
+import miniJava.AbstractSyntaxTrees.ClassDecl;
+import miniJava.AbstractSyntaxTrees.FieldDecl;
+import miniJava.AbstractSyntaxTrees.Type;
+import miniJava.AbstractSyntaxTrees.TypeKind;
+
+/*
+ * Where the fields of a class live: a slot in the int or reference array of
+ * each Instance for an instance field, and in the class's own static arrays
+ * for a static field.
+ */
+final class Layout {
+
+	final int ints;		// instance slots
+	final int refs;
+	final int[] staticInts;
+	final Object[] staticRefs;
+
+	Layout(ClassDecl cd, IdentityHashMap<FieldDecl, Integer> slots) {
+		int ints = 0, refs = 0, staticInts = 0, staticRefs = 0;
+		for (FieldDecl f : cd.fieldDeclList) {
+			int slot;
+			if (f.isStatic)
+				slot = isRef(f.type) ? staticRefs++ : staticInts++;
+			else
+				slot = isRef(f.type) ? refs++ : ints++;
+			slots.put(f, slot);
+		}
+		this.ints = ints;
+		this.refs = refs;
+		this.staticInts = new int[staticInts];
+		this.staticRefs = new Object[staticRefs];
+	}
+
+	/**
+	 * @return whether values of type t are arrays or objects
+	 */
+	static boolean isRef(Type t) {
+		return t.typeKind == TypeKind.CLASS || t.typeKind == TypeKind.ARRAY;
+	}
+}
@@ -0,0 +1,78 @@
+package miniJava.AbstractSyntaxTrees;
+
+import java.util.Iterator;
+
+/*
+ * The statements of a method body that has not been parsed yet.
+ *
+ * The parser passes over the body by matching braces and keeps only the
+ * token index of its opening brace.  The first call of any method of the
+ * list parses the body, reporting the syntax errors in it then, and after
+ * that the list is an ordinary StatementList.  A body with a syntax error
+ * stays empty.  Bodies may be parsed from any thread, each exactly once.
+ */
+public class LazyStatementList extends StatementList {
+
+	/**
+	 * parses a body on demand
+	 */
+	public interface BodyParser {
+		/**
+		 * @param start  token index of the opening brace of the body
+		 * @return its statements, or null after reporting a syntax error
+		 */
+		StatementList parseBody(int start);
+	}
+
+	private BodyParser parser;
+	private int start;
+	private volatile boolean parsed;
+
+	public LazyStatementList(BodyParser parser, int start) {
+		this.parser = parser;
+		this.start = start;
+	}
+
+	/**
+	 * @return whether the body has been parsed
+	 */
+	public boolean isParsed() {
+		return parsed;
+	}
+
+	private void parse() {
+		if (parsed)
+			return;
+		synchronized (this) {
+			if (parsed)
+				return;
+			StatementList body = parser.parseBody(start);
+			if (body != null) {
+				for (Statement s: body)
+					super.add(s);
+			}
+			parser = null;
+			parsed = true;
+		}
+	}
+
+	public void add(Statement s) {
+		parse();
+		super.add(s);
+	}
+
+	public Statement get(int i) {
+		parse();
+		return super.get(i);
+	}
+
+	public int size() {
+		parse();
+		return super.size();
+	}
+
+	public Iterator<Statement> iterator() {
+		parse();
+		return super.iterator();
+	}
+}
@@ -0,0 +1,24 @@
+package miniJava.SyntacticAnalyzer;
+
+/**
+ * A token source for the Parser
+ */
+public interface Lexer {
+
+	/**
+	 * skip whitespace and comments and scan the next token
+	 * @return token, EOT at end of input
+	 */
+	public Token scan();
+	
+	/**
+	 * @return byte offset in the source of the token last returned by scan(),
+	 * or SourcePosition.NONE if it is not known
+	 */
+	public int position();
+	
+	/**
+	 * @return the table identifiers are interned in
+	 */
+	public SymbolTable symbols();
+}
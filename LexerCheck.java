@@ -0,0 +1,168 @@
+package miniJava;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import miniJava.SyntacticAnalyzer.BufferedCharSource;
+import miniJava.SyntacticAnalyzer.CharSource;
+import miniJava.SyntacticAnalyzer.DFAScanner;
+import miniJava.SyntacticAnalyzer.Lexer;
+import miniJava.SyntacticAnalyzer.MappedCharSource;
+import miniJava.SyntacticAnalyzer.Scanner;
+import miniJava.SyntacticAnalyzer.Token;
+import miniJava.SyntacticAnalyzer.TokenBuffer;
+import miniJava.SyntacticAnalyzer.TokenKind;
+
+/* Differential tester for the three miniJava lexers
+ * Runs Scanner, DFAScanner and TokenBuffer over the same input and checks that
+ * they produce the same tokens, kind, spelling and position, token for token,
+ * up to EOT or the first ERROR, that all or none of them report a scan error,
+ * and that a token of a kind with a fixed spelling, a keyword or operator,
+ * is spelled that way in the input.
+ * Checks the built in samples below, plus any files (or directories of test files)
+ * named on the command line, e.g. the "tests/pa2_tests" folder used by CheckPoint2
+ */
+public class LexerCheck {
+
+	private static final String[] SAMPLES = {
+		"class A { }",
+		"class Main { public static void main(String[] args) { System.out.println(1); } }",
+		"class B { private static int x; public boolean b; int[] a; B[] bs; void f() {} }",
+		"class C { int f(int a, boolean b, C c, int[] d) { return a; } void g() { return; } }",
+		"x = a + b - c * d / e; y = !a && b || c; z = -x; w = - -x;",
+		"a < b; a > b; a <= b; a >= b; a == b; a != b; a = b;",
+		"if (a) { b = 1; } else if (c) d = 2; else { } while (i < 10) i = i + 1;",
+		"this.x = new C(); c = new int[10]; d = new C[n]; e = a[i]; this.f(1, 2); a.b.c(x);",
+		"x = 0123 + 45 + x1_y2 + true + false + null;",
+		"// line comment\nint x = 1; // trailing\n/* block\n comment */ int y = 2;",
+		"/* a * comment ** with stars */ x = y;/**/z = w;",
+		"a\tb\r\nc\n\n\t d",
+		"x = a&&b||c;  x=1;x=-1;",
+		"int x = 1 & 2;",
+		"int x = 1 # 2;",
+		"_x = 1;",
+		"x -- y",
+		"x = 1; /* unterminated",
+		"x = 1;\n/* unterminated\n comment",
+		"/* closed */ x /* closed ** */ y /** unterminated *",
+		"x = 1; // comment to end of input",
+		"int of = 3; xf = df + of; if (i) in = is; f = i;",
+	};
+
+	public static void main(String[] args) throws IOException {
+		int failures = 0;
+		int checked = 0;
+		for (String sample : SAMPLES) {
+			checked++;
+			byte[] text = sample.getBytes(StandardCharsets.UTF_8);
+			if (!same(sample, text, source(text), source(text)))
+				failures++;
+		}
+
+		List<File> files = new ArrayList<File>();
+		for (String arg : args) {
+			File f = new File(arg);
+			if (f.isDirectory()) {
+				for (File x : f.listFiles()) {
+					if (!x.getName().endsWith("out") && !x.getName().startsWith("."))
+						files.add(x);
+				}
+			}
+			else files.add(f);
+		}
+		for (File f : files) {
+			checked++;
+			byte[] text = Files.readAllBytes(f.toPath());
+			if (!same(f.getName(), text, new MappedCharSource(f.toPath()), new MappedCharSource(f.toPath())))
+				failures++;
+		}
+
+		System.out.println(checked + " inputs checked, " + failures + " failures in all.");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	private static CharSource source(byte[] text) {
+		return new BufferedCharSource(new ByteArrayInputStream(text));
+	}
+
+	/**
+	 * scan one input with all three lexers and compare the tokens
+	 * @param text  the input both sources read, and the TokenBuffer is lexed from
+	 * @return true if all produce the same tokens, and the same scan errors
+	 */
+	private static boolean same(String name, byte[] text, CharSource s1, CharSource s2) {
+		ErrorReporter reporter = new ErrorReporter();
+		ErrorReporter e1 = reporter.fork();
+		ErrorReporter e2 = reporter.fork();
+		ErrorReporter e3 = reporter.fork();
+		Lexer scanner = new Scanner(s1, e1);
+		Lexer dfa = new DFAScanner(s2, e2);
+		TokenBuffer tokens = TokenBuffer.lex(text, e3);
+		boolean same = compare(name, text, scanner, dfa, tokens);
+		if (same && (e2.hasErrors() != e1.hasErrors() || e3.hasErrors() != e1.hasErrors())) {
+			System.err.println(name + ": Scanner " + (e1.hasErrors() ? "reported" : "did not report")
+					+ " a scan error, DFAScanner " + (e2.hasErrors() ? "did" : "did not")
+					+ ", TokenBuffer " + (e3.hasErrors() ? "did" : "did not"));
+			same = false;
+		}
+		reporter.merge(e1);
+		return same;
+	}
+
+	private static boolean compare(String name, byte[] text, Lexer scanner, Lexer dfa, TokenBuffer tokens) {
+		int n = 0;
+		while (true) {
+			Token t1 = scanner.scan();
+			Token t2 = dfa.scan();
+			int posn = scanner.position();
+			if (!agree(name, n + 1, t1, posn, "DFAScanner", t2.kind, t2.spelling, dfa.position())
+					|| !agree(name, n + 1, t1, posn, "TokenBuffer", tokens.kind(n), tokens.spelling(n), tokens.start(n)))
+				return false;
+			n++;
+			Token fixed = Token.fixed(t1.kind);
+			if (t1.kind != TokenKind.EOT && fixed != null && !spells(text, posn, fixed.spelling)) {
+				System.err.println(name + ": token " + n + " was scanned as " + t1.kind);
+				return false;
+			}
+			if (t1.kind == TokenKind.EOT || t1.kind == TokenKind.ERROR)
+				return true;
+		}
+	}
+
+	/**
+	 * @return whether another lexer's token n matches token t of Scanner, at posn
+	 */
+	private static boolean agree(String name, int n, Token t, int posn, String lexer, TokenKind kind, String spelling, int start) {
+		if (kind == t.kind && spelling.equals(t.spelling) && start == posn)
+			return true;
+		System.err.println(name + ": token " + n + " Scanner gave " + describe(t.kind, t.spelling, posn)
+				+ " but " + lexer + " gave " + describe(kind, spelling, start));
+		return false;
+	}
+
+	private static String describe(TokenKind kind, String spelling, int posn) {
+		return kind + " (\"" + spelling + "\") at " + posn;
+	}
+
+	/**
+	 * @return whether text at posn is the whole word spelling, not the start of a longer one
+	 */
+	private static boolean spells(byte[] text, int posn, String spelling) {
+		int end = posn + spelling.length();
+		if (posn < 0 || end > text.length)
+			return false;
+		for (int i = 0; i < spelling.length(); i++)
+			if (text[posn + i] != spelling.charAt(i))
+				return false;
+		// a keyword does not run on into a longer identifier
+		if (Character.isLetter(spelling.charAt(0)) && end < text.length
+				&& (Character.isLetterOrDigit(text[end]) || text[end] == '_'))
+			return false;
+		return true;
+	}
+}
@@ -5,12 +5,10 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class LiteralExpr extends Expression
 {
-    public LiteralExpr(Terminal t, SourcePosition posn){
-        super(t.posn);
+    public LiteralExpr(Terminal t, int posn){
+        super(posn);
         lit = t;
     }
         
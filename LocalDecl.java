@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public abstract class LocalDecl extends Declaration {
 	
-	public LocalDecl(String name, Type t, SourcePosition posn){
+	public LocalDecl(String name, Type t, int posn){
 		super(name,t,posn);
 	}
 
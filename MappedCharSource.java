@@ -0,0 +1,129 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Character source over a memory-mapped file.  The file is mapped in
+ * windows of at most MAX_WINDOW bytes, so the Scanner reads straight out
+ * of the page cache without any copying or system calls per block.
+ */
+public class MappedCharSource extends Utf8CharSource {
+
+	static final long MAX_WINDOW = 1L << 30;
+	
+	private FileChannel channel;
+	private long size;
+	private long windowStart;
+	private MappedByteBuffer window;
+	private int pos;
+	private int limit;
+	
+	public MappedCharSource(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.size = channel.size();
+		this.windowStart = 0;
+		this.pos = 0;
+		this.limit = 0;
+		map(0);
+	}
+	
+	public int read() throws IOException {
+		// ASCII fast path
+		if (pos < limit) {
+			byte b = window.get(pos);
+			if (b >= 0) {
+				pos++;
+				return b;
+			}
+		}
+		return decode();
+	}
+	
+	protected int nextByte() throws IOException {
+		if (pos >= limit && !nextWindow())
+			return -1;
+		return window.get(pos++) & 0xFF;
+	}
+	
+	// the byte just read is always still in the window
+	protected void unreadByte() {
+		pos--;
+	}
+	
+	/**
+	 * map the window following the current one
+	 * @return false at end of file
+	 */
+	private boolean nextWindow() throws IOException {
+		if (windowStart + limit >= size)
+			return false;
+		map(windowStart + limit);
+		return true;
+	}
+	
+	public int skipWhitespace() throws IOException {
+		while (true) {
+			pos = BulkSkip.skipWhitespace(window, pos, limit);
+			if (pos < limit)
+				return read();
+			if (!nextWindow())
+				return -1;
+		}
+	}
+	
+	public int skipLineComment() throws IOException {
+		while (true) {
+			pos = BulkSkip.skipToEndOfLine(window, pos, limit);
+			if (pos < limit)
+				return window.get(pos++);
+			if (!nextWindow())
+				return -1;
+		}
+	}
+	
+	public boolean skipBlockComment() throws IOException {
+		while (true) {
+			pos = BulkSkip.indexOf(window, pos, limit, (byte) '*');
+			if (pos >= limit) {
+				if (!nextWindow())
+					return false;
+				continue;
+			}
+			pos++;
+			int b;
+			do {
+				b = nextByte();
+			} while (b == '*');
+			if (b == '/')
+				return true;
+			if (b < 0)
+				return false;
+		}
+	}
+	
+	/**
+	 * map the window of the file starting at offset start
+	 */
+	private void map(long start) throws IOException {
+		long length = Math.min(MAX_WINDOW, size - start);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+		window.order(ByteOrder.LITTLE_ENDIAN);
+		windowStart = start;
+		pos = 0;
+		limit = (int) length;
+	}
+	
+	public long offset() {
+		return windowStart + pos;
+	}
+	
+	public void close() throws IOException {
+		window = null;
+		channel.close();
+	}
+}
@@ -5,18 +5,17 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 abstract public class MemberDecl extends Declaration {
 
-    public MemberDecl(boolean isPrivate, boolean isStatic, Type mt, String name, SourcePosition posn) {
+    public MemberDecl(boolean isPrivate, boolean isStatic, Type mt, String name, int posn) {
         super(name, mt, posn);
         this.isPrivate = isPrivate;
         this.isStatic = isStatic;
     }
     
-    public MemberDecl(MemberDecl md, SourcePosition posn){
+    public MemberDecl(MemberDecl md, int posn){
     	super(md.name, md.type, posn);
+    	this.symbol = md.symbol;
     	this.isPrivate = md.isPrivate;
     	this.isStatic = md.isStatic;
     }
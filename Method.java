@@ -0,0 +1,36 @@
+package miniJava.CodeGenerator;
+
+/*
+ * The code of one method and what the VM needs to call it.
+ *
+ * A frame is laid out from the frame base LB: this, for an instance method,
+ * and the arguments just below LB, the caller's LB, method and return
+ * address at LB, LB + 1 and LB + 2, then the local variables, then the
+ * operand stack.
+ */
+final class Method {
+
+	static final int LINK = 3;	// words of the frame at LB before the locals
+
+	final String name;
+	final boolean instance;
+	final boolean value;		// returns a value
+	final int args;			// words of arguments, with this
+	int locals;
+	int maxStack;			// deepest the operand stack gets
+	int[] code;
+
+	Method(String name, boolean instance, boolean value, int args) {
+		this.name = name;
+		this.instance = instance;
+		this.value = value;
+		this.args = args;
+	}
+
+	/**
+	 * @return words of memory a call of this method may use above the arguments
+	 */
+	int frameSize() {
+		return LINK + locals + maxStack;
+	}
+}
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class MethodDecl extends MemberDecl {
 	
-	public MethodDecl(MemberDecl md, ParameterDeclList pl, StatementList sl, SourcePosition posn){
+	public MethodDecl(MemberDecl md, ParameterDeclList pl, StatementList sl, int posn){
     super(md,posn);
     parameterDeclList = pl;
     statementList = sl;
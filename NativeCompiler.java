@@ -0,0 +1,68 @@
+package miniJava.CodeGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import miniJava.AbstractSyntaxTrees.Package;
+
+/*
+ * Compiles a checked program ahead of time into a native executable: the
+ * program is translated to C by CGenerator, and the C compiled with full
+ * optimization by the system's C compiler, cc, or the one the environment
+ * variable CC names.
+ *
+ * The executable prints what the program prints, and on a failure the
+ * same "Run-time error" line as the Compiler run with -run, exiting with 1.
+ * It allocates without ever freeing.  The program runs on a thread whose
+ * stack is MJ_STACK_SIZE bytes, 256 MB unless defined otherwise when
+ * compiling the C, and a chain of calls that would run past the end of it
+ * is a stack overflow; that is millions of calls deep, well past the
+ * engines that run in the JVM.
+ */
+public class NativeCompiler {
+
+	private NativeCompiler() {
+	}
+
+	/**
+	 * @param prog  a checked program, with the predefined classes
+	 * @return the C program prog is translated to
+	 * @throws miniJava.Interpreter.ExecutionError  if prog has no main method
+	 */
+	public static String source(Package prog) {
+		return CGenerator.generate(prog);
+	}
+
+	/**
+	 * writes the C program to executable.c and compiles it to executable
+	 * @param prog  a checked program, with the predefined classes
+	 * @throws IOException  if the C compiler cannot be run or fails, having
+	 *                      printed why to the standard error
+	 * @throws miniJava.Interpreter.ExecutionError  if prog has no main method
+	 */
+	public static void compile(Package prog, File executable) throws IOException {
+		File c = new File(executable.getPath() + ".c");
+		Files.write(c.toPath(), source(prog).getBytes(StandardCharsets.UTF_8));
+		String cc = System.getenv("CC");
+		if (cc == null || cc.isEmpty())
+			cc = "cc";
+		Process p = new ProcessBuilder(Arrays.asList(cc, "-std=c99", "-O2", "-pthread", "-o", executable.getPath(), c.getPath()))
+				.redirectOutput(ProcessBuilder.Redirect.INHERIT)
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+		int status;
+		try {
+			status = p.waitFor();
+		}
+		catch (InterruptedException e) {
+			p.destroy();
+			Thread.currentThread().interrupt();
+			throw new IOException(cc + " was interrupted");
+		}
+		if (status != 0)
+			throw new IOException(cc + " exited with status " + status);
+	}
+}
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class NewArrayExpr extends NewExpr
 {
-    public NewArrayExpr(Type et, Expression e, SourcePosition posn){
+    public NewArrayExpr(Type et, Expression e, int posn){
         super(posn);
         eltType = et;
         sizeExpr = e;
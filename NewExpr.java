@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public abstract class NewExpr extends Expression {
 	
-	public NewExpr(SourcePosition posn) {
+	public NewExpr(int posn) {
 	    super (posn);
 	  }
 }
@@ -0,0 +1,64 @@
+package miniJava.Interpreter;
+
+/*
+ * A node of an executable tree.
+ *
+ * The tree for a method starts out as placeholders, one for each statement
+ * of its body.  The first time a placeholder runs it builds the node for
+ * exactly its case of its AST node, an int addition, a read of frame slot 3,
+ * a call of one method, with placeholders for its own children, and puts
+ * it in its own place in its parent.  So only the code a program runs is
+ * ever translated, and once it has run every node does one thing, with no
+ * dispatch on the AST, on types or on declarations left.
+ */
+abstract class Node {
+
+	Node parent;
+
+	/**
+	 * make this node the parent of child
+	 * @return child
+	 */
+	final <T extends Node> T adopt(T child) {
+		if (child != null)
+			child.parent = this;
+		return child;
+	}
+
+	final <T extends Node> T[] adopt(T[] children) {
+		for (T child : children)
+			adopt(child);
+		return children;
+	}
+
+	/**
+	 * put replacement in the place of this node in its parent
+	 * @return replacement
+	 */
+	final <T extends Node> T replace(T replacement) {
+		replacement.parent = parent;
+		parent.replaceChild(this, replacement);
+		return replacement;
+	}
+
+	/**
+	 * replace child old by replacement, whose parent is already this node
+	 */
+	void replaceChild(Node old, Node replacement) {
+		throw new IllegalStateException(getClass().getSimpleName() + " has no child to replace");
+	}
+
+	/**
+	 * replace old in children by replacement
+	 * @return whether old was one of children
+	 */
+	static boolean replaceIn(Node[] children, Node old, Node replacement) {
+		for (int i = 0; i < children.length; i++) {
+			if (children[i] == old) {
+				children[i] = replacement;
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,118 @@
+package miniJava.SyntacticAnalyzer;
+
+import miniJava.AbstractSyntaxTrees.TypeKind;
+
+/*
+ * What Parser makes of the constructs it recognizes.
+ *
+ * Parser holds the grammar, and calls a NodeBuilder for each node once its
+ * children are made, so that one grammar builds any representation of the
+ * tree: ASTBuilder the AST, FlatBuilder a FlatAST.  Each syntactic
+ * category is a type of the builder's choosing, so a node the grammar
+ * passes where another kind belongs does not compile:
+ *
+ *   P  the program         CL  its list of classes      C  a class
+ *   M  the members of a class, which fields and methods are added to
+ *   PL a parameter list    T   a type
+ *   SL a statement list    S   a statement
+ *   EL an argument list    E   an expression            R  a reference
+ *   N  a name, operator or literal, the token kept with token() while it
+ *      is the current token
+ */
+interface NodeBuilder<P, CL, C, M, PL, T, SL, S, EL, E, R, N> {
+
+	// the current token of parser, kept for a node made once it is passed
+	N token(Parser parser);
+
+	P program(CL classes, int posn);
+
+	CL classList();
+
+	void addClass(CL classes, C cd);
+
+	C classDecl(N name, M members, int posn);
+
+	M memberList();
+
+	void field(M members, boolean isPrivate, boolean isStatic, T type, N name, int posn);
+
+	void method(M members, boolean isPrivate, boolean isStatic, T type, N name, PL parameters, SL body, int posn);
+
+	PL parameterList();
+
+	void parameter(PL parameters, T type, N name, int posn);
+
+	SL statementList();
+
+	void addStatement(SL statements, S s);
+
+	/**
+	 * the body whose opening brace is token start, to be parsed by parser
+	 * when it is first used
+	 */
+	SL lazyBody(Parser parser, int start);
+
+	T baseType(TypeKind kind, int posn);
+
+	T classType(N name, int posn);
+
+	T arrayType(T eltType, int posn);
+
+	S block(SL statements, int posn);
+
+	S varDecl(T type, N name, E init, int posn);
+
+	S assign(R ref, E val, int posn);
+
+	// array[index] = val
+	S ixAssign(N array, E index, E val, int posn);
+
+	S callStmt(R ref, EL arguments, int posn);
+
+	/**
+	 * @param expr  null for a return without a value
+	 */
+	S returnStmt(E expr, int posn);
+
+	/**
+	 * @param elseStmt  null if there is no else
+	 */
+	S ifStmt(E cond, S thenStmt, S elseStmt, int posn);
+
+	S whileStmt(E cond, S body, int posn);
+
+	EL argumentList();
+
+	void addArgument(EL arguments, E e);
+
+	E unary(N operator, E operand, int posn);
+
+	E binary(N operator, E left, E right, int posn);
+
+	E refExpr(R ref, int posn);
+
+	E callExpr(R ref, EL arguments, int posn);
+
+	// a NUM, TRUE or FALSE token
+	E literal(N token, int posn);
+
+	/**
+	 * @param typePosn  where the class name is
+	 */
+	E newObject(N className, int typePosn, int posn);
+
+	E newArray(T eltType, E size, int posn);
+
+	R thisRef(int posn);
+
+	R idRef(N name, int posn);
+
+	// array[index]
+	R indexedRef(N array, E index, int posn);
+
+	/**
+	 * @param namePosn  where the member name is
+	 * @param posn      where the whole reference starts
+	 */
+	R qualifiedRef(R ref, N name, int namePosn, int posn);
+}
@@ -13,6 +13,10 @@ public class Operator extends Terminal {
     super (t);
   }
 
+  public Operator (Token t, int posn) {
+    super (t, posn);
+  }
+
   public <A,R> R visit(Visitor<A,R> v, A o) {
       return v.visitOperator(this, o);
   }
@@ -0,0 +1,73 @@
+package miniJava;
+
+import java.nio.charset.StandardCharsets;
+
+import miniJava.AbstractSyntaxTrees.ClassDecl;
+import miniJava.AbstractSyntaxTrees.MethodDecl;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.SyntacticAnalyzer.Parser;
+import miniJava.SyntacticAnalyzer.SymbolTable;
+import miniJava.SyntacticAnalyzer.TokenBuffer;
+
+/* Benchmark for lazy method bodies
+ * Generates a program of about N lines, lexes it once, and times a pass that
+ * only needs signatures (indexing every member and counting parameters)
+ * after a full parse and after a lazy parse, and the lazy parse again with
+ * every body then forced, which is what laziness costs when all are used.
+ * Usage: OutlineBench [lines]
+ */
+public class OutlineBench {
+
+	private static final int REPS = 10;
+
+	public static void main(String[] args) {
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		byte[] source = IdentificationAllocBench.program(lines).getBytes(StandardCharsets.US_ASCII);
+		ErrorReporter reporter = new ErrorReporter();
+		TokenBuffer tokens = TokenBuffer.lex(source, reporter, new SymbolTable());
+
+		long full = Long.MAX_VALUE;
+		long lazy = Long.MAX_VALUE;
+		long forced = Long.MAX_VALUE;
+		int signatures = 0;
+		for (int r = 0; r < REPS; r++) {
+			long start = System.nanoTime();
+			signatures = outline(new Parser(tokens, reporter).parse());
+			full = Math.min(full, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			outline(new Parser(tokens, reporter).parseLazily());
+			lazy = Math.min(lazy, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			Package ast = new Parser(tokens, reporter).parseLazily();
+			outline(ast);
+			for (ClassDecl cd : ast.classDeclList)
+				for (MethodDecl m : cd.methodDeclList)
+					m.statementList.size();
+			forced = Math.min(forced, System.nanoTime() - start);
+		}
+		if (reporter.hasErrors())
+			System.out.println("errors in generated program");
+
+		System.out.printf("%d tokens, %d signatures%n", tokens.size(), signatures);
+		System.out.printf("full parse + outline        %8.2f ms%n", full / 1e6);
+		System.out.printf("lazy parse + outline        %8.2f ms%n", lazy / 1e6);
+		System.out.printf("lazy parse, all bodies used %8.2f ms%n", forced / 1e6);
+	}
+
+	/**
+	 * @return number of members and parameters, with every member indexed
+	 */
+	private static int outline(Package ast) {
+		int n = 0;
+		for (ClassDecl cd : ast.classDeclList) {
+			n += cd.fieldDeclList.size();
+			for (MethodDecl m : cd.methodDeclList) {
+				cd.member(m.name);
+				n += 1 + m.parameterDeclList.size();
+			}
+		}
+		return n;
+	}
+}
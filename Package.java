@@ -5,11 +5,11 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
+import java.util.HashMap;
 
 public class Package extends AST {
 
-  public Package(ClassDeclList cdl, SourcePosition posn) {
+  public Package(ClassDeclList cdl, int posn) {
     super(posn);
     classDeclList = cdl;
   }
@@ -18,5 +18,24 @@ public class Package extends AST {
         return v.visitPackage(this, o);
     }
 
+    /**
+     * class declared as name, found through an index built on first use,
+     * after which the class list must not change
+     * @return the first class of that name, or null
+     */
+    public ClassDecl classDecl(String name) {
+        HashMap<String, ClassDecl> index = classes;
+        if (index == null) {
+            index = new HashMap<String, ClassDecl>(classDeclList.size() * 2);
+            for (ClassDecl c: classDeclList)
+                index.putIfAbsent(c.name, c);
+            classes = index;
+        }
+        return index.get(name);
+    }
+
     public ClassDeclList classDeclList;
+
+    // never changed once published, so threads that race to build it agree
+    private volatile HashMap<String, ClassDecl> classes;
 }
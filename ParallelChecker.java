@@ -0,0 +1,155 @@
+package miniJava.AbstractSyntaxTrees;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import miniJava.ErrorReporter;
+import miniJava.SyntacticAnalyzer.SymbolTable;
+
+/*
+ * Identifies and type checks the method bodies of a program in parallel.
+ *
+ * Each pass has two phases.  The declarations are done first, on one
+ * thread: the class names, then for each class its member names and field
+ * types.  After that the class and member indexes of the Package and the
+ * ClassDecls are only read, and every method body depends on nothing but
+ * them and its own names, so the methods are checked on a ForkJoinPool, in
+ * batches that each have their own checker and local scopes.
+ *
+ * Every class and every method reports into its own forked ErrorReporter,
+ * and the forks are merged in source order, so the diagnostics are the
+ * same, in the same order, as those of the sequential passes.
+ */
+public class ParallelChecker {
+
+	// fewest methods a batch is split down to
+	static final int MIN_BATCH = 16;
+
+	private SymbolTable symbols;
+	private ForkJoinPool pool;
+
+	private Package prog;
+	private ClassDecl[] owners;		// class of each method
+	private MethodDecl[] methods;		// every method, in source order
+	private int[] firstMethod;		// index in methods of the first method of each class
+	private ErrorReporter[] classReporters;
+	private ErrorReporter[] methodReporters;
+	private int batch;
+
+	public ParallelChecker(SymbolTable symbols, ForkJoinPool pool) {
+		this.symbols = symbols;
+		this.pool = pool;
+	}
+
+	public void idCheck(Package prog, ErrorReporter reporter) {
+		collect(prog, reporter);
+		ErrorReporter classNames = reporter.fork();
+		ASTIDChecker declarations = idChecker();
+		declarations.reporter = classNames;
+		declarations.enterClasses(prog);
+		for (int c = 0; c < owners(); c++) {
+			declarations.reporter = classReporters[c];
+			declarations.enterMembers(prog.classDeclList.get(c));
+		}
+		pool.invoke(new Methods(0, methods.length, true));
+		reporter.merge(classNames);
+		merge(reporter);
+	}
+
+	public void typeCheck(Package prog, ErrorReporter reporter) {
+		collect(prog, reporter);
+		for (int c = 0; c < owners(); c++)
+			new TypeChecker(classReporters[c]).checkFields(prog.classDeclList.get(c));
+		pool.invoke(new Methods(0, methods.length, false));
+		merge(reporter);
+	}
+
+	private int owners() {
+		return prog.classDeclList.size();
+	}
+
+	private ASTIDChecker idChecker() {
+		ASTIDChecker checker = new ASTIDChecker();
+		checker.cc = new ContextChecker(symbols);
+		return checker;
+	}
+
+	/**
+	 * list the methods of prog in source order, with a forked reporter for
+	 * each method and for the declarations of each class
+	 */
+	private void collect(Package prog, ErrorReporter reporter) {
+		this.prog = prog;
+		ClassDeclList classes = prog.classDeclList;
+		int n = 0;
+		for (ClassDecl c: classes)
+			n += c.methodDeclList.size();
+		owners = new ClassDecl[n];
+		methods = new MethodDecl[n];
+		firstMethod = new int[classes.size() + 1];
+		classReporters = new ErrorReporter[classes.size()];
+		methodReporters = new ErrorReporter[n];
+		int i = 0;
+		for (int c = 0; c < classes.size(); c++) {
+			ClassDecl cd = classes.get(c);
+			firstMethod[c] = i;
+			classReporters[c] = reporter.fork();
+			for (MethodDecl m: cd.methodDeclList) {
+				owners[i] = cd;
+				methods[i] = m;
+				methodReporters[i] = reporter.fork();
+				i++;
+			}
+		}
+		firstMethod[classes.size()] = n;
+		// a few batches per worker, so each has few checkers to set up
+		batch = Math.max(MIN_BATCH, n / (4 * pool.getParallelism()));
+	}
+
+	/**
+	 * merge the diagnostics of each class, then of its methods, in source order
+	 */
+	private void merge(ErrorReporter reporter) {
+		for (int c = 0; c < classReporters.length; c++) {
+			reporter.merge(classReporters[c]);
+			for (int i = firstMethod[c]; i < firstMethod[c + 1]; i++)
+				reporter.merge(methodReporters[i]);
+		}
+	}
+
+	/**
+	 * identify or type check methods [from, to), splitting in half down to a batch
+	 */
+	private class Methods extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final boolean identify;
+
+		Methods(int from, int to, boolean identify) {
+			this.from = from;
+			this.to = to;
+			this.identify = identify;
+		}
+
+		protected void compute() {
+			if (to - from > batch) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Methods(from, mid, identify), new Methods(mid, to, identify));
+				return;
+			}
+			if (identify) {
+				ASTIDChecker checker = idChecker();
+				for (int i = from; i < to; i++) {
+					checker.reporter = methodReporters[i];
+					checker.identifyMethod(prog, owners[i], methods[i]);
+				}
+			}
+			else {
+				for (int i = from; i < to; i++)
+					new TypeChecker(methodReporters[i]).checkMethod(owners[i], methods[i]);
+			}
+		}
+	}
+}
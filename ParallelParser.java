@@ -0,0 +1,171 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import miniJava.ErrorReporter;
+import miniJava.AbstractSyntaxTrees.ClassDecl;
+import miniJava.AbstractSyntaxTrees.ClassDeclList;
+import miniJava.AbstractSyntaxTrees.Package;
+
+/*
+ * Parses the classes of a packed token stream in parallel.
+ *
+ * Top level class declarations are syntactically independent, so the token
+ * stream is first split into class ... { ... } regions by counting braces,
+ * and the regions are parsed on a ForkJoinPool, each with its own Parser
+ * and a forked ErrorReporter.  The ClassDeclList is assembled in source
+ * order, so the result is the same as that of a sequential parse.
+ *
+ * If a region has a syntax error the regions still being parsed are given
+ * up and the whole stream is parsed again sequentially: recovery from an
+ * error can carry the parse past the end of a region, so only a sequential
+ * parse reports the errors after it the same way.
+ *
+ * If the stream does not split cleanly into regions (stray tokens between
+ * classes, unbalanced braces, a scan error) it is parsed sequentially, which
+ * reports the error properly.
+ *
+ * A ParseListener set with setListener hears only the sequential parses.
+ * The events of regions parsed at once would interleave, and any syntax
+ * error is parsed again sequentially, so the trace of a failed parse is
+ * that of Parser.
+ */
+public class ParallelParser {
+
+	// regions are handed out in batches of about this many tokens
+	static final int BATCH_TOKENS = 8192;
+
+	private TokenBuffer tokens;
+	private ErrorReporter reporter;
+	private ForkJoinPool pool;
+	private ParseListener listener = ParseListener.NONE;
+
+	// region r covers tokens [regionStart[r], regionEnd[r])
+	private int[] regionStart;
+	private int[] regionEnd;
+	private int regions;
+
+	private ClassDecl[] decls;
+	private ErrorReporter[] reporters;
+	private AtomicBoolean failed;
+
+	public ParallelParser(TokenBuffer tokens, ErrorReporter reporter) {
+		this(tokens, reporter, ForkJoinPool.commonPool());
+	}
+
+	public ParallelParser(TokenBuffer tokens, ErrorReporter reporter, ForkJoinPool pool) {
+		this.tokens = tokens;
+		this.reporter = reporter;
+		this.pool = pool;
+	}
+
+	/**
+	 * report the rules and tokens of a sequential parse to listener
+	 */
+	public void setListener(ParseListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * @return the AST, or null if there was a syntax error
+	 */
+	public Package parse() {
+		if (!split() || regions < 2)
+			return parseSequentially();
+
+		decls = new ClassDecl[regions];
+		reporters = new ErrorReporter[regions];
+		failed = new AtomicBoolean();
+		pool.invoke(new ParseRegions(0, regions));
+		if (failed.get())
+			return parseSequentially();
+
+		ClassDeclList cdl = new ClassDeclList();
+		for (int r = 0; r < regions; r++) {
+			reporter.merge(reporters[r]);
+			cdl.add(decls[r]);
+		}
+		return new Package(cdl, tokens.start(0));
+	}
+
+	private Package parseSequentially() {
+		Parser parser = new Parser(tokens, reporter);
+		parser.setListener(listener);
+		return parser.parse();
+	}
+
+	/**
+	 * find the brace balanced class regions
+	 * @return false if the token stream is not a sequence of them ending in EOT
+	 */
+	private boolean split() {
+		regionStart = new int[16];
+		regionEnd = new int[16];
+		regions = 0;
+		int i = 0;
+		while (tokens.kind(i) == TokenKind.CLASS) {
+			int start = i;
+			if (tokens.kind(i + 1) != TokenKind.ID || tokens.kind(i + 2) != TokenKind.LBRACK)
+				return false;
+			i += 3;
+			int depth = 1;
+			while (depth > 0) {
+				switch (tokens.kind(i++)) {
+				case LBRACK:
+					depth++;
+					break;
+				case RBRACK:
+					depth--;
+					break;
+				case EOT: case ERROR:
+					return false;
+				default:
+				}
+			}
+			if (regions == regionStart.length) {
+				regionStart = java.util.Arrays.copyOf(regionStart, regions * 2);
+				regionEnd = java.util.Arrays.copyOf(regionEnd, regions * 2);
+			}
+			regionStart[regions] = start;
+			regionEnd[regions] = i;
+			regions++;
+		}
+		return tokens.kind(i) == TokenKind.EOT;
+	}
+
+	/**
+	 * parse regions [from, to), splitting in half down to batches of BATCH_TOKENS
+	 */
+	private class ParseRegions extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		ParseRegions(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > 1 && regionEnd[to - 1] - regionStart[from] > BATCH_TOKENS) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ParseRegions(from, mid), new ParseRegions(mid, to));
+				return;
+			}
+			for (int r = from; r < to; r++) {
+				// the stream is parsed again after a failure
+				if (failed.get())
+					break;
+				reporters[r] = reporter.fork();
+				decls[r] = new Parser(tokens, reporters[r]).parseClassAt(regionStart[r]);
+				if (decls[r] == null) {
+					failed.set(true);
+					break;
+				}
+			}
+		}
+	}
+}
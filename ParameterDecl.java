@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class ParameterDecl extends LocalDecl {
 	
-	public ParameterDecl(Type t, String name, SourcePosition posn){
+	public ParameterDecl(Type t, String name, int posn){
 		super(name, t, posn);
 	}
 	
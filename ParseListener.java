@@ -0,0 +1,23 @@
+package miniJava.SyntacticAnalyzer;
+
+/**
+ * Receives tracing events from the Parser: each grammar rule entered and
+ * left, and each token accepted, with the source offset of the current token.
+ * 
+ * The Parser only makes these calls when a listener other than NONE is set,
+ * so an untraced parse does no tracing work at all.  A rule abandoned by a
+ * syntax error is entered but never left.
+ */
+public interface ParseListener {
+
+	/**
+	 * listener that ignores every event, tracing off
+	 */
+	public static final ParseListener NONE = new ParseListener() {};
+	
+	public default void enterRule(String rule, int posn) {}
+	
+	public default void exitRule(String rule, int posn) {}
+	
+	public default void tokenAccepted(Token token, int posn) {}
+}
@@ -0,0 +1,93 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.PrintStream;
+
+/**
+ * ParseListener keeping the most recent parse events in a fixed size ring
+ * buffer, for a look at what the Parser was doing when a parse went wrong.
+ * Recording an event is three array stores; nothing is formatted until dump().
+ */
+public class ParseRecorder implements ParseListener {
+
+	public static final int DEFAULT_CAPACITY = 256;
+	
+	private static final byte ENTER = 0;
+	private static final byte EXIT = 1;
+	private static final byte ACCEPT = 2;
+	
+	private final byte[] events;
+	private final Object[] details;	// rule name or accepted Token
+	private final int[] positions;
+	private final int mask;
+	private long count;
+	
+	public ParseRecorder() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * @param capacity  number of events kept, rounded up to a power of two
+	 */
+	public ParseRecorder(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		events = new byte[size];
+		details = new Object[size];
+		positions = new int[size];
+		mask = size - 1;
+		count = 0;
+	}
+	
+	public void enterRule(String rule, int posn) {
+		record(ENTER, rule, posn);
+	}
+	
+	public void exitRule(String rule, int posn) {
+		record(EXIT, rule, posn);
+	}
+	
+	public void tokenAccepted(Token token, int posn) {
+		record(ACCEPT, token, posn);
+	}
+	
+	private void record(byte event, Object detail, int posn) {
+		int i = (int) count & mask;
+		events[i] = event;
+		details[i] = detail;
+		positions[i] = posn;
+		count++;
+	}
+	
+	/**
+	 * print the recorded events, oldest first, indented by rule nesting
+	 * @param lines  line table to show positions with, or null for offsets
+	 */
+	public void dump(PrintStream out, SourcePosition lines) {
+		long first = Math.max(0, count - events.length);
+		if (first > 0)
+			out.println("... " + first + " earlier parse events not kept");
+		int depth = 0;
+		for (long n = first; n < count; n++) {
+			int i = (int) n & mask;
+			if (events[i] == EXIT && depth > 0)
+				depth--;
+			StringBuilder sb = new StringBuilder();
+			for (int d = 0; d < depth; d++)
+				sb.append("  ");
+			switch (events[i]) {
+			case ENTER:
+				sb.append("enter ").append(details[i]);
+				depth++;
+				break;
+			case EXIT:
+				sb.append("exit  ").append(details[i]);
+				break;
+			default:
+				Token t = (Token) details[i];
+				sb.append("accepting: ").append(t.kind).append(" (\"").append(t.spelling).append("\")");
+			}
+			int posn = positions[i];
+			sb.append("  ").append(lines != null ? lines.toString(posn) : posn == SourcePosition.NONE ? "?" : "@" + posn);
+			out.println(sb);
+		}
+	}
+}
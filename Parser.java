@@ -50,34 +50,110 @@ Expression ::=
 
 
 
-public class Parser {
+public class Parser implements LazyStatementList.BodyParser {
 	
-	private Scanner scanner;
+	private Lexer scanner;
+	private TokenBuffer tokens;
 	private ErrorReporter reporter;
+	private final Grammar<Package, ClassDeclList, ClassDecl, ASTBuilder.Members, ParameterDeclList, Type,
+			StatementList, Statement, ExprList, Expression, Reference, Token> ast =
+				new Grammar<>(ASTBuilder.INSTANCE);	// the grammar, building the AST
 	private Token currentToken;
-	private boolean trace = true;
+	private TokenKind currentKind;
+	private int index;
+	private ParseListener listener = ParseListener.NONE;
+	private boolean tracing = false;
+	private boolean skipBodies = false;	// method bodies are passed over, not parsed
+	private boolean lazyBodies = false;	// method bodies are parsed when first used
+	private int errorLimit = ERROR_LIMIT;
+	private int errors;			// syntax errors reported
+	private int lastErrorPosn;		// where the last one was reported
 	
-	public Parser(Scanner scanner, ErrorReporter reporter) {
+	public Parser(Lexer scanner, ErrorReporter reporter) {
 		this.scanner = scanner;
 		this.reporter = reporter;
 	}
 	
+	/**
+	 * parse from a packed token buffer, reading tokens by index and only
+	 * materializing a Token when an AST node needs its spelling
+	 */
+	public Parser(TokenBuffer tokens, ErrorReporter reporter) {
+		this.tokens = tokens;
+		this.reporter = reporter;
+	}
+	
 	
 	/**
-	 * SyntaxError is used to unwind parse stack when parse fails
-	 *
+	 * report rules entered and left and tokens accepted to listener,
+	 * ParseListener.NONE to turn tracing off
 	 */
-	class SyntaxError extends Error {
-		private static final long serialVersionUID = 1L;	
+	public void setListener(ParseListener listener) {
+		this.listener = listener;
+		this.tracing = listener != ParseListener.NONE;
 	}
 	
+	
 	/**
-	 * start parse
+	 * stop parsing after reporting limit syntax errors
+	 */
+	public void setErrorLimit(int limit) {
+		this.errorLimit = limit;
+	}
+	
+	
+	/**
+	 * SyntaxError is used to unwind parse stack to the point the parse
+	 * recovers at.  It carries nothing, so a single instance without a stack
+	 * trace is thrown for every error.
+	 */
+	static final class SyntaxError extends Error {
+		private static final long serialVersionUID = 1L;
+		
+		private SyntaxError() {
+			super(null, null, false, false);
+		}
+	}
+	
+	static final SyntaxError SYNTAX_ERROR = new SyntaxError();
+	
+	// syntax errors reported before the parse gives up
+	public static final int ERROR_LIMIT = 100;
+	
+	/**
+	 * start parse; after a syntax error the parse recovers at the next
+	 * statement, member or class and goes on, to report the errors after it
+	 * @return the AST, or null if there was a syntax error
 	 */
 	public Package parse() {
-		currentToken = scanner.scan();
+		return parseAll(ast);
+	}
+	
+	/**
+	 * parse into a FlatAST rather than the AST, by the same grammar, with
+	 * the same errors and recovery; the parse must be from a TokenBuffer,
+	 * which the tree reads its spellings from
+	 * @return the tree, or null if there was a syntax error
+	 */
+	public FlatAST parseFlat() {
+		if (tokens == null)
+			throw new IllegalStateException("a FlatAST is parsed from a TokenBuffer");
+		FlatAST tree = new FlatAST(tokens);
+		if (parseAll(new Grammar<>(new FlatBuilder(tree))) == null)
+			return null;
+		tree.trim();
+		return tree;
+	}
+	
+	// the program as grammar builds it, or null if there was a syntax error
+	private <P> P parseAll(Grammar<P, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?> grammar) {
+		index = -1;
+		nextToken();
+		errors = 0;
 		try {
-			return parseProgram();
+			P p = grammar.parseProgram();
+			if (errors == 0)
+				return p;
 		}
 		catch (SyntaxError e) { }
 		return null;
@@ -86,272 +162,427 @@ public class Parser {
 	
 	
 	
-	//A parse procedure for the miniJava grammar
+	/**
+	 * parse only the declarations: every class with its fields and method
+	 * headers, and empty method bodies, which are passed over by matching
+	 * braces
+	 * @return the skeleton of the program, or null if there was a syntax error
+	 */
+	public Package parseDeclarations() {
+		skipBodies = true;
+		return parse();
+	}
 	
 	
+	/**
+	 * parse the declarations, and leave each method body to be parsed the
+	 * first time its statements are used, see LazyStatementList; syntax
+	 * errors in a body are only reported then.  Bodies are only left when
+	 * parsing from a TokenBuffer, which they can be parsed from later.
+	 * 
+	 * Unbalanced braces in a body throw the declarations after it out of
+	 * step, so if the declarations do not parse the program is parsed again
+	 * in full, which reports the first syntax error where it really is.
+	 * @return the program, or null after reporting a syntax error
+	 */
+	public Package parseLazily() {
+		if (tokens == null)
+			return parse();
+		ErrorReporter real = reporter;
+		reporter = real.fork();
+		lazyBodies = true;
+		Package p = parse();
+		lazyBodies = false;
+		reporter = real;
+		if (p == null)
+			return parse();
+		return p;
+	}
 	
-	//Program ::= (ClassDeclaration)*eot
-	private Package parseProgram() throws SyntaxError{
-		ClassDeclList cdl = new ClassDeclList();
-		while(currentToken.kind==TokenKind.CLASS){
-			ClassDecl cd = parseClassDeclaration();
-			cdl.add(cd);
+	/**
+	 * parse the body whose opening brace is token start, with a Parser of its
+	 * own so that bodies may be parsed on any thread
+	 * @return the statements, or null if there was a syntax error
+	 */
+	public StatementList parseBody(int start) {
+		Parser parser = new Parser(tokens, reporter);
+		parser.errorLimit = errorLimit;
+		parser.index = start - 1;
+		parser.nextToken();
+		try {
+			StatementList body = parser.ast.parseBody();
+			if (parser.errors == 0)
+				return body;
 		}
-		while(currentToken.kind == TokenKind.COMMENT){
-			acceptIt();
+		catch (SyntaxError e) { }
+		return null;
+	}
+	
+	
+	/**
+	 * start a parse that reads one class at a time with parseClass, then the
+	 * end of the program with parseEnd
+	 */
+	public void startClasses() {
+		index = -1;
+		nextToken();
+		errors = 0;
+	}
+	
+	/**
+	 * @return the next class, or null after reporting a syntax error
+	 */
+	public ClassDecl parseClass() {
+		try {
+			ClassDecl cd = ast.parseClassDeclaration();
+			if (errors == 0)
+				return cd;
+		}
+		catch (SyntaxError e) { }
+		return null;
+	}
+	
+	/**
+	 * after a class that did not parse, go on through the rest of the
+	 * program to report the syntax errors in it
+	 */
+	public void parseRest() {
+		try {
+			ast.parseClasses(new ClassDeclList());
+		}
+		catch (SyntaxError e) { }
+	}
+	
+	/**
+	 * @return whether the program ends after the last class parsed
+	 */
+	public boolean parseEnd() {
+		try {
+			while(currentKind == TokenKind.COMMENT){
+				acceptIt();
+			}
+			accept(TokenKind.EOT);
+			return true;
 		}
-		accept(TokenKind.EOT);
-		return new Package(cdl,null);
+		catch (SyntaxError e) { }
+		return false;
 	}
 	
 	
-	//ClassDeclaration ::= class id { (GeneralDeclaration)* }
-	private ClassDecl parseClassDeclaration() throws SyntaxError{
-		accept(TokenKind.CLASS);
-		String cn = currentToken.spelling;
-		accept(TokenKind.ID);
-		accept(TokenKind.LBRACK);
+	/**
+	 * parse just the class declaration starting at token index start,
+	 * used to parse the classes of a TokenBuffer in parallel
+	 * @return the class, or null after reporting a syntax error
+	 */
+	ClassDecl parseClassAt(int start) {
+		index = start - 1;
+		nextToken();
+		errors = 0;
+		try {
+			ClassDecl cd = ast.parseClassDeclaration();
+			if (errors == 0)
+				return cd;
+		}
+		catch (SyntaxError e) { }
+		return null;
+	}
+	
+	
+	//A parse procedure for the miniJava grammar
+	
+	
+	
+	/*
+	 * The rules of the grammar that build the tree, each node made by a
+	 * NodeBuilder, whose type parameters Grammar shares; see NodeBuilder.
+	 * The state of the parse, the current token and the errors, is the
+	 * Parser's.
+	 */
+	private class Grammar<P, CL, C, M, PL, T, SL, S, EL, E, R, N> {
 		
-		FieldDeclList fields = new FieldDeclList();
-		MethodDeclList methods = new MethodDeclList();
+		private final NodeBuilder<P, CL, C, M, PL, T, SL, S, EL, E, R, N> builder;
 		
-		//(GeneralDeclaration)*
-		//Check if current Token is in Starters(GeneralDeclaration)
-		while(currentToken.kind == TokenKind.PUBLIC ||
-				currentToken.kind == TokenKind.STATIC||
-				currentToken.kind == TokenKind.PRIVATE||
-				currentToken.kind == TokenKind.INT ||
-				currentToken.kind == TokenKind.BOOLEAN ||
-				currentToken.kind == TokenKind.ID ||
-				currentToken.kind == TokenKind.VOID){
-			MemberDecl newDecl = parseGeneralDeclaration();
-			if(newDecl.getClass() == FieldDecl.class) fields.add( (FieldDecl)newDecl);
-			else if(newDecl.getClass() == MethodDecl.class) methods.add( (MethodDecl)newDecl);
-			else parseError("Did not recieve a method or field class");
-			}
-		accept(TokenKind.RBRACK);
-		return new ClassDecl(cn, fields, methods, null);
-	}
-	
-	//GeneralDeclaration ::= Visibility Access (void id (MethodDeclaration) | (type (id MethodDeclaration | ;))
-	private MemberDecl parseGeneralDeclaration() throws SyntaxError{
-		boolean visibility=false;
-		boolean access = false;
-		//Visibility
-		if(currentToken.kind == TokenKind.PUBLIC ||
-			currentToken.kind == TokenKind.PRIVATE){
-				visibility = parseVisibility();
+		Grammar(NodeBuilder<P, CL, C, M, PL, T, SL, S, EL, E, R, N> builder) {
+			this.builder = builder;
+		}
+		
+		//Program ::= (ClassDeclaration)*eot
+		P parseProgram() throws SyntaxError{
+			enter("Program");
+			int posn = currentPosition();
+			CL cdl = builder.classList();
+			parseClasses(cdl);
+			return exit("Program", builder.program(cdl,posn));
+		}
+		
+		// (ClassDeclaration)*eot, going on to the next class after an error
+		void parseClasses(CL cdl) throws SyntaxError{
+			while(true){
+				while(currentKind==TokenKind.CLASS){
+					try{
+						C cd = parseClassDeclaration();
+						builder.addClass(cdl, cd);
+					}
+					catch(SyntaxError e){
+						recoverClass();
+					}
+				}
+				while(currentKind == TokenKind.COMMENT){
+					acceptIt();
+				}
+				try{
+					accept(TokenKind.EOT);
+					break;
+				}
+				catch(SyntaxError e){
+					recoverClass();
+				}
 			}
-		//Access
-		if(currentToken.kind==TokenKind.STATIC){
-			access = parseAccess();
 		}
 		
-		//( void id (MethodDeclaration) | (type id (MethodDeclaration | ; ) )
-		switch(currentToken.kind){
 		
-			//void id (MethodDeclaration)
-			case VOID:
-				acceptIt();
-				String mn = currentToken.spelling;
-				accept(TokenKind.ID);
-				FieldDecl member = new FieldDecl(visibility, access, new BaseType(TypeKind.VOID, null), mn, null);
-				MethodDecl method = parseMethodDeclaration(member);
-				return method;
+		//ClassDeclaration ::= class id { (GeneralDeclaration)* }
+		C parseClassDeclaration() throws SyntaxError{
+			enter("ClassDeclaration");
+			int posn = currentPosition();
+			accept(TokenKind.CLASS);
+			N cn = builder.token(Parser.this);
+			accept(TokenKind.ID);
+			accept(TokenKind.LBRACK);
 			
-			//(type id (MethodDeclaration | ; ))
-			case INT: case ID: case BOOLEAN:
-				Type t = parseType();
-				String name = currentToken.spelling;
-				accept(TokenKind.ID);
-				member = new FieldDecl(visibility, access, t, name, null);
-				// MethodDeclaration | ;
-				switch(currentToken.kind){
-				case LPAREN:
-					method = parseMethodDeclaration(member);
-					return method;
-				case SEMI:
+			M members = builder.memberList();
+			
+			//(GeneralDeclaration)*
+			//Check if current Token is in Starters(GeneralDeclaration)
+			while(currentKind == TokenKind.PUBLIC ||
+					currentKind == TokenKind.STATIC||
+					currentKind == TokenKind.PRIVATE||
+					currentKind == TokenKind.INT ||
+					currentKind == TokenKind.BOOLEAN ||
+					currentKind == TokenKind.ID ||
+					currentKind == TokenKind.VOID){
+				try{
+					parseGeneralDeclaration(members);
+				}
+				catch(SyntaxError e){
+					recover();
+				}
+			}
+			accept(TokenKind.RBRACK);
+			return exit("ClassDeclaration", builder.classDecl(cn, members, posn));
+		}
+		
+		//GeneralDeclaration ::= Visibility Access (void id (MethodDeclaration) | (type (id MethodDeclaration | ;))
+		private void parseGeneralDeclaration(M members) throws SyntaxError{
+			enter("GeneralDeclaration");
+			int posn = currentPosition();
+			boolean visibility=false;
+			boolean access = false;
+			//Visibility
+			if(currentKind == TokenKind.PUBLIC ||
+				currentKind == TokenKind.PRIVATE){
+					visibility = parseVisibility();
+				}
+			//Access
+			if(currentKind==TokenKind.STATIC){
+				access = parseAccess();
+			}
+			
+			//( void id (MethodDeclaration) | (type id (MethodDeclaration | ; ) )
+			switch(currentKind){
+			
+				//void id (MethodDeclaration)
+				case VOID:
+					T voidType = builder.baseType(TypeKind.VOID, currentPosition());
 					acceptIt();
-					return member;
+					N mn = builder.token(Parser.this);
+					accept(TokenKind.ID);
+					parseMethodDeclaration(members, visibility, access, voidType, mn, posn);
+					exit("GeneralDeclaration", null);
+					return;
+				
+				//(type id (MethodDeclaration | ; ))
+				case INT: case ID: case BOOLEAN:
+					T t = parseType();
+					N name = builder.token(Parser.this);
+					accept(TokenKind.ID);
+					// MethodDeclaration | ;
+					switch(currentKind){
+					case LPAREN:
+						parseMethodDeclaration(members, visibility, access, t, name, posn);
+						exit("GeneralDeclaration", null);
+						return;
+					case SEMI:
+						acceptIt();
+						builder.field(members, visibility, access, t, name, posn);
+						exit("GeneralDeclaration", null);
+						return;
+					default:
+						parseError("Was expecting LPAREN or SEMI but got: " + currentKind);
+					}
+					break;
 				default:
-					parseError("Was expecting LPAREN or SEMI but got: " + currentToken.kind);
-				}
+					parseError("Was expecting VOID, INT, ID, or BOOLEAN but got: " + currentKind);
+			}
+		}
+		
+		//MethodDeclaration ::= (ParameterList?){Statement*}
+		private void parseMethodDeclaration(M members, boolean visibility, boolean access, T type, N name, int posn) throws SyntaxError{
+			enter("MethodDeclaration");
+			// (ParameterList?)
+			accept(TokenKind.LPAREN);
+			PL parameterList = builder.parameterList();
+			switch(currentKind){
+			case INT: case BOOLEAN: case ID:
+				parseParameterList(parameterList);
 				break;
 			default:
-				parseError("Was expecting VOID, INT, ID, or BOOLEAN but got: " + currentToken.kind);
-		}
-		return null;
-	}
-	
-	//MethodDeclaration ::= (ParameterList?){Statement*}
-	private MethodDecl parseMethodDeclaration(MemberDecl member) throws SyntaxError{
-		// (ParameterList?)
-		accept(TokenKind.LPAREN);
-		ParameterDeclList parameterList = new ParameterDeclList();
-		switch(currentToken.kind){
-		case INT: case BOOLEAN: case ID:
-			parameterList = parseParameterList();
-			break;
-		default:
+			}
+			accept(TokenKind.RPAREN);
+			
+			SL statementList;
+			if(lazyBodies){
+				statementList = builder.lazyBody(Parser.this, index);
+				accept(TokenKind.LBRACK);
+				skipBody();
+				accept(TokenKind.RBRACK);
+			}
+			else statementList = parseBody();
+			builder.method(members, visibility, access, type, name, parameterList, statementList, posn);
+			exit("MethodDeclaration", null);
 		}
-		accept(TokenKind.RPAREN);
 		
 		//{Statement*}
-		accept(TokenKind.LBRACK);
-		//Check if currentToken is in Starters(Statement)
-		StatementList statementList = new StatementList();
-		while(currentToken.kind==TokenKind.LBRACK ||
-				currentToken.kind == TokenKind.INT ||
-				currentToken.kind== TokenKind.BOOLEAN||
-				currentToken.kind==TokenKind.ID ||
-				currentToken.kind==TokenKind.THIS ||
-				currentToken.kind == TokenKind.RETURN ||
-				currentToken.kind== TokenKind.IF ||
-				currentToken.kind == TokenKind.WHILE){
-			
-			Statement statement = parseStatement();
-			statementList.add(statement);
-		}
-		accept(TokenKind.RBRACK);
-		return new MethodDecl(member, parameterList, statementList, null);
-	}
-	
-	
-	//Visibility ::= (public | private)?
-	private boolean parseVisibility(){
-		switch(currentToken.kind){
-		case PUBLIC: 
-			acceptIt();
-			return false;
-		case PRIVATE:
-			acceptIt();
-			return true;
-		default:
-			parseError("Expected a PUBLIC or PRIVATE but got:" + currentToken.kind);
-			return false;
+		SL parseBody() throws SyntaxError{
+			accept(TokenKind.LBRACK);
+			SL statementList = builder.statementList();
+			if(skipBodies)
+				skipBody();
+			else parseStatements(statementList);
+			accept(TokenKind.RBRACK);
+			return statementList;
 		}
-	}
-	
-	//Access ::= static?
-	private boolean parseAccess(){
-		switch(currentToken.kind){
-		case STATIC:
-			acceptIt();
-			return true;
-		default:
-			return false;
+		
+		/*
+		 * Statement* up to the '}' closing the block; a token that cannot start
+		 * a statement is reported and passed over with the rest of its statement,
+		 * so the block goes on with the statement after it
+		 */
+		private void parseStatements(SL statementList) throws SyntaxError{
+			while(currentKind != TokenKind.RBRACK &&
+					currentKind != TokenKind.CLASS &&
+					currentKind != TokenKind.EOT){
+				try{
+					S statement = parseStatement();
+					builder.addStatement(statementList, statement);
+				}
+				catch(SyntaxError e){
+					recover();
+				}
+			}
 		}
-	}
-	
-	// Type ::= (int|id)[]? | boolean
-	private Type parseType() throws SyntaxError{
-		Type t;
-		//(int|id)[]? | boolean
-		switch(currentToken.kind){
 		
-		//int[]?
-		case INT:
-			acceptIt();
-			t = new BaseType(TypeKind.INT,null);
-			if(currentToken.kind ==  TokenKind.LBOX){
+		// Type ::= (int|id)[]? | boolean
+		private T parseType() throws SyntaxError{
+			enter("Type");
+			int posn = currentPosition();
+			T t;
+			//(int|id)[]? | boolean
+			switch(currentKind){
+			
+			//int[]?
+			case INT:
+				acceptIt();
+				t = builder.baseType(TypeKind.INT,posn);
+				if(currentKind ==  TokenKind.LBOX){
+					acceptIt();
+					accept(TokenKind.RBOX);
+					t = builder.arrayType(t,posn);
+				}
+				return exit("Type", t);
+			
+			//id[]?
+			case ID:
+				t = builder.classType(builder.token(Parser.this),posn);
+				acceptIt();
+				if(currentKind ==  TokenKind.LBOX){
+					acceptIt();
+					accept(TokenKind.RBOX);
+					t = builder.arrayType(t,posn);
+				}
+				return exit("Type", t);
+				
+			// boolean
+			case BOOLEAN:
 				acceptIt();
-				accept(TokenKind.RBOX);
-				t = new ArrayType((Type)new BaseType(TypeKind.INT,null),null);
+				t = builder.baseType(TypeKind.BOOLEAN, posn);
+				return exit("Type", t);
+			default:
+				parseError("Expected an int or id but found a: " + currentKind);
+				return null;
 			}
-			return t;
+		}
 		
-		//id[]?
-		case ID:
-			Token token = currentToken;
-			acceptIt();
-			t = new ClassType(new Identifier(token),null);
-			if(currentToken.kind ==  TokenKind.LBOX){
+		//ParameterList ::= Type id ( , Type id )*
+		private void parseParameterList(PL list){
+			enter("ParameterList");
+			int posn = currentPosition();
+			T t = parseType();
+			N name = builder.token(Parser.this);
+			accept(TokenKind.ID);
+			builder.parameter(list, t, name, posn);
+			//check if currentToken is in Starters(, Type id)
+			while(currentKind==TokenKind.COMMA){
 				acceptIt();
-				accept(TokenKind.RBOX);
-				t = new ArrayType(new ClassType(new Identifier(token),null),null);
+				posn = currentPosition();
+				t = parseType();
+				name = builder.token(Parser.this);
+				accept(TokenKind.ID);
+				builder.parameter(list, t, name, posn);
 			}
-			return t;
-			
-		// boolean
-		case BOOLEAN:
-			acceptIt();
-			t = new BaseType(TypeKind.BOOLEAN, null);
-			return t;
-		default:
-			parseError("Expected an int or id but found a: " + currentToken.kind);
-			return null;
+			exit("ParameterList", null);
 		}
-	}
-	
-	//ParameterList ::= Type id ( , Type id )*
-	private ParameterDeclList parseParameterList(){
-		ParameterDeclList list = new ParameterDeclList();
-		Type t = parseType();
-		String typeName = currentToken.spelling;
-		accept(TokenKind.ID);
-		ParameterDecl param = new ParameterDecl(t,typeName,null);
-		list.add(param);
-		//check if currentToken is in Starters(, Type id)
-		while(currentToken.kind==TokenKind.COMMA){
-			acceptIt();
-			t = parseType();
-			typeName = currentToken.spelling;
-			accept(TokenKind.ID);
-			param = new ParameterDecl(t,typeName,null);
-			list.add(param);
-		}
-		return list;
-	}
-	
-	//ArgumentList ::= Expression(,Expression)*
-	private ExprList parseArgumentList(){
-		ExprList list = new ExprList();	
-		if(currentToken.kind== TokenKind.ID ||
-				currentToken.kind== TokenKind.THIS ||
-				currentToken.kind == TokenKind.UNOP ||
-				currentToken.kind == TokenKind.LPAREN ||
-				currentToken.kind == TokenKind.NUM ||
-				currentToken.kind == TokenKind.TRUE ||								
-				currentToken.kind == TokenKind.FALSE ||
-				currentToken.kind == TokenKind.NEW){
-					Expression expr = parseExpression();
-					list.add(expr);
-					while(currentToken.kind == TokenKind.COMMA){
-						acceptIt();
-						expr = parseExpression();
-						list.add(expr);
+		
+		//ArgumentList ::= Expression(,Expression)*
+		private EL parseArgumentList(){
+			enter("ArgumentList");
+			EL list = builder.argumentList();
+			if(currentKind== TokenKind.ID ||
+					currentKind== TokenKind.THIS ||
+					currentKind == TokenKind.NOT ||
+					currentKind == TokenKind.MINUS ||
+					currentKind == TokenKind.LPAREN ||
+					currentKind == TokenKind.NUM ||
+					currentKind == TokenKind.TRUE ||								
+					currentKind == TokenKind.FALSE ||
+					currentKind == TokenKind.NEW){
+						E expr = parseExpression();
+						builder.addArgument(list, expr);
+						while(currentKind == TokenKind.COMMA){
+							acceptIt();
+							expr = parseExpression();
+							builder.addArgument(list, expr);
+				}
 			}
+			return exit("ArgumentList", list);
 		}
-		return list;
-	}
-	
-	//Reference ::= (.id)*
-	private QualifiedRef parseReference(Reference mainRef){
-		boolean first = true;
-		QualifiedRef qr = new QualifiedRef(mainRef,null,null);
-		QualifiedRef temp = null;
-		while(currentToken.kind==TokenKind.PERIOD){
-			if(!first){ qr.ref = temp;}
-			acceptIt();
-			Identifier id = new Identifier(currentToken);
-			qr.id = id;
-			accept(TokenKind.ID);
-			first = false;
-			temp = new QualifiedRef(qr.ref, id, null);
+		
+		//Reference ::= (.id)*, each member selected from the reference before it
+		private R parseReference(R mainRef, int posn){
+			enter("Reference");
+			R ref = mainRef;
+			while(currentKind==TokenKind.PERIOD){
+				acceptIt();
+				int idPosn = currentPosition();
+				N id = builder.token(Parser.this);
+				accept(TokenKind.ID);
+				ref = builder.qualifiedRef(ref, id, idPosn, posn);
+			}
+			return exit("Reference", ref);
+			
 		}
-		return qr;
 		
-	}
-	
-	//ArrayReference ::=id[Expression]
-	private void parseArrayReference(){
-		accept(TokenKind.ID);
-		accept(TokenKind.LBOX);
-		parseExpression();
-		accept(TokenKind.RBOX);
-	}
-	
-	/*Statement ::=
+		/*Statement ::=
 { Statement* }
 | id (id | Reference? ((ArgumentList?)?) ( = Expression)? ; | ( [ (Expression]) | ] id))? = Expression;) ) | = expression ;
 | OtherStatementTypes id = Expression ; 
@@ -359,431 +590,409 @@ public class Parser {
 | if ( Expression ) Statement (else Statement)? 
 | while ( Expression ) Statement
 */
-	private Statement parseStatement() throws SyntaxError{
-		
-		switch(currentToken.kind){
-		
-		//statement ::= { statement*}
-		case LBRACK:
-			StatementList stmtList = new StatementList();
-			acceptIt();
-			//check if next token is in Starters(Statement)
-			while(currentToken.kind==TokenKind.LBRACK ||
-				currentToken.kind == TokenKind.INT ||
-				currentToken.kind== TokenKind.BOOLEAN||
-				currentToken.kind==TokenKind.ID ||
-				currentToken.kind==TokenKind.THIS ||
-				currentToken.kind == TokenKind.RETURN ||
-				currentToken.kind== TokenKind.IF ||
-				currentToken.kind == TokenKind.WHILE){
-				
-				Statement stmt = parseStatement();
-				stmtList.add(stmt);
-			}
-			accept(TokenKind.RBRACK);
-			return new BlockStmt(stmtList,null);
-		
-		//statement ::= id (...) = Expression ;
-		case ID:
-			Identifier firstID = new Identifier(currentToken);
-			acceptIt();
+		private S parseStatement() throws SyntaxError{
+			enter("Statement");
+			int posn = currentPosition();
+			
+			switch(currentKind){
+			
+			//statement ::= { statement*}
+			case LBRACK:
+				SL stmtList = builder.statementList();
+				acceptIt();
+				parseStatements(stmtList);
+				accept(TokenKind.RBRACK);
+				return exit("Statement", builder.block(stmtList,posn));
 			
-			//statement ::= (id | Reference ((ArgumentList?)?) | [Expression?])
-			switch(currentToken.kind){	
-			//id
+			//statement ::= id (...) = Expression ;
 			case ID:
-				String secondID = currentToken.spelling;
-				VarDecl vd = new VarDecl(new ClassType(firstID,null), secondID,null);
+				N firstID = builder.token(Parser.this);
 				acceptIt();
-				accept(TokenKind.EQUALS);
-				Expression expr2 = parseExpression();
-				accept(TokenKind.SEMI);
-				return new VarDeclStmt(vd, expr2,null);
-			//Reference ((ArgumentList?)?)
-			case PERIOD: case LPAREN:
-				if(currentToken.kind==TokenKind.PERIOD){
-					QualifiedRef qr = parseReference(new IdRef(firstID,null));
-					if(currentToken.kind == TokenKind.EQUALS){
+				
+				//statement ::= (id | Reference ((ArgumentList?)?) | [Expression?])
+				switch(currentKind){	
+				//id
+				case ID:
+					N secondID = builder.token(Parser.this);
+					acceptIt();
+					accept(TokenKind.EQUALS);
+					E expr2 = parseExpression();
+					accept(TokenKind.SEMI);
+					return exit("Statement", builder.varDecl(builder.classType(firstID,posn), secondID, expr2,posn));
+				//Reference (= Expression | (ArgumentList?)) ;
+				case PERIOD:
+					R qr = parseReference(builder.idRef(firstID,posn), posn);
+					if(currentKind == TokenKind.EQUALS){
 						accept(TokenKind.EQUALS);
-						Expression expr = parseExpression();
+						E expr = parseExpression();
 						accept(TokenKind.SEMI);
-						return new AssignStmt(qr,expr,null);
+						return exit("Statement", builder.assign(qr,expr,posn));
 					}
-					else if (currentToken.kind == TokenKind.LPAREN){
+					else if (currentKind == TokenKind.LPAREN){
 						acceptIt();
-						ExprList argList = parseArgumentList();
+						EL argList = parseArgumentList();
+						accept(TokenKind.RPAREN);
+						accept(TokenKind.SEMI);
+						return exit("Statement", builder.callStmt(qr, argList,posn));
+					}
+					parseError("Was expecting EQUALS or LPAREN but got: " + currentKind);
+					break;
+				//(ArgumentList?) ;
+				case LPAREN:
+					acceptIt();
+					EL argList = parseArgumentList();
 					accept(TokenKind.RPAREN);
 					accept(TokenKind.SEMI);
-					return new CallStmt(qr, argList,null);
-				
+					return exit("Statement", builder.callStmt(builder.idRef(firstID,posn), argList,posn));
+					
+				//[ (Expression]) | ] id
+				case LBOX:
+					acceptIt();
+					
+					//Check if next Token is in the Starters(Expression)
+					if(currentKind== TokenKind.ID ||
+						currentKind== TokenKind.THIS ||
+						currentKind == TokenKind.NOT ||
+						currentKind == TokenKind.MINUS ||
+						currentKind == TokenKind.LPAREN ||
+						currentKind == TokenKind.NUM ||
+						currentKind == TokenKind.TRUE ||
+						currentKind == TokenKind.FALSE ||
+						currentKind == TokenKind.NEW){
+								E indexExpr = parseExpression();
+								accept(TokenKind.RBOX);
+								accept(TokenKind.EQUALS);
+								E assignExpr = parseExpression();
+								accept(TokenKind.SEMI);
+								return exit("Statement", builder.ixAssign(firstID, indexExpr, assignExpr,posn));
+						}
+					else{
+						accept(TokenKind.RBOX);
+						T arr = builder.arrayType(builder.classType(firstID, posn), posn);
+						N varName = builder.token(Parser.this);
+						accept(TokenKind.ID);
+						accept(TokenKind.EQUALS);
+						E varExpr = parseExpression();
+						accept(TokenKind.SEMI);
+						return exit("Statement", builder.varDecl(arr, varName, varExpr,posn));
 					}
-				}	
-				else if(currentToken.kind== TokenKind.LPAREN){
+				case EQUALS:
 					acceptIt();
-					ExprList argList = parseArgumentList();
-					accept(TokenKind.RPAREN);
+					E aEx = parseExpression();
 					accept(TokenKind.SEMI);
-					return new CallStmt(new IdRef(firstID,null), argList,null);
+					return exit("Statement", builder.assign(builder.idRef(firstID,posn), aEx,posn));
+				default:
+					parseError("Was expecting ID, PERIOD, LPAREN, LBOX or EQUALS but got: " + currentKind);
 				}
+				break;
 				
-			//[ (Expression]) | ] id
-			case LBOX:
+			//Statement ::= this Reference (= Expression ; | (ArgumentList?) ; )
+			case THIS:
 				acceptIt();
+				R firstRef = builder.thisRef(posn);
+				if(currentKind == TokenKind.PERIOD){
+					firstRef = parseReference(firstRef, posn);
+				}
+				// = Expression ;
+				switch(currentKind){
+				case EQUALS:
+					acceptIt();
+					E thisExp = parseExpression();
+					accept(TokenKind.SEMI);
+					return exit("Statement", builder.assign(firstRef, thisExp,posn));
 				
-				//Check if next Token is in the Starters(Expression)
-				if(currentToken.kind== TokenKind.ID ||
-					currentToken.kind== TokenKind.THIS ||
-					currentToken.kind == TokenKind.UNOP ||
-					currentToken.kind == TokenKind.DUALOP ||
-					currentToken.kind == TokenKind.LPAREN ||
-					currentToken.kind == TokenKind.NUM ||
-					currentToken.kind == TokenKind.TRUE ||
-					currentToken.kind == TokenKind.FALSE ||
-					currentToken.kind == TokenKind.NEW){
-							Expression indexExpr = parseExpression();
-							accept(TokenKind.RBOX);
-							IndexedRef iRef = new IndexedRef(new IdRef(firstID,null), indexExpr,null);
-							accept(TokenKind.EQUALS);
-							Expression assignExpr = parseExpression();
-							accept(TokenKind.SEMI);
-							return new IxAssignStmt(iRef, assignExpr,null);
-					}
-				else{
-					accept(TokenKind.RBOX);
-					ArrayType arr = new ArrayType(new ClassType(firstID, null), null);
-					String varName = currentToken.spelling;
-					accept(TokenKind.ID);
-					VarDecl var = new VarDecl(arr, varName, null);
-					accept(TokenKind.EQUALS);
-					Expression varExpr = parseExpression();
+				// (ArgumentList?) ;
+				case LPAREN:
+					acceptIt();
+					EL aList = parseArgumentList();
+					accept(TokenKind.RPAREN);
 					accept(TokenKind.SEMI);
-					return new VarDeclStmt(var, varExpr,null);
+					return exit("Statement", builder.callStmt(firstRef,aList,posn));
+					
+				default:
+					parseError("Not Expecting: " + currentKind);
 				}
-			case EQUALS:
-				acceptIt();
-				Expression aEx = parseExpression();
+				break;
+				
+			//Statement ::= OtherStatementTypes id = Expression ; 
+			case BOOLEAN: case INT: case RBRACK:
+				T t = parseOtherStatementTypes();
+				N vName = builder.token(Parser.this);
+				accept(TokenKind.ID);
+				accept(TokenKind.EQUALS);
+				E e = parseExpression();
 				accept(TokenKind.SEMI);
-				return new AssignStmt(new IdRef(firstID,null), aEx,null);
-			default:
-				//parseError("Did not expect a: "+currentToken.kind);
-			}
-			break;
-			
-		//Statement ::= this Reference (= Expression ; | (ArgumentList?) ; )
-		case THIS:
-			acceptIt();
-			Reference firstRef = new ThisRef(null);
-			if(currentToken.kind == TokenKind.PERIOD){
-				firstRef = (QualifiedRef) parseReference(firstRef);
-			}
-			else firstRef = (ThisRef) firstRef;
-			// = Expression ;
-			switch(currentToken.kind){
-			case EQUALS:
+				return exit("Statement", builder.varDecl(t, vName, e,posn));
+				
+			//Statement ::= return Expression? ;
+			case RETURN:
 				acceptIt();
-				Expression thisExp = parseExpression();
+				//check if next token is in Starters(Expression)
+				E expr = null;
+				if(currentKind== TokenKind.ID ||
+					currentKind== TokenKind.THIS ||
+					currentKind == TokenKind.NOT ||
+					currentKind == TokenKind.MINUS||
+					currentKind == TokenKind.LPAREN ||
+					currentKind == TokenKind.NUM ||
+					currentKind == TokenKind.TRUE ||					
+					currentKind == TokenKind.FALSE ||
+					currentKind == TokenKind.NEW){
+					expr = parseExpression();
+				}
 				accept(TokenKind.SEMI);
-				return new AssignStmt(firstRef, thisExp,null);
-			
-			// (ArgumentList?) ;
-			case LPAREN:
+				return exit("Statement", builder.returnStmt(expr,posn));
+				
+			//Statement::= if ( Expression ) Statement (else Statement)?
+			case IF:
 				acceptIt();
-				ExprList aList = parseArgumentList();
+				accept(TokenKind.LPAREN);
+				E iExpr = parseExpression();
 				accept(TokenKind.RPAREN);
-				accept(TokenKind.SEMI);
-				return new CallStmt(firstRef,aList,null);
+				S iStatement = parseStatement();
+				S elseStatement = null;
+				if(currentKind==TokenKind.ELSE){
+					acceptIt();
+					elseStatement = parseStatement();
+				}
+				return exit("Statement", builder.ifStmt(iExpr, iStatement, elseStatement,posn));
+				
+			//Statement ::=  while ( Expression ) Statement
+			case WHILE:
+				acceptIt();
+				accept(TokenKind.LPAREN);
+				E whileExpr = parseExpression();
+				accept(TokenKind.RPAREN);
+				S whileStmt = parseStatement();
+				return exit("Statement", builder.whileStmt(whileExpr, whileStmt,posn));
 				
 			default:
-				parseError("Not Expecting: " + currentToken.kind);
+				parseError("Was not expecting: "+ currentKind);
 			}
-			break;
-			
-		//Statement ::= OtherStatementTypes id = Expression ; 
-		case BOOLEAN: case INT: case RBRACK:
-			Type t = parseOtherStatementTypes();
-			String vName = currentToken.spelling;
-			accept(TokenKind.ID);
-			VarDecl var = new VarDecl(t,vName, null);
-			accept(TokenKind.EQUALS);
-			Expression e = parseExpression();
-			accept(TokenKind.SEMI);
-			return new VarDeclStmt(var, e,null);
-			
-		//Statement ::= return Expression? ;
-		case RETURN:
-			acceptIt();
-			//check if next token is in Starters(Expression)
-			Expression expr = null;
-			if(currentToken.kind== TokenKind.ID ||
-				currentToken.kind== TokenKind.THIS ||
-				currentToken.kind == TokenKind.UNOP ||
-				currentToken.kind == TokenKind.DUALOP||
-				currentToken.kind == TokenKind.LPAREN ||
-				currentToken.kind == TokenKind.NUM ||
-				currentToken.kind == TokenKind.TRUE ||					
-				currentToken.kind == TokenKind.FALSE ||
-				currentToken.kind == TokenKind.NEW){
-				expr = parseExpression();
-				accept(TokenKind.SEMI);
-				return new ReturnStmt(expr,null);
+			return null;
+		}
+		
+		//OtherStatementTypes ::= boolean | int[]?
+		private T parseOtherStatementTypes() throws SyntaxError{
+			enter("OtherStatementTypes");
+			int posn = currentPosition();
+			switch(currentKind){
+			case BOOLEAN:
+				acceptIt();
+				return exit("OtherStatementTypes", builder.baseType(TypeKind.BOOLEAN,posn));
+				
+			case INT:
+				acceptIt();
+				if(currentKind==TokenKind.LBOX){
+					accept(TokenKind.LBOX);
+					accept(TokenKind.RBOX);
+					return exit("OtherStatementTypes", builder.arrayType(builder.baseType(TypeKind.INT,posn),posn));
+				}
+				return exit("OtherStatementTypes", builder.baseType(TypeKind.INT,posn));
+				
+			default:
+				parseError("Expecting a Boolean or an Int but got a : "+ currentKind);
+				return null;
 			}
-			accept(TokenKind.SEMI);
-			return new ReturnStmt(expr,null);
-			
-		//Statement::= if ( Expression ) Statement (else Statement)?
-		case IF:
-			acceptIt();
-			accept(TokenKind.LPAREN);
-			Expression iExpr = parseExpression();
-			accept(TokenKind.RPAREN);
-			Statement iStatement = parseStatement();
-			if(currentToken.kind==TokenKind.ELSE){
+		}
+		
+		// Expression ::= Unary (binop Unary)*, grouped by PRECEDENCE, all left associative
+		private E parseExpression(){
+			enter("Expression");
+			return exit("Expression", parseBinary(1));
+		}
+		
+		/*
+		 * precedence climbing: parse operands joined by operators binding at least
+		 * as tightly as minPrecedence, one call per operator rather than per level
+		 */
+		private E parseBinary(int minPrecedence){
+			E left = parseUnary();
+			int precedence;
+			while((precedence = PRECEDENCE[currentKind.ordinal()]) >= minPrecedence){
+				int posn = currentPosition();
+				N op = builder.token(Parser.this);
 				acceptIt();
-				Statement elseStatement = parseStatement();
-				return new IfStmt(iExpr, iStatement, elseStatement,null);
+				E right = parseBinary(precedence + 1);
+				left = builder.binary(op, left, right, posn);
 			}
-			return new IfStmt(iExpr, iStatement,null);
-			
-		//Statement ::=  while ( Expression ) Statement
-		case WHILE:
-			acceptIt();
-			accept(TokenKind.LPAREN);
-			Expression whileExpr = parseExpression();
-			accept(TokenKind.RPAREN);
-			Statement whileStmt = parseStatement();
-			return new WhileStmt(whileExpr, whileStmt,null);
-			
-		default:
-			parseError("Was not expecting: "+ currentToken.kind);
+			return left;
 		}
-		return null;
-	}
-	
-	//OtherStatementTypes ::= boolean | int[]?
-	private Type parseOtherStatementTypes() throws SyntaxError{
-		switch(currentToken.kind){
-		case BOOLEAN:
-			acceptIt();
-			return new BaseType(TypeKind.BOOLEAN,null);
-			
-		case INT:
-			acceptIt();
-			if(currentToken.kind==TokenKind.LBOX){
-				accept(TokenKind.LBOX);
-				accept(TokenKind.RBOX);
-				return new ArrayType(new BaseType(TypeKind.INT,null),null);
+		
+		// Unary ::= (- | !) Unary | Primary
+		private E parseUnary(){
+			if(currentKind == TokenKind.MINUS || currentKind == TokenKind.NOT){
+				int posn = currentPosition();
+				N op = builder.token(Parser.this);
+				acceptIt();
+				E operand = parseUnary();
+				return builder.unary(op, operand, posn);
 			}
-			return new BaseType(TypeKind.INT,null);
+			return parseX();
+		}
+		
+		private E parseX(){
+			enter("Primary");
+			int posn = currentPosition();
+			E op;
+			switch(currentKind){
+			case LPAREN:
+				acceptIt();
+				op = parseExpression();
+				accept(TokenKind.RPAREN);
+				return exit("Primary", op);
+			case NUM: case TRUE: case FALSE:
+				op = builder.literal(builder.token(Parser.this), posn);
+				acceptIt();
+				return exit("Primary", op);
+			case ID:
+				N id = builder.token(Parser.this);
+				acceptIt();
+				if(currentKind == TokenKind.PERIOD){
+					R ref = parseReference(builder.idRef(id,posn), posn);
+					if(currentKind == TokenKind.LPAREN){
+						acceptIt();
+						EL argList = parseArgumentList();
+						accept(TokenKind.RPAREN);
+						return exit("Primary", builder.callExpr(ref,argList,posn));
+					}
+					return exit("Primary", builder.refExpr(ref,posn));
+				}
+				else if(currentKind == TokenKind.LPAREN){
+					acceptIt();
+					EL argList = parseArgumentList();
+					accept(TokenKind.RPAREN);
+					return exit("Primary", builder.callExpr(builder.idRef(id,posn),argList,posn));
+				}
+				else if(currentKind==TokenKind.LBOX){
+					acceptIt();
+					E ex = parseExpression();
+					accept(TokenKind.RBOX);
+					return exit("Primary", builder.refExpr(builder.indexedRef(id,ex,posn),posn));
+				}
+				else return exit("Primary", builder.refExpr(builder.idRef(id,posn),posn));
 			
-		default:
-			parseError("Expecting a Boolean or an Int but got a : "+ currentToken.kind);
+			case THIS:
+				acceptIt();
+				if(currentKind == TokenKind.PERIOD){
+					R ref = parseReference(builder.thisRef(posn), posn);
+					if(currentKind == TokenKind.LPAREN){
+						acceptIt();
+						EL aList = parseArgumentList();
+						accept(TokenKind.RPAREN);
+						return exit("Primary", builder.callExpr(ref,aList,posn));
+					}
+					return exit("Primary", builder.refExpr(ref,posn));
+				}
+				if(currentKind == TokenKind.LPAREN){
+					acceptIt();
+					R ref = builder.thisRef(posn);
+					EL aList = parseArgumentList();
+					accept(TokenKind.RPAREN);
+					return exit("Primary", builder.callExpr(ref,aList,posn));
+				}
+				return exit("Primary", builder.refExpr(builder.thisRef(posn),posn));
+			case NEW:
+				acceptIt();
+				switch(currentKind){
+				case ID:
+					
+					int typePosn = currentPosition();
+					N newId = builder.token(Parser.this);
+					acceptIt();
+					switch(currentKind){
+					case LPAREN:
+						acceptIt();
+						accept(TokenKind.RPAREN);
+						return exit("Primary", builder.newObject(newId,typePosn,posn)); 
+					case LBOX:
+						acceptIt();
+						T eltType = builder.classType(newId,typePosn);
+						E expre = parseExpression();
+						accept(TokenKind.RBOX);
+						return exit("Primary", builder.newArray(eltType, expre,posn));
+					default:
+						parseError("Expected LPAREN or LBOX but got: "+ currentKind);
+					}
+				break;
+				case INT:
+					int intPosn = currentPosition();
+					acceptIt();
+					accept(TokenKind.LBOX);
+					E e = parseExpression();
+					accept(TokenKind.RBOX);
+					return exit("Primary", builder.newArray(builder.baseType(TypeKind.INT,intPosn),e,posn));
+				default:
+					parseError("Expected ID or INT but got: "+ currentKind);
+				}
+				break;
+				
+			default:
+				parseError("Expected LPAREN, NUM, ID, TRUE, FALSE, NEW, or THIS but got: "+ currentKind);
+			}	
 			return null;
 		}
 	}
 	
-	
-	
-	private Expression parseExpression(){
-		return parseO();
-	}
-	
-	private Expression parseO(){
-		Expression op1 = parseC();
-		while(currentToken.kind == TokenKind.BINOP && currentToken.spelling.equals("||")){
-			acceptIt();
-			Expression op2 = parseC();
-			op1 = new BinaryExpr(new Operator(new Token(TokenKind.BINOP, "||")),op1,op2, null);
+	// pass over the statements of a body, up to the brace that closes it
+	private void skipBody(){
+		int depth = 0;
+		while((currentKind != TokenKind.RBRACK || depth > 0) && currentKind != TokenKind.EOT){
+			if(currentKind == TokenKind.LBRACK)
+				depth++;
+			else if(currentKind == TokenKind.RBRACK)
+				depth--;
+			nextToken();
 		}
-		return op1;
 	}
 	
-	private Expression parseC(){
-		Expression op1 = parseE();
-		while(currentToken.kind == TokenKind.BINOP && currentToken.spelling.equals("&&")){
-			acceptIt();
-			Expression op2 = parseE();
-			op1 = new BinaryExpr(new Operator(new Token(TokenKind.BINOP, "&&")),op1,op2, null);
-		}
-		return op1;
-	}
 	
-	private Expression parseE(){
-		Expression op1 = parseR();
-		while(currentToken.kind == TokenKind.BINOP && (currentToken.spelling.equals("==") || currentToken.spelling.equals("!="))){
-			String spelling = currentToken.spelling;
+	//Visibility ::= (public | private)?
+	private boolean parseVisibility(){
+		switch(currentKind){
+		case PUBLIC: 
 			acceptIt();
-			Expression op2 = parseR();
-			op1 = new BinaryExpr(new Operator(new Token(TokenKind.BINOP, spelling)),op1,op2, null);
-		}
-		return op1;
-	}
-	
-	private Expression parseR(){
-		Expression op1 = parseA();
-		while(currentToken.kind == TokenKind.BINOP && (currentToken.spelling.equals("<=") || currentToken.spelling.equals(">=") ||
-														currentToken.spelling.equals("<") || currentToken.spelling.equals(">") )){
-			String spelling = currentToken.spelling;
+			return false;
+		case PRIVATE:
 			acceptIt();
-			Expression op2 = parseA();
-			op1 = new BinaryExpr(new Operator(new Token(TokenKind.BINOP, spelling)),op1,op2, null);
+			return true;
+		default:
+			parseError("Expected a PUBLIC or PRIVATE but got:" + currentKind);
+			return false;
 		}
-		return op1;
 	}
 	
-	
-	private Expression parseA(){
-		Expression op1 = parseM();
-		while((currentToken.kind == TokenKind.BINOP || currentToken.kind == TokenKind.DUALOP) && (currentToken.spelling.equals("+") || currentToken.spelling.equals("-"))){
-			String spelling = currentToken.spelling;
+	//Access ::= static?
+	private boolean parseAccess(){
+		switch(currentKind){
+		case STATIC:
 			acceptIt();
-			Expression op2 = parseM();
-			op1 = new BinaryExpr(new Operator(new Token(TokenKind.BINOP, spelling)),op1,op2, null);
+			return true;
+		default:
+			return false;
 		}
-		return op1;
 	}
 	
-	private Expression parseM(){
-		Expression op1 = parseU();
-		while(currentToken.kind == TokenKind.BINOP && (currentToken.spelling.equals("*") || currentToken.spelling.equals("/"))){
-			String spelling = currentToken.spelling;
-			acceptIt();
-			Expression op2 = parseU();
-			op1 = new BinaryExpr(new Operator(new Token(TokenKind.BINOP, spelling)),op1,op2, null);
-		}
-		return op1;
-	}
 	
-	private Expression parseU(){
-		if((currentToken.kind == TokenKind.UNOP || currentToken.kind == TokenKind.DUALOP) && (currentToken.spelling.equals("-"))){
-		while((currentToken.kind == TokenKind.UNOP || currentToken.kind == TokenKind.DUALOP) && currentToken.spelling.equals("-")){
-			String spelling = currentToken.spelling;
-			acceptIt();
-			Expression op = parseU();
-			return new UnaryExpr(new Operator(new Token(TokenKind.UNOP, spelling)),op,null);
-		}
-		parseX();
-		}
-		
-		else if((currentToken.kind == TokenKind.UNOP || currentToken.kind == TokenKind.DUALOP) && currentToken.spelling.equals("!")){
-			while((currentToken.kind == TokenKind.UNOP || currentToken.kind == TokenKind.DUALOP) && currentToken.spelling.equals("!")){
-				String spelling = currentToken.spelling;
-				acceptIt();
-				Expression op = parseU();
-				return new UnaryExpr(new Operator(new Token(TokenKind.UNOP, spelling)),op,null);
-			}
-			parseX();
-		}
-
-		else{
-			Expression op = parseX();
-			return op;
-		}
-		return null;
-	}
+	/*
+	 * binding strength of each binary operator, by TokenKind ordinal,
+	 * 0 for kinds that are not binary operators
+	 */
+	private static final int[] PRECEDENCE = new int[TokenKind.values().length];
 	
-	private Expression parseX(){
-		Expression op;
-		switch(currentToken.kind){
-		case LPAREN:
-			acceptIt();
-			op = parseExpression();
-			accept(TokenKind.RPAREN);
-			return op;
-		case NUM:
-			op =  new LiteralExpr(new IntLiteral(currentToken),null);
-			acceptIt();
-			return op;
-		case ID:
-			Identifier id = new Identifier(currentToken);
-			acceptIt();
-			if(currentToken.kind == TokenKind.PERIOD){
-				QualifiedRef ref = parseReference(new IdRef(id,null));
-				if(currentToken.kind == TokenKind.LPAREN){
-					acceptIt();
-					ExprList argList = parseArgumentList();
-					accept(TokenKind.RPAREN);
-					return new CallExpr(ref,argList,null);
-				}
-				return new RefExpr(ref,null);
-			}
-			else if(currentToken.kind == TokenKind.LPAREN){
-				acceptIt();
-				ExprList argList = parseArgumentList();
-				accept(TokenKind.RPAREN);
-				return new CallExpr(new IdRef(id,null),argList,null);
-			}
-			else if(currentToken.kind==TokenKind.LBOX){
-				acceptIt();
-				Expression ex = parseExpression();
-				accept(TokenKind.RBOX);
-				return new RefExpr(new IndexedRef(new IdRef(id,null),ex,null),null);
-			}
-			else return new RefExpr(new IdRef(id,null),null);
-		
-		case TRUE:
-			Token bool = currentToken;
-			acceptIt();
-			return new LiteralExpr(new BooleanLiteral(bool),null);
-		case FALSE:
-			Token bool2 = currentToken;
-			acceptIt();
-			return new LiteralExpr(new BooleanLiteral(bool2),null);
-		case THIS:
-			acceptIt();
-			if(currentToken.kind == TokenKind.PERIOD){
-				QualifiedRef ref = parseReference(new ThisRef(null) );
-				if(currentToken.kind == TokenKind.LPAREN){
-					acceptIt();
-					ExprList aList = parseArgumentList();
-					accept(TokenKind.RPAREN);
-					return new CallExpr(ref,aList,null);
-				}
-				return new RefExpr(ref,null);
-			}
-			if(currentToken.kind == TokenKind.LPAREN){
-				acceptIt();
-				Reference ref = new ThisRef(null);
-				ExprList aList = parseArgumentList();
-				accept(TokenKind.RPAREN);
-				return new CallExpr(ref,aList,null);
-			}
-			return new RefExpr(new ThisRef(null),null);
-		case NEW:
-			acceptIt();
-			switch(currentToken.kind){
-			case ID:
-				
-				ClassType newId = new ClassType(new Identifier(currentToken),null);
-				acceptIt();
-				switch(currentToken.kind){
-				case LPAREN:
-					acceptIt();
-					accept(TokenKind.RPAREN);
-					return new NewObjectExpr(newId,null); 
-				case LBOX:
-					acceptIt();
-					Expression expre = parseExpression();
-					accept(TokenKind.RBOX);
-					return new NewArrayExpr(newId, expre,null);
-				default:
-					parseError("Expected LPAREN or LBOX but got: "+ currentToken.kind);
-				}
-			break;
-			case INT:
-				acceptIt();
-				accept(TokenKind.LBOX);
-				Expression e = parseExpression();
-				accept(TokenKind.RBOX);
-				return new NewArrayExpr(new BaseType(TypeKind.INT,null),e,null);
-			default:
-				parseError("Expected ID or INT but got: "+ currentToken.kind);
-			}
-			break;
-			
-		default:
-			parseError("Expected LPAREN, NUM, ID, TRUE, FALSE, NEW, or THIS but got: "+ currentToken.kind);
-		}	
-		return null;
+	static {
+		PRECEDENCE[TokenKind.OR.ordinal()] = 1;
+		PRECEDENCE[TokenKind.AND.ordinal()] = 2;
+		PRECEDENCE[TokenKind.EQ.ordinal()] = 3;
+		PRECEDENCE[TokenKind.NEQ.ordinal()] = 3;
+		PRECEDENCE[TokenKind.LT.ordinal()] = 4;
+		PRECEDENCE[TokenKind.GT.ordinal()] = 4;
+		PRECEDENCE[TokenKind.LE.ordinal()] = 4;
+		PRECEDENCE[TokenKind.GE.ordinal()] = 4;
+		PRECEDENCE[TokenKind.PLUS.ordinal()] = 5;
+		PRECEDENCE[TokenKind.MINUS.ordinal()] = 5;
+		PRECEDENCE[TokenKind.TIMES.ordinal()] = 6;
+		PRECEDENCE[TokenKind.DIVIDE.ordinal()] = 6;
 	}
 	
 	
@@ -795,42 +1004,137 @@ public class Parser {
 	 * @throws SyntaxError  if match fails
 	 */
 	private void accept(TokenKind expectedTokenKind) throws SyntaxError {
-		if (currentToken.kind == expectedTokenKind) {
-			if (trace)
-				pTrace();
-			currentToken = scanner.scan();
+		if (currentKind == expectedTokenKind) {
+			if (tracing)
+				listener.tokenAccepted(currentToken(), currentPosition());
+			nextToken();
 		}
 		else
 			parseError("expecting '" + expectedTokenKind +
-					"' but found '" + currentToken.kind + "'");
+					"' but found '" + currentKind + "'");
 	}
 	
 	
 	private void acceptIt() throws SyntaxError {
-		accept(currentToken.kind);
+		accept(currentKind);
+	}
+	
+	/**
+	 * advance to the next token of the lexer or of the token buffer
+	 */
+	private void nextToken() {
+		if (tokens != null) {
+			currentKind = tokens.kind(++index);
+		}
+		else {
+			currentToken = scanner.scan();
+			currentKind = currentToken.kind;
+		}
+	}
+	
+	/**
+	 * @return source offset of the current token
+	 */
+	int currentPosition() {
+		if (tokens != null)
+			return tokens.start(index);
+		return scanner.position();
+	}
+	
+	Token currentToken() {
+		if (tokens != null)
+			return tokens.token(index);
+		return currentToken;
+	}
+	
+	TokenKind currentKind() {
+		return currentKind;
+	}
+	
+	/**
+	 * @return index of the current token in the TokenBuffer parsed from
+	 */
+	int currentIndex() {
+		return index;
 	}
 	
 	
 	
 	/**
-	 * report parse error and unwind call stack to start of parse
+	 * report parse error and unwind call stack to the rule that recovers;
+	 * an error at the token of the one before it is a consequence of that
+	 * one and is not reported again
 	 * @param e  string with error detail
 	 * @throws SyntaxError
 	 */
 	private void parseError(String e) throws SyntaxError {
-		reporter.reportError("Parse error: " + e);
-		throw new SyntaxError();
+		int posn = currentPosition();
+		if (errors == 0 || posn != lastErrorPosn) {
+			lastErrorPosn = posn;
+			reporter.reportError("Parse error: " + e, posn);
+			if (++errors == errorLimit)
+				reporter.reportError("Parse error: too many errors, giving up", posn);
+		}
+		throw SYNTAX_ERROR;
+	}
+	
+	/**
+	 * panic mode: pass over tokens to the end of the statement or member
+	 * the error was in, the ';' ending it or the '}' closing a block opened
+	 * in it, or up to a '}' closing the enclosing block, or a class
+	 * @throws SyntaxError  once the error limit is reached, or at a scan
+	 *                      error, which a TokenBuffer ends at
+	 */
+	private void recover() throws SyntaxError {
+		if (errors >= errorLimit)
+			throw SYNTAX_ERROR;
+		int depth = 0;
+		while (currentKind != TokenKind.CLASS && currentKind != TokenKind.EOT) {
+			if (currentKind == TokenKind.ERROR)
+				throw SYNTAX_ERROR;
+			if (currentKind == TokenKind.LBRACK)
+				depth++;
+			else if (currentKind == TokenKind.RBRACK) {
+				if (depth == 0)
+					return;
+				if (--depth == 0) {
+					nextToken();
+					return;
+				}
+			}
+			else if (currentKind == TokenKind.SEMI && depth == 0) {
+				nextToken();
+				return;
+			}
+			nextToken();
+		}
+	}
+	
+	/**
+	 * pass over tokens to the next class
+	 * @throws SyntaxError  once the error limit is reached, or at a scan error
+	 */
+	private void recoverClass() throws SyntaxError {
+		if (errors >= errorLimit)
+			throw SYNTAX_ERROR;
+		while (currentKind != TokenKind.CLASS && currentKind != TokenKind.EOT) {
+			if (currentKind == TokenKind.ERROR)
+				throw SYNTAX_ERROR;
+			nextToken();
+		}
 	}
 
-	// show parse stack whenever terminal is  accepted
-	private void pTrace() {
-		StackTraceElement [] stl = Thread.currentThread().getStackTrace();
-		for (int i = stl.length - 1; i > 0 ; i--) {
-			if(stl[i].toString().contains("parse"))
-				System.out.println(stl[i]);
-		}
-		System.out.println("accepting: " + currentToken.kind + " (\"" + currentToken.spelling + "\")");
-		System.out.println();
+	// tracing events, a single untaken branch when no listener is set
+	
+	private void enter(String rule) {
+		if (tracing)
+			listener.enterRule(rule, currentPosition());
+	}
+	
+	private <T> T exit(String rule, T result) {
+		if (tracing)
+			listener.exitRule(rule, currentPosition());
+		return result;
 	}
 
 }
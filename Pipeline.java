@@ -0,0 +1,183 @@
+package miniJava;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import miniJava.AbstractSyntaxTrees.ASTDisplay;
+import miniJava.AbstractSyntaxTrees.ClassDecl;
+import miniJava.AbstractSyntaxTrees.FlatAST;
+import miniJava.AbstractSyntaxTrees.MethodDecl;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.AbstractSyntaxTrees.StatementList;
+import miniJava.AbstractSyntaxTrees.StreamingChecker;
+import miniJava.SyntacticAnalyzer.Parser;
+
+/*
+ * Compiles a program one class at a time.
+ *
+ * A first parse reads only the declarations into a skeleton Package: every
+ * class with its fields and method headers, the method bodies passed over.
+ * A second parse then reads the classes one at a time.  The method bodies of
+ * each are moved into its class in the skeleton, which goes through every
+ * stage in turn (display, identification, type checking, and any stage
+ * added after them), and then the bodies are dropped again.  References to
+ * other classes only need their declarations, which the skeleton has, so
+ * the AST held at any time is the skeleton and the bodies of one class,
+ * however large the program.
+ *
+ * Each class is through all the stages before the next one is parsed, so
+ * what is reported for a class comes even when a later class has a syntax
+ * error, and its type errors even when a later class has identification
+ * errors.
+ * If the declarations do not parse, the second parser parses the whole
+ * program instead, which reports its syntax errors.  A class with a syntax
+ * error in a body ends the run, after the rest of the program is parsed
+ * for the syntax errors in it.
+ *
+ * A program already parsed into a FlatAST goes through the same way, its
+ * skeleton and the bodies of each class made from the arrays in turn.
+ */
+public class Pipeline {
+
+	/**
+	 * a consumer of the classes of a program, in source order
+	 */
+	public interface Stage {
+		/**
+		 * @param skeleton  the declarations of every class, without bodies
+		 */
+		void begin(Package skeleton);
+		/**
+		 * @param cd  a class of the skeleton, with its bodies until process returns
+		 */
+		void process(ClassDecl cd);
+		void end();
+	}
+
+	private List<Stage> stages = new ArrayList<Stage>();
+
+	public void add(Stage stage) {
+		stages.add(stage);
+	}
+
+	/**
+	 * run the classes of a program through the stages
+	 * @param declarations  parser for the skeleton, reporting to a throwaway reporter
+	 * @param classes       parser for the classes, over the same tokens
+	 * @return false if there was a syntax error
+	 */
+	public boolean run(Parser declarations, Parser classes) {
+		Package skeleton = declarations.parseDeclarations();
+		if (skeleton == null) {
+			classes.parse();
+			return false;
+		}
+		ClassDecl[] order = begin(skeleton);
+		classes.startClasses();
+		for (ClassDecl cd : order) {
+			ClassDecl parsed = classes.parseClass();
+			if (parsed == null) {
+				classes.parseRest();
+				return false;
+			}
+			for (int m = 0; m < cd.methodDeclList.size(); m++)
+				cd.methodDeclList.get(m).statementList = parsed.methodDeclList.get(m).statementList;
+			process(cd);
+		}
+		if (!classes.parseEnd())
+			return false;
+		for (Stage s : stages)
+			s.end();
+		return true;
+	}
+
+	/**
+	 * run the classes of a program parsed into a FlatAST through the stages
+	 */
+	public void run(FlatAST tree) {
+		ClassDecl[] order = begin(tree.skeleton());
+		int c = tree.firstChild(tree.root());
+		for (ClassDecl cd : order) {
+			int m = 0;
+			for (int n = tree.firstChild(c); n != FlatAST.NIL; n = tree.nextSibling(n))
+				if (tree.kind(n) == FlatAST.METHOD)
+					cd.methodDeclList.get(m++).statementList = tree.body(n);
+			process(cd);
+			c = tree.nextSibling(c);
+		}
+		for (Stage s : stages)
+			s.end();
+	}
+
+	/**
+	 * begin the stages on skeleton
+	 * @return the classes of the program, before stages add classes of their own
+	 */
+	private ClassDecl[] begin(Package skeleton) {
+		ClassDecl[] order = new ClassDecl[skeleton.classDeclList.size()];
+		for (int c = 0; c < order.length; c++)
+			order[c] = skeleton.classDeclList.get(c);
+		for (Stage s : stages)
+			s.begin(skeleton);
+		return order;
+	}
+
+	// cd with its bodies in place through every stage, then the bodies dropped
+	private void process(ClassDecl cd) {
+		for (Stage s : stages)
+			s.process(cd);
+		for (MethodDecl m : cd.methodDeclList)
+			m.statementList = new StatementList();
+	}
+
+
+	/**
+	 * shows the AST of each class, as ASTDisplay shows a whole program
+	 */
+	public static class Display implements Stage {
+		private ASTDisplay display = new ASTDisplay();
+
+		public void begin(Package skeleton) {
+			display.beginTree(skeleton);
+		}
+
+		public void process(ClassDecl cd) {
+			display.showClass(cd);
+		}
+
+		public void end() {
+			display.endTree();
+		}
+	}
+
+	/**
+	 * identifies and type checks each class
+	 */
+	public static class Check implements Stage {
+		private StreamingChecker checker;
+
+		public Check(StreamingChecker checker) {
+			this.checker = checker;
+		}
+
+		public void begin(Package skeleton) {
+			checker.begin(skeleton);
+		}
+
+		public void process(ClassDecl cd) {
+			checker.identify(cd);
+			checker.typeCheck(cd);
+		}
+
+		public void end() {
+			checker.end();
+		}
+
+		/**
+		 * @return whether no class failed identification
+		 */
+		public boolean identified() {
+			return checker.identified();
+		}
+	}
+}
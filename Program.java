@@ -0,0 +1,44 @@
+package miniJava.CodeGenerator;
+
+/*
+ * The code of a whole program, made by Generator and run by VM: every
+ * method, the number of static fields, how many int and reference fields
+ * an object of each class has, and which method is main.
+ */
+public final class Program {
+
+	final Method[] methods;
+	final int statics;
+	final int[] intFields;
+	final int[] refFields;
+	final int main;
+
+	Program(Method[] methods, int statics, int[] intFields, int[] refFields, int main) {
+		this.methods = methods;
+		this.statics = statics;
+		this.intFields = intFields;
+		this.refFields = refFields;
+		this.main = main;
+	}
+
+	/**
+	 * @return the code of every method, an instruction a line
+	 */
+	public String disassemble() {
+		StringBuilder sb = new StringBuilder();
+		for (int m = 0; m < methods.length; m++) {
+			Method method = methods[m];
+			sb.append(m).append(": ").append(method.name).append(", ").append(method.args)
+				.append(" args, ").append(method.locals).append(" locals, stack ").append(method.maxStack).append('\n');
+			int[] code = method.code;
+			for (int pc = 0; pc < code.length; pc++) {
+				int op = code[pc];
+				sb.append(String.format("%6d  %s", pc, Bytecode.NAMES[op]));
+				if (Bytecode.hasOperand(op))
+					sb.append(' ').append(code[++pc]);
+				sb.append('\n');
+			}
+		}
+		return sb.toString();
+	}
+}
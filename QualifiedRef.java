@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class QualifiedRef extends Reference {
 	
-	public QualifiedRef(Reference ref, Identifier id, SourcePosition posn){
+	public QualifiedRef(Reference ref, Identifier id, int posn){
 		super(posn);
 		this.ref = ref;
 		this.id  = id;
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class RefExpr extends Expression
 {
-    public RefExpr(Reference r, SourcePosition posn){
+    public RefExpr(Reference r, int posn){
         super(posn);
         ref = r;
     }
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public abstract class Reference extends AST
 {
-	public Reference(SourcePosition posn){
+	public Reference(int posn){
 		super(posn);
 	}
 
@@ -5,12 +5,10 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class ReturnStmt extends Statement 
 {
 
-	public ReturnStmt(Expression e, SourcePosition posn){
+	public ReturnStmt(Expression e, int posn){
 		super(posn);
 		returnExpr = e;
 	}
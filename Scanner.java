@@ -36,22 +36,19 @@ import miniJava.ErrorReporter;
  * 
  * 
  */
-public class Scanner {
+public class Scanner implements Lexer {
 	
 	
-	private InputStream inputStream;
+	private CharSource source;
 	private ErrorReporter reporter;
+	private SymbolTable symbols;
 
 	private char currentChar;
-	private StringBuilder currentSpelling;
-	private String testSpelling;
+	private StringBuilder currentSpelling = new StringBuilder();
 	
-	private boolean lineComment = false;
-	private boolean multiLineComment = false;
-	private boolean comment = false;
 	private boolean eot = false; 
+	private int tokenStart = SourcePosition.NONE;
 	
-	private Set<String> KeyWords = new HashSet<String>(Arrays.asList("class", "boolean", "public", "private", "static", "int", "if","while","else","this", "new","void","true","false","return"));
 	private Set<Character> idSymbols = new HashSet<Character>(Arrays.asList('a','b','c','d','e','f','g','h','i','j',
 																			'k','l', 'm', 'n', 'o','p', 'q','r', 's',
 																			't', 'u','v','w','x','y','z', 
@@ -63,112 +60,91 @@ public class Scanner {
 	
 	
 	public Scanner(InputStream inputStream, ErrorReporter reporter) {
-		this.inputStream = inputStream;
+		this(new BufferedCharSource(inputStream), reporter);
+	}
+	
+	public Scanner(CharSource source, ErrorReporter reporter) {
+		this(source, reporter, new SymbolTable());
+	}
+	
+	/**
+	 * scanner interning identifiers in symbols, which may be shared with other scanners
+	 */
+	public Scanner(CharSource source, ErrorReporter reporter, SymbolTable symbols) {
+		this.source = source;
 		this.reporter = reporter;
+		this.symbols = symbols;
 
 		// initialize scanner state
 		readChar();
 	}
 		/**
-		 * skip whitespace and scan next token
+		 * skip whitespace and comments and scan next token
 		 * @return token
 		 */
 		public Token scan() {
-			boolean skip = true;
-			// skip whitespace and comments
-			while (!eot && notAChar() )
-				skipIt();
-
-			// collect spelling and identify token kind
-			currentSpelling = new StringBuilder();
-			TokenKind kind = scanToken();
-			
-			while(kind == TokenKind.OPENCOMMENT || kind == TokenKind.COMMENT){
-			if(kind == TokenKind.OPENCOMMENT){
-				skip = false;
-				while (kind != TokenKind.CLOSECOMMENT){
-					if(kind == TokenKind.EOT) return new Token(TokenKind.ERROR, currentSpelling.toString());
-					currentSpelling = new StringBuilder();
-					kind = scanToken();
-					while(kind==TokenKind.ERROR && (comment||lineComment)){
-						skipIt();
-						kind = scanToken();
-					}
-				}
-			}	
-			while(kind == TokenKind.COMMENT){
-				skip = true;
-				currentSpelling = new StringBuilder();
+			// collect spelling and identify token kind, comments are skipped whole
+			TokenKind kind;
+			do {
+				currentSpelling.setLength(0);
 				kind = scanToken();
-			}
+			} while (kind == TokenKind.COMMENT);
 			
-			if(!skip&&!eot){	
-				currentSpelling = new StringBuilder();
-				kind = scanToken();
-			}
-			
-			}
-			// return new token
-			return new Token(kind, currentSpelling.toString());
+			// return token, shared when the kind has a fixed spelling
+			if (kind == TokenKind.ID)
+				return Token.identifier(currentSpelling, symbols);
+			return Token.make(kind, currentSpelling);
 		}
 		
-		private boolean notAChar(){
-			if(currentChar == eolUnix ||
-				currentChar == eolWindows ||
-				currentChar == tab ||
-				currentChar == ' '){
-				return true;
-			}
-			else if(lineComment || multiLineComment) return true;
-			
-			else return false;
+		public int position() {
+			return tokenStart;
+		}
+		
+		public SymbolTable symbols() {
+			return symbols;
 		}
 		
 		public TokenKind scanToken() {
 			
+			skipWhitespace();
+			tokenStart = charStart();
 			if (eot)
 				return(TokenKind.EOT); 
-			
-			while(notAChar()){
-				skipIt();
-			}
 
 			// scan Token
 			switch (currentChar) {
 			case '+':   
 				takeIt();
-				return(TokenKind.BINOP);
+				return(TokenKind.PLUS);
 				
 			case '-':
 				takeIt();
 				if(currentChar == '-') return TokenKind.ERROR;
-				return TokenKind.DUALOP;
+				return TokenKind.MINUS;
 			case '*':
 				takeIt();
 				if(currentChar == '/'){
-					skipIt();
-					comment = false;
+					takeIt();
 					return TokenKind.CLOSECOMMENT;
 				}
-				else return TokenKind.BINOP;
+				else return TokenKind.TIMES;
 				
 			case '/':
 				takeIt();
 				if(currentChar=='*'){
-					skipIt();
-					comment = true;
-					return TokenKind.OPENCOMMENT;
+					if(!skipBlockComment()){
+						// the error is the "/*" left open, where the comment starts
+						currentSpelling.append('*');
+						reporter.reportError("Scan Error:  Unterminated comment", tokenStart);
+						return TokenKind.ERROR;
+					}
+					return TokenKind.COMMENT;
 				}
 				else if(currentChar == '/'){
-					lineComment = true;
-					skipIt();
-					while(lineComment&&!eot){
-						skipIt();
-					}
-					if(eot) return TokenKind.EOT;
+					skipLineComment();
 					return TokenKind.COMMENT;
 				}
-				else return TokenKind.BINOP;
+				else return TokenKind.DIVIDE;
 				
 			case ';':
 				takeIt();
@@ -176,30 +152,38 @@ public class Scanner {
 
 			case '&':
 				takeIt();
-				if(currentChar == '&'){ takeIt(); return TokenKind.BINOP;}
+				if(currentChar == '&'){ takeIt(); return TokenKind.AND;}
 				else{
 					scanError("Expected a & but got a: " + currentChar);
 					return TokenKind.ERROR;
 				}
 			case '|':
 				takeIt();
-				if(currentChar == '|'){ takeIt(); return TokenKind.BINOP;}
-				else scanError("Expected a | but got a: " + currentChar);
+				if(currentChar == '|'){ takeIt(); return TokenKind.OR;}
+				else{
+					scanError("Expected a | but got a: " + currentChar);
+					return TokenKind.ERROR;
+				}
 			
 			case '=':
 				takeIt();
-				if(currentChar == '='){ takeIt(); return TokenKind.BINOP;}
+				if(currentChar == '='){ takeIt(); return TokenKind.EQ;}
 				else return TokenKind.EQUALS;
 			
-			case '>': case '<':
+			case '>':
 				takeIt();
-				if(currentChar=='='){takeIt(); return TokenKind.BINOP;}
-				else return TokenKind.BINOP;
+				if(currentChar=='='){takeIt(); return TokenKind.GE;}
+				else return TokenKind.GT;
+				
+			case '<':
+				takeIt();
+				if(currentChar=='='){takeIt(); return TokenKind.LE;}
+				else return TokenKind.LT;
 			
 			case '!':
 				takeIt();
-				if(currentChar=='='){takeIt(); return TokenKind.BINOP;}
-				else return TokenKind.UNOP;
+				if(currentChar=='='){takeIt(); return TokenKind.NEQ;}
+				else return TokenKind.NOT;
 			case '(': 
 				takeIt();
 				return(TokenKind.LPAREN);
@@ -249,24 +233,16 @@ public class Scanner {
 				while(isIdSymbol()){
 					takeIt();
 				}
-				testSpelling = currentSpelling.toString();
-				if(isKeyWord()){
-					return TokenKind.KEYWORD;
+				TokenKind keyword = Token.keyword(currentSpelling);
+				if(keyword != null){
+					return keyword;
 				}
 				else return TokenKind.ID;
 
 			default:
-				if(!lineComment && !comment){
-					if(eot) return TokenKind.EOT;
-					else{
-						scanError("Unrecognized character '" + currentChar + "' in input");
-						return(TokenKind.ERROR);
-					}
-				}
-				
-					
-				else return(TokenKind.ERROR);
-				
+				scanError("Unrecognized character '" + currentChar + "' in input");
+				takeIt();
+				return(TokenKind.ERROR);
 			}
 		}
 		
@@ -278,13 +254,6 @@ public class Scanner {
 			else return false;
 		}
 		
-		private boolean isKeyWord(){
-			if(KeyWords.contains(testSpelling)){
-				return true;
-			}
-			else return false;
-		}
-		
 		private void takeIt() {
 			currentSpelling.append(currentChar);
 			nextChar();
@@ -299,7 +268,7 @@ public class Scanner {
 		}
 
 		private void scanError(String m) {
-			reporter.reportError("Scan Error:  " + m);
+			reporter.reportError("Scan Error:  " + m, charStart());
 		}
 
 
@@ -315,26 +284,68 @@ public class Scanner {
 			if (!eot)
 				readChar();
 		}
-		//currentChar == eolUnix
 		private void readChar() {
 			try {
-				int c = inputStream.read();
-				currentChar = (char) c;
-				if (c == -1 ) {
+				setChar(source.read());
+			} catch (IOException e) {
+				scanError("I/O Exception!");
+				eot = true;
+			}
+		}
+		
+		// offset of currentChar in the source
+		private int charStart() {
+			long offset = source.start(eot ? -1 : currentChar);
+			return offset > Integer.MAX_VALUE ? SourcePosition.NONE : (int) offset;
+		}
+		
+		private void setChar(int c) {
+			currentChar = (char) c;
+			if (c == -1 ) {
+				eot = true;
+			}
+		}
+		
+		/*
+		 * Whitespace and comment text are skipped in bulk by the CharSource
+		 */
+		
+		private void skipWhitespace() {
+			if (eot || !(currentChar == ' ' || currentChar == tab ||
+					currentChar == eolUnix || currentChar == eolWindows))
+				return;
+			try {
+				setChar(source.skipWhitespace());
+			} catch (IOException e) {
+				scanError("I/O Exception!");
+				eot = true;
+			}
+		}
+		
+		// currentChar is the second slash of the comment
+		private void skipLineComment() {
+			try {
+				setChar(source.skipLineComment());
+			} catch (IOException e) {
+				scanError("I/O Exception!");
+				eot = true;
+			}
+		}
+		
+		// currentChar is the star opening the comment
+		// returns false if the input ends inside the comment
+		private boolean skipBlockComment() {
+			try {
+				if (!source.skipBlockComment()) {
 					eot = true;
+					return false;
 				}
-				if(c == eolUnix || c == eolWindows){
-					if(!lineComment) skipIt();
-					else lineComment = false;
-				}
-				
-				if(c == tab){
-					skipIt();
-				}
-				
 			} catch (IOException e) {
 				scanError("I/O Exception!");
 				eot = true;
+				return false;
 			}
+			readChar();
+			return true;
 		}
 }
@@ -0,0 +1,71 @@
+package miniJava.Interpreter;
+
+import java.util.IdentityHashMap;
+
+import miniJava.AbstractSyntaxTrees.BlockStmt;
+import miniJava.AbstractSyntaxTrees.IfStmt;
+import miniJava.AbstractSyntaxTrees.LocalDecl;
+import miniJava.AbstractSyntaxTrees.MethodDecl;
+import miniJava.AbstractSyntaxTrees.Statement;
+import miniJava.AbstractSyntaxTrees.StatementList;
+import miniJava.AbstractSyntaxTrees.VarDeclStmt;
+import miniJava.AbstractSyntaxTrees.WhileStmt;
+
+/*
+ * The frame slots of a method: one of its own for each parameter and
+ * local variable, in any block, in the int or the reference array.
+ */
+final class Slots {
+
+	final int[] params;
+	private IdentityHashMap<LocalDecl, Integer> slots = new IdentityHashMap<LocalDecl, Integer>();
+	private int ints;
+	private int refs;
+
+	Slots(MethodDecl m) {
+		int n = m.parameterDeclList.size();
+		params = new int[n];
+		for (int i = 0; i < n; i++)
+			params[i] = allocate(m.parameterDeclList.get(i));
+		allocate(m.statementList);
+	}
+
+	/**
+	 * @return a frame for a call of the method on self
+	 */
+	Frame frame(Object self) {
+		return new Frame(self, ints, refs);
+	}
+
+	/**
+	 * @return frame slot of a parameter or local variable
+	 */
+	int slot(LocalDecl decl) {
+		return slots.get(decl);
+	}
+
+	private void allocate(StatementList sl) {
+		for (Statement s : sl)
+			allocate(s);
+	}
+
+	private void allocate(Statement s) {
+		if (s instanceof VarDeclStmt)
+			allocate(((VarDeclStmt) s).varDecl);
+		else if (s instanceof BlockStmt)
+			allocate(((BlockStmt) s).sl);
+		else if (s instanceof IfStmt) {
+			allocate(((IfStmt) s).thenStmt);
+			if (((IfStmt) s).elseStmt != null)
+				allocate(((IfStmt) s).elseStmt);
+		}
+		else if (s instanceof WhileStmt)
+			allocate(((WhileStmt) s).body);
+	}
+
+	private int allocate(LocalDecl decl) {
+		int slot = Layout.isRef(decl.type) ? refs++ : ints++;
+		slots.put(decl, slot);
+		return slot;
+	}
+}
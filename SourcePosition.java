@@ -1,5 +1,110 @@
 package miniJava.SyntacticAnalyzer;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/*
+ * Positions in a source file.
+ *
+ * A position is a plain int, the byte offset of the first character of a
+ * token in the file, or NONE.  AST nodes and diagnostics carry just that
+ * offset, so recording positions costs nothing per node.
+ *
+ * One SourcePosition per file turns offsets into line and column.  The
+ * table of line start offsets is built the first time it is needed, by
+ * which point a diagnostic is being printed or the AST displayed; a
+ * compile without errors never builds it.
+ */
 public class SourcePosition {
 
+	public static final int NONE = -1;
+
+	private final Path path;
+	private byte[] source;	// read again from path on demand
+	private int[] lineStart;	// offset of the first byte of each line, built on demand
+
+	/**
+	 * positions in a file, which is read again only if a line table is needed
+	 */
+	public SourcePosition(Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * positions in a source already in memory
+	 */
+	public SourcePosition(byte[] source) {
+		this.path = null;
+		this.source = source;
+	}
+
+	/**
+	 * @return line number (from 1) of offset posn, or 0 if unknown
+	 */
+	public int line(int posn) {
+		int[] lines = lines();
+		if (posn < 0 || lines == null)
+			return 0;
+		int i = Arrays.binarySearch(lines, posn);
+		return i >= 0 ? i + 1 : -i - 1;
+	}
+
+	/**
+	 * @return column number (from 1, in characters as the scanners decode
+	 *         them) of offset posn, or 0 if unknown
+	 */
+	public int column(int posn) {
+		int line = line(posn);
+		if (line == 0)
+			return 0;
+		int begin = lineStart[line - 1];
+		return Utf8CharSource.characters(source, begin, Math.min(posn, source.length)) + 1;
+	}
+
+	/**
+	 * @return "line:column" for offset posn
+	 */
+	public String toString(int posn) {
+		if (posn == NONE)
+			return "?";
+		int line = line(posn);
+		if (line == 0)
+			return "@" + posn;
+		return line + ":" + column(posn);
+	}
+
+	/**
+	 * line start table, built on first use, with the source kept for
+	 * counting columns
+	 * @return the table, or null if the source can no longer be read
+	 */
+	private synchronized int[] lines() {
+		if (lineStart != null)
+			return lineStart;
+		byte[] text = source;
+		if (text == null) {
+			try {
+				text = Files.readAllBytes(path);
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		int[] starts = new int[64];
+		int count = 1;
+		int n = text.length;
+		for (int i = 0; i < n; i++) {
+			byte b = text[i];
+			if (b == '\n' || (b == '\r' && (i + 1 == n || text[i + 1] != '\n'))) {
+				if (count == starts.length)
+					starts = Arrays.copyOf(starts, count * 2);
+				starts[count++] = i + 1;
+			}
+		}
+		lineStart = Arrays.copyOf(starts, count);
+		source = text;
+		return lineStart;
+	}
 }
@@ -0,0 +1,467 @@
+package miniJava.Interpreter;
+
+import java.io.PrintStream;
+import java.util.IdentityHashMap;
+
+import miniJava.AbstractSyntaxTrees.*;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.SyntacticAnalyzer.TokenKind;
+
+/*
+ * Builds the specialized node for an AST node the first time its
+ * placeholder runs.
+ *
+ * The visit of a statement or expression returns the node for its case,
+ * decided from the declarations and types the checker has left in the AST:
+ * a store into a local int slot, a call of one Function, an int or a
+ * reference comparison.  Its children are placeholders, specialized in
+ * turn when they first run.  A reference visited as a value gives the node
+ * that reads it; an assigned reference is turned into a store by store().
+ *
+ * Field slots are laid out for every class up front; a Function is made
+ * for a method when a call of it is first specialized.
+ *
+ * implements Visitor<argtype,resulttype>, the argument the method being
+ * specialized, for the slots of its variables
+ */
+final class Specializer implements Visitor<Function, Node> {
+
+	private PrintStream out;
+	private MethodDecl println;
+	private IdentityHashMap<ClassDecl, Layout> layouts = new IdentityHashMap<ClassDecl, Layout>();
+	private IdentityHashMap<FieldDecl, Layout> owners = new IdentityHashMap<FieldDecl, Layout>();
+	private IdentityHashMap<FieldDecl, Integer> fieldSlots = new IdentityHashMap<FieldDecl, Integer>();
+	private IdentityHashMap<MethodDecl, Function> functions = new IdentityHashMap<MethodDecl, Function>();
+
+	/**
+	 * @param prog  a checked program, with the predefined classes
+	 * @param out   where System.out.println prints
+	 */
+	Specializer(Package prog, PrintStream out) {
+		this.out = out;
+		for (ClassDecl cd : prog.classDeclList) {
+			Layout layout = new Layout(cd, fieldSlots);
+			layouts.put(cd, layout);
+			for (FieldDecl f : cd.fieldDeclList)
+				owners.put(f, layout);
+			if (cd.name.equals("_PrintStream"))
+				println = (MethodDecl) cd.member("println");
+		}
+		// System.out, which only println is called on
+		for (ClassDecl cd : prog.classDeclList) {
+			MemberDecl f = cd.member("out");
+			if (cd.name.equals("System") && f instanceof FieldDecl && f.isStatic)
+				layouts.get(cd).staticRefs[fieldSlots.get(f)] = new Instance(0, 0);
+		}
+	}
+
+	Function function(MethodDecl m) {
+		Function fn = functions.get(m);
+		if (fn == null) {
+			fn = new Function(this, m);
+			functions.put(m, fn);
+		}
+		return fn;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// PLACEHOLDERS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	StmtNode lazy(Statement s, Function fn) {
+		return new LazyStmt(s, fn);
+	}
+
+	/**
+	 * @param ast  an expression, or a reference for its value
+	 */
+	ExprNode lazy(AST ast, Function fn) {
+		return new LazyExpr(ast, fn);
+	}
+
+	private ExprNode[] lazy(ExprList el, Function fn) {
+		ExprNode[] nodes = new ExprNode[el.size()];
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i] = lazy(el.get(i), fn);
+		return nodes;
+	}
+
+	private final class LazyStmt extends StmtNode {
+		private final Statement ast;
+		private final Function function;
+
+		LazyStmt(Statement ast, Function function) {
+			this.ast = ast;
+			this.function = function;
+		}
+
+		boolean execute(Frame f) {
+			return replace((StmtNode) ast.visit(Specializer.this, function)).execute(f);
+		}
+	}
+
+	private final class LazyExpr extends ExprNode {
+		private final AST ast;
+		private final Function function;
+
+		LazyExpr(AST ast, Function function) {
+			this.ast = ast;
+			this.function = function;
+		}
+
+		private ExprNode specialize() {
+			return replace((ExprNode) ast.visit(Specializer.this, function));
+		}
+
+		int executeInt(Frame f) {
+			return specialize().executeInt(f);
+		}
+
+		boolean executeBoolean(Frame f) {
+			return specialize().executeBoolean(f);
+		}
+
+		Object executeObject(Frame f) {
+			return specialize().executeObject(f);
+		}
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// TYPES OF REFERENCES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	// of any reference but this
+	private static Type typeOf(Reference ref) {
+		if (ref instanceof IdRef)
+			return ((IdRef) ref).id.decl.type;
+		if (ref instanceof QualifiedRef) {
+			Declaration decl = ((QualifiedRef) ref).id.decl;
+			// the length of an array
+			return decl == null ? Types.INT : decl.type;
+		}
+		return elementType((IndexedRef) ref);
+	}
+
+	private static Type elementType(IndexedRef ir) {
+		return ((ArrayType) typeOf(ir.idRef)).eltType;
+	}
+
+	private static boolean isRef(Expression e) {
+		if (e instanceof RefExpr) {
+			Reference ref = ((RefExpr) e).ref;
+			return ref instanceof ThisRef || Layout.isRef(typeOf(ref));
+		}
+		if (e instanceof CallExpr)
+			return Layout.isRef(declOf(((CallExpr) e).functionRef).type);
+		return e instanceof NewObjectExpr || e instanceof NewArrayExpr;
+	}
+
+	private static Declaration declOf(Reference ref) {
+		if (ref instanceof IdRef)
+			return ((IdRef) ref).id.decl;
+		return ((QualifiedRef) ref).id.decl;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// NOT EXECUTED
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Node visitPackage(Package prog, Function fn) {
+		return null;
+	}
+
+	public Node visitClassDecl(ClassDecl cd, Function fn) {
+		return null;
+	}
+
+	public Node visitFieldDecl(FieldDecl fd, Function fn) {
+		return null;
+	}
+
+	public Node visitMethodDecl(MethodDecl md, Function fn) {
+		return null;
+	}
+
+	public Node visitParameterDecl(ParameterDecl pd, Function fn) {
+		return null;
+	}
+
+	public Node visitVarDecl(VarDecl decl, Function fn) {
+		return null;
+	}
+
+	public Node visitBaseType(BaseType type, Function fn) {
+		return null;
+	}
+
+	public Node visitClassType(ClassType type, Function fn) {
+		return null;
+	}
+
+	public Node visitArrayType(ArrayType type, Function fn) {
+		return null;
+	}
+
+	public Node visitIdentifier(Identifier id, Function fn) {
+		return null;
+	}
+
+	public Node visitOperator(Operator op, Function fn) {
+		return null;
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// STATEMENTS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Node visitBlockStmt(BlockStmt stmt, Function fn) {
+		StmtNode[] statements = new StmtNode[stmt.sl.size()];
+		for (int i = 0; i < statements.length; i++)
+			statements[i] = lazy(stmt.sl.get(i), fn);
+		return new StmtNodes.Block(statements);
+	}
+
+	public Node visitVardeclStmt(VarDeclStmt stmt, Function fn) {
+		int slot = fn.slot(stmt.varDecl);
+		ExprNode value = lazy(stmt.initExp, fn);
+		if (Layout.isRef(stmt.varDecl.type))
+			return new StmtNodes.LocalRefStore(slot, value);
+		return new StmtNodes.LocalIntStore(slot, value);
+	}
+
+	public Node visitAssignStmt(AssignStmt stmt, Function fn) {
+		return store(stmt.ref, lazy(stmt.val, fn), fn);
+	}
+
+	public Node visitIxAssignStmt(IxAssignStmt stmt, Function fn) {
+		return store(stmt.ixRef, lazy(stmt.val, fn), fn);
+	}
+
+	public Node visitCallStmt(CallStmt stmt, Function fn) {
+		if (declOf(stmt.methodRef) == println)
+			return new StmtNodes.Print(out, lazy(stmt.argList.get(0), fn));
+		return new StmtNodes.CallStmt(call(stmt.methodRef, stmt.argList, fn));
+	}
+
+	public Node visitReturnStmt(ReturnStmt stmt, Function fn) {
+		if (stmt.returnExpr == null)
+			return new StmtNodes.VoidReturn();
+		ExprNode value = lazy(stmt.returnExpr, fn);
+		if (Layout.isRef(fn.decl.type))
+			return new StmtNodes.RefReturn(value);
+		return new StmtNodes.IntReturn(value);
+	}
+
+	public Node visitIfStmt(IfStmt stmt, Function fn) {
+		StmtNode elseStmt = stmt.elseStmt == null ? null : lazy(stmt.elseStmt, fn);
+		return new StmtNodes.If(lazy(stmt.cond, fn), lazy(stmt.thenStmt, fn), elseStmt);
+	}
+
+	public Node visitWhileStmt(WhileStmt stmt, Function fn) {
+		return new StmtNodes.While(lazy(stmt.cond, fn), lazy(stmt.body, fn));
+	}
+
+	/**
+	 * @return the statement storing value into what ref names
+	 */
+	private StmtNode store(Reference ref, ExprNode value, Function fn) {
+		if (ref instanceof IndexedRef) {
+			IndexedRef ir = (IndexedRef) ref;
+			ExprNode array = lazy(ir.idRef, fn);
+			ExprNode index = lazy(ir.indexExpr, fn);
+			if (Layout.isRef(elementType(ir)))
+				return new StmtNodes.RefElementStore(array, index, value);
+			return new StmtNodes.IntElementStore(array, index, value);
+		}
+		Declaration decl = declOf(ref);
+		if (decl instanceof LocalDecl) {
+			int slot = fn.slot((LocalDecl) decl);
+			if (Layout.isRef(decl.type))
+				return new StmtNodes.LocalRefStore(slot, value);
+			return new StmtNodes.LocalIntStore(slot, value);
+		}
+		FieldDecl fd = (FieldDecl) decl;
+		int slot = fieldSlots.get(fd);
+		if (fd.isStatic) {
+			Layout owner = owners.get(fd);
+			if (Layout.isRef(fd.type))
+				return new StmtNodes.StaticRefStore(owner.staticRefs, slot, value);
+			return new StmtNodes.StaticIntStore(owner.staticInts, slot, value);
+		}
+		ExprNode object = ref instanceof QualifiedRef ? lazy(((QualifiedRef) ref).ref, fn) : new ExprNodes.This();
+		if (Layout.isRef(fd.type))
+			return new StmtNodes.FieldRefStore(object, slot, value);
+		return new StmtNodes.FieldIntStore(object, slot, value);
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// EXPRESSIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Node visitUnaryExpr(UnaryExpr expr, Function fn) {
+		ExprNode operand = lazy(expr.expr, fn);
+		if (expr.operator.kind == TokenKind.NOT)
+			return new ExprNodes.Not(operand);
+		return new ExprNodes.Neg(operand);
+	}
+
+	public Node visitBinaryExpr(BinaryExpr expr, Function fn) {
+		ExprNode left = lazy(expr.left, fn);
+		ExprNode right = lazy(expr.right, fn);
+		switch (expr.operator.kind) {
+		case PLUS:
+			return new ExprNodes.Add(left, right);
+		case MINUS:
+			return new ExprNodes.Sub(left, right);
+		case TIMES:
+			return new ExprNodes.Mul(left, right);
+		case DIVIDE:
+			return new ExprNodes.Div(left, right);
+		case LT:
+			return new ExprNodes.Lt(left, right);
+		case GT:
+			return new ExprNodes.Gt(left, right);
+		case LE:
+			return new ExprNodes.Le(left, right);
+		case GE:
+			return new ExprNodes.Ge(left, right);
+		case AND:
+			return new ExprNodes.And(left, right);
+		case OR:
+			return new ExprNodes.Or(left, right);
+		case EQ:
+			if (isRef(expr.left))
+				return new ExprNodes.RefEq(left, right);
+			return new ExprNodes.Eq(left, right);
+		default:
+			if (isRef(expr.left))
+				return new ExprNodes.RefNe(left, right);
+			return new ExprNodes.Ne(left, right);
+		}
+	}
+
+	public Node visitRefExpr(RefExpr expr, Function fn) {
+		return expr.ref.visit(this, fn);
+	}
+
+	public Node visitCallExpr(CallExpr expr, Function fn) {
+		return call(expr.functionRef, expr.argList, fn);
+	}
+
+	public Node visitLiteralExpr(LiteralExpr expr, Function fn) {
+		return expr.lit.visit(this, fn);
+	}
+
+	public Node visitNewObjectExpr(NewObjectExpr expr, Function fn) {
+		return new ExprNodes.NewInstance(layouts.get(expr.classtype.decl));
+	}
+
+	public Node visitNewArrayExpr(NewArrayExpr expr, Function fn) {
+		ExprNode size = lazy(expr.sizeExpr, fn);
+		if (Layout.isRef(expr.eltType))
+			return new ExprNodes.NewRefArray(size);
+		return new ExprNodes.NewIntArray(size);
+	}
+
+	private ExprNodes.Call call(Reference ref, ExprList args, Function fn) {
+		MethodDecl md = (MethodDecl) declOf(ref);
+		Function target = function(md);
+		if (md.isStatic)
+			return new ExprNodes.StaticCall(lazy(args, fn), target);
+		ExprNode receiver = ref instanceof QualifiedRef ? lazy(((QualifiedRef) ref).ref, fn) : new ExprNodes.This();
+		return new ExprNodes.InstanceCall(receiver, lazy(args, fn), target);
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// REFERENCES, AS VALUES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Node visitQualifiedRef(QualifiedRef qr, Function fn) {
+		if (qr.id.decl == null) {
+			ExprNode array = lazy(qr.ref, fn);
+			if (Layout.isRef(((ArrayType) typeOf(qr.ref)).eltType))
+				return new ExprNodes.RefLength(array);
+			return new ExprNodes.IntLength(array);
+		}
+		FieldDecl fd = (FieldDecl) qr.id.decl;
+		return field(fd, fd.isStatic ? null : lazy(qr.ref, fn));
+	}
+
+	public Node visitIndexedRef(IndexedRef ir, Function fn) {
+		ExprNode array = lazy(ir.idRef, fn);
+		ExprNode index = lazy(ir.indexExpr, fn);
+		if (Layout.isRef(elementType(ir)))
+			return new ExprNodes.RefElement(array, index);
+		return new ExprNodes.IntElement(array, index);
+	}
+
+	public Node visitIdRef(IdRef ref, Function fn) {
+		Declaration decl = ref.id.decl;
+		if (decl instanceof LocalDecl) {
+			int slot = fn.slot((LocalDecl) decl);
+			if (Layout.isRef(decl.type))
+				return new ExprNodes.LocalRef(slot);
+			return new ExprNodes.LocalInt(slot);
+		}
+		FieldDecl fd = (FieldDecl) decl;
+		return field(fd, fd.isStatic ? null : new ExprNodes.This());
+	}
+
+	public Node visitThisRef(ThisRef ref, Function fn) {
+		return new ExprNodes.This();
+	}
+
+	/**
+	 * @param object  the object of an instance field
+	 */
+	private ExprNode field(FieldDecl fd, ExprNode object) {
+		int slot = fieldSlots.get(fd);
+		if (fd.isStatic) {
+			Layout owner = owners.get(fd);
+			if (Layout.isRef(fd.type))
+				return new ExprNodes.StaticRef(owner.staticRefs, slot);
+			return new ExprNodes.StaticInt(owner.staticInts, slot);
+		}
+		if (Layout.isRef(fd.type))
+			return new ExprNodes.FieldRef(object, slot);
+		return new ExprNodes.FieldInt(object, slot);
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// TERMINALS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	public Node visitIntLiteral(IntLiteral num, Function fn) {
+		try {
+			return new ExprNodes.Const(Integer.parseInt(num.spelling));
+		}
+		catch (NumberFormatException e) {
+			throw new ExecutionError("integer literal " + num.spelling + " is too large");
+		}
+	}
+
+	public Node visitBooleanLiteral(BooleanLiteral bool, Function fn) {
+		return new ExprNodes.Const(bool.kind == TokenKind.TRUE ? 1 : 0);
+	}
+}
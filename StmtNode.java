@@ -0,0 +1,13 @@
+package miniJava.Interpreter;
+
+/*
+ * A statement of an executable tree.
+ */
+abstract class StmtNode extends Node {
+
+	/**
+	 * @return whether a return statement was executed, leaving its value
+	 * in the frame
+	 */
+	abstract boolean execute(Frame f);
+}
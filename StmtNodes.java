@@ -0,0 +1,330 @@
+package miniJava.Interpreter;
+
+import java.io.PrintStream;
+
+/*
+ * The specialized statement nodes.  An assignment evaluates its target
+ * object or array, then its index, then the value, and only then stores,
+ * failing on a null object or a bad index, as Java does.
+ */
+final class StmtNodes {
+
+	private StmtNodes() {
+	}
+
+	static final class Block extends StmtNode {
+		private final StmtNode[] statements;
+
+		Block(StmtNode[] statements) {
+			this.statements = adopt(statements);
+		}
+
+		boolean execute(Frame f) {
+			for (StmtNode s : statements) {
+				if (s.execute(f))
+					return true;
+			}
+			return false;
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			replaceIn(statements, old, replacement);
+		}
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// ASSIGNMENTS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	// a statement that stores value
+	abstract static class Store extends StmtNode {
+		ExprNode value;
+
+		Store(ExprNode value) {
+			this.value = adopt(value);
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			value = (ExprNode) replacement;
+		}
+	}
+
+	static final class LocalIntStore extends Store {
+		private final int slot;
+
+		LocalIntStore(int slot, ExprNode value) {
+			super(value);
+			this.slot = slot;
+		}
+
+		boolean execute(Frame f) {
+			f.ints[slot] = value.executeInt(f);
+			return false;
+		}
+	}
+
+	static final class LocalRefStore extends Store {
+		private final int slot;
+
+		LocalRefStore(int slot, ExprNode value) {
+			super(value);
+			this.slot = slot;
+		}
+
+		boolean execute(Frame f) {
+			f.refs[slot] = value.executeObject(f);
+			return false;
+		}
+	}
+
+	static final class StaticIntStore extends Store {
+		private final int[] values;
+		private final int slot;
+
+		StaticIntStore(int[] values, int slot, ExprNode value) {
+			super(value);
+			this.values = values;
+			this.slot = slot;
+		}
+
+		boolean execute(Frame f) {
+			values[slot] = value.executeInt(f);
+			return false;
+		}
+	}
+
+	static final class StaticRefStore extends Store {
+		private final Object[] values;
+		private final int slot;
+
+		StaticRefStore(Object[] values, int slot, ExprNode value) {
+			super(value);
+			this.values = values;
+			this.slot = slot;
+		}
+
+		boolean execute(Frame f) {
+			values[slot] = value.executeObject(f);
+			return false;
+		}
+	}
+
+	// a store into a field of object
+	abstract static class FieldStore extends Store {
+		ExprNode object;
+		final int slot;
+
+		FieldStore(ExprNode object, int slot, ExprNode value) {
+			super(value);
+			this.object = adopt(object);
+			this.slot = slot;
+		}
+
+		final void replaceChild(Node old, Node replacement) {
+			if (object == old)
+				object = (ExprNode) replacement;
+			else
+				value = (ExprNode) replacement;
+		}
+	}
+
+	static final class FieldIntStore extends FieldStore {
+		FieldIntStore(ExprNode object, int slot, ExprNode value) {
+			super(object, slot, value);
+		}
+
+		boolean execute(Frame f) {
+			Instance o = (Instance) object.executeObject(f);
+			int v = value.executeInt(f);
+			o.ints[slot] = v;
+			return false;
+		}
+	}
+
+	static final class FieldRefStore extends FieldStore {
+		FieldRefStore(ExprNode object, int slot, ExprNode value) {
+			super(object, slot, value);
+		}
+
+		boolean execute(Frame f) {
+			Instance o = (Instance) object.executeObject(f);
+			Object v = value.executeObject(f);
+			o.refs[slot] = v;
+			return false;
+		}
+	}
+
+	// a store into an element of array
+	abstract static class ElementStore extends Store {
+		ExprNode array;
+		ExprNode index;
+
+		ElementStore(ExprNode array, ExprNode index, ExprNode value) {
+			super(value);
+			this.array = adopt(array);
+			this.index = adopt(index);
+		}
+
+		final void replaceChild(Node old, Node replacement) {
+			if (array == old)
+				array = (ExprNode) replacement;
+			else if (index == old)
+				index = (ExprNode) replacement;
+			else
+				value = (ExprNode) replacement;
+		}
+	}
+
+	static final class IntElementStore extends ElementStore {
+		IntElementStore(ExprNode array, ExprNode index, ExprNode value) {
+			super(array, index, value);
+		}
+
+		boolean execute(Frame f) {
+			int[] a = (int[]) array.executeObject(f);
+			int i = index.executeInt(f);
+			int v = value.executeInt(f);
+			a[i] = v;
+			return false;
+		}
+	}
+
+	static final class RefElementStore extends ElementStore {
+		RefElementStore(ExprNode array, ExprNode index, ExprNode value) {
+			super(array, index, value);
+		}
+
+		boolean execute(Frame f) {
+			Object[] a = (Object[]) array.executeObject(f);
+			int i = index.executeInt(f);
+			Object v = value.executeObject(f);
+			a[i] = v;
+			return false;
+		}
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// CALLS AND RETURNS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	static final class CallStmt extends StmtNode {
+		private final ExprNodes.Call call;
+
+		CallStmt(ExprNodes.Call call) {
+			this.call = adopt(call);
+		}
+
+		boolean execute(Frame f) {
+			call.call(f);
+			return false;
+		}
+	}
+
+	// System.out.println
+	static final class Print extends Store {
+		private final PrintStream out;
+
+		Print(PrintStream out, ExprNode value) {
+			super(value);
+			this.out = out;
+		}
+
+		boolean execute(Frame f) {
+			out.println(value.executeInt(f));
+			return false;
+		}
+	}
+
+	static final class IntReturn extends Store {
+		IntReturn(ExprNode value) {
+			super(value);
+		}
+
+		boolean execute(Frame f) {
+			f.intResult = value.executeInt(f);
+			return true;
+		}
+	}
+
+	static final class RefReturn extends Store {
+		RefReturn(ExprNode value) {
+			super(value);
+		}
+
+		boolean execute(Frame f) {
+			f.refResult = value.executeObject(f);
+			return true;
+		}
+	}
+
+	static final class VoidReturn extends StmtNode {
+		boolean execute(Frame f) {
+			return true;
+		}
+	}
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// CONTROL
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+	static final class If extends StmtNode {
+		private ExprNode cond;
+		private StmtNode thenStmt;
+		private StmtNode elseStmt;
+
+		If(ExprNode cond, StmtNode thenStmt, StmtNode elseStmt) {
+			this.cond = adopt(cond);
+			this.thenStmt = adopt(thenStmt);
+			this.elseStmt = adopt(elseStmt);
+		}
+
+		boolean execute(Frame f) {
+			if (cond.executeBoolean(f))
+				return thenStmt.execute(f);
+			return elseStmt != null && elseStmt.execute(f);
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			if (cond == old)
+				cond = (ExprNode) replacement;
+			else if (thenStmt == old)
+				thenStmt = (StmtNode) replacement;
+			else
+				elseStmt = (StmtNode) replacement;
+		}
+	}
+
+	static final class While extends StmtNode {
+		private ExprNode cond;
+		private StmtNode body;
+
+		While(ExprNode cond, StmtNode body) {
+			this.cond = adopt(cond);
+			this.body = adopt(body);
+		}
+
+		boolean execute(Frame f) {
+			while (cond.executeBoolean(f)) {
+				if (body.execute(f))
+					return true;
+			}
+			return false;
+		}
+
+		void replaceChild(Node old, Node replacement) {
+			if (cond == old)
+				cond = (ExprNode) replacement;
+			else
+				body = (StmtNode) replacement;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package miniJava.AbstractSyntaxTrees;
+
+import miniJava.ErrorReporter;
+
+/*
+ * Identifies and type checks a program one class at a time.
+ *
+ * begin is given the skeleton of the program: every class with its fields
+ * and method headers but without method bodies.  The class names are
+ * entered and the member types identified up front, so that a class may use
+ * any declaration of a class that comes after it.  Then identify and
+ * typeCheck are called for each class in source order, once its bodies are
+ * in place, and end once all classes are done.
+ *
+ * A class gets the same diagnostics, in the same order, as from the whole
+ * program passes.  As those passes stop before type checking when there
+ * are identification errors, no class is type checked after a class has
+ * failed identification.
+ */
+public class StreamingChecker {
+
+	private ContextChecker cc;
+	private ErrorReporter reporter;
+	private ASTIDChecker ids;
+	private TypeChecker types;
+	private boolean identified = true;
+
+	public StreamingChecker(ContextChecker cc, ErrorReporter reporter) {
+		this.cc = cc;
+		this.reporter = reporter;
+		ids = new ASTIDChecker();
+		ids.cc = cc;
+		types = new TypeChecker(reporter);
+	}
+
+	public void begin(Package skeleton) {
+		int classes = skeleton.classDeclList.size();
+		cc.addPredefined(skeleton);
+		int predefined = skeleton.classDeclList.size() - classes;
+		// a class declared twice fails identification, like any class that does
+		ErrorReporter errors = reporter.fork();
+		ids.reporter = errors;
+		ids.enterClasses(skeleton);
+		if (errors.hasErrors())
+			identified = false;
+		reporter.merge(errors);
+		ids.reporter = reporter;
+		for (int c = 0; c < predefined; c++) {
+			ClassDecl cd = skeleton.classDeclList.get(c);
+			cd.visit(ids, null);
+			types.check(cd);
+		}
+		// errors in these types are reported when their class is identified
+		ids.reporter = reporter.fork();
+		for (int c = predefined; c < skeleton.classDeclList.size(); c++) {
+			ClassDecl cd = skeleton.classDeclList.get(c);
+			for (FieldDecl f: cd.fieldDeclList)
+				f.type.visit(ids, null);
+			for (MethodDecl m: cd.methodDeclList) {
+				m.type.visit(ids, null);
+				for (ParameterDecl pd: m.parameterDeclList)
+					pd.type.visit(ids, null);
+			}
+		}
+	}
+
+	/**
+	 * identify a class of the skeleton, with its bodies in place
+	 */
+	public void identify(ClassDecl cd) {
+		ErrorReporter errors = reporter.fork();
+		ids.reporter = errors;
+		cd.visit(ids, null);
+		if (errors.hasErrors())
+			identified = false;
+		reporter.merge(errors);
+	}
+
+	/**
+	 * type check a class of the skeleton, unless a class has failed identification
+	 */
+	public void typeCheck(ClassDecl cd) {
+		if (identified)
+			types.check(cd);
+	}
+
+	/**
+	 * @return whether every class so far has been identified without error
+	 */
+	public boolean identified() {
+		return identified;
+	}
+
+	public void end() {
+		cc.idTable.closeScope();
+	}
+}
@@ -0,0 +1,253 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Interns identifier spellings as dense int symbol ids, 0, 1, 2, ...
+ *
+ * The scanners intern each identifier as it is scanned, so every occurrence
+ * of a name shares one String and one id, and later phases can compare and
+ * index by id instead of comparing strings.
+ *
+ * The table is an open addressing hash table over an AtomicReferenceArray.
+ * Lookups take no locks, and a new spelling is added with a single
+ * compareAndSet on an empty slot, so any number of threads may intern at
+ * once.  The table only locks to double in size, when it is half full;
+ * threads that run into a slot being moved wait for the copy to finish.
+ *
+ * A SymbolTable belongs to one compilation and holds at most maxSymbols
+ * names, so a long running compile service cannot grow one without bound.
+ */
+public final class SymbolTable {
+
+	public static final int NO_SYMBOL = -1;
+	private static final int OVERFLOW = -2;
+	public static final int DEFAULT_MAX_SYMBOLS = 1 << 22;
+
+	private static final int CHUNK_BITS = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	private static final class Entry {
+		final String spelling;
+		final int hash;
+		volatile int id = NO_SYMBOL;	// set by the thread that added the entry
+
+		Entry(String spelling, int hash) {
+			this.spelling = spelling;
+			this.hash = hash;
+		}
+	}
+
+	// marks a slot whose table has been replaced by a larger one
+	private static final Entry MOVED = new Entry("", 0);
+
+	private static final class Table {
+		final AtomicReferenceArray<Entry> slots;
+		final int mask;
+		volatile Table next;
+
+		Table(int size) {
+			slots = new AtomicReferenceArray<Entry>(size);
+			mask = size - 1;
+		}
+	}
+
+	private final int maxSymbols;
+	private volatile Table table;
+	private final AtomicInteger nextId = new AtomicInteger();
+	// spelling of each id, in chunks allocated as ids are handed out
+	private final AtomicReferenceArray<String[]> names;
+
+	public SymbolTable() {
+		this(DEFAULT_MAX_SYMBOLS);
+	}
+
+	public SymbolTable(int maxSymbols) {
+		this.maxSymbols = maxSymbols;
+		this.table = new Table(1024);
+		this.names = new AtomicReferenceArray<String[]>((maxSymbols + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+	}
+
+	/**
+	 * @return the id of spelling, added to the table if new
+	 * @throws IllegalStateException  if the table already holds maxSymbols names
+	 */
+	public int intern(CharSequence spelling) {
+		return intern(spelling, null, 0, spelling.length());
+	}
+
+	/**
+	 * intern length bytes of an ASCII source starting at start,
+	 * without creating a String unless the spelling is new
+	 */
+	public int intern(byte[] source, int start, int length) {
+		return intern(null, source, start, length);
+	}
+
+	/**
+	 * @return the id of spelling, or NO_SYMBOL if it has never been interned
+	 */
+	public int lookup(CharSequence spelling) {
+		int hash = hash(spelling, null, 0, spelling.length());
+		Table t = table;
+		int i = hash & t.mask;
+		while (true) {
+			Entry e = t.slots.get(i);
+			if (e == null)
+				return NO_SYMBOL;
+			if (e == MOVED) {
+				t = awaitNext(t);
+				i = hash & t.mask;
+				continue;
+			}
+			if (e.hash == hash && same(e.spelling, spelling, null, 0, spelling.length()))
+				return idOf(e);
+			i = (i + 1) & t.mask;
+		}
+	}
+
+	/**
+	 * @return the spelling interned as id
+	 */
+	public String spelling(int id) {
+		return names.get(id >>> CHUNK_BITS)[id & (CHUNK_SIZE - 1)];
+	}
+
+	/**
+	 * @return number of names interned
+	 */
+	public int size() {
+		return Math.min(nextId.get(), maxSymbols);
+	}
+
+	// chars is the spelling, or null when it is in source[start, start + length)
+	private int intern(CharSequence chars, byte[] source, int start, int length) {
+		int hash = hash(chars, source, start, length);
+		Table t = table;
+		int i = hash & t.mask;
+		while (true) {
+			Entry e = t.slots.get(i);
+			if (e == null) {
+				if (nextId.get() >= (t.mask + 1) >>> 1) {
+					t = grow(t);
+					i = hash & t.mask;
+					continue;
+				}
+				String s = chars != null ? chars.toString() : new String(source, start, length, java.nio.charset.StandardCharsets.ISO_8859_1);
+				Entry added = new Entry(s, hash);
+				if (t.slots.compareAndSet(i, null, added))
+					return assign(added);
+				continue;	// lost the slot, look at it again
+			}
+			if (e == MOVED) {
+				t = awaitNext(t);
+				i = hash & t.mask;
+				continue;
+			}
+			if (e.hash == hash && same(e.spelling, chars, source, start, length))
+				return idOf(e);
+			i = (i + 1) & t.mask;
+		}
+	}
+
+	private int assign(Entry e) {
+		int id = nextId.getAndIncrement();
+		if (id >= maxSymbols) {
+			e.id = OVERFLOW;	// so the name fails the same way for every thread
+			throw full();
+		}
+		int chunk = id >>> CHUNK_BITS;
+		String[] spellings = names.get(chunk);
+		if (spellings == null) {
+			names.compareAndSet(chunk, null, new String[CHUNK_SIZE]);
+			spellings = names.get(chunk);
+		}
+		spellings[id & (CHUNK_SIZE - 1)] = e.spelling;
+		e.id = id;	// publishes the spelling stored above
+		return id;
+	}
+
+	private int idOf(Entry e) {
+		int id;
+		while ((id = e.id) == NO_SYMBOL)
+			Thread.onSpinWait();
+		if (id == OVERFLOW)
+			throw full();
+		return id;
+	}
+
+	private IllegalStateException full() {
+		return new IllegalStateException("more than " + maxSymbols + " identifiers");
+	}
+
+	/**
+	 * replace table t by one twice the size, unless another thread already has
+	 * @return the new table
+	 */
+	private synchronized Table grow(Table t) {
+		if (t.next != null)
+			return t.next;
+		Table n = new Table((t.mask + 1) * 2);
+		for (int i = 0; i <= t.mask; i++) {
+			// freeze each slot, copying the entry if there is one
+			Entry e;
+			while ((e = t.slots.get(i)) == null && !t.slots.compareAndSet(i, null, MOVED))
+				;
+			if (e != null) {
+				int j = e.hash & n.mask;
+				while (n.slots.get(j) != null)
+					j = (j + 1) & n.mask;
+				n.slots.set(j, e);
+				t.slots.set(i, MOVED);
+			}
+		}
+		t.next = n;
+		table = n;
+		return n;
+	}
+
+	/**
+	 * wait for the copy of t, which holds the lock while it runs
+	 */
+	private Table awaitNext(Table t) {
+		Table n = t.next;
+		if (n == null) {
+			synchronized (this) {
+				n = t.next;
+			}
+		}
+		return n;
+	}
+
+	private static int hash(CharSequence chars, byte[] source, int start, int length) {
+		int h = 0;
+		if (chars != null) {
+			for (int i = 0; i < length; i++)
+				h = 31 * h + chars.charAt(i);
+		}
+		else {
+			for (int i = 0; i < length; i++)
+				h = 31 * h + (source[start + i] & 0xFF);
+		}
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean same(String s, CharSequence chars, byte[] source, int start, int length) {
+		if (s.length() != length)
+			return false;
+		if (chars != null) {
+			for (int i = 0; i < length; i++) {
+				if (s.charAt(i) != chars.charAt(i))
+					return false;
+			}
+		}
+		else {
+			for (int i = 0; i < length; i++) {
+				if (s.charAt(i) != (source[start + i] & 0xFF))
+					return false;
+			}
+		}
+		return true;
+	}
+}
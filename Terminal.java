@@ -5,13 +5,18 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
+import miniJava.SyntacticAnalyzer.SourcePosition;
 import miniJava.SyntacticAnalyzer.Token;
 import miniJava.SyntacticAnalyzer.TokenKind;
 
 abstract public class Terminal extends AST {
 
   public Terminal (Token t) {
-	super(t.posn);
+    this(t, SourcePosition.NONE);
+  }
+
+  public Terminal (Token t, int posn) {
+	super(posn);
     spelling = t.spelling;
     kind = t.kind;
   }
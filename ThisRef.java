@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class ThisRef extends Reference {
 	
-	public ThisRef(SourcePosition posn) {
+	public ThisRef(int posn) {
 		super(posn);
 	}
 
@@ -1,39 +1,151 @@
 package miniJava.SyntacticAnalyzer;
-import java.util.HashMap;
+
+import java.nio.charset.StandardCharsets;
 
 
 public class Token {
-	public TokenKind kind;
-	public String spelling;
-	private HashMap<String, TokenKind> KeyWords = new HashMap<String, TokenKind>();
-	public SourcePosition posn;
+	public final TokenKind kind;
+	public final String spelling;
+	public final int symbol;	// SymbolTable id of an interned identifier, else NO_SYMBOL
 	
 	
 	
 	public Token(TokenKind kind, String spelling) {
-		
-		KeyWords.put("class",TokenKind.CLASS);
-		KeyWords.put("boolean",TokenKind.BOOLEAN);
-		KeyWords.put("public",TokenKind.PUBLIC);
-		KeyWords.put("private",TokenKind.PRIVATE);
-		KeyWords.put("static",TokenKind.STATIC);
-		KeyWords.put("int",TokenKind.INT);
-		KeyWords.put("if",TokenKind.IF);
-		KeyWords.put("while",TokenKind.WHILE);
-		KeyWords.put("else",TokenKind.ELSE);
-		KeyWords.put("this",TokenKind.THIS);
-		KeyWords.put("new",TokenKind.NEW);
-		KeyWords.put("return",TokenKind.RETURN);
-		KeyWords.put("true",TokenKind.TRUE);
-		KeyWords.put("false",TokenKind.FALSE);
-		KeyWords.put("void",TokenKind.VOID);
-		
+		this(kind, spelling, SymbolTable.NO_SYMBOL);
+	}
+	
+	public Token(TokenKind kind, String spelling, int symbol) {
+		if(kind == TokenKind.KEYWORD){
+			kind = keyword(spelling);
+		}
 		this.kind = kind;
 		this.spelling = spelling;
-		this.posn = null;
-		
-		if(this.kind == TokenKind.KEYWORD){
-			this.kind = KeyWords.get(this.spelling);
+		this.symbol = symbol;
+	}
+	
+	
+	/**
+	 * classify a spelling as a keyword by length and first character,
+	 * without hashing or allocating
+	 * @param s  spelling to classify
+	 * @return keyword kind, or null if s is not a keyword
+	 */
+	public static TokenKind keyword(CharSequence s) {
+		switch (s.length()) {
+		case 2:
+			if (s.charAt(0) == 'i' && is(s, "if")) return TokenKind.IF;
+			break;
+		case 3:
+			switch (s.charAt(0)) {
+			case 'i': if (is(s, "int")) return TokenKind.INT; break;
+			case 'n': if (is(s, "new")) return TokenKind.NEW; break;
+			}
+			break;
+		case 4:
+			switch (s.charAt(0)) {
+			case 't':
+				if (is(s, "this")) return TokenKind.THIS;
+				if (is(s, "true")) return TokenKind.TRUE;
+				break;
+			case 'v': if (is(s, "void")) return TokenKind.VOID; break;
+			case 'e': if (is(s, "else")) return TokenKind.ELSE; break;
+			}
+			break;
+		case 5:
+			switch (s.charAt(0)) {
+			case 'c': if (is(s, "class")) return TokenKind.CLASS; break;
+			case 'w': if (is(s, "while")) return TokenKind.WHILE; break;
+			case 'f': if (is(s, "false")) return TokenKind.FALSE; break;
+			}
+			break;
+		case 6:
+			switch (s.charAt(0)) {
+			case 'p': if (is(s, "public")) return TokenKind.PUBLIC; break;
+			case 's': if (is(s, "static")) return TokenKind.STATIC; break;
+			case 'r': if (is(s, "return")) return TokenKind.RETURN; break;
+			}
+			break;
+		case 7:
+			switch (s.charAt(0)) {
+			case 'b': if (is(s, "boolean")) return TokenKind.BOOLEAN; break;
+			case 'p': if (is(s, "private")) return TokenKind.PRIVATE; break;
+			}
+			break;
+		}
+		return null;
+	}
+	
+	// whether s spells word, its length and first character already matched
+	private static boolean is(CharSequence s, String word) {
+		for (int i = 1; i < word.length(); i++) {
+			if (s.charAt(i) != word.charAt(i))
+				return false;
 		}
+		return true;
+	}
+	
+	
+	/*
+	 * Shared immutable tokens for every kind with a fixed spelling, 
+	 * operators included, indexed by TokenKind ordinal
+	 */
+	private static final Token[] FIXED = new Token[TokenKind.values().length];
+	
+	static {
+		String[][] spellings = {
+				{"EOT", ""}, {"RBOX", "]"}, {"LBOX", "["}, {"RBRACK", "}"}, {"LBRACK", "{"},
+				{"COMMA", ","}, {"LPAREN", "("}, {"RPAREN", ")"}, {"PERIOD", "."},
+				{"EQUALS", "="}, {"SEMI", ";"},
+				{"CLASS", "class"}, {"BOOLEAN", "boolean"}, {"PUBLIC", "public"},
+				{"PRIVATE", "private"}, {"STATIC", "static"}, {"INT", "int"},
+				{"IF", "if"}, {"WHILE", "while"}, {"ELSE", "else"}, {"THIS", "this"},
+				{"NEW", "new"}, {"RETURN", "return"}, {"TRUE", "true"},
+				{"FALSE", "false"}, {"VOID", "void"},
+				{"OR", "||"}, {"AND", "&&"}, {"EQ", "=="}, {"NEQ", "!="},
+				{"LT", "<"}, {"GT", ">"}, {"LE", "<="}, {"GE", ">="},
+				{"PLUS", "+"}, {"MINUS", "-"}, {"TIMES", "*"}, {"DIVIDE", "/"}, {"NOT", "!"}};
+		for (String[] s : spellings) {
+			TokenKind kind = TokenKind.valueOf(s[0]);
+			FIXED[kind.ordinal()] = new Token(kind, s[1]);
+		}
+	}
+	
+	/**
+	 * shared token for a kind with a fixed spelling
+	 * @return the token, or null if the kind has a variable spelling
+	 */
+	public static Token fixed(TokenKind kind) {
+		return FIXED[kind.ordinal()];
+	}
+	
+	/**
+	 * token for a kind and spelling just scanned, shared when the
+	 * spelling is fixed so only identifiers, numbers and errors allocate
+	 */
+	public static Token make(TokenKind kind, CharSequence spelling) {
+		Token t = FIXED[kind.ordinal()];
+		if (t != null)
+			return t;
+		return new Token(kind, spelling.toString());
+	}
+	
+	/**
+	 * token for an identifier, interned in symbols so every occurrence
+	 * shares one spelling
+	 */
+	public static Token identifier(CharSequence spelling, SymbolTable symbols) {
+		int symbol = symbols.intern(spelling);
+		return new Token(TokenKind.ID, symbols.spelling(symbol), symbol);
+	}
+	
+	/**
+	 * token for a kind whose spelling is length bytes of an ASCII source
+	 * starting at start, shared when the spelling is fixed
+	 */
+	static Token make(TokenKind kind, byte[] source, int start, int length) {
+		Token t = FIXED[kind.ordinal()];
+		if (t != null)
+			return t;
+		return new Token(kind, new String(source, start, length, StandardCharsets.ISO_8859_1));
 	}
-}
\ No newline at end of file
+}
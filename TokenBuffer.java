@@ -0,0 +1,291 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import miniJava.ErrorReporter;
+
+import static miniJava.SyntacticAnalyzer.DFAScanner.*;
+
+/*
+ * The whole token stream of a source file, packed into parallel arrays.
+ *
+ * Token i has kind kinds[i] (a TokenKind ordinal) and spans length[i] bytes
+ * of the source starting at start[i].  The file is lexed in one pass with the
+ * DFAScanner tables, and no Token or String is created until the Parser asks
+ * for one, which it only does for identifiers and literals.  Identifiers are
+ * interned in a SymbolTable as they are lexed, and symbol[i] holds the id of
+ * identifier i, so asking for one never creates a String either.
+ *
+ * Whitespace and comments between tokens are passed over with BulkSkip.
+ * The last token is always EOT, and reading past it keeps returning EOT.
+ */
+public class TokenBuffer {
+
+	private static final TokenKind[] KINDS = TokenKind.values();
+
+	private byte[] source;
+	private byte[] kinds;
+	private int[] start;
+	private int[] length;
+	private int[] symbol;	// SymbolTable id of each identifier, unused for other kinds
+	private int count;
+	private SymbolTable symbols;
+
+	private TokenBuffer(byte[] source, SymbolTable symbols) {
+		this.source = source;
+		this.symbols = symbols;
+		int capacity = Math.max(16, source.length / 4);
+		this.kinds = new byte[capacity];
+		this.start = new int[capacity];
+		this.length = new int[capacity];
+		this.symbol = new int[capacity];
+		this.count = 0;
+	}
+
+	public static TokenBuffer read(Path path, ErrorReporter reporter) throws IOException {
+		return lex(Files.readAllBytes(path), reporter, new SymbolTable());
+	}
+
+	public static TokenBuffer read(Path path, ErrorReporter reporter, SymbolTable symbols) throws IOException {
+		return lex(Files.readAllBytes(path), reporter, symbols);
+	}
+
+	public static TokenBuffer read(InputStream inputStream, ErrorReporter reporter) throws IOException {
+		return lex(inputStream.readAllBytes(), reporter, new SymbolTable());
+	}
+
+	public static TokenBuffer read(InputStream inputStream, ErrorReporter reporter, SymbolTable symbols) throws IOException {
+		return lex(inputStream.readAllBytes(), reporter, symbols);
+	}
+
+	public static TokenBuffer lex(byte[] source, ErrorReporter reporter) {
+		return lex(source, reporter, new SymbolTable());
+	}
+
+	/**
+	 * lex the whole source, stopping after the first ERROR token
+	 * @param source  UTF-8 encoded miniJava source
+	 * @param symbols  table to intern identifiers in
+	 */
+	public static TokenBuffer lex(byte[] source, ErrorReporter reporter, SymbolTable symbols) {
+		TokenBuffer tb = new TokenBuffer(source, symbols);
+		Span span = new Span(source);
+		int n = source.length;
+		int pos = 0;
+		TokenKind kind;
+		do {
+			// whitespace and comments are skipped in bulk before each token
+			pos = skip(source, pos, n);
+			if (pos < 0) {
+				// the error is the "/*" left open, where the comment starts
+				kind = TokenKind.ERROR;
+				tb.scanError(S_UNTERMINATED, ~pos, ~pos, reporter);
+				tb.add(kind, ~pos, 2);
+				break;
+			}
+			
+			int state = S_START;
+			int begin = pos;
+			int next;
+			while ((next = NEXT[state * N_CLASSES + classOf(source, pos, n)]) >= 0) {
+				if (pos < n)
+					pos++;
+				if (!KEEP[next])
+					begin = pos;
+				state = next;
+			}
+
+			if (next == REJECT) {
+				kind = TokenKind.ERROR;
+			}
+			else {
+				kind = ACCEPT[state];
+				if (kind == TokenKind.ID) {
+					TokenKind keyword = Token.keyword(span.of(begin, pos - begin));
+					if (keyword != null)
+						kind = keyword;
+				}
+				else if (kind == TokenKind.ERROR) {
+					tb.scanError(state, begin, pos, reporter);
+				}
+			}
+			tb.add(kind, begin, pos - begin);
+			if (kind == TokenKind.ID)
+				tb.symbol[tb.count - 1] = symbols.intern(source, begin, pos - begin);
+		} while (kind != TokenKind.EOT && kind != TokenKind.ERROR);
+
+		if (kind == TokenKind.ERROR)
+			tb.add(TokenKind.EOT, n, 0);
+		return tb;
+	}
+
+	/**
+	 * skip whitespace and comments
+	 * @return index of the next token, or ~index of the comment if a block
+	 *         comment is unterminated
+	 */
+	private static int skip(byte[] source, int pos, int n) {
+		while (true) {
+			pos = BulkSkip.skipWhitespace(source, pos, n);
+			if (pos + 1 >= n || source[pos] != '/')
+				return pos;
+			if (source[pos + 1] == '/')
+				pos = BulkSkip.skipToEndOfLine(source, pos + 2, n);
+			else if (source[pos + 1] == '*') {
+				int comment = pos;
+				pos = BulkSkip.skipBlockComment(source, pos + 2, n);
+				if (pos < 0)
+					return ~comment;
+			}
+			else return pos;
+		}
+	}
+
+	private static int classOf(byte[] source, int pos, int n) {
+		if (pos >= n)
+			return C_EOT;
+		byte b = source[pos];
+		if (b < 0)
+			return C_OTHER;
+		return CHAR_CLASS[b];
+	}
+
+	private void scanError(int state, int begin, int pos, ErrorReporter reporter) {
+		switch (state) {
+		case S_AMP:
+			reporter.reportError("Scan Error:  Expected a & but got a: " + charAt(pos), pos);
+			break;
+		case S_BAR:
+			reporter.reportError("Scan Error:  Expected a | but got a: " + charAt(pos), pos);
+			break;
+		case S_BAD_CHAR:
+			reporter.reportError("Scan Error:  Unrecognized character '" + charAt(begin) + "' in input", begin);
+			break;
+		case S_UNTERMINATED:
+			reporter.reportError("Scan Error:  Unterminated comment", begin);
+			break;
+		default:
+		}
+	}
+
+	private char charAt(int pos) {
+		return pos < source.length ? (char) (source[pos] & 0xFF) : (char) -1;
+	}
+
+	private void add(TokenKind kind, int begin, int len) {
+		if (count == kinds.length) {
+			int capacity = count * 2;
+			kinds = java.util.Arrays.copyOf(kinds, capacity);
+			start = java.util.Arrays.copyOf(start, capacity);
+			length = java.util.Arrays.copyOf(length, capacity);
+			symbol = java.util.Arrays.copyOf(symbol, capacity);
+		}
+		kinds[count] = (byte) kind.ordinal();
+		start[count] = begin;
+		length[count] = len;
+		count++;
+	}
+
+
+	// access by token index
+
+	public int size() {
+		return count;
+	}
+
+	public TokenKind kind(int i) {
+		if (i >= count)
+			i = count - 1;
+		return KINDS[kinds[i]];
+	}
+
+	/**
+	 * @return offset of the first byte of token i in the source
+	 */
+	public int start(int i) {
+		if (i >= count)
+			i = count - 1;
+		return start[i];
+	}
+
+	public String spelling(int i) {
+		if (i >= count)
+			i = count - 1;
+		TokenKind kind = KINDS[kinds[i]];
+		if (kind == TokenKind.ID)
+			return symbols.spelling(symbol[i]);
+		if (kind == TokenKind.NUM || kind == TokenKind.ERROR)
+			return new String(source, start[i], length[i], StandardCharsets.ISO_8859_1);
+		return Token.make(kind, source, start[i], length[i]).spelling;
+	}
+
+	/**
+	 * materialize token i, shared when its kind has a fixed spelling
+	 */
+	public Token token(int i) {
+		if (i >= count)
+			i = count - 1;
+		TokenKind kind = KINDS[kinds[i]];
+		if (kind == TokenKind.ID)
+			return new Token(kind, symbols.spelling(symbol[i]), symbol[i]);
+		return Token.make(kind, source, start[i], length[i]);
+	}
+
+	/**
+	 * @return SymbolTable id of token i, or SymbolTable.NO_SYMBOL if it is not an identifier
+	 */
+	public int symbol(int i) {
+		if (i >= count)
+			i = count - 1;
+		return KINDS[kinds[i]] == TokenKind.ID ? symbol[i] : SymbolTable.NO_SYMBOL;
+	}
+
+	public byte[] source() {
+		return source;
+	}
+
+	public SymbolTable symbols() {
+		return symbols;
+	}
+
+
+	/**
+	 * reusable view of a range of the source, so keywords can be
+	 * classified without creating a String for every identifier
+	 */
+	private static final class Span implements CharSequence {
+		private final byte[] source;
+		private int begin;
+		private int len;
+
+		Span(byte[] source) {
+			this.source = source;
+		}
+
+		Span of(int begin, int len) {
+			this.begin = begin;
+			this.len = len;
+			return this;
+		}
+
+		public int length() {
+			return len;
+		}
+
+		public char charAt(int index) {
+			return (char) (source[begin + index] & 0xFF);
+		}
+
+		public CharSequence subSequence(int from, int to) {
+			return new String(source, begin + from, to - from, StandardCharsets.ISO_8859_1);
+		}
+
+		public String toString() {
+			return new String(source, begin, len, StandardCharsets.ISO_8859_1);
+		}
+	}
+}
@@ -5,17 +5,18 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 abstract public class Type extends AST {
     
-    public Type(TypeKind typ, SourcePosition posn){
+    public Type(TypeKind typ, int posn){
         super(posn);
         typeKind = typ;
     }
     
     public TypeKind typeKind;
     
+    // canonical array of this canonical type, made by Types.arrayOf
+    volatile ArrayType arrayOf;
+    
 }
 
         
\ No newline at end of file
@@ -0,0 +1,434 @@
+package miniJava.AbstractSyntaxTrees;
+
+import miniJava.ErrorReporter;
+import miniJava.SyntacticAnalyzer.TokenKind;
+
+/*
+ * Type checking
+ *   Runs after identification.  Every expression and reference is visited
+ *   for its canonical type (see Types), so comparing two types is comparing
+ *   two references and no Type is created while checking.
+ *
+ *   An erroneous expression has type Types.ERROR, which matches any type,
+ *   so an error is reported where it happens and not again by every
+ *   expression around it.
+ *
+ *   The id of a QualifiedRef that identification could not resolve, because
+ *   its reference was indexed or not yet typed, is resolved here.
+ *
+ *   Methods only depend on the declarations of the program, so to check in
+ *   parallel (see ParallelChecker) checkFields is called for each class and
+ *   checkMethod for each method, in any order and on any thread.
+ *
+ *   implements Visitor<argtype,resulttype>, with the argument unused
+ */
+public class TypeChecker implements Visitor<Object,Type> {
+
+	private ErrorReporter reporter;
+	private ClassDecl currentClass;
+	private MethodDecl currentMethod;
+
+	public TypeChecker(ErrorReporter reporter){
+		this.reporter = reporter;
+	}
+
+	public void check(AST ast){
+		ast.visit(this, null);
+	}
+
+	public void checkFields(ClassDecl clas){
+		currentClass = clas;
+		for (FieldDecl f: clas.fieldDeclList)
+			f.visit(this, null);
+	}
+
+	public void checkMethod(ClassDecl clas, MethodDecl m){
+		currentClass = clas;
+		m.visit(this, null);
+	}
+
+    private void error(String message, int posn){
+    	if (reporter != null)
+    		reporter.reportError("Type error: " + message, posn);
+    	else
+    		System.out.println(message);
+    }
+
+    /**
+     * report an error unless value of type from may go where to is expected
+     */
+    private void expect(Type to, Type from, int posn){
+    	if (!Types.assignable(to, from))
+    		error("expected " + name(to) + " but found " + name(from), posn);
+    }
+
+    private static String name(Type t){
+    	switch (t.typeKind){
+    	case CLASS:
+    		return ((ClassType) t).className.spelling;
+    	case ARRAY:
+    		return name(((ArrayType) t).eltType) + "[]";
+    	default:
+    		return t.typeKind.toString().toLowerCase();
+    	}
+    }
+
+    /**
+     * @return declaration a reference names, or null if it names none
+     */
+    private static Declaration declOf(Reference ref){
+    	if (ref instanceof IdRef)
+    		return ((IdRef) ref).id.decl;
+    	if (ref instanceof QualifiedRef)
+    		return ((QualifiedRef) ref).id.decl;
+    	return null;
+    }
+
+    /**
+     * check a call of the method ref names with arguments args
+     * @return the canonical return type
+     */
+    private Type checkCall(Reference ref, ExprList args, int posn){
+    	Type t = ref.visit(this, null);
+    	Declaration decl = declOf(ref);
+    	if (!(decl instanceof MethodDecl)){
+    		for (Expression e: args)
+    			e.visit(this, null);
+    		if (t != Types.ERROR)
+    			error("not a method", posn);
+    		return Types.ERROR;
+    	}
+    	MethodDecl md = (MethodDecl) decl;
+    	ParameterDeclList params = md.parameterDeclList;
+    	if (params.size() != args.size()){
+    		error(md.name + " takes " + params.size() + " arguments but is given " + args.size(), posn);
+    		for (Expression e: args)
+    			e.visit(this, null);
+    		return t;
+    	}
+    	for (int i = 0; i < args.size(); i++){
+    		Expression arg = args.get(i);
+    		expect(Types.canonical(params.get(i).type), arg.visit(this, null), arg.posn);
+    	}
+    	return t;
+    }
+
+    /**
+     * report a reference used as a value that names a method or a class
+     * @return t, or ERROR if the reference is not a value
+     */
+    private Type checkValue(Reference ref, Type t, int posn){
+    	Declaration decl = declOf(ref);
+    	if (decl instanceof MethodDecl)
+    		error(decl.name + " is a method, not a value", posn);
+    	else if (decl instanceof ClassDecl && ref instanceof IdRef)
+    		error(decl.name + " is a class, not a value", posn);
+    	else
+    		return t;
+    	return Types.ERROR;
+    }
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// PACKAGE
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitPackage(Package prog, Object arg){
+        for (ClassDecl c: prog.classDeclList)
+            c.visit(this, null);
+        return null;
+    }
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// DECLARATIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitClassDecl(ClassDecl clas, Object arg){
+        checkFields(clas);
+        for (MethodDecl m: clas.methodDeclList)
+        	m.visit(this, null);
+        return null;
+    }
+
+    public Type visitFieldDecl(FieldDecl f, Object arg){
+    	if (f.type.typeKind == TypeKind.VOID)
+    		error("field " + f.name + " cannot be void", f.posn);
+        return null;
+    }
+
+    public Type visitMethodDecl(MethodDecl m, Object arg){
+    	currentMethod = m;
+        for (ParameterDecl pd: m.parameterDeclList)
+        	pd.visit(this, null);
+        StatementList sl = m.statementList;
+        for (Statement s: sl)
+        	s.visit(this, null);
+        if (m.type.typeKind != TypeKind.VOID
+        		&& (sl.size() == 0 || !(sl.get(sl.size() - 1) instanceof ReturnStmt)))
+        	error("method " + m.name + " must end with a return statement", m.posn);
+        currentMethod = null;
+        return null;
+    }
+
+    public Type visitParameterDecl(ParameterDecl pd, Object arg){
+    	if (pd.type.typeKind == TypeKind.VOID)
+    		error("parameter " + pd.name + " cannot be void", pd.posn);
+        return null;
+    }
+
+    public Type visitVarDecl(VarDecl vd, Object arg){
+    	if (vd.type.typeKind == TypeKind.VOID)
+    		error("variable " + vd.name + " cannot be void", vd.posn);
+        return null;
+    }
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// TYPES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitBaseType(BaseType type, Object arg){
+        return Types.canonical(type);
+    }
+
+    public Type visitClassType(ClassType type, Object arg){
+        return Types.canonical(type);
+    }
+
+    public Type visitArrayType(ArrayType type, Object arg){
+        return Types.canonical(type);
+    }
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// STATEMENTS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitBlockStmt(BlockStmt stmt, Object arg){
+        for (Statement s: stmt.sl)
+        	s.visit(this, null);
+        return null;
+    }
+
+    public Type visitVardeclStmt(VarDeclStmt stmt, Object arg){
+        stmt.varDecl.visit(this, null);
+        expect(Types.canonical(stmt.varDecl.type), stmt.initExp.visit(this, null), stmt.initExp.posn);
+        return null;
+    }
+
+    public Type visitAssignStmt(AssignStmt stmt, Object arg){
+        Type t = checkValue(stmt.ref, stmt.ref.visit(this, null), stmt.posn);
+        if (stmt.ref instanceof ThisRef)
+        	error("cannot assign to this", stmt.posn);
+        else if (stmt.ref instanceof QualifiedRef && declOf(stmt.ref) == null && t == Types.INT)
+        	error("cannot assign to the length of an array", stmt.posn);
+        expect(t, stmt.val.visit(this, null), stmt.val.posn);
+        return null;
+    }
+
+    public Type visitIxAssignStmt(IxAssignStmt stmt, Object arg){
+        Type t = stmt.ixRef.visit(this, null);
+        expect(t, stmt.val.visit(this, null), stmt.val.posn);
+        return null;
+    }
+
+    public Type visitCallStmt(CallStmt stmt, Object arg){
+        checkCall(stmt.methodRef, stmt.argList, stmt.posn);
+        return null;
+    }
+
+    public Type visitReturnStmt(ReturnStmt stmt, Object arg){
+        Type result = Types.canonical(currentMethod.type);
+        if (stmt.returnExpr == null){
+        	if (result != Types.VOID)
+        		error("missing return value", stmt.posn);
+        }
+        else{
+        	Type t = stmt.returnExpr.visit(this, null);
+        	if (result == Types.VOID)
+        		error("void method " + currentMethod.name + " cannot return a value", stmt.posn);
+        	else
+        		expect(result, t, stmt.returnExpr.posn);
+        }
+        return null;
+    }
+
+    public Type visitIfStmt(IfStmt stmt, Object arg){
+        expect(Types.BOOLEAN, stmt.cond.visit(this, null), stmt.cond.posn);
+        stmt.thenStmt.visit(this, null);
+        if (stmt.elseStmt != null)
+            stmt.elseStmt.visit(this, null);
+        return null;
+    }
+
+    public Type visitWhileStmt(WhileStmt stmt, Object arg){
+        expect(Types.BOOLEAN, stmt.cond.visit(this, null), stmt.cond.posn);
+        stmt.body.visit(this, null);
+        return null;
+    }
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// EXPRESSIONS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitUnaryExpr(UnaryExpr expr, Object arg){
+        Type t = expr.expr.visit(this, null);
+        Type operand = expr.operator.kind == TokenKind.NOT ? Types.BOOLEAN : Types.INT;
+        expect(operand, t, expr.expr.posn);
+        return operand;
+    }
+
+    public Type visitBinaryExpr(BinaryExpr expr, Object arg){
+        Type left = expr.left.visit(this, null);
+        Type right = expr.right.visit(this, null);
+        switch (expr.operator.kind){
+        case OR: case AND:
+        	expect(Types.BOOLEAN, left, expr.left.posn);
+        	expect(Types.BOOLEAN, right, expr.right.posn);
+        	return Types.BOOLEAN;
+        case LT: case GT: case LE: case GE:
+        	expect(Types.INT, left, expr.left.posn);
+        	expect(Types.INT, right, expr.right.posn);
+        	return Types.BOOLEAN;
+        case EQ: case NEQ:
+        	if (!Types.assignable(left, right) && !Types.assignable(right, left))
+        		error("cannot compare " + name(left) + " with " + name(right), expr.posn);
+        	return Types.BOOLEAN;
+        default:
+        	expect(Types.INT, left, expr.left.posn);
+        	expect(Types.INT, right, expr.right.posn);
+        	return Types.INT;
+        }
+    }
+
+    public Type visitRefExpr(RefExpr expr, Object arg){
+        return checkValue(expr.ref, expr.ref.visit(this, null), expr.posn);
+    }
+
+    public Type visitCallExpr(CallExpr expr, Object arg){
+        Type t = checkCall(expr.functionRef, expr.argList, expr.posn);
+        if (t == Types.VOID){
+        	error("void method used as a value", expr.posn);
+        	return Types.ERROR;
+        }
+        return t;
+    }
+
+    public Type visitLiteralExpr(LiteralExpr expr, Object arg){
+        return expr.lit.visit(this, null);
+    }
+
+    public Type visitNewArrayExpr(NewArrayExpr expr, Object arg){
+        expect(Types.INT, expr.sizeExpr.visit(this, null), expr.sizeExpr.posn);
+        Type elt = Types.canonical(expr.eltType);
+        if (elt == Types.VOID){
+        	error("cannot create an array of void", expr.posn);
+        	return Types.ERROR;
+        }
+        return elt == Types.ERROR ? elt : Types.arrayOf(elt);
+    }
+
+    public Type visitNewObjectExpr(NewObjectExpr expr, Object arg){
+        return Types.canonical(expr.classtype);
+    }
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// REFERENCES
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitQualifiedRef(QualifiedRef qr, Object arg) {
+    	Type t = qr.ref.visit(this, null);
+    	if (t == Types.ERROR)
+    		return t;
+    	Declaration owner = declOf(qr.ref);
+    	if (owner instanceof MethodDecl){
+    		error(owner.name + " is a method, not an object", qr.posn);
+    		return Types.ERROR;
+    	}
+    	if (qr.id.decl == null){
+    		if (t.typeKind == TypeKind.ARRAY && qr.id.spelling.equals("length"))
+    			return Types.INT;
+    		if (t.typeKind != TypeKind.CLASS){
+    			error(name(t) + " has no member " + qr.id.spelling, qr.id.posn);
+    			return Types.ERROR;
+    		}
+    		ClassDecl cd = (ClassDecl) ((ClassType) t).decl;
+    		qr.id.decl = cd.member(qr.id.spelling);
+    		if (qr.id.decl == null){
+    			error("No member " + qr.id.spelling + " in class " + cd.name, qr.id.posn);
+    			return Types.ERROR;
+    		}
+    	}
+    	MemberDecl md = (MemberDecl) qr.id.decl;
+    	ClassDecl cd = (ClassDecl) ((ClassType) t).decl;
+    	if (md.isPrivate && cd != currentClass)
+    		error(md.name + " is private to class " + cd.name, qr.id.posn);
+    	if (owner instanceof ClassDecl && qr.ref instanceof IdRef && !md.isStatic)
+    		error(md.name + " is not static", qr.id.posn);
+	    return Types.canonical(md.type);
+    }
+
+    public Type visitIndexedRef(IndexedRef ir, Object arg) {
+    	Type t = checkValue(ir.idRef, ir.idRef.visit(this, null), ir.posn);
+    	expect(Types.INT, ir.indexExpr.visit(this, null), ir.indexExpr.posn);
+    	if (t.typeKind == TypeKind.ARRAY)
+    		return ((ArrayType) t).eltType;
+    	if (t != Types.ERROR)
+    		error(name(t) + " is not an array", ir.posn);
+    	return Types.ERROR;
+    }
+
+    public Type visitIdRef(IdRef ref, Object arg) {
+    	Declaration decl = ref.id.decl;
+    	if (decl == null)
+    		return Types.ERROR;
+    	if (decl instanceof MemberDecl && !((MemberDecl) decl).isStatic
+    			&& currentMethod != null && currentMethod.isStatic)
+    		error(decl.name + " cannot be used in static method " + currentMethod.name, ref.posn);
+    	return Types.canonical(decl.type);
+    }
+
+    public Type visitThisRef(ThisRef ref, Object arg) {
+    	if (currentMethod != null && currentMethod.isStatic)
+    		error("this cannot be used in static method " + currentMethod.name, ref.posn);
+    	return Types.classType(currentClass);
+    }
+
+
+	///////////////////////////////////////////////////////////////////////////////
+	//
+	// TERMINALS
+	//
+	///////////////////////////////////////////////////////////////////////////////
+
+    public Type visitIdentifier(Identifier id, Object arg){
+        return id.decl == null ? Types.ERROR : Types.canonical(id.decl.type);
+    }
+
+    public Type visitOperator(Operator op, Object arg){
+        return null;
+    }
+
+    public Type visitIntLiteral(IntLiteral num, Object arg){
+        return Types.INT;
+    }
+
+    public Type visitBooleanLiteral(BooleanLiteral bool, Object arg){
+        return Types.BOOLEAN;
+    }
+}
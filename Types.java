@@ -0,0 +1,92 @@
+package miniJava.AbstractSyntaxTrees;
+
+import miniJava.SyntacticAnalyzer.SourcePosition;
+
+/*
+ * Canonical types.
+ *
+ * The type checker only works with canonical Type objects: one BaseType per
+ * TypeKind, one ClassType per ClassDecl (its type field), and one ArrayType
+ * per element type, kept by the element type.  Two canonical types are the
+ * same type exactly when they are the same object, and once the types of a
+ * program have been met, checking it allocates no Type at all.
+ *
+ * The Type nodes in the AST keep their positions and are mapped to canonical
+ * types with canonical().
+ */
+public final class Types {
+
+	private static final BaseType[] BASE = new BaseType[TypeKind.values().length];
+
+	static {
+		for (TypeKind kind : TypeKind.values()) {
+			if (kind != TypeKind.CLASS && kind != TypeKind.ARRAY)
+				BASE[kind.ordinal()] = new BaseType(kind, SourcePosition.NONE);
+		}
+	}
+
+	public static final BaseType INT = BASE[TypeKind.INT.ordinal()];
+	public static final BaseType BOOLEAN = BASE[TypeKind.BOOLEAN.ordinal()];
+	public static final BaseType VOID = BASE[TypeKind.VOID.ordinal()];
+	public static final BaseType NULL = BASE[TypeKind.NULL.ordinal()];
+	// the type of anything erroneous, which matches every type so one error is reported once
+	public static final BaseType ERROR = BASE[TypeKind.ERROR.ordinal()];
+
+	private Types() {
+	}
+
+	public static BaseType base(TypeKind kind) {
+		return BASE[kind.ordinal()];
+	}
+
+	/**
+	 * @return canonical type of instances of cd
+	 */
+	public static ClassType classType(ClassDecl cd) {
+		return (ClassType) cd.type;
+	}
+
+	/**
+	 * @param elt  a canonical type
+	 * @return canonical type of arrays of elt
+	 */
+	public static ArrayType arrayOf(Type elt) {
+		ArrayType t = elt.arrayOf;
+		if (t == null) {
+			synchronized (elt) {
+				t = elt.arrayOf;
+				if (t == null) {
+					t = new ArrayType(elt, SourcePosition.NONE);
+					elt.arrayOf = t;
+				}
+			}
+		}
+		return t;
+	}
+
+	/**
+	 * @return canonical type for a type in the AST, ERROR if it names no class
+	 */
+	public static Type canonical(Type t) {
+		switch (t.typeKind) {
+		case CLASS:
+			Declaration decl = ((ClassType) t).decl;
+			return decl instanceof ClassDecl ? decl.type : ERROR;
+		case ARRAY:
+			Type elt = canonical(((ArrayType) t).eltType);
+			return elt == ERROR ? ERROR : arrayOf(elt);
+		default:
+			return base(t.typeKind);
+		}
+	}
+
+	/**
+	 * @return whether a value of canonical type from may be stored where
+	 * canonical type to is expected
+	 */
+	public static boolean assignable(Type to, Type from) {
+		if (to == from || to == ERROR || from == ERROR)
+			return true;
+		return from == NULL && (to.typeKind == TypeKind.CLASS || to.typeKind == TypeKind.ARRAY);
+	}
+}
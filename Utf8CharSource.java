@@ -0,0 +1,109 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.IOException;
+
+/**
+ * Common UTF-8 decoding for the byte backed character sources.
+ * 
+ * Subclasses handle single byte (ASCII) characters inline in read() and
+ * only fall back to decode() for a multi-byte sequence or a buffer refill.
+ * Characters outside the BMP and malformed sequences decode to U+FFFD,
+ * they can only legally appear inside comments anyway.  A malformed
+ * sequence ends at the first byte that cannot continue it, which is read
+ * again as the start of the next character.
+ */
+abstract class Utf8CharSource implements CharSource {
+
+	static final int REPLACEMENT = 0xFFFD;
+	
+	// where the last character decode() returned ends, and its length in bytes
+	private long decodedEnd = -1;
+	private int decodedWidth;
+	
+	/**
+	 * @return next byte (0..255) of the input or -1 at end of input
+	 */
+	protected abstract int nextByte() throws IOException;
+	
+	/**
+	 * step back over the byte nextByte() just returned
+	 */
+	protected abstract void unreadByte();
+	
+	/**
+	 * a character read by the ASCII fast path is one byte; any other was
+	 * decoded, and its length recorded
+	 */
+	public long start(int c) {
+		long end = offset();
+		if (c < 0)
+			return end;
+		return end == decodedEnd ? end - decodedWidth : end - 1;
+	}
+	
+	/**
+	 * slow path of read(), decode the next character byte by byte
+	 */
+	protected int decode() throws IOException {
+		long begin = offset();
+		int c = decodeChar();
+		decodedEnd = offset();
+		decodedWidth = (int) (decodedEnd - begin);
+		return c;
+	}
+	
+	private int decodeChar() throws IOException {
+		int b = nextByte();
+		if (b < 0x80)
+			return b;	// ASCII or end of input
+		
+		int extra = extraBytes(b);
+		if (extra == 0)
+			return REPLACEMENT;
+		int c = b & (0x3F >> extra);
+		for (int i = 0; i < extra; i++) {
+			int n = nextByte();
+			if (n < 0)
+				return REPLACEMENT;
+			// not part of the sequence, so left to start the next character
+			if ((n & 0xC0) != 0x80) {
+				unreadByte();
+				return REPLACEMENT;
+			}
+			c = (c << 6) | (n & 0x3F);
+		}
+		if (c > 0xFFFF)
+			return REPLACEMENT;
+		return c;
+	}
+	
+	/**
+	 * @return number of continuation bytes a sequence led by byte b has,
+	 * 0 if b does not lead one
+	 */
+	private static int extraBytes(int b) {
+		if ((b & 0xE0) == 0xC0)
+			return 1;
+		if ((b & 0xF0) == 0xE0)
+			return 2;
+		if ((b & 0xF8) == 0xF0)
+			return 3;
+		return 0;
+	}
+	
+	/**
+	 * @return number of characters decode() reads from text[from..to),
+	 * malformed sequences counted as it counts them
+	 */
+	static int characters(byte[] text, int from, int to) {
+		int count = 0;
+		int i = from;
+		while (i < to) {
+			int extra = extraBytes(text[i++] & 0xFF);
+			for (int k = 0; k < extra && i < to && (text[i] & 0xC0) == 0x80; k++)
+				i++;
+			count++;
+		}
+		return count;
+	}
+}
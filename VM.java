@@ -0,0 +1,390 @@
+package miniJava.CodeGenerator;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import miniJava.Interpreter.ExecutionError;
+
+/*
+ * Runs the code of a program, in the manner of mJAM.
+ *
+ * The static fields and the stack of frames and operands live in memory
+ * allocated with the VM: the static fields from address 0, the stack
+ * above them.  A word of memory is an int in mem and a reference in refs,
+ * at the same address, and which of the two a word holds is known from
+ * the instruction that uses it.  A call pushes nothing but words, so a
+ * call allocates no Java objects, and a chain of calls that needs more
+ * words than memory has is a stack overflow.
+ *
+ * Objects and arrays are Java objects, an object of a class an Instance
+ * and an array an int[] or an Object[], and the JVM collects them once
+ * nothing refers to them; a program fails with "out of memory" only when
+ * the JVM's heap runs out.
+ *
+ * The instructions are run by one switch in one loop, with the registers
+ * (the code and pc of the method running, LB and ST) in local variables.
+ * The VM checks for the failures of a running program itself, giving the
+ * same ExecutionError as the Interpreter.
+ */
+public class VM {
+
+	private static final int MEMORY = 1 << 22;
+
+	private PrintStream out;
+	private int[] mem;
+	private Object[] refs;
+
+	// an object of a class, its fields of each kind numbered from 0
+	private static final class Instance {
+
+		private static final int[] NO_INTS = new int[0];
+		private static final Object[] NO_REFS = new Object[0];
+
+		final int[] ints;
+		final Object[] refs;
+
+		Instance(int ints, int refs) {
+			this.ints = ints == 0 ? NO_INTS : new int[ints];
+			this.refs = refs == 0 ? NO_REFS : new Object[refs];
+		}
+	}
+
+	/**
+	 * @param out  where System.out.println prints
+	 */
+	public VM(PrintStream out) {
+		this(out, MEMORY);
+	}
+
+	/**
+	 * @param out     where System.out.println prints
+	 * @param memory  words of memory, for the static fields and the stack
+	 */
+	public VM(PrintStream out, int memory) {
+		this.out = out;
+		this.mem = new int[memory];
+		this.refs = new Object[memory];
+	}
+
+	/**
+	 * run main, with its static fields empty each time this is called
+	 * @throws ExecutionError  if the program fails
+	 */
+	public void run(Program program) {
+		Method[] methods = program.methods;
+		int n = methods.length;
+		int[][] codes = new int[n][];
+		int[] args = new int[n];
+		int[] locals = new int[n];
+		int[] frames = new int[n];
+		boolean[] instance = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			codes[i] = methods[i].code;
+			args[i] = methods[i].args;
+			locals[i] = methods[i].locals;
+			frames[i] = methods[i].frameSize();
+			instance[i] = methods[i].instance;
+		}
+		int[] intFields = program.intFields;
+		int[] refFields = program.refFields;
+
+		int[] mem = this.mem;
+		Object[] refs = this.refs;
+		int st = program.statics;
+		Arrays.fill(mem, 0, st, 0);
+		Arrays.fill(refs, 0, st, null);
+		if (st + 1 + frames[program.main] > mem.length)
+			throw new ExecutionError("stack overflow");
+
+		// main(args), args an empty array, returning to method -1
+		refs[st++] = new Object[0];
+		int m = program.main;
+		int lb = st;
+		mem[lb] = 0;
+		mem[lb + 1] = -1;
+		mem[lb + 2] = 0;
+		st = lb + Method.LINK + locals[m];
+		int[] code = codes[m];
+		int pc = 0;
+
+		try {
+			for (;;) {
+				switch (code[pc++]) {
+				case Bytecode.LOADL:
+					mem[st++] = code[pc++];
+					break;
+				case Bytecode.LOAD:
+					mem[st++] = mem[lb + code[pc++]];
+					break;
+				case Bytecode.STORE:
+					mem[lb + code[pc++]] = mem[--st];
+					break;
+				case Bytecode.LOADS:
+					mem[st++] = mem[code[pc++]];
+					break;
+				case Bytecode.STORES:
+					mem[code[pc++]] = mem[--st];
+					break;
+				case Bytecode.LOADA:
+					refs[st++] = refs[lb + code[pc++]];
+					break;
+				case Bytecode.STOREA:
+					refs[lb + code[pc++]] = refs[--st];
+					break;
+				case Bytecode.LOADSA:
+					refs[st++] = refs[code[pc++]];
+					break;
+				case Bytecode.STORESA:
+					refs[code[pc++]] = refs[--st];
+					break;
+				case Bytecode.GETFIELD: {
+					Instance obj = (Instance) refs[st - 1];
+					if (obj == null)
+						throw nullReference();
+					mem[st - 1] = obj.ints[code[pc++]];
+					break;
+				}
+				case Bytecode.PUTFIELD: {
+					int value = mem[--st];
+					Instance obj = (Instance) refs[--st];
+					if (obj == null)
+						throw nullReference();
+					obj.ints[code[pc++]] = value;
+					break;
+				}
+				case Bytecode.GETFIELDA: {
+					Instance obj = (Instance) refs[st - 1];
+					if (obj == null)
+						throw nullReference();
+					refs[st - 1] = obj.refs[code[pc++]];
+					break;
+				}
+				case Bytecode.PUTFIELDA: {
+					Object value = refs[--st];
+					Instance obj = (Instance) refs[--st];
+					if (obj == null)
+						throw nullReference();
+					obj.refs[code[pc++]] = value;
+					break;
+				}
+				case Bytecode.ALOAD: {
+					int index = mem[--st];
+					int[] array = (int[]) refs[st - 1];
+					if (array == null)
+						throw nullReference();
+					if (index < 0 || index >= array.length)
+						throw outOfBounds(index, array.length);
+					mem[st - 1] = array[index];
+					break;
+				}
+				case Bytecode.ASTORE: {
+					int value = mem[--st];
+					int index = mem[--st];
+					int[] array = (int[]) refs[--st];
+					if (array == null)
+						throw nullReference();
+					if (index < 0 || index >= array.length)
+						throw outOfBounds(index, array.length);
+					array[index] = value;
+					break;
+				}
+				case Bytecode.AALOAD: {
+					int index = mem[--st];
+					Object[] array = (Object[]) refs[st - 1];
+					if (array == null)
+						throw nullReference();
+					if (index < 0 || index >= array.length)
+						throw outOfBounds(index, array.length);
+					refs[st - 1] = array[index];
+					break;
+				}
+				case Bytecode.AASTORE: {
+					Object value = refs[--st];
+					int index = mem[--st];
+					Object[] array = (Object[]) refs[--st];
+					if (array == null)
+						throw nullReference();
+					if (index < 0 || index >= array.length)
+						throw outOfBounds(index, array.length);
+					array[index] = value;
+					break;
+				}
+				case Bytecode.LENGTH: {
+					int[] array = (int[]) refs[st - 1];
+					if (array == null)
+						throw nullReference();
+					mem[st - 1] = array.length;
+					break;
+				}
+				case Bytecode.ALENGTH: {
+					Object[] array = (Object[]) refs[st - 1];
+					if (array == null)
+						throw nullReference();
+					mem[st - 1] = array.length;
+					break;
+				}
+				case Bytecode.NEWOBJ: {
+					int c = code[pc++];
+					refs[st++] = new Instance(intFields[c], refFields[c]);
+					break;
+				}
+				case Bytecode.NEWARR: {
+					int size = mem[st - 1];
+					if (size < 0)
+						throw new ExecutionError("negative array size " + size);
+					refs[st - 1] = new int[size];
+					break;
+				}
+				case Bytecode.ANEWARR: {
+					int size = mem[st - 1];
+					if (size < 0)
+						throw new ExecutionError("negative array size " + size);
+					refs[st - 1] = new Object[size];
+					break;
+				}
+				case Bytecode.ADD:
+					st--;
+					mem[st - 1] += mem[st];
+					break;
+				case Bytecode.SUB:
+					st--;
+					mem[st - 1] -= mem[st];
+					break;
+				case Bytecode.MUL:
+					st--;
+					mem[st - 1] *= mem[st];
+					break;
+				case Bytecode.DIV:
+					st--;
+					if (mem[st] == 0)
+						throw new ExecutionError("division by zero");
+					mem[st - 1] /= mem[st];
+					break;
+				case Bytecode.LT:
+					st--;
+					mem[st - 1] = mem[st - 1] < mem[st] ? 1 : 0;
+					break;
+				case Bytecode.GT:
+					st--;
+					mem[st - 1] = mem[st - 1] > mem[st] ? 1 : 0;
+					break;
+				case Bytecode.LE:
+					st--;
+					mem[st - 1] = mem[st - 1] <= mem[st] ? 1 : 0;
+					break;
+				case Bytecode.GE:
+					st--;
+					mem[st - 1] = mem[st - 1] >= mem[st] ? 1 : 0;
+					break;
+				case Bytecode.EQ:
+					st--;
+					mem[st - 1] = mem[st - 1] == mem[st] ? 1 : 0;
+					break;
+				case Bytecode.NE:
+					st--;
+					mem[st - 1] = mem[st - 1] != mem[st] ? 1 : 0;
+					break;
+				case Bytecode.AEQ:
+					st--;
+					mem[st - 1] = refs[st - 1] == refs[st] ? 1 : 0;
+					break;
+				case Bytecode.ANE:
+					st--;
+					mem[st - 1] = refs[st - 1] != refs[st] ? 1 : 0;
+					break;
+				case Bytecode.NEG:
+					mem[st - 1] = -mem[st - 1];
+					break;
+				case Bytecode.NOT:
+					mem[st - 1] ^= 1;
+					break;
+				case Bytecode.JUMP:
+					pc = code[pc];
+					break;
+				case Bytecode.JUMPZ:
+					pc = mem[--st] == 0 ? code[pc] : pc + 1;
+					break;
+				case Bytecode.JUMPNZ:
+					pc = mem[--st] != 0 ? code[pc] : pc + 1;
+					break;
+				case Bytecode.ANDJ:
+					if (mem[st - 1] == 0)
+						pc = code[pc];
+					else {
+						st--;
+						pc++;
+					}
+					break;
+				case Bytecode.ORJ:
+					if (mem[st - 1] != 0)
+						pc = code[pc];
+					else {
+						st--;
+						pc++;
+					}
+					break;
+				case Bytecode.CALL: {
+					int target = code[pc++];
+					if (instance[target] && refs[st - args[target]] == null)
+						throw nullReference();
+					if (st + frames[target] > mem.length)
+						throw new ExecutionError("stack overflow");
+					mem[st] = lb;
+					mem[st + 1] = m;
+					mem[st + 2] = pc;
+					lb = st;
+					st = lb + Method.LINK + locals[target];
+					m = target;
+					code = codes[m];
+					pc = 0;
+					break;
+				}
+				case Bytecode.RETURN:
+				case Bytecode.RETURNV:
+				case Bytecode.RETURNA: {
+					int op = code[pc - 1];
+					int result = mem[st - 1];
+					Object ref = refs[st - 1];
+					st = lb - code[pc];
+					m = mem[lb + 1];
+					pc = mem[lb + 2];
+					lb = mem[lb];
+					if (m < 0)
+						return;
+					if (op == Bytecode.RETURNV)
+						mem[st++] = result;
+					else if (op == Bytecode.RETURNA)
+						refs[st++] = ref;
+					code = codes[m];
+					break;
+				}
+				case Bytecode.PRINT:
+					out.println(mem[--st]);
+					break;
+				case Bytecode.POP:
+					st--;
+					break;
+				case Bytecode.POPA:
+					refs[--st] = null;
+					break;
+				case Bytecode.NULL:
+					refs[st++] = null;
+					break;
+				default:
+					throw new ExecutionError("bad instruction " + code[pc - 1]);
+				}
+			}
+		}
+		catch (OutOfMemoryError e) {
+			throw new ExecutionError("out of memory");
+		}
+	}
+
+	private static ExecutionError nullReference() {
+		return new ExecutionError("null reference");
+	}
+
+	private static ExecutionError outOfBounds(int index, int length) {
+		return new ExecutionError("array index out of bounds: Index " + index + " out of bounds for length " + length);
+	}
+}
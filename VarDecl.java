@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class VarDecl extends LocalDecl {
 	
-	public VarDecl(Type t, String name, SourcePosition posn) {
+	public VarDecl(Type t, String name, int posn) {
 		super(name, t, posn);
 	}
 	
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class VarDeclStmt extends Statement
 {
-    public VarDeclStmt(VarDecl vd, Expression e, SourcePosition posn){
+    public VarDeclStmt(VarDecl vd, Expression e, int posn){
         super(posn);
         varDecl = vd;
         initExp = e;
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class WhileStmt extends Statement
 {
-    public WhileStmt(Expression b, Statement s, SourcePosition posn){
+    public WhileStmt(Expression b, Statement s, int posn){
         super(posn);
         cond = b;
         body = s;